@@ -1,10 +1,16 @@
 package org.example;
 
+import org.example.server.MaintenanceCommand;
 import org.example.server.MrpServer;
 
 public class Application {
 
     public static void main(String[] args) {
+        // Wartungsbefehl (z. B. rebuild-rating-stats) statt Server
+        if (args.length > 0) {
+            System.exit(MaintenanceCommand.run(args));
+        }
+
         // Server erstellen
         MrpServer server = new MrpServer();
 
@@ -0,0 +1,185 @@
+package org.example.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// Einfacher In-Memory-Cache mit Groessenlimit (LRU-Verdraengung) und Ablaufzeit (TTL).
+public class BoundedCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    // Uhr austauschbar fuer Tests.
+    private final LongSupplier clock;
+
+    // accessOrder=true -> zuletzt benutzte Eintraege stehen hinten, der aelteste vorne.
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Laufende Ladevorgaenge: weitere Misses fuer denselben Key warten auf dasselbe Ergebnis.
+    private final Map<K, CompletableFuture<V>> inFlight = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long loads;
+    private long loadFailures;
+    private long coalescedLoads;
+    private long loadNanosTotal;
+    private long loadNanosMax;
+
+    public BoundedCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, System::currentTimeMillis);
+    }
+
+    public BoundedCache(String name, int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Cache braucht maxSize >= 1 und ttlMillis >= 1");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    // Wert holen; abgelaufene Eintraege zaehlen als Miss.
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // Wert holen oder bei Miss genau einmal laden (gleichzeitige Misses warten auf diesen Ladevorgang).
+    // null wird nicht gecacht; wird der Key waehrend des Ladens invalidiert, landet das Ergebnis nicht im Cache.
+    public V getOrLoad(K key, Function<K, V> loader) {
+        CompletableFuture<V> future;
+        boolean owner = false;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            future = inFlight.get(key);
+            if (future != null) {
+                coalescedLoads++;
+            } else {
+                future = new CompletableFuture<>();
+                inFlight.put(key, future);
+                owner = true;
+            }
+        }
+        if (owner) {
+            // Nur dieser Thread fragt die Quelle ab.
+            return load(key, loader, future);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Laden ausserhalb des Locks (andere Keys bleiben erreichbar), Ergebnis an alle Wartenden weitergeben.
+    private V load(K key, Function<K, V> loader, CompletableFuture<V> future) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                inFlight.remove(key, future);
+                recordLoad(System.nanoTime() - start);
+                loadFailures++;
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            recordLoad(System.nanoTime() - start);
+            // Fehlt der Eintrag, wurde der Key waehrend des Ladens invalidiert -> Wert evtl. veraltet.
+            if (inFlight.remove(key, future) && value != null) {
+                put(key, value);
+            }
+        }
+        future.complete(value);
+        return value;
+    }
+
+    private void recordLoad(long nanos) {
+        loads++;
+        loadNanosTotal += nanos;
+        loadNanosMax = Math.max(loadNanosMax, nanos);
+    }
+
+    // Wert speichern; bei vollem Cache wird der am laengsten unbenutzte Eintrag verdraengt.
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+        if (entries.size() > maxSize) {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Entfernt auch einen laufenden Ladevorgang, damit dessen (evtl. veraltetes) Ergebnis nicht gecacht wird.
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        inFlight.remove(key);
+    }
+
+    // Alle Eintraege entfernen, auf die die Bedingung zutrifft (z. B. alle Tokens eines Users).
+    public synchronized void invalidateIf(BiPredicate<K, V> condition) {
+        entries.entrySet().removeIf(e -> condition.test(e.getKey(), e.getValue().value));
+        // Werte laufender Ladevorgaenge sind noch unbekannt -> vorsichtshalber nicht cachen.
+        inFlight.clear();
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        inFlight.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Momentaufnahme der Statistiken.
+    public synchronized CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        stats.setName(name);
+        stats.setSize(entries.size());
+        stats.setMaxSize(maxSize);
+        stats.setHits(hits);
+        stats.setMisses(misses);
+        stats.setEvictions(evictions);
+        stats.setExpirations(expirations);
+        stats.setLoads(loads);
+        stats.setLoadFailures(loadFailures);
+        stats.setCoalescedLoads(coalescedLoads);
+        stats.setAverageLoadMillis(loads == 0 ? 0.0 : loadNanosTotal / (double) loads / 1_000_000.0);
+        stats.setMaxLoadMillis(loadNanosMax / 1_000_000.0);
+        return stats;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.cache;
+
+// Momentaufnahme der Cache-Statistiken (Ausgabe ueber /api/metrics).
+public class CacheStats {
+    private String name;
+    private int size;
+    private int maxSize;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    // Nur bei getOrLoad: Ladevorgaenge an der Quelle und deren Dauer.
+    private long loads;
+    private long loadFailures;
+    private long coalescedLoads;
+    private double averageLoadMillis;
+    private double maxLoadMillis;
+
+    public CacheStats() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Anteil Treffer an allen Zugriffen (0.0 wenn noch kein Zugriff).
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getLoads() {
+        return loads;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    // Misses, die auf einen bereits laufenden Ladevorgang gewartet haben.
+    public long getCoalescedLoads() {
+        return coalescedLoads;
+    }
+
+    public double getAverageLoadMillis() {
+        return averageLoadMillis;
+    }
+
+    public double getMaxLoadMillis() {
+        return maxLoadMillis;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public void setExpirations(long expirations) {
+        this.expirations = expirations;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    public void setLoadFailures(long loadFailures) {
+        this.loadFailures = loadFailures;
+    }
+
+    public void setCoalescedLoads(long coalescedLoads) {
+        this.coalescedLoads = coalescedLoads;
+    }
+
+    public void setAverageLoadMillis(double averageLoadMillis) {
+        this.averageLoadMillis = averageLoadMillis;
+    }
+
+    public void setMaxLoadMillis(double maxLoadMillis) {
+        this.maxLoadMillis = maxLoadMillis;
+    }
+}
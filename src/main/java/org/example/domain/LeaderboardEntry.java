@@ -5,6 +5,8 @@ public class LeaderboardEntry {
     private int userId;
     private String username;
     private int ratingCount;
+    // Platz (gleiche Anzahl = gleicher Platz); 0 = nicht berechnet.
+    private int rank;
 
     public LeaderboardEntry() {
     }
@@ -27,6 +29,10 @@ public class LeaderboardEntry {
         return ratingCount;
     }
 
+    public int getRank() {
+        return rank;
+    }
+
     public void setUserId(int userId) {
         this.userId = userId;
     }
@@ -38,4 +44,8 @@ public class LeaderboardEntry {
     public void setRatingCount(int ratingCount) {
         this.ratingCount = ratingCount;
     }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
 }
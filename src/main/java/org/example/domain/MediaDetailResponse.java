@@ -0,0 +1,29 @@
+package org.example.domain;
+
+// Ausgabe-DTO für GET /api/media/{id}: Medium + Rating-Statistik.
+public final class MediaDetailResponse extends MediaEntry {
+    private MediaRatingStats ratingStats;
+
+    public MediaDetailResponse() {
+    }
+
+    public MediaDetailResponse(MediaEntry media, MediaRatingStats ratingStats) {
+        setId(media.getId());
+        setTitle(media.getTitle());
+        setDescription(media.getDescription());
+        setMediaType(media.getMediaType());
+        setReleaseYear(media.getReleaseYear());
+        setGenres(media.getGenres());
+        setAgeRestriction(media.getAgeRestriction());
+        setCreatorId(media.getCreatorId());
+        this.ratingStats = ratingStats;
+    }
+
+    public MediaRatingStats getRatingStats() {
+        return ratingStats;
+    }
+
+    public void setRatingStats(MediaRatingStats ratingStats) {
+        this.ratingStats = ratingStats;
+    }
+}
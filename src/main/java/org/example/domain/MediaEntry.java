@@ -18,6 +18,18 @@ public class MediaEntry {
     public MediaEntry() {
     }
 
+    // Kopie (inkl. eigener Genre-Liste), z. B. fuer Cache-Eintraege.
+    public MediaEntry(MediaEntry other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.mediaType = other.mediaType;
+        this.releaseYear = other.releaseYear;
+        this.genres = other.genres == null ? null : new ArrayList<>(other.genres);
+        this.ageRestriction = other.ageRestriction;
+        this.creatorId = other.creatorId;
+    }
+
     // ===== GETTER =====
 
     public int getId() {
@@ -0,0 +1,92 @@
+package org.example.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ausgabe-DTO für POST /api/media/import: Zählung, Fehler pro Zeile und erreichter Durchsatz.
+public class MediaImportResult {
+    private int lines;
+    private int imported;
+    private int failed;
+    private List<LineError> errors = new ArrayList<>();
+    private long durationMillis;
+    private double recordsPerSecond;
+
+    public int getLines() {
+        return lines;
+    }
+
+    public void setLines(int lines) {
+        this.lines = lines;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<LineError> errors) {
+        this.errors = errors;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+
+    public void setRecordsPerSecond(double recordsPerSecond) {
+        this.recordsPerSecond = recordsPerSecond;
+    }
+
+    // Abgelehnte Zeile (Zeilennummer ab 1) mit derselben Meldung wie bei POST /api/media.
+    public static class LineError {
+        private int line;
+        private String error;
+
+        public LineError() {
+        }
+
+        public LineError(int line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public void setLine(int line) {
+            this.line = line;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
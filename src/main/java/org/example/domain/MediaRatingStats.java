@@ -0,0 +1,42 @@
+package org.example.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Ausgabe-DTO für die Rating-Statistik eines Mediums (aus media_rating_stats).
+public class MediaRatingStats {
+    private int ratingCount;
+    private double averageScore;
+    // Sterne (1-5) -> Anzahl Ratings
+    private Map<Integer, Integer> starCounts = new LinkedHashMap<>();
+
+    public MediaRatingStats() {
+        for (int stars = 1; stars <= 5; stars++) {
+            starCounts.put(stars, 0);
+        }
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public double getAverageScore() {
+        return averageScore;
+    }
+
+    public Map<Integer, Integer> getStarCounts() {
+        return starCounts;
+    }
+
+    public void setRatingCount(int ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public void setAverageScore(double averageScore) {
+        this.averageScore = averageScore;
+    }
+
+    public void setStarCounts(Map<Integer, Integer> starCounts) {
+        this.starCounts = starCounts;
+    }
+}
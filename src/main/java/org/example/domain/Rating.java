@@ -11,6 +11,8 @@ public class Rating {
     private String comment;
     private boolean commentConfirmed;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int likeCount;
 
     public Rating() {
     }
@@ -45,6 +47,14 @@ public class Rating {
         return createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
     // ===== SETTER =====
 
     public void setId(int id) {
@@ -74,4 +84,12 @@ public class Rating {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
 }
@@ -8,6 +8,8 @@ public class UserProfileResponse {
     private String favoriteGenre;
     private int totalRatings;
     private double averageScore;
+    private int likesReceived;
+    private int favoritesCount;
 
     public UserProfileResponse() {
     }
@@ -59,4 +61,20 @@ public class UserProfileResponse {
     public void setAverageScore(double averageScore) {
         this.averageScore = averageScore;
     }
+
+    public int getLikesReceived() {
+        return likesReceived;
+    }
+
+    public void setLikesReceived(int likesReceived) {
+        this.likesReceived = likesReceived;
+    }
+
+    public int getFavoritesCount() {
+        return favoritesCount;
+    }
+
+    public void setFavoritesCount(int favoritesCount) {
+        this.favoritesCount = favoritesCount;
+    }
 }
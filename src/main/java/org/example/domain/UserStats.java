@@ -0,0 +1,72 @@
+package org.example.domain;
+
+// Gepflegte Statistik eines Users (Tabelle user_stats) bzw. daraus neu berechnete Werte.
+public class UserStats {
+    private int userId;
+    private int ratingCount;
+    private int starSum;
+    private int likesReceived;
+    private int favoritesCount;
+
+    public UserStats() {
+    }
+
+    public UserStats(int userId, int ratingCount, int starSum, int likesReceived, int favoritesCount) {
+        this.userId = userId;
+        this.ratingCount = ratingCount;
+        this.starSum = starSum;
+        this.likesReceived = likesReceived;
+        this.favoritesCount = favoritesCount;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(int ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public int getStarSum() {
+        return starSum;
+    }
+
+    public void setStarSum(int starSum) {
+        this.starSum = starSum;
+    }
+
+    public int getLikesReceived() {
+        return likesReceived;
+    }
+
+    public void setLikesReceived(int likesReceived) {
+        this.likesReceived = likesReceived;
+    }
+
+    public int getFavoritesCount() {
+        return favoritesCount;
+    }
+
+    public void setFavoritesCount(int favoritesCount) {
+        this.favoritesCount = favoritesCount;
+    }
+
+    // Durchschnittliche Sterne (0 ohne Ratings).
+    public double getAverageScore() {
+        return ratingCount > 0 ? (double) starSum / ratingCount : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "ratings=" + ratingCount + ", stars=" + starSum + ", likes=" + likesReceived
+                + ", favorites=" + favoritesCount;
+    }
+}
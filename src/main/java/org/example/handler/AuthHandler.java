@@ -1,16 +1,17 @@
 package org.example.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import org.example.domain.User;
 import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
 import org.example.service.UserService;
 
 import java.io.IOException;
 import java.util.Map;
 
-// Verantwortlich fuer Registrierung und Login (nur Auth-Endpunkte).
-public class AuthHandler implements HttpHandler {
+// Verantwortlich fuer Registrierung, Login und Logout (nur Auth-Endpunkte).
+public class AuthHandler {
     // Zugriff auf User-Business-Logik.
     private final UserService userService;
 
@@ -19,32 +20,15 @@ public class AuthHandler implements HttpHandler {
         this.userService = userService;
     }
 
-    // Routing fuer /api/users/register und /api/users/login.
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        if (!method.equals("POST")) {
-            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
-            return;
-        }
-
-        if (path.equals("/api/users/register")) {
-            handleRegister(exchange);
-            return;
-        }
-
-        if (path.equals("/api/users/login")) {
-            handleLogin(exchange);
-            return;
-        }
-
-        HttpUtil.sendError(exchange, 404, "Not Found");
+    // Routen fuer /api/users/register, /api/users/login und /api/users/logout anmelden.
+    public void registerRoutes(Router router) {
+        router.post("/api/users/register", this::handleRegister)
+                .post("/api/users/login", this::handleLogin)
+                .post("/api/users/logout", this::handleLogout);
     }
 
     // Registrierung eines neuen Users.
-    private void handleRegister(HttpExchange exchange) throws IOException {
+    private void handleRegister(HttpExchange exchange, PathParams params) throws IOException {
         User user = HttpUtil.readJson(exchange, User.class);
 
         try {
@@ -56,7 +40,7 @@ public class AuthHandler implements HttpHandler {
     }
 
     // Login und Rueckgabe eines Tokens.
-    private void handleLogin(HttpExchange exchange) throws IOException {
+    private void handleLogin(HttpExchange exchange, PathParams params) throws IOException {
         User loginData = HttpUtil.readJson(exchange, User.class);
 
         try {
@@ -66,4 +50,21 @@ public class AuthHandler implements HttpHandler {
             HttpUtil.sendError(exchange, 401, e.getMessage());
         }
     }
+
+    // Logout: aktuellen Token ungueltig machen (?all=true: alle Tokens des Users).
+    private void handleLogout(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
+            return;
+        }
+
+        Map<String, String> query = HttpUtil.parseQuery(exchange.getRequestURI().getQuery());
+        if ("true".equals(query.get("all"))) {
+            userService.logoutEverywhere(authUser.getId());
+        } else {
+            userService.logout(authUser);
+        }
+        HttpUtil.sendEmpty(exchange, 204);
+    }
 }
@@ -0,0 +1,90 @@
+package org.example.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.http.ExportFormat;
+import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+import org.example.persistence.RatingRepository;
+import org.example.service.RatingService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Handler fuer /api/export (Massendaten fuer Auswertungen, gestreamt statt seitenweise).
+// Der Export enthaelt die Ratings aller User: zusaetzlich zum Login ist das Export-Token noetig
+// (Header X-Export-Token); ohne konfiguriertes Token ist der Export abgeschaltet.
+public class ExportHandler {
+    public static final String TOKEN_HEADER = "X-Export-Token";
+
+    // Service fuer Rating-Daten.
+    private final RatingService ratingService;
+    // Erwartetes Export-Token (null = Export fuer niemanden freigegeben).
+    private final byte[] exportToken;
+
+    public ExportHandler(RatingService ratingService, String exportToken) {
+        this.ratingService = ratingService;
+        this.exportToken = exportToken == null || exportToken.isBlank() ? null
+                : exportToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Export-Token aus -Dmrp.export.token.
+    public static ExportHandler fromSystemProperties(RatingService ratingService) {
+        return new ExportHandler(ratingService, System.getProperty("mrp.export.token"));
+    }
+
+    // Routen fuer /api/export anmelden.
+    public void registerRoutes(Router router) {
+        router.get("/api/export/ratings", this::handleRatings);
+    }
+
+    // GET /api/export/ratings?format=ndjson|csv&include=media&updatedSince=2024-05-01T09:30:00
+    private void handleRatings(HttpExchange exchange, PathParams pathParams) throws IOException {
+        if (!isAuthorized(exchange.getRequestHeaders().getFirst(TOKEN_HEADER))) {
+            HttpUtil.sendError(exchange, 403, "Export nur mit gueltigem Export-Token");
+            return;
+        }
+        var params = HttpUtil.parseQuery(exchange.getRequestURI().getQuery());
+        ExportFormat format;
+        LocalDateTime updatedSince;
+        try {
+            format = ExportFormat.parse(params.get("format"));
+            updatedSince = parseTimestamp(params.get("updatedSince"));
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        boolean withMedia = "media".equalsIgnoreCase(params.get("include"));
+
+        List<String> columns = new ArrayList<>(RatingRepository.EXPORT_COLUMNS);
+        if (withMedia) {
+            columns.addAll(RatingRepository.EXPORT_MEDIA_COLUMNS);
+        }
+        // Direkt aus dem DB-Cursor in den Socket.
+        HttpUtil.streamTable(exchange, 500, format, columns,
+                sink -> ratingService.exportRatings(updatedSince, withMedia, sink));
+    }
+
+    // Vergleich in konstanter Zeit (kein Raten des Tokens ueber Antwortzeiten).
+    private boolean isAuthorized(String token) {
+        return exportToken != null && token != null
+                && MessageDigest.isEqual(exportToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Wasserzeichen im ISO-Format (wie updatedAt in der Ausgabe); leer = kompletter Export.
+    private LocalDateTime parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("updatedSince muss ein Zeitpunkt wie 2024-05-01T09:30:00 sein");
+        }
+    }
+}
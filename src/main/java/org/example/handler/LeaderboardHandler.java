@@ -1,14 +1,20 @@
 package org.example.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
+import org.example.domain.LeaderboardEntry;
+import org.example.domain.User;
 import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RatingRepository;
 import org.example.service.RatingService;
 
 import java.io.IOException;
+import java.util.List;
 
 // Handler fuer /api/leaderboard.
-public class LeaderboardHandler implements HttpHandler {
+public class LeaderboardHandler {
     // Service fuer Leaderboard-Daten.
     private final RatingService ratingService;
 
@@ -16,19 +22,56 @@ public class LeaderboardHandler implements HttpHandler {
         this.ratingService = ratingService;
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
+    // Hoechstens so viele Nachbarn vor/nach dem eigenen Platz.
+    private static final int MAX_NEIGHBOURS = 50;
 
-        if (!method.equals("GET")) {
-            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
+    // Routen fuer /api/leaderboard anmelden.
+    public void registerRoutes(Router router) {
+        router.get("/api/leaderboard", this::handleLeaderboard)
+                .get("/api/leaderboard/me", this::handleMyRank);
+    }
+
+    // GET /api/leaderboard (limit/cursor optional)
+    private void handleLeaderboard(HttpExchange exchange, PathParams params) throws IOException {
+        PageRequest page;
+        try {
+            page = PageRequest.fromQuery(HttpUtil.parseQuery(exchange.getRequestURI().getQuery()),
+                    RatingRepository.LEADERBOARD_SORT);
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
             return;
         }
+        HttpUtil.streamJsonPage(exchange, 400, page, sink -> ratingService.streamLeaderboard(page, sink));
+    }
+
+    // GET /api/leaderboard/me?neighbours=n (eigener Platz mit n Plaetzen davor und danach, Standard 2)
+    private void handleMyRank(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
+            return;
+        }
+
+        int neighbours = 2;
+        String neighboursParam = HttpUtil.parseQuery(exchange.getRequestURI().getQuery()).get("neighbours");
+        if (neighboursParam != null) {
+            try {
+                neighbours = Integer.parseInt(neighboursParam);
+            } catch (NumberFormatException e) {
+                neighbours = -1;
+            }
+            if (neighbours < 0) {
+                HttpUtil.sendError(exchange, 400, "Ungueltiger Wert fuer neighbours");
+                return;
+            }
+        }
 
         try {
-            HttpUtil.sendJson(exchange, 200, ratingService.getLeaderboard());
+            List<LeaderboardEntry> entries = ratingService.getLeaderboardAround(authUser.getId(),
+                    Math.min(neighbours, MAX_NEIGHBOURS));
+            HttpUtil.sendJson(exchange, 200, entries);
         } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, e.getMessage());
+            HttpUtil.sendError(exchange, 404, e.getMessage());
         }
     }
 }
@@ -1,17 +1,25 @@
 package org.example.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
+import org.example.domain.MediaDetailResponse;
 import org.example.domain.MediaEntry;
+import org.example.domain.MediaImportResult;
 import org.example.domain.User;
 import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+import org.example.persistence.MediaRepository;
+import org.example.persistence.PageRequest;
 import org.example.service.MediaService;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 // Handler fuer /api/media und /api/media/{id}.
-public class MediaHandler implements HttpHandler {
+public class MediaHandler {
     // Business-Logik fuer Media.
     private final MediaService mediaService;
 
@@ -19,66 +27,71 @@ public class MediaHandler implements HttpHandler {
         this.mediaService = mediaService;
     }
 
-    // Zentrales Routing nach HTTP-Methode.
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        switch (method) {
-            case "GET":
-                handleGet(exchange, path);
-                break;
-            case "POST":
-                handlePost(exchange);
-                break;
-            case "PUT":
-                handlePut(exchange, path);
-                break;
-            case "DELETE":
-                handleDelete(exchange, path);
-                break;
-            default:
-                HttpUtil.sendError(exchange, 405, "Method Not Allowed");
-        }
+    // Routen fuer /api/media und /api/media/{id} anmelden.
+    public void registerRoutes(Router router) {
+        router.get("/api/media", this::handleList)
+                .post("/api/media", this::handlePost)
+                .post("/api/media/import", this::handleImport)
+                .get("/api/media/{id:int}", this::handleGet)
+                .get("/api/media/{id:int}/similar", this::handleSimilar)
+                .put("/api/media/{id:int}", this::handlePut)
+                .delete("/api/media/{id:int}", this::handleDelete);
     }
 
-    // GET /api/media oder /api/media/{id}
-    private void handleGet(HttpExchange exchange, String path) throws IOException {
-        if (path.equals("/api/media")) {
-            String query = exchange.getRequestURI().getQuery();
-            if (query == null || query.isBlank()) {
-                List<MediaEntry> list = mediaService.getAll();
-                HttpUtil.sendJson(exchange, 200, list);
-                return;
-            }
-
-            // Query-Parameter auslesen und filtern.
-            var params = HttpUtil.parseQuery(query);
-            String title = params.get("title");
-            String genre = params.get("genre");
-            String mediaType = params.get("mediaType");
-            Integer releaseYear = parseInt(params.get("releaseYear"));
-            Integer ageRestriction = parseInt(params.get("ageRestriction"));
-            Double rating = parseDouble(params.get("rating"));
-            String sortBy = params.get("sortBy");
-
-            List<MediaEntry> list = mediaService.search(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy);
-            HttpUtil.sendJson(exchange, 200, list);
+    // GET /api/media (optional mit Filtern und limit/cursor)
+    private void handleList(HttpExchange exchange, PathParams pathParams) throws IOException {
+        // Query-Parameter auslesen und filtern.
+        var params = HttpUtil.parseQuery(exchange.getRequestURI().getQuery());
+        String title = params.get("title");
+        String genre = params.get("genre");
+        String mediaType = params.get("mediaType");
+        Integer releaseYear = parseInt(params.get("releaseYear"));
+        Integer ageRestriction = parseInt(params.get("ageRestriction"));
+        Double rating = parseDouble(params.get("rating"));
+        String sortBy = params.get("sortBy");
+
+        PageRequest page;
+        try {
+            page = PageRequest.fromQuery(params, MediaRepository.sortKey(sortBy));
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
             return;
         }
 
+        // Direkt aus dem DB-Cursor in den Socket (keine Liste im Speicher).
+        HttpUtil.streamJsonPage(exchange, 400, page, sink -> mediaService.streamPage(title, genre, mediaType,
+                releaseYear, ageRestriction, rating, sortBy, page, sink));
+    }
+
+    // GET /api/media/{id}
+    private void handleGet(HttpExchange exchange, PathParams pathParams) throws IOException {
         try {
-            int id = extractIdFromPath(path);
-            MediaEntry media = mediaService.getById(id);
+            MediaDetailResponse media = mediaService.getDetail(pathParams.getInt("id"));
             HttpUtil.sendJson(exchange, 200, media);
         } catch (Exception e) {
             HttpUtil.sendError(exchange, 404, e.getMessage());
         }
     }
 
+    // GET /api/media/{id}/similar?limit=
+    private void handleSimilar(HttpExchange exchange, PathParams pathParams) throws IOException {
+        var params = HttpUtil.parseQuery(exchange.getRequestURI().getQuery());
+        Integer limit = parseInt(params.get("limit"));
+        try {
+            List<MediaEntry> similar = mediaService.findSimilar(pathParams.getInt("id"),
+                    limit != null ? limit : MediaService.DEFAULT_SIMILAR_LIMIT);
+            HttpUtil.sendJson(exchange, 200, similar);
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            HttpUtil.sendError(exchange, 503, e.getMessage());
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 404, e.getMessage());
+        }
+    }
+
     // POST /api/media
-    private void handlePost(HttpExchange exchange) throws IOException {
+    private void handlePost(HttpExchange exchange, PathParams pathParams) throws IOException {
         User authUser = (User) exchange.getAttribute("authUser");
         if (authUser == null) {
             HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
@@ -94,22 +107,35 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    // PUT /api/media/{id}
-    private void handlePut(HttpExchange exchange, String path) throws IOException {
+    // POST /api/media/import (NDJSON: ein Medium pro Zeile)
+    private void handleImport(HttpExchange exchange, PathParams pathParams) throws IOException {
         User authUser = (User) exchange.getAttribute("authUser");
         if (authUser == null) {
             HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
 
-        int id;
-        try {
-            id = extractIdFromPath(path);
+        // Body zeilenweise lesen, jede Zeile geht sofort weiter in das COPY.
+        try (BufferedReader ndjson = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            MediaImportResult result = mediaService.importMedia(ndjson,
+                    line -> HttpUtil.parseJson(line, MediaEntry.class), authUser.getId());
+            HttpUtil.sendJson(exchange, 200, result);
         } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, "Ungueltige ID");
+            HttpUtil.sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    // PUT /api/media/{id}
+    private void handlePut(HttpExchange exchange, PathParams pathParams) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
 
+        int id = pathParams.getInt("id");
+
         MediaEntry updated = HttpUtil.readJson(exchange, MediaEntry.class);
         try {
             MediaEntry result = mediaService.update(id, updated, authUser.getId());
@@ -120,20 +146,14 @@ public class MediaHandler implements HttpHandler {
     }
 
     // DELETE /api/media/{id}
-    private void handleDelete(HttpExchange exchange, String path) throws IOException {
+    private void handleDelete(HttpExchange exchange, PathParams pathParams) throws IOException {
         User authUser = (User) exchange.getAttribute("authUser");
         if (authUser == null) {
             HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
 
-        int id;
-        try {
-            id = extractIdFromPath(path);
-        } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, "Ungueltige ID");
-            return;
-        }
+        int id = pathParams.getInt("id");
 
         try {
             mediaService.delete(id, authUser.getId());
@@ -143,12 +163,6 @@ public class MediaHandler implements HttpHandler {
         }
     }
 
-    // /api/media/5 -> 5
-    private int extractIdFromPath(String path) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[parts.length - 1]);
-    }
-
     // Hilfsmethode für optionale Integer-Parameter.
     private Integer parseInt(String value) {
         if (value == null || value.isBlank()) {
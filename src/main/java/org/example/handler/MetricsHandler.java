@@ -0,0 +1,36 @@
+package org.example.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Handler fuer /api/metrics (Statistiken von Pool, Caches, Server).
+public class MetricsHandler {
+    // Name -> Lieferant einer aktuellen Momentaufnahme.
+    private final Map<String, Supplier<Object>> sources = new LinkedHashMap<>();
+
+    // Neue Metrik-Quelle anmelden (beim Server-Start).
+    public void register(String name, Supplier<Object> source) {
+        sources.put(name, source);
+    }
+
+    // Route fuer GET /api/metrics anmelden.
+    public void registerRoutes(Router router) {
+        router.get("/api/metrics", this::handleMetrics);
+    }
+
+    // GET /api/metrics
+    private void handleMetrics(HttpExchange exchange, PathParams params) throws IOException {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Object>> source : sources.entrySet()) {
+            snapshot.put(source.getKey(), source.getValue().get());
+        }
+        HttpUtil.sendJson(exchange, 200, snapshot);
+    }
+}
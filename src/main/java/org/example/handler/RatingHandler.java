@@ -1,16 +1,21 @@
 package org.example.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import org.example.domain.RatingInput;
 import org.example.domain.User;
 import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RatingRepository;
+import org.example.persistence.RatingWrite;
 import org.example.service.RatingService;
 
 import java.io.IOException;
+import java.util.Map;
 
 // Handler fuer Rating-Endpunkte (rate, update, delete, like, confirm).
-public class RatingHandler implements HttpHandler {
+public class RatingHandler {
 
     // Service fuer Rating-Business-Logik.
     private final RatingService ratingService;
@@ -19,122 +24,135 @@ public class RatingHandler implements HttpHandler {
         this.ratingService = ratingService;
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
+    // Routen fuer /api/media/{id}/rate und /api/ratings/... anmelden.
+    public void registerRoutes(Router router) {
+        router.post("/api/media/{mediaId:int}/rate", this::handleRateMedia)
+                .get("/api/media/{mediaId:int}/comments", this::handleTopComments)
+                .put("/api/ratings/{id:int}", this::handleRatingUpdate)
+                .delete("/api/ratings/{id:int}", this::handleRatingDelete)
+                .post("/api/ratings/{id:int}/like", this::handleLike)
+                .get("/api/ratings/{id:int}/likes", this::handleLikeCount)
+                .post("/api/ratings/{id:int}/confirm", this::handleConfirm);
+    }
 
+    // POST /api/media/{id}/rate
+    private void handleRateMedia(HttpExchange exchange, PathParams params) throws IOException {
         User authUser = (User) exchange.getAttribute("authUser");
         if (authUser == null) {
             HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
+        int mediaId = params.getInt("mediaId");
+        RatingInput input = HttpUtil.readJson(exchange, RatingInput.class);
 
-        if (path.matches("^/api/media/\\d+/rate$")) {
-            handleRateMedia(exchange, method, path);
-            return;
-        }
+        // ?mode=upsert ueberschreibt ein vorhandenes eigenes Rating statt 409 zu liefern.
+        boolean upsert = "upsert".equalsIgnoreCase(HttpUtil.parseQuery(exchange.getRequestURI().getQuery()).get("mode"));
 
-        if (path.matches("^/api/ratings/\\d+$")) {
-            handleRatingUpdateDelete(exchange, method, path);
-            return;
+        try {
+            RatingWrite result = ratingService.rateMedia(mediaId, authUser.getId(), input.getStars(),
+                    input.getComment(), upsert);
+            if (result.status() == RatingWrite.Status.CONFLICT) {
+                HttpUtil.sendError(exchange, 409, "Es existiert bereits ein Rating für dieses Medium");
+                return;
+            }
+            HttpUtil.sendJson(exchange, result.status() == RatingWrite.Status.CREATED ? 201 : 200, result.rating());
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
         }
+    }
 
-        if (path.matches("^/api/ratings/\\d+/like$")) {
-            handleLike(exchange, method, path);
+    // PUT /api/ratings/{id}
+    private void handleRatingUpdate(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
-
-        if (path.matches("^/api/ratings/\\d+/confirm$")) {
-            handleConfirm(exchange, method, path);
-            return;
+        int ratingId = params.getInt("id");
+        RatingInput input = HttpUtil.readJson(exchange, RatingInput.class);
+        try {
+            var rating = ratingService.updateRating(ratingId, authUser.getId(), input.getStars(), input.getComment());
+            HttpUtil.sendJson(exchange, 200, rating);
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 403, e.getMessage());
         }
-
-        HttpUtil.sendError(exchange, 404, "Not Found");
     }
 
-    // POST /api/media/{id}/rate
-    private void handleRateMedia(HttpExchange exchange, String method, String path) throws IOException {
-        if (!method.equals("POST")) {
-            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
+    // DELETE /api/ratings/{id}
+    private void handleRatingDelete(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
-        int mediaId = extractId(path, 2);
-        RatingInput input = HttpUtil.readJson(exchange, RatingInput.class);
-        User authUser = (User) exchange.getAttribute("authUser");
-
+        int ratingId = params.getInt("id");
         try {
-            var rating = ratingService.createRating(mediaId, authUser.getId(), input.getStars(), input.getComment());
-            HttpUtil.sendJson(exchange, 201, rating);
+            ratingService.deleteRating(ratingId, authUser.getId());
+            HttpUtil.sendEmpty(exchange, 204);
         } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, e.getMessage());
+            HttpUtil.sendError(exchange, 403, e.getMessage());
         }
     }
 
-    // PUT oder DELETE /api/ratings/{id}
-    private void handleRatingUpdateDelete(HttpExchange exchange, String method, String path) throws IOException {
-        if (method.equals("PUT")) {
-            int ratingId;
-            try {
-                ratingId = extractId(path, 1);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, "Ungueltige Rating-ID");
-                return;
-            }
-            RatingInput input = HttpUtil.readJson(exchange, RatingInput.class);
-            User authUser = (User) exchange.getAttribute("authUser");
-            try {
-                var rating = ratingService.updateRating(ratingId, authUser.getId(), input.getStars(), input.getComment());
-                HttpUtil.sendJson(exchange, 200, rating);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 403, e.getMessage());
-            }
+    // POST /api/ratings/{id}/like
+    private void handleLike(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
-        if (method.equals("DELETE")) {
-            int ratingId;
-            try {
-                ratingId = extractId(path, 1);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, "Ungueltige Rating-ID");
+        int ratingId = params.getInt("id");
+        try {
+            RatingService.LikeResult result = ratingService.likeRating(ratingId, authUser.getId());
+            if (result == RatingService.LikeResult.REJECTED) {
+                // Queue voll: Client soll kurz warten und es erneut versuchen.
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                HttpUtil.sendError(exchange, 503, "Zu viele Likes gleichzeitig, bitte erneut versuchen");
                 return;
             }
-            User authUser = (User) exchange.getAttribute("authUser");
-            try {
-                ratingService.deleteRating(ratingId, authUser.getId());
-                HttpUtil.sendEmpty(exchange, 204);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 403, e.getMessage());
-            }
-            return;
+            HttpUtil.sendEmpty(exchange, result == RatingService.LikeResult.QUEUED ? 202 : 200);
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
         }
-        HttpUtil.sendError(exchange, 405, "Method Not Allowed");
     }
 
-    // POST /api/ratings/{id}/like
-    private void handleLike(HttpExchange exchange, String method, String path) throws IOException {
-        if (!method.equals("POST")) {
-            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
+    // GET /api/media/{id}/comments (limit/cursor optional)
+    private void handleTopComments(HttpExchange exchange, PathParams params) throws IOException {
+        int mediaId = params.getInt("mediaId");
+        PageRequest page;
+        try {
+            page = PageRequest.fromQuery(HttpUtil.parseQuery(exchange.getRequestURI().getQuery()),
+                    RatingRepository.TOP_COMMENTS_SORT);
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
             return;
         }
-        int ratingId = extractId(path, 2);
-        User authUser = (User) exchange.getAttribute("authUser");
+        HttpUtil.streamJsonPage(exchange, 400, page, sink -> ratingService.streamTopComments(mediaId, page, sink));
+    }
+
+    // GET /api/ratings/{id}/likes
+    private void handleLikeCount(HttpExchange exchange, PathParams params) throws IOException {
+        int ratingId = params.getInt("id");
         try {
-            ratingService.likeRating(ratingId, authUser.getId());
-            HttpUtil.sendEmpty(exchange, 200);
+            Integer likes = ratingService.countLikes(ratingId);
+            if (likes == null) {
+                HttpUtil.sendError(exchange, 404, "Rating nicht gefunden");
+                return;
+            }
+            HttpUtil.sendJson(exchange, 200, Map.of("ratingId", ratingId, "likes", likes));
         } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, e.getMessage());
+            HttpUtil.sendError(exchange, 500, e.getMessage());
         }
     }
 
     // POST /api/ratings/{id}/confirm
-    private void handleConfirm(HttpExchange exchange, String method, String path) throws IOException {
-        if (!method.equals("POST")) {
-            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
+    private void handleConfirm(HttpExchange exchange, PathParams params) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
             return;
         }
-        int ratingId = extractId(path, 2);
-        User authUser = (User) exchange.getAttribute("authUser");
+        int ratingId = params.getInt("id");
         try {
             ratingService.confirmComment(ratingId, authUser.getId());
             HttpUtil.sendEmpty(exchange, 200);
@@ -142,10 +160,4 @@ public class RatingHandler implements HttpHandler {
             HttpUtil.sendError(exchange, 403, e.getMessage());
         }
     }
-
-    // Hilfsmethode: ID aus Pfad holen, z. B. /api/ratings/5 -> 5
-    private int extractId(String path, int indexFromEnd) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[parts.length - indexFromEnd]);
-    }
 }
@@ -1,11 +1,14 @@
 package org.example.handler;
 
 import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import org.example.domain.User;
 import org.example.domain.UserProfileResponse;
 import org.example.domain.UserProfileUpdate;
 import org.example.http.HttpUtil;
+import org.example.http.PathParams;
+import org.example.http.Router;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RatingRepository;
 import org.example.service.FavoriteService;
 import org.example.service.RatingService;
 import org.example.service.UserService;
@@ -14,7 +17,7 @@ import org.example.service.RecommendationService;
 import java.io.IOException;
 
 // Handler für User-bezogene Endpunkte (Profil, Ratings, Favorites, Recommendations).
-public class UserHandler implements HttpHandler {
+public class UserHandler {
     // Services für Business-Logik.
     private final UserService userService;
     private final RatingService ratingService;
@@ -29,128 +32,126 @@ public class UserHandler implements HttpHandler {
         this.recommendationService = recommendationService;
     }
 
-    // Routing basierend auf dem Pfadende (z. B. /profile).
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        String method = exchange.getRequestMethod();
-        String path = exchange.getRequestURI().getPath();
-
-        int userId;
-        try {
-            userId = extractUserId(path);
-        } catch (Exception e) {
-            HttpUtil.sendError(exchange, 400, "Ungültige User-ID");
-            return;
-        }
+    // Routen fuer /api/users/{id}/... anmelden.
+    public void registerRoutes(Router router) {
+        router.get("/api/users/{id:int}/profile", this::handleGetProfile)
+                .put("/api/users/{id:int}/profile", this::handleUpdateProfile)
+                .get("/api/users/{id:int}/ratings", this::handleRatings)
+                .get("/api/users/{id:int}/favorites", this::handleFavorites)
+                .get("/api/users/{id:int}/recommendations", this::handleRecommendations);
+    }
 
-        User authUser = (User) exchange.getAttribute("authUser");
-        if (authUser == null) {
-            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
+    // GET /profile
+    private void handleGetProfile(HttpExchange exchange, PathParams pathParams) throws IOException {
+        int userId = pathParams.getInt("id");
+        if (!checkOwnUser(exchange, userId)) {
             return;
         }
-        if (authUser.getId() != userId) {
-            HttpUtil.sendError(exchange, 403, "Kein Zugriff auf fremdes Profil");
-            return;
+        try {
+            UserProfileResponse profile = userService.getProfile(userId);
+            HttpUtil.sendJson(exchange, 200, profile);
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 404, e.getMessage());
         }
+    }
 
-        if (path.endsWith("/profile")) {
-            handleProfile(exchange, method, userId);
+    // PUT /profile
+    private void handleUpdateProfile(HttpExchange exchange, PathParams pathParams) throws IOException {
+        int userId = pathParams.getInt("id");
+        if (!checkOwnUser(exchange, userId)) {
             return;
         }
-
-        if (path.endsWith("/ratings")) {
-            handleRatings(exchange, method, userId);
-            return;
+        UserProfileUpdate update = HttpUtil.readJson(exchange, UserProfileUpdate.class);
+        try {
+            userService.updateProfile(userId, update);
+            UserProfileResponse profile = userService.getProfile(userId);
+            HttpUtil.sendJson(exchange, 200, profile);
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
         }
+    }
 
-        if (path.endsWith("/favorites")) {
-            handleFavorites(exchange, method, userId);
+    // GET /ratings (limit/cursor optional)
+    private void handleRatings(HttpExchange exchange, PathParams pathParams) throws IOException {
+        int userId = pathParams.getInt("id");
+        if (!checkOwnUser(exchange, userId)) {
             return;
         }
-
-        if (path.endsWith("/recommendations")) {
-            handleRecommendations(exchange, method, userId);
+        PageRequest page;
+        try {
+            page = PageRequest.fromQuery(HttpUtil.parseQuery(exchange.getRequestURI().getQuery()),
+                    RatingRepository.USER_RATINGS_SORT);
+        } catch (IllegalArgumentException e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
             return;
         }
-
-        HttpUtil.sendError(exchange, 404, "Not Found");
+        HttpUtil.streamJsonPage(exchange, 400, page, sink -> ratingService.streamRatingsByUser(userId, page, sink));
     }
 
-    // GET/PUT /profile (Logik folgt spaeter im Service).
-    private void handleProfile(HttpExchange exchange, String method, int userId) throws IOException {
-        if (method.equals("GET")) {
-            try {
-                UserProfileResponse profile = userService.getProfile(userId);
-                HttpUtil.sendJson(exchange, 200, profile);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 404, e.getMessage());
-            }
+    // GET /favorites
+    private void handleFavorites(HttpExchange exchange, PathParams pathParams) throws IOException {
+        int userId = pathParams.getInt("id");
+        if (!checkOwnUser(exchange, userId)) {
             return;
         }
-        if (method.equals("PUT")) {
-            UserProfileUpdate update = HttpUtil.readJson(exchange, UserProfileUpdate.class);
-            try {
-                userService.updateProfile(userId, update);
-                UserProfileResponse profile = userService.getProfile(userId);
-                HttpUtil.sendJson(exchange, 200, profile);
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, e.getMessage());
-            }
-            return;
+        try {
+            HttpUtil.sendJson(exchange, 200, favoriteService.getFavoritesByUser(userId));
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
         }
-        HttpUtil.sendError(exchange, 405, "Method Not Allowed");
     }
 
-    // GET /ratings (Logik folgt spaeter im Service).
-    private void handleRatings(HttpExchange exchange, String method, int userId) throws IOException {
-        if (method.equals("GET")) {
-            try {
-                HttpUtil.sendJson(exchange, 200, ratingService.getRatingsByUser(userId));
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, e.getMessage());
-            }
+    // GET /recommendations (type, limit/offset optional; genre filtert type=genre/content)
+    private void handleRecommendations(HttpExchange exchange, PathParams pathParams) throws IOException {
+        int userId = pathParams.getInt("id");
+        if (!checkOwnUser(exchange, userId)) {
             return;
         }
-        HttpUtil.sendError(exchange, 405, "Method Not Allowed");
-    }
+        String query = exchange.getRequestURI().getQuery();
+        var params = HttpUtil.parseQuery(query);
+        String type = params.get("type");
+        String genre = params.get("genre");
 
-    // GET /favorites (Logik folgt spaeter im Service).
-    private void handleFavorites(HttpExchange exchange, String method, int userId) throws IOException {
-        if (method.equals("GET")) {
-            try {
-                HttpUtil.sendJson(exchange, 200, favoriteService.getFavoritesByUser(userId));
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, e.getMessage());
+        try {
+            int limit = parseCount(params.get("limit"), "limit", RecommendationService.DEFAULT_LIMIT);
+            int offset = parseCount(params.get("offset"), "offset", 0);
+            if ("content".equalsIgnoreCase(type)) {
+                HttpUtil.sendJson(exchange, 200, recommendationService.recommendByContent(userId, genre, offset, limit));
+            } else if ("collaborative".equalsIgnoreCase(type)) {
+                HttpUtil.sendJson(exchange, 200, recommendationService.recommendCollaborative(userId, offset, limit));
+            } else if ("als".equalsIgnoreCase(type)) {
+                HttpUtil.sendJson(exchange, 200, recommendationService.recommendAls(userId, offset, limit));
+            } else {
+                HttpUtil.sendJson(exchange, 200, recommendationService.recommendByGenre(userId, genre, offset, limit));
             }
-            return;
+        } catch (Exception e) {
+            HttpUtil.sendError(exchange, 400, e.getMessage());
         }
-        HttpUtil.sendError(exchange, 405, "Method Not Allowed");
     }
 
-    // GET /recommendations (Logik folgt spaeter im Service).
-    private void handleRecommendations(HttpExchange exchange, String method, int userId) throws IOException {
-        if (method.equals("GET")) {
-            String query = exchange.getRequestURI().getQuery();
-            var params = HttpUtil.parseQuery(query);
-            String type = params.get("type");
-
-            try {
-                if ("content".equalsIgnoreCase(type)) {
-                    HttpUtil.sendJson(exchange, 200, recommendationService.recommendByContent(userId));
-                } else {
-                    HttpUtil.sendJson(exchange, 200, recommendationService.recommendByGenre(userId));
-                }
-            } catch (Exception e) {
-                HttpUtil.sendError(exchange, 400, e.getMessage());
-            }
-            return;
+    // Optionaler ganzzahliger Query-Parameter (Bereich prueft der Service).
+    private static int parseCount(String value, String name, int defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiges " + name);
         }
-        HttpUtil.sendError(exchange, 405, "Method Not Allowed");
     }
 
-    // /api/users/{id}/... -> {id}
-    private int extractUserId(String path) {
-        String[] parts = path.split("/");
-        return Integer.parseInt(parts[parts.length - 2]);
+    // Nur der eingeloggte User selbst darf seine Daten sehen (sonst 401/403 senden).
+    private boolean checkOwnUser(HttpExchange exchange, int userId) throws IOException {
+        User authUser = (User) exchange.getAttribute("authUser");
+        if (authUser == null) {
+            HttpUtil.sendError(exchange, 401, "Nicht eingeloggt");
+            return false;
+        }
+        if (authUser.getId() != userId) {
+            HttpUtil.sendError(exchange, 403, "Kein Zugriff auf fremdes Profil");
+            return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,81 @@
+package org.example.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Begrenzt gleichzeitig laufende Requests (fuer virtuelle Threads, die sonst unbegrenzt sind).
+// Ist alles belegt, wartet ein Request kurz; ist auch die Warteschlange voll, kommt 503.
+public class ConcurrencyLimitFilter extends Filter {
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long maxWaitMillis;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConcurrencyLimitFilter(int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    public String description() {
+        return "Begrenzt die Anzahl gleichzeitiger Requests.";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!acquire()) {
+            rejected.incrementAndGet();
+            HttpUtil.sendError(exchange, 503, "Server ausgelastet");
+            return;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Sofort freier Platz? Sonst in die (begrenzte) Warteschlange.
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    // Aktuell laufende Requests.
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    // Aktuell wartende Requests.
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    // Abgelehnte Requests seit Start.
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.http;
+
+// Ausgabeformat fuer gestreamte Exporte (eine Zeile pro Datensatz).
+public enum ExportFormat {
+    // Ein JSON-Objekt pro Zeile (Standard).
+    NDJSON("application/x-ndjson"),
+    // Kopfzeile mit Spaltennamen, danach eine Zeile pro Datensatz.
+    CSV("text/csv; charset=utf-8");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // Wert aus dem Query-Parameter lesen (z. B. "csv"), sonst Standard.
+    public static ExportFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unbekanntes Format: " + value);
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package org.example.http;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.sun.net.httpserver.HttpExchange;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RowSink;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public final class HttpUtil {
+    // Cursor der naechsten Seite bei Listen ohne limit/cursor (fehlt = Liste ist vollstaendig).
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     // Ein ObjectMapper fuer alle Handler (JSON <-> Java).
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule())
@@ -30,6 +41,10 @@ public final class HttpUtil {
         }
     }
 
+    // Einzelnes JSON-Dokument (z. B. eine NDJSON-Zeile) in ein Objekt mappen.
+    public static <T> T parseJson(String json, Class<T> clazz) throws IOException {
+        return MAPPER.readValue(json, clazz);
+    }
 
     // Beliebiges Objekt als JSON zuruecksenden.
     public static void sendJson(HttpExchange exchange, int statusCode, Object body) throws IOException {
@@ -41,6 +56,91 @@ public final class HttpUtil {
         }
     }
 
+    // Liefert die Elemente einer gestreamten JSON-Antwort (z. B. direkt aus dem Repository-Cursor).
+    @FunctionalInterface
+    public interface JsonRows {
+        void writeTo(RowSink<Object> sink) throws Exception;
+    }
+
+    // Wie JsonRows, liefert zusaetzlich den Cursor der naechsten Seite (null = letzte Seite).
+    @FunctionalInterface
+    public interface PageRows {
+        String writeTo(RowSink<Object> sink) throws Exception;
+    }
+
+    // JSON-Array streamen: Chunked Transfer, jedes Element geht direkt per JsonGenerator in den Socket.
+    // Header werden erst beim ersten Element gesendet. Fehler davor -> normale Fehlerantwort mit errorStatusCode;
+    // Fehler danach -> IOException, der HttpServer bricht die Verbindung ab (kein halbes JSON als "200 OK").
+    public static void streamJsonArray(HttpExchange exchange, int errorStatusCode, JsonRows rows) throws IOException {
+        streamJson(exchange, errorStatusCode, null, sink -> {
+            rows.writeTo(sink);
+            return null;
+        });
+    }
+
+    // Seite streamen: mit limit/cursor als {"items": [...], "nextCursor": "..."},
+    // ohne diese Parameter als reines Array (erste Seite, kompatibel zu alten Clients). Das Array hat hoechstens
+    // PageRequest.MAX_SIZE Eintraege und wird erst komplett gelesen: ist die Liste abgeschnitten, steht der Cursor
+    // der naechsten Seite im Header X-Next-Cursor (der vor dem Body gesendet werden muss).
+    public static void streamJsonPage(HttpExchange exchange, int errorStatusCode, PageRequest page, PageRows rows)
+            throws IOException {
+        if (page.isPaged()) {
+            streamJson(exchange, errorStatusCode, "items", rows);
+            return;
+        }
+        List<Object> items = new ArrayList<>();
+        String nextCursor;
+        try {
+            nextCursor = rows.writeTo(items::add);
+        } catch (Exception e) {
+            sendError(exchange, errorStatusCode, e.getMessage());
+            return;
+        }
+        if (nextCursor != null) {
+            exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        sendJson(exchange, 200, items);
+    }
+
+    private static void streamJson(HttpExchange exchange, int errorStatusCode, String itemsField, PageRows rows)
+            throws IOException {
+        JsonArrayWriter writer = new JsonArrayWriter(exchange, itemsField);
+        String nextCursor;
+        try {
+            nextCursor = rows.writeTo(writer);
+        } catch (Exception e) {
+            if (!writer.isStarted()) {
+                sendError(exchange, errorStatusCode, e.getMessage());
+                return;
+            }
+            throw new IOException("Streaming abgebrochen: " + e.getMessage(), e);
+        }
+        writer.finish(nextCursor);
+    }
+
+    // Liefert die Zeilen eines Exports als Werte-Arrays (Reihenfolge wie die Spaltennamen).
+    @FunctionalInterface
+    public interface TableRows {
+        void writeTo(RowSink<Object[]> sink) throws Exception;
+    }
+
+    // Export streamen (NDJSON oder CSV, Chunked Transfer). Jede Zeile geht direkt in den Socket,
+    // der Speicherbedarf haengt nicht von der Anzahl Zeilen ab. Fehlerverhalten wie streamJsonArray.
+    public static void streamTable(HttpExchange exchange, int errorStatusCode, ExportFormat format,
+                                   List<String> columns, TableRows rows) throws IOException {
+        TableWriter writer = new TableWriter(exchange, format, columns);
+        try {
+            rows.writeTo(writer);
+        } catch (Exception e) {
+            if (!writer.isStarted()) {
+                sendError(exchange, errorStatusCode, e.getMessage());
+                return;
+            }
+            throw new IOException("Export abgebrochen: " + e.getMessage(), e);
+        }
+        writer.finish();
+    }
+
     // Standardisiertes Error-JSON: {"error": "..."}.
     public static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
         sendJson(exchange, statusCode, Map.of("error", message));
@@ -61,6 +161,139 @@ public final class HttpUtil {
         }
     }
 
+    // Schreibt Elemente als JSON-Array direkt in den Response-Body (optional in ein Objekt mit Cursor verpackt).
+    private static final class JsonArrayWriter implements RowSink<Object> {
+        private final HttpExchange exchange;
+        // null = reines Array, sonst Feldname des Arrays im Objekt.
+        private final String itemsField;
+        private JsonGenerator generator;
+
+        private JsonArrayWriter(HttpExchange exchange, String itemsField) {
+            this.exchange = exchange;
+            this.itemsField = itemsField;
+        }
+
+        @Override
+        public void accept(Object row) throws IOException {
+            if (generator == null) {
+                start();
+            }
+            generator.writeObject(row);
+        }
+
+        private boolean isStarted() {
+            return generator != null;
+        }
+
+        private void start() throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            // Laenge 0 = Chunked Transfer-Encoding (Groesse ist vorher nicht bekannt).
+            exchange.sendResponseHeaders(200, 0);
+            generator = MAPPER.createGenerator(exchange.getResponseBody());
+            if (itemsField != null) {
+                generator.writeStartObject();
+                generator.writeFieldName(itemsField);
+            }
+            generator.writeStartArray();
+        }
+
+        private void finish(String nextCursor) throws IOException {
+            if (generator == null) {
+                start();
+            }
+            generator.writeEndArray();
+            if (itemsField != null) {
+                generator.writeStringField("nextCursor", nextCursor);
+                generator.writeEndObject();
+            }
+            // Schliesst auch den Response-Body (letzter Chunk).
+            generator.close();
+        }
+    }
+
+    // Schreibt Zeilen als NDJSON (ein Objekt pro Zeile) oder CSV direkt in den Response-Body.
+    private static final class TableWriter implements RowSink<Object[]> {
+        private final HttpExchange exchange;
+        private final ExportFormat format;
+        private final List<String> columns;
+        // NDJSON: JsonGenerator, CSV: Writer; null = Header noch nicht gesendet.
+        private JsonGenerator generator;
+        private Writer csv;
+
+        private TableWriter(HttpExchange exchange, ExportFormat format, List<String> columns) {
+            this.exchange = exchange;
+            this.format = format;
+            this.columns = columns;
+        }
+
+        @Override
+        public void accept(Object[] row) throws IOException {
+            if (!isStarted()) {
+                start();
+            }
+            if (format == ExportFormat.CSV) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        csv.write(',');
+                    }
+                    csv.write(csvField(row[i]));
+                }
+                csv.write("\r\n");
+                return;
+            }
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                generator.writeFieldName(columns.get(i));
+                generator.writeObject(row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private boolean isStarted() {
+            return generator != null || csv != null;
+        }
+
+        private void start() throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", format.getContentType());
+            // Laenge 0 = Chunked Transfer-Encoding.
+            exchange.sendResponseHeaders(200, 0);
+            if (format == ExportFormat.CSV) {
+                csv = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+                csv.write(String.join(",", columns));
+                csv.write("\r\n");
+            } else {
+                generator = MAPPER.createGenerator(exchange.getResponseBody());
+                // Zeilen trennt writeRaw('\n'), nicht das Standard-Leerzeichen zwischen Root-Werten.
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        private void finish() throws IOException {
+            if (!isStarted()) {
+                start();
+            }
+            // Schliesst auch den Response-Body (letzter Chunk).
+            if (csv != null) {
+                csv.close();
+            } else {
+                generator.close();
+            }
+        }
+
+        // CSV-Feld nach RFC 4180: null = leer, Sonderzeichen -> in Anfuehrungszeichen.
+        private static String csvField(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+    }
+
     // Query-Parameter aus der URL lesen (z. B. ?title=abc&year=2020).
     public static Map<String, String> parseQuery(String query) {
         Map<String, String> params = new HashMap<>();
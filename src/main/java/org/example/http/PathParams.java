@@ -0,0 +1,43 @@
+package org.example.http;
+
+// Pfad-Variablen eines Requests, z. B. {id:int} aus /api/media/{id:int}/rate.
+public final class PathParams {
+    static final PathParams EMPTY = new PathParams(new String[0], new Object[0]);
+
+    private final String[] names;
+    // String oder Integer, je nach Typ im Template.
+    private final Object[] values;
+
+    PathParams(String[] names, Object[] values) {
+        this.names = names;
+        this.values = values;
+    }
+
+    // Wert als Text (auch fuer int-Variablen).
+    public String get(String name) {
+        Object value = values[indexOf(name)];
+        return value.toString();
+    }
+
+    // Wert einer {name:int}-Variable (Router hat die Ziffern schon geprueft).
+    public int getInt(String name) {
+        Object value = values[indexOf(name)];
+        if (!(value instanceof Integer)) {
+            throw new IllegalArgumentException("Pfad-Variable ist kein int: " + name);
+        }
+        return (Integer) value;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unbekannte Pfad-Variable: " + name);
+    }
+}
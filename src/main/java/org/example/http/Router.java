@@ -0,0 +1,239 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Routing-Tabelle: Pfad-Templates wie /api/media/{id:int}/rate werden beim Start einmal
+// in einen Baum (ein Knoten pro Segment) uebersetzt. Pro Request nur ein Durchlauf, kein Regex.
+public class Router implements HttpHandler {
+
+    // Endpunkt-Methode eines Handlers.
+    @FunctionalInterface
+    public interface Route {
+        void handle(HttpExchange exchange, PathParams params) throws IOException;
+    }
+
+    // Maximale Anzahl Pfad-Variablen pro Template.
+    private static final int MAX_VARIABLES = 8;
+
+    private final Node root = new Node();
+    // Registrierte Routen in Reihenfolge (fuer die Ausgabe beim Start).
+    private final List<String> routes = new ArrayList<>();
+
+    public Router get(String template, Route route) {
+        return add("GET", template, route);
+    }
+
+    public Router post(String template, Route route) {
+        return add("POST", template, route);
+    }
+
+    public Router put(String template, Route route) {
+        return add("PUT", template, route);
+    }
+
+    public Router delete(String template, Route route) {
+        return add("DELETE", template, route);
+    }
+
+    // Route registrieren. Variablen: {name} (Text) oder {name:int}.
+    public Router add(String method, String template, Route route) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Template muss mit / beginnen: " + template);
+        }
+        Node node = root;
+        List<String> names = new ArrayList<>();
+        if (template.length() > 1) {
+            for (String segment : template.substring(1).split("/", -1)) {
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    String variable = segment.substring(1, segment.length() - 1);
+                    int colon = variable.indexOf(':');
+                    String name = colon < 0 ? variable : variable.substring(0, colon);
+                    String type = colon < 0 ? "string" : variable.substring(colon + 1);
+                    if (names.contains(name)) {
+                        throw new IllegalArgumentException("Pfad-Variable doppelt: " + template);
+                    }
+                    names.add(name);
+                    node = node.variableChild(type, template);
+                } else {
+                    node = node.literals.computeIfAbsent(segment, key -> new Node());
+                }
+            }
+        }
+        if (names.size() > MAX_VARIABLES) {
+            throw new IllegalArgumentException("Zu viele Pfad-Variablen: " + template);
+        }
+        if (node.endpoints.containsKey(method)) {
+            throw new IllegalArgumentException("Route doppelt registriert: " + method + " " + template);
+        }
+        node.endpoints.put(method, new Endpoint(route, names.toArray(new String[0])));
+        routes.add(String.format("%-6s %s", method, template));
+        return this;
+    }
+
+    // Alle Routen, z. B. "GET    /api/media/{id:int}".
+    public List<String> getRoutes() {
+        return List.copyOf(routes);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Match match = match(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        if (match.getStatus() == 404) {
+            HttpUtil.sendError(exchange, 404, "Not Found");
+            return;
+        }
+        if (match.getStatus() == 405) {
+            exchange.getResponseHeaders().set("Allow", String.join(", ", match.getAllowedMethods()));
+            HttpUtil.sendError(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        match.getRoute().handle(exchange, match.getParams());
+    }
+
+    // Pfad aufloesen: 200 mit Route, 404 (Pfad unbekannt) oder 405 (Methode nicht erlaubt).
+    public Match match(String method, String path) {
+        Object[] values = new Object[MAX_VARIABLES];
+        Node node = path.isEmpty() || path.charAt(0) != '/' ? null : find(root, path, 0, values, 0);
+        if (node == null || node.endpoints.isEmpty()) {
+            return new Match(404, null, PathParams.EMPTY, List.of());
+        }
+        Endpoint endpoint = node.endpoints.get(method);
+        if (endpoint == null) {
+            return new Match(405, null, PathParams.EMPTY, List.copyOf(node.endpoints.keySet()));
+        }
+        Object[] bound = new Object[endpoint.names.length];
+        System.arraycopy(values, 0, bound, 0, bound.length);
+        return new Match(200, endpoint.route, new PathParams(endpoint.names, bound), List.of());
+    }
+
+    // Tiefensuche: zuerst feste Segmente, dann int-, dann Text-Variablen.
+    private Node find(Node node, String path, int start, Object[] values, int depth) {
+        if (start == path.length()) {
+            return node;
+        }
+        if (path.length() == 1) {
+            // Nur "/" -> Wurzel.
+            return node;
+        }
+        int end = path.indexOf('/', start + 1);
+        if (end < 0) {
+            end = path.length();
+        }
+        String segment = path.substring(start + 1, end);
+
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            Node found = find(literal, path, end, values, depth);
+            if (found != null && !found.endpoints.isEmpty()) {
+                return found;
+            }
+        }
+        if (depth >= values.length) {
+            return null;
+        }
+        if (node.intChild != null) {
+            Integer number = parseInt(segment);
+            if (number != null) {
+                values[depth] = number;
+                Node found = find(node.intChild, path, end, values, depth + 1);
+                if (found != null && !found.endpoints.isEmpty()) {
+                    return found;
+                }
+            }
+        }
+        if (node.stringChild != null && !segment.isEmpty()) {
+            values[depth] = segment;
+            Node found = find(node.stringChild, path, end, values, depth + 1);
+            if (found != null && !found.endpoints.isEmpty()) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    // Nur Ziffern und im int-Bereich, sonst null (kein Treffer).
+    private static Integer parseInt(String segment) {
+        int length = segment.length();
+        if (length == 0 || length > 10) {
+            return null;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > Integer.MAX_VALUE ? null : (int) value;
+    }
+
+    // Ergebnis von match().
+    public static final class Match {
+        private final int status;
+        private final Route route;
+        private final PathParams params;
+        private final List<String> allowedMethods;
+
+        private Match(int status, Route route, PathParams params, List<String> allowedMethods) {
+            this.status = status;
+            this.route = route;
+            this.params = params;
+            this.allowedMethods = allowedMethods;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Route getRoute() {
+            return route;
+        }
+
+        public PathParams getParams() {
+            return params;
+        }
+
+        public List<String> getAllowedMethods() {
+            return allowedMethods;
+        }
+    }
+
+    // Knoten im Routing-Baum (ein Pfad-Segment).
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node intChild;
+        private Node stringChild;
+        // HTTP-Methode -> Endpunkt (Reihenfolge fuer den Allow-Header).
+        private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+        private Node variableChild(String type, String template) {
+            switch (type) {
+                case "int":
+                    if (intChild == null) {
+                        intChild = new Node();
+                    }
+                    return intChild;
+                case "string":
+                    if (stringChild == null) {
+                        stringChild = new Node();
+                    }
+                    return stringChild;
+                default:
+                    throw new IllegalArgumentException("Unbekannter Variablen-Typ '" + type + "' in " + template);
+            }
+        }
+    }
+
+    // Registrierter Endpunkt + Namen der Pfad-Variablen in Reihenfolge.
+    private record Endpoint(Route route, String[] names) {
+    }
+}
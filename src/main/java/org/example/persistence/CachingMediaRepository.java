@@ -0,0 +1,73 @@
+package org.example.persistence;
+
+import org.example.cache.BoundedCache;
+import org.example.cache.CacheStats;
+import org.example.domain.MediaEntry;
+import org.example.domain.Rating;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+// MediaRepository mit Read-Through-Cache fuer findById (getById/update/delete lesen zuerst das Medium).
+// Schreibende Methoden invalidieren den Eintrag nach dem Commit.
+public class CachingMediaRepository extends MediaRepository {
+
+    private final BoundedCache<Integer, MediaEntry> cache;
+
+    public CachingMediaRepository(DataSource dataSource, int maxSize, long ttlMillis) {
+        this(dataSource, new BoundedCache<>("media", maxSize, ttlMillis));
+    }
+
+    public CachingMediaRepository(DataSource dataSource, BoundedCache<Integer, MediaEntry> cache) {
+        super(dataSource);
+        this.cache = cache;
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static CachingMediaRepository fromSystemProperties(DataSource dataSource) {
+        return new CachingMediaRepository(dataSource,
+                Integer.getInteger("mrp.mediaCache.maxSize", 10000),
+                Long.getLong("mrp.mediaCache.ttlMillis", 60 * 1000L));
+    }
+
+    // Aufrufer veraendern das Ergebnis (MediaService.update) -> immer eine Kopie herausgeben.
+    @Override
+    public MediaEntry findById(int id) {
+        MediaEntry media = cache.getOrLoad(id, super::findById);
+        return media == null ? null : new MediaEntry(media);
+    }
+
+    @Override
+    public MediaEntry save(MediaEntry media) {
+        MediaEntry saved = super.save(media);
+        if (saved != null) {
+            cache.invalidate(saved.getId());
+        }
+        return saved;
+    }
+
+    // Auch bei Fehler invalidieren: der DB-Zustand ist dann unklar.
+    @Override
+    public OwnedWrite<MediaEntry> update(int id, MediaEntry changes, int userId) throws SQLException {
+        try {
+            return super.update(id, changes, userId);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public OwnedWrite<List<Rating>> deleteWithRatings(int id, int userId) throws SQLException {
+        try {
+            return super.deleteWithRatings(id, userId);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+}
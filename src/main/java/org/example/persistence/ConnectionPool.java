@@ -0,0 +1,365 @@
+package org.example.persistence;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+// Einfacher Connection-Pool: Repositories leihen sich pro Aufruf eine Verbindung
+// und geben sie mit close() zurueck (try-with-resources).
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    // Erzeugt eine neue physische Verbindung (z. B. DatabaseConnection::getConnection).
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long leakThresholdMillis;
+    // Aufrufstelle jeder Ausleihe merken und Leaks mit Stacktrace ausgeben (teuer, nur zur Fehlersuche).
+    private final boolean traceLeaks;
+    // Verbindungen, die laenger als das idle waren, werden vor der Ausgabe geprueft.
+    private final long validateAfterIdleMillis;
+
+    // Begrenzt die Anzahl ausgeliehener Verbindungen auf maxSize.
+    private final Semaphore permits;
+    // Freie physische Verbindungen (zuletzt benutzte zuerst).
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    // Aktuell ausgeliehene Verbindungen (fuer Leak-Erkennung).
+    private final Map<Lease, Boolean> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireNanosTotal = new AtomicLong();
+    private final AtomicLong acquireNanosMax = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long acquireTimeoutMillis,
+                          long leakThresholdMillis, long validateAfterIdleMillis) throws SQLException {
+        this(factory, minSize, maxSize, acquireTimeoutMillis, leakThresholdMillis, validateAfterIdleMillis, false);
+    }
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long acquireTimeoutMillis,
+                          long leakThresholdMillis, long validateAfterIdleMillis, boolean traceLeaks)
+            throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Ungueltige Pool-Groesse: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validateAfterIdleMillis = validateAfterIdleMillis;
+        this.traceLeaks = traceLeaks;
+        this.permits = new Semaphore(maxSize, true);
+
+        // Mindestanzahl direkt aufbauen, damit Fehler (DB nicht erreichbar) sofort sichtbar sind.
+        for (int i = 0; i < minSize; i++) {
+            Connection connection = factory.create();
+            totalConnections.incrementAndGet();
+            idle.push(new IdleConnection(connection, System.currentTimeMillis()));
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mrp-db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, Math.min(leakThresholdMillis / 2, 5000));
+        housekeeper.scheduleAtFixedRate(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Verbindung ausleihen; wartet hoechstens acquireTimeoutMillis.
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection-Pool ist geschlossen");
+        }
+        long start = System.nanoTime();
+
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Warten auf DB-Verbindung unterbrochen", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        if (!acquired) {
+            acquireTimeouts.incrementAndGet();
+            throw new SQLException("Keine freie DB-Verbindung nach " + acquireTimeoutMillis + " ms");
+        }
+
+        try {
+            Connection physical = takeIdleOrCreate();
+            recordAcquire(System.nanoTime() - start);
+            // Stacktrace nur mit traceLeaks erfassen: sonst kostet jede Ausleihe einen Stack-Walk.
+            Exception borrowedBy = traceLeaks ? new Exception("Verbindung ausgeliehen hier") : null;
+            Lease lease = new Lease(physical, System.currentTimeMillis(), borrowedBy);
+            leases.put(lease, Boolean.TRUE);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, lease);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Freie Verbindung nehmen (ggf. pruefen) oder eine neue aufbauen.
+    private Connection takeIdleOrCreate() throws SQLException {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.poll();
+            }
+            if (candidate == null) {
+                Connection connection = factory.create();
+                totalConnections.incrementAndGet();
+                return connection;
+            }
+            if (System.currentTimeMillis() - candidate.idleSince < validateAfterIdleMillis
+                    || isUsable(candidate.connection)) {
+                return candidate.connection;
+            }
+            // Kaputte Verbindung (z. B. DB-Neustart) verwerfen und naechste versuchen.
+            validationFailures.incrementAndGet();
+            discard(candidate.connection);
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Zurueckgegebene Verbindung aufraeumen und wieder in den Pool legen.
+    private void release(Lease lease) {
+        leases.remove(lease);
+        Connection connection = lease.physical;
+        try {
+            if (closed || connection.isClosed()) {
+                discard(connection);
+                return;
+            }
+            // Offene Transaktion eines Aufrufers nicht an den naechsten weitergeben.
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            synchronized (idle) {
+                idle.push(new IdleConnection(connection, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection connection) {
+        totalConnections.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Verbindung ist ohnehin unbrauchbar.
+        }
+    }
+
+    // Laeuft periodisch: Leaks melden und Mindestanzahl wiederherstellen.
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.keySet()) {
+            if (!lease.leakReported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.leakReported = true;
+                leaksDetected.incrementAndGet();
+                if (lease.borrowedBy != null) {
+                    System.out.println("Moegliches Connection-Leak: seit " + (now - lease.borrowedAt)
+                            + " ms nicht zurueckgegeben");
+                    lease.borrowedBy.printStackTrace(System.out);
+                }
+            }
+        }
+
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                Connection connection = factory.create();
+                totalConnections.incrementAndGet();
+                synchronized (idle) {
+                    idle.push(new IdleConnection(connection, System.currentTimeMillis()));
+                }
+            } catch (SQLException e) {
+                System.out.println("Fehler beim Auffuellen des Pools: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void recordAcquire(long nanos) {
+        acquireCount.incrementAndGet();
+        acquireNanosTotal.addAndGet(nanos);
+        acquireNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    // Aktuelle Statistiken (fuer /api/metrics).
+    public PoolStats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        long count = acquireCount.get();
+        PoolStats stats = new PoolStats();
+        stats.setMinSize(minSize);
+        stats.setMaxSize(maxSize);
+        stats.setTotal(totalConnections.get());
+        stats.setActive(leases.size());
+        stats.setIdle(idleCount);
+        stats.setWaiters(waiters.get());
+        stats.setAcquireCount(count);
+        stats.setAcquireTimeouts(acquireTimeouts.get());
+        stats.setAverageAcquireMillis(count == 0 ? 0.0 : acquireNanosTotal.get() / (double) count / 1_000_000.0);
+        stats.setMaxAcquireMillis(acquireNanosMax.get() / 1_000_000.0);
+        stats.setValidationFailures(validationFailures.get());
+        stats.setLeaksDetected(leaksDetected.get());
+        return stats;
+    }
+
+    // Pool schliessen (beim Server-Stopp). Ausgeliehene Verbindungen werden bei Rueckgabe geschlossen.
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                discard(idle.poll().connection);
+            }
+        }
+    }
+
+    // ===== DataSource-Pflichtmethoden =====
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Zugangsdaten werden beim Pool-Aufbau festgelegt");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // Nicht benutzt.
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // Nicht benutzt.
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Kein Wrapper fuer " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    // Freie Verbindung + Zeitpunkt der letzten Nutzung.
+    private record IdleConnection(Connection connection, long idleSince) {
+    }
+
+    // Ausgeliehene Verbindung: leitet alles an die echte Verbindung weiter, close() gibt zurueck.
+    private final class Lease implements InvocationHandler {
+        private final Connection physical;
+        private final long borrowedAt;
+        // Aufrufstelle der Ausleihe (null ohne traceLeaks).
+        private final Exception borrowedBy;
+        private volatile boolean leakReported;
+        // Wird vom Request-Thread gesetzt und vom Housekeeper gelesen.
+        private volatile boolean returned;
+
+        private Lease(Connection physical, long borrowedAt, Exception borrowedBy) {
+            this.physical = physical;
+            this.borrowedAt = borrowedAt;
+            this.borrowedBy = borrowedBy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(this);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Verbindung wurde bereits an den Pool zurueckgegeben");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
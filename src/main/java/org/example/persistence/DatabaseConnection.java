@@ -1,42 +1,36 @@
 package org.example.persistence;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.sql.*;
 
 public class DatabaseConnection {
-    public static void main(String[] args) throws SQLException {
-        Connection conn = getConnection();
-
-        if (conn != null) {
-            System.out.println("works");
-        }
-
-        try {
-            BufferedReader br = new BufferedReader(new FileReader("C:\\Users\\mmarc\\Documents\\FH\\SE1\\postgres_demo\\src\\main\\resources\\db\\init.sql"));
-            String line;
-            String initStatement = "";
-            while ((line = br.readLine()) != null) {
-                initStatement += line;
-            }
-            assert conn != null;
-            Statement stmt = conn.createStatement();
-            stmt.executeUpdate(initStatement);
-
-            stmt.execute("SELECT * FROM Users");
-            ResultSet rs = stmt.getResultSet();
-            while(rs.next()){
-                System.out.println(rs.getInt(1) + ", " + rs.getString(2));
-            }
-        } catch (Exception e){
-            System.out.println(e.getMessage());
+    // Zeilen pro Round-Trip beim Streamen (Cursor statt komplettes Ergebnis im Speicher).
+    public static final int STREAM_FETCH_SIZE = Integer.getInteger("mrp.db.fetchSize", 500);
+
+    // Schema migrieren ohne Server-Start (Skripte aus src/main/resources/db/migration).
+    public static void main(String[] args) throws Exception {
+        try (ConnectionPool pool = createPool()) {
+            int applied = MigrationRunner.fromClasspath(pool).migrate();
+            System.out.println("Schema-Migrationen: " + applied + " neu angewendet");
         }
-
     }
 
     public static Connection getConnection() throws SQLException {
-        String dbUrl = "jdbc:postgresql://localhost:5332/postgres?user=postgres&password=password";
+        String dbUrl = System.getProperty("mrp.db.url",
+                "jdbc:postgresql://localhost:5332/postgres?user=postgres&password=password");
         return DriverManager.getConnection(dbUrl);
     }
 
+    // Connection-Pool fuer den Server (Groessen/Timeouts per System-Property anpassbar).
+    public static ConnectionPool createPool() throws SQLException {
+        return new ConnectionPool(
+                DatabaseConnection::getConnection,
+                Integer.getInteger("mrp.db.pool.min", 2),
+                Integer.getInteger("mrp.db.pool.max", 16),
+                Long.getLong("mrp.db.pool.acquireTimeoutMillis", 5000L),
+                Long.getLong("mrp.db.pool.leakThresholdMillis", 30000L),
+                Long.getLong("mrp.db.pool.validateAfterIdleMillis", 1000L),
+                Boolean.getBoolean("mrp.db.pool.leakTrace")
+        );
+    }
+
 }
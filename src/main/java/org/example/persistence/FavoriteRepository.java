@@ -9,28 +9,34 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.sql.DataSource;
+
 // Repository für Favoriten (Favorites-Tabelle).
 public class FavoriteRepository {
-    private final Connection connection;
+    private final DataSource dataSource;
 
-    public FavoriteRepository(Connection connection) {
-        this.connection = connection;
+    public FavoriteRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
-    // Favorit speichern.
+    // Favorit speichern; favoritescount in user_stats in derselben Anweisung erhoehen.
     public void addFavorite(int userId, int mediaId) throws SQLException {
-        String sql = "INSERT INTO favorites (userid, mediaid) VALUES (?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "WITH added AS (INSERT INTO favorites (userid, mediaid) VALUES (?, ?) RETURNING userid) " +
+                     UserRepository.userStatsDelta("SELECT userid, 0, 0, 0, 1 FROM added");
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             stmt.setInt(2, mediaId);
             stmt.executeUpdate();
         }
     }
 
-    // Favorit entfernen.
+    // Favorit entfernen (favoritescount mit). Das Delta schreibt genau dann eine Zeile, wenn ein Favorit geloescht wurde.
     public boolean removeFavorite(int userId, int mediaId) throws SQLException {
-        String sql = "DELETE FROM favorites WHERE userid = ? AND mediaid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "WITH removed AS (DELETE FROM favorites WHERE userid = ? AND mediaid = ? RETURNING userid) " +
+                     UserRepository.userStatsDelta("SELECT userid, 0, 0, 0, -1 FROM removed");
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             stmt.setInt(2, mediaId);
             return stmt.executeUpdate() > 0;
@@ -39,23 +45,16 @@ public class FavoriteRepository {
 
     // Favoriten eines Users laden.
     public List<MediaEntry> findFavoritesByUser(int userId) throws SQLException {
-        String sql = "SELECT m.* FROM mediaentries m " +
+        String sql = "SELECT m.*, " + MediaRepository.GENRES_COLUMN + " FROM mediaentries m " +
                      "JOIN favorites f ON f.mediaid = m.id " +
                      "WHERE f.userid = ?";
         List<MediaEntry> list = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                MediaEntry media = new MediaEntry();
-                media.setId(rs.getInt("id"));
-                media.setTitle(rs.getString("title"));
-                media.setDescription(rs.getString("description"));
-                media.setMediaType(rs.getString("mediatype"));
-                media.setReleaseYear(rs.getInt("releaseyear"));
-                media.setAgeRestriction(rs.getInt("agerestriction"));
-                media.setCreatorId(rs.getInt("creatorid"));
-                list.add(media);
+                list.add(MediaRepository.mapResultSetToMedia(rs));
             }
         }
         return list;
@@ -1,27 +1,57 @@
 package org.example.persistence;
 
 import org.example.domain.MediaEntry;
+import org.example.domain.MediaRatingStats;
+import org.example.domain.Rating;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import javax.sql.DataSource;
+
 public class MediaRepository {
+
+    // Reihenfolge der Score-Sortierung, passend zum Index idx_media_rating_stats_score (V9).
+    private static final String SCORE_ORDER = "ORDER BY COALESCE(r.avgscore, -1) DESC, r.mediaid ASC ";
+
+    // Genres direkt in der Hauptquery als Array mitladen (statt einer Query pro Zeile).
+    static final String GENRES_COLUMN =
+            "ARRAY(SELECT g.genre FROM media_genres g WHERE g.mediaid = m.id ORDER BY g.id) AS genres";
+
+    private static final String FIND_ALL_SQL = "SELECT m.*, " + GENRES_COLUMN + " FROM mediaentries m";
 
-    private final Connection connection;
+    private final DataSource dataSource;
 
-    public MediaRepository(Connection connection) {
-        this.connection = connection;
+    public MediaRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     // ========================================
     // SAVE - Neues Media speichern
     // ========================================
     public MediaEntry save(MediaEntry media) {
-        String sql = "INSERT INTO mediaentries (title, description, mediatype, releaseyear, genre, agerestriction, creatorid) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        // Leere Statistik-Zeile gleich mitanlegen (Score-Sortierung erwartet eine Zeile pro Medium).
+        String sql = "WITH m AS (INSERT INTO mediaentries (title, description, mediatype, releaseyear, genre, " +
+                     "agerestriction, creatorid) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id), " +
+                     "s AS (INSERT INTO media_rating_stats (mediaid) SELECT id FROM m) SELECT id FROM m";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            // Medium + Genres in einer Transaktion (bei Fehler rollt der Pool zurueck)
+            connection.setAutoCommit(false);
             stmt.setString(1, media.getTitle());
             stmt.setString(2, media.getDescription());
             stmt.setString(3, media.getMediaType());
@@ -36,7 +66,8 @@ public class MediaRepository {
                 media.setId(rs.getInt("id"));
             }
 
-            saveGenres(media);
+            saveGenres(connection, media);
+            connection.commit();
 
         } catch (SQLException e) {
             System.out.println("Fehler beim Speichern: " + e.getMessage());
@@ -44,22 +75,129 @@ public class MediaRepository {
         }
 
         return media;
+    }
+
+    // ========================================
+    // BULK INSERT - Viele Medien per COPY importieren
+    // ========================================
+    // Liefert die zu importierenden (bereits validierten) Medien; wird waehrend des offenen COPY aufgerufen.
+    @FunctionalInterface
+    public interface ImportRows {
+        void writeTo(RowSink<MediaEntry> sink) throws IOException;
+    }
+
+    // Zeilen gehen per COPY direkt in eine Staging-Tabelle (nichts wird im Speicher gesammelt),
+    // danach legt eine Anweisung Medien + Genres an. Alles in einer Transaktion: Fehler -> nichts importiert.
+    // Rueckgabe: Anzahl angelegter Medien.
+    public int bulkInsert(int creatorId, ImportRows rows) throws SQLException, IOException {
+        String merge = "WITH staged AS MATERIALIZED (" +
+                       "SELECT nextval(pg_get_serial_sequence('mediaentries', 'id'))::int AS id, s.* " +
+                       "FROM media_import s ORDER BY s.line), " +
+                       "media AS (INSERT INTO mediaentries (id, title, description, mediatype, releaseyear, genre, " +
+                       "agerestriction, creatorid) " +
+                       "SELECT id, title, description, mediatype, releaseyear, NULL, agerestriction, ? FROM staged " +
+                       "RETURNING id), " +
+                       "stats AS (INSERT INTO media_rating_stats (mediaid) SELECT id FROM media), " +
+                       "genres AS (INSERT INTO media_genres (mediaid, genre) " +
+                       "SELECT s.id, n.genre FROM staged s, unnest(s.genres) WITH ORDINALITY AS n(genre, pos) " +
+                       "ORDER BY s.line, n.pos ON CONFLICT (mediaid, genre) DO NOTHING RETURNING id) " +
+                       "SELECT (SELECT COUNT(*) FROM media) AS media, (SELECT COUNT(*) FROM genres) AS genres";
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TEMP TABLE media_import (line INT, title VARCHAR(256), description TEXT, " +
+                             "mediatype VARCHAR(50), releaseyear INT, agerestriction INT, genres VARCHAR(100)[]) " +
+                             "ON COMMIT DROP");
+            }
+
+            OutputStream copy = openCopy(connection, "COPY media_import " +
+                    "(line, title, description, mediatype, releaseyear, agerestriction, genres) FROM STDIN (FORMAT csv)");
+            Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), 64 * 1024);
+            try {
+                int[] line = {0};
+                rows.writeTo(media -> {
+                    line[0]++;
+                    out.write(Integer.toString(line[0]));
+                    out.write(',');
+                    out.write(csv(media.getTitle()));
+                    out.write(',');
+                    out.write(csv(media.getDescription()));
+                    out.write(',');
+                    out.write(csv(media.getMediaType()));
+                    out.write(',');
+                    out.write(Integer.toString(media.getReleaseYear()));
+                    out.write(',');
+                    out.write(Integer.toString(media.getAgeRestriction()));
+                    out.write(',');
+                    out.write(csv(arrayLiteral(media.getGenres())));
+                    out.write('\n');
+                });
+                // Beendet das COPY (erst hier prueft die DB die Zeilen).
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                cancelCopy(copy);
+                throw e;
+            }
+
+            int imported = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(merge)) {
+                stmt.setInt(1, creatorId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        imported = rs.getInt("media");
+                    }
+                }
+            }
+            connection.commit();
+            return imported;
+        }
+    }
+
+    // COPY ... FROM STDIN als Stream oeffnen; close() beendet das COPY (ueberschreibbar fuer Tests).
+    protected OutputStream openCopy(Connection connection, String sql) throws SQLException {
+        return new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql);
+    }
+
+    // Abgebrochenes COPY verwerfen, sonst bleibt die Verbindung im COPY-Modus.
+    private void cancelCopy(OutputStream copy) throws SQLException {
+        if (copy instanceof PGCopyOutputStream pgCopy && pgCopy.isActive()) {
+            pgCopy.cancelCopy();
+        }
+    }
+
+    // CSV-Feld fuer COPY: null = leeres Feld (NULL), sonst in Anfuehrungszeichen.
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    // PostgreSQL-Array-Literal ({"a","b"}) fuer die Genres.
+    private static String arrayLiteral(List<String> values) {
+        StringBuilder literal = new StringBuilder("{");
+        for (String value : values) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return literal.append('}').toString();
     }
 
     // ========================================
     // FIND ALL - Alle Medien holen
     // ========================================
     public List<MediaEntry> findAll() {
-        String sql = "SELECT * FROM mediaentries";
         List<MediaEntry> mediaList = new ArrayList<>();
 
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(FIND_ALL_SQL);
 
             while (rs.next()) {
-                MediaEntry media = mapResultSetToMedia(rs);
-                media.setGenres(findGenresByMediaId(media.getId()));
-                mediaList.add(media);
+                mediaList.add(mapResultSetToMedia(rs));
             }
 
         } catch (SQLException e) {
@@ -74,21 +212,231 @@ public class MediaRepository {
     // ========================================
     public List<MediaEntry> search(String title, String genre, String mediaType, Integer releaseYear,
                                    Integer ageRestriction, Double rating, String sortBy) {
+        List<Object> params = new ArrayList<>();
+        String sql = buildSearchSql(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy, params);
+
+        List<MediaEntry> list = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                list.add(mapResultSetToMedia(rs));
+            }
+        } catch (SQLException e) {
+            System.out.println("Fehler bei der Suche: " + e.getMessage());
+        }
+
+        return list;
+    }
+
+    // Eine Seite der Suche zeilenweise an den Sink geben (Keyset: Sortierwert + ID der letzten Zeile).
+    // Rueckgabe: Cursor fuer die naechste Seite oder null, wenn es keine weitere gibt.
+    public String streamSearchPage(String title, String genre, String mediaType, Integer releaseYear,
+                                   Integer ageRestriction, Double rating, String sortBy, PageRequest page,
+                                   RowSink<? super MediaEntry> sink) throws SQLException, IOException {
+        String sort = sortKey(sortBy);
+        String expression = sortExpression(sort);
+        List<Object> params = new ArrayList<>();
+        PageCursor after = page.getAfter();
+
         StringBuilder sql = new StringBuilder();
-        sql.append("SELECT m.* FROM mediaentries m ");
+        if (sort.equals("score") && after != null) {
+            // Score-Folgeseite: zwei Bereiche des Index (gleicher Score mit groesserer ID, dann kleinerer Score)
+            // statt einer OR-Bedingung, zu der kein Index passt. Filter stehen in beiden Teilen, damit jeder
+            // Teil hoechstens limit+1 passende Zeilen liest.
+            Object key = parseSortKey(sort, after.getKey());
+            StringBuilder filters = new StringBuilder();
+            List<Object> filterParams = new ArrayList<>();
+            appendSearchFilters(filters, title, genre, mediaType, releaseYear, ageRestriction, rating,
+                    true, filterParams);
+
+            sql.append("SELECT m.*, ").append(GENRES_COLUMN).append(" FROM ((");
+            appendScoreRange(sql, params, filters, filterParams, "= ? AND r.mediaid > ? ", page.getLimit() + 1,
+                    key, after.getId());
+            sql.append(") UNION ALL (");
+            appendScoreRange(sql, params, filters, filterParams, "< ? ", page.getLimit() + 1, key);
+            sql.append(")) m ORDER BY m.sortkey DESC, m.id ASC LIMIT ?");
+            params.add(page.getLimit() + 1);
+        } else {
+            sql.append("SELECT m.*, ").append(GENRES_COLUMN).append(", ").append(expression).append(" AS sortkey ");
+            appendSearchFilters(sql, title, genre, mediaType, releaseYear, ageRestriction, rating,
+                    sort.equals("score"), params);
+
+            // Keyset-Bedingung: nur Zeilen nach der letzten Zeile der vorigen Seite (statt OFFSET).
+            if (after != null) {
+                Object key = parseSortKey(sort, after.getKey());
+                if (sort.equals("id")) {
+                    sql.append("AND m.id > ? ");
+                    params.add(after.getId());
+                } else {
+                    sql.append("AND (").append(expression).append(", m.id) > (?, ?) ");
+                    params.add(key);
+                    params.add(after.getId());
+                }
+            }
+
+            // ID als zweiter Sortierschluessel -> stabile Reihenfolge auch bei gleichen Titeln/Jahren/Scores.
+            if (sort.equals("id")) {
+                sql.append("ORDER BY m.id ASC ");
+            } else if (sort.equals("score")) {
+                sql.append(SCORE_ORDER);
+            } else {
+                sql.append("ORDER BY ").append(expression).append(" ASC, m.id ASC ");
+            }
+            // Eine Zeile mehr lesen, um zu wissen, ob es eine naechste Seite gibt.
+            sql.append("LIMIT ?");
+            params.add(page.getLimit() + 1);
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            String nextCursor = null;
+            try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                for (int i = 0; i < params.size(); i++) {
+                    stmt.setObject(i + 1, params.get(i));
+                }
+
+                ResultSet rs = stmt.executeQuery();
+                int count = 0;
+                String lastKey = null;
+                int lastId = 0;
+                while (rs.next()) {
+                    if (count == page.getLimit()) {
+                        nextCursor = new PageCursor(sort, lastKey, lastId).encode();
+                        break;
+                    }
+                    MediaEntry media = mapResultSetToMedia(rs);
+                    lastKey = readSortKey(rs, sort);
+                    lastId = media.getId();
+                    sink.accept(media);
+                    count++;
+                }
+            }
+            connection.commit();
+            return nextCursor;
+        }
+    }
+
+    // Ein Bereich der Score-Sortierung: gefilterte Medien mit Score-Bedingung, hoechstens limit Zeilen.
+    private static void appendScoreRange(StringBuilder sql, List<Object> params, CharSequence filters,
+                                         List<Object> filterParams, String condition, int limit, Object... values) {
+        sql.append("SELECT m.*, ").append(sortExpression("score")).append(" AS sortkey ").append(filters)
+                .append("AND ").append(sortExpression("score")).append(' ').append(condition)
+                .append(SCORE_ORDER).append("LIMIT ?");
+        params.addAll(filterParams);
+        params.addAll(List.of(values));
+        params.add(limit);
+    }
+
+    // sortBy-Parameter -> Name der Sortierung (steht auch im Cursor).
+    public static String sortKey(String sortBy) {
+        if (sortBy != null) {
+            if (sortBy.equalsIgnoreCase("title")) {
+                return "title";
+            } else if (sortBy.equalsIgnoreCase("year")) {
+                return "year";
+            } else if (sortBy.equalsIgnoreCase("score")) {
+                return "score";
+            }
+        }
+        return "id";
+    }
+
+    // SQL-Ausdruck pro Sortierung; NULL wird ersetzt, damit der Keyset-Vergleich funktioniert
+    // (gleiche Reihenfolge wie vorher: Medien ohne Jahr/Score kommen zuletzt).
+    private static String sortExpression(String sort) {
+        switch (sort) {
+            case "title":
+                return "m.title";
+            case "year":
+                return "COALESCE(m.releaseyear, 2147483647)";
+            case "score":
+                return "COALESCE(r.avgscore, -1)";
+            default:
+                return "m.id";
+        }
+    }
+
+    private static Object parseSortKey(String sort, String key) {
+        try {
+            switch (sort) {
+                case "title":
+                    return key;
+                case "year":
+                    return Integer.parseInt(key);
+                case "score":
+                    return new BigDecimal(key);
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+    }
+
+    private static String readSortKey(ResultSet rs, String sort) throws SQLException {
+        switch (sort) {
+            case "title":
+                return rs.getString("sortkey");
+            case "year":
+                return String.valueOf(rs.getInt("sortkey"));
+            case "score":
+                return rs.getBigDecimal("sortkey").toPlainString();
+            default:
+                return "";
+        }
+    }
+
+    // SQL fuer die Suche bauen; Parameter werden in params gesammelt.
+    private String buildSearchSql(String title, String genre, String mediaType, Integer releaseYear,
+                                  Integer ageRestriction, Double rating, String sortBy, List<Object> params) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT m.*, ").append(GENRES_COLUMN).append(" ");
+        appendSearchFilters(sql, title, genre, mediaType, releaseYear, ageRestriction, rating,
+                "score".equalsIgnoreCase(sortBy), params);
+
+        // Sortierung
+        if (sortBy != null) {
+            if (sortBy.equalsIgnoreCase("title")) {
+                sql.append("ORDER BY m.title ASC ");
+            } else if (sortBy.equalsIgnoreCase("year")) {
+                sql.append("ORDER BY m.releaseyear ASC ");
+            } else if (sortBy.equalsIgnoreCase("score")) {
+                sql.append("ORDER BY r.avgscore DESC NULLS LAST ");
+            }
+        }
+
+        return sql.toString();
+    }
+
+    // FROM/JOIN/WHERE der Suche (gemeinsam fuer Liste und Seiten).
+    private void appendSearchFilters(StringBuilder sql, String title, String genre, String mediaType,
+                                     Integer releaseYear, Integer ageRestriction, Double rating,
+                                     boolean sortByScore, List<Object> params) {
+        sql.append("FROM mediaentries m ");
 
         // Join fuer Genre-Filter
         if (genre != null && !genre.isBlank()) {
             sql.append("JOIN media_genres mg ON mg.mediaid = m.id ");
         }
 
-        // Durchschnittliche Ratings als Subquery (Filter + Sort)
-        sql.append("LEFT JOIN (SELECT mediaid, AVG(stars) AS avgscore FROM ratings GROUP BY mediaid) r ");
-        sql.append("ON r.mediaid = m.id ");
+        // Durchschnitt aus der gepflegten Statistik (nur fuer Rating-Filter oder Score-Sortierung).
+        // Score-Sortierung: jedes Medium hat eine Zeile (V9) -> innerer Join, der Index (Score, ID) kann die Reihenfolge liefern.
+        if (sortByScore) {
+            sql.append("JOIN media_rating_stats r ON r.mediaid = m.id ");
+        } else if (rating != null) {
+            sql.append("LEFT JOIN media_rating_stats r ON r.mediaid = m.id ");
+        }
 
         sql.append("WHERE 1=1 ");
 
-        List<Object> params = new ArrayList<>();
 
         if (title != null && !title.isBlank()) {
             sql.append("AND LOWER(m.title) LIKE ? ");
@@ -114,116 +462,130 @@ public class MediaRepository {
             sql.append("AND r.avgscore >= ? ");
             params.add(rating);
         }
+    }
 
-        // Sortierung
-        if (sortBy != null) {
-            if (sortBy.equalsIgnoreCase("title")) {
-                sql.append("ORDER BY m.title ASC ");
-            } else if (sortBy.equalsIgnoreCase("year")) {
-                sql.append("ORDER BY m.releaseyear ASC ");
-            } else if (sortBy.equalsIgnoreCase("score")) {
-                sql.append("ORDER BY r.avgscore DESC NULLS LAST ");
-            }
-        }
+    // ========================================
+    // RECOMMENDATIONS - Kandidaten mit Merkmalen fuer das Ranking
+    // ========================================
+    // Ein nicht bewertetes Medium mit mindestens einem Lieblingsgenre des Users (ohne MediaEntry/Genres pro Zeile;
+    // geladen wird spaeter nur die ausgewaehlte Seite per findByIds).
+    public interface CandidateSink {
+        void accept(int mediaId, int matchedGenres, int likedGenres, double averageScore, int ratingCount);
+    }
 
-        List<MediaEntry> list = new ArrayList<>();
+    // Lieblingsgenres = Genres der Medien, die der User mit 4+ Sternen bewertet hat.
+    private static final String CANDIDATES_SQL =
+            "WITH liked AS ( " +
+            "  SELECT DISTINCT mg.genre FROM ratings r " +
+            "  JOIN media_genres mg ON mg.mediaid = r.mediaid " +
+            "  WHERE r.userid = ? AND r.stars >= 4 " +
+            ") " +
+            "SELECT m.id, COUNT(DISTINCT mg.genre) AS matchedgenres, (SELECT COUNT(*) FROM liked) AS likedgenres, " +
+            "COALESCE(s.avgscore, 0) AS avgscore, COALESCE(s.ratingcount, 0) AS ratingcount " +
+            "FROM liked l " +
+            "JOIN media_genres mg ON mg.genre = l.genre " +
+            "JOIN mediaentries m ON m.id = mg.mediaid " +
+            "LEFT JOIN media_rating_stats s ON s.mediaid = m.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM ratings r WHERE r.userid = ? AND r.mediaid = m.id) ";
+
+    // Content: zusaetzlich gleiche Kombination aus MediaType und Altersfreigabe wie ein gut bewertetes Medium.
+    private static final String CONTENT_FILTER_SQL =
+            "AND (m.mediatype, m.agerestriction) IN ( " +
+            "  SELECT m2.mediatype, m2.agerestriction FROM ratings r2 " +
+            "  JOIN mediaentries m2 ON m2.id = r2.mediaid " +
+            "  WHERE r2.userid = ? AND r2.stars >= 4 " +
+            ") ";
+
+    // Optional: nur Medien mit diesem Genre.
+    private static final String GENRE_FILTER_SQL =
+            "AND EXISTS (SELECT 1 FROM media_genres gf WHERE gf.mediaid = m.id AND LOWER(gf.genre) = ?) ";
+
+    private static final String CANDIDATES_GROUP_SQL = "GROUP BY m.id, s.avgscore, s.ratingcount";
+
+    // Kandidaten fuer Genre-Empfehlungen per Cursor (genre = optionaler Filter). Rueckgabe: Anzahl Kandidaten.
+    public int streamGenreCandidates(int userId, String genre, CandidateSink sink) throws SQLException {
+        return streamCandidates(CANDIDATES_SQL, 2, userId, genre, sink);
+    }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
-            }
+    // Kandidaten fuer Content-Empfehlungen per Cursor (genre = optionaler Filter). Rueckgabe: Anzahl Kandidaten.
+    public int streamContentCandidates(int userId, String genre, CandidateSink sink) throws SQLException {
+        return streamCandidates(CANDIDATES_SQL + CONTENT_FILTER_SQL, 3, userId, genre, sink);
+    }
 
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                MediaEntry media = mapResultSetToMedia(rs);
-                media.setGenres(findGenresByMediaId(media.getId()));
-                list.add(media);
+    private int streamCandidates(String sql, int userParams, int userId, String genre, CandidateSink sink)
+            throws SQLException {
+        boolean filtered = genre != null && !genre.isBlank();
+        sql += (filtered ? GENRE_FILTER_SQL : "") + CANDIDATES_GROUP_SQL;
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            int count = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                for (int p = 1; p <= userParams; p++) {
+                    stmt.setInt(p, userId);
+                }
+                if (filtered) {
+                    stmt.setString(userParams + 1, genre.trim().toLowerCase());
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    sink.accept(rs.getInt("id"), rs.getInt("matchedgenres"), rs.getInt("likedgenres"),
+                            rs.getDouble("avgscore"), rs.getInt("ratingcount"));
+                    count++;
+                }
             }
-        } catch (SQLException e) {
-            System.out.println("Fehler bei der Suche: " + e.getMessage());
+            connection.commit();
+            return count;
         }
-
-        return list;
     }
 
     // ========================================
-    // RECOMMENDATIONS - Genre-basiert
+    // CONTENT-MERKMALE - alle Medien fuer den Index im Speicher (ContentIndex)
     // ========================================
-    public List<MediaEntry> recommendByGenre(int userId) throws SQLException {
-        String sql = "SELECT DISTINCT m.* " +
-                     "FROM mediaentries m " +
-                     "JOIN media_genres mg ON mg.mediaid = m.id " +
-                     "WHERE mg.genre IN ( " +
-                     "  SELECT mg2.genre " +
-                     "  FROM ratings r " +
-                     "  JOIN media_genres mg2 ON mg2.mediaid = r.mediaid " +
-                     "  WHERE r.userid = ? AND r.stars >= 4 " +
-                     ") " +
-                     "AND m.id NOT IN (SELECT mediaid FROM ratings WHERE userid = ?)";
-        List<MediaEntry> list = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            stmt.setInt(2, userId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                MediaEntry media = mapResultSetToMedia(rs);
-                media.setGenres(findGenresByMediaId(media.getId()));
-                list.add(media);
-            }
-        }
-        return list;
+    public interface FeatureSink {
+        void accept(int mediaId, String mediaType, int ageRestriction, List<String> genres, double averageScore,
+                    int ratingCount);
     }
 
-    // ========================================
-    // RECOMMENDATIONS - Content-basiert
-    // ========================================
-    public List<MediaEntry> recommendByContent(int userId) throws SQLException {
-        String sql = "SELECT DISTINCT m.* " +
+    // Typ, Altersfreigabe, Genres und Rating-Statistik aller Medien per Cursor. Rueckgabe: Anzahl Medien.
+    public int streamContentFeatures(FeatureSink sink) throws SQLException {
+        String sql = "SELECT m.id, m.mediatype, m.agerestriction, " + GENRES_COLUMN + ", " +
+                     "COALESCE(s.avgscore, 0) AS avgscore, COALESCE(s.ratingcount, 0) AS ratingcount " +
                      "FROM mediaentries m " +
-                     "JOIN media_genres mg ON mg.mediaid = m.id " +
-                     "WHERE (m.mediatype, m.agerestriction) IN ( " +
-                     "  SELECT m2.mediatype, m2.agerestriction " +
-                     "  FROM ratings r2 " +
-                     "  JOIN mediaentries m2 ON m2.id = r2.mediaid " +
-                     "  WHERE r2.userid = ? AND r2.stars >= 4 " +
-                     ") " +
-                     "AND mg.genre IN ( " +
-                     "  SELECT mg3.genre " +
-                     "  FROM ratings r3 " +
-                     "  JOIN media_genres mg3 ON mg3.mediaid = r3.mediaid " +
-                     "  WHERE r3.userid = ? AND r3.stars >= 4 " +
-                     ") " +
-                     "AND m.id NOT IN (SELECT mediaid FROM ratings WHERE userid = ?)";
-        List<MediaEntry> list = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            stmt.setInt(2, userId);
-            stmt.setInt(3, userId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                MediaEntry media = mapResultSetToMedia(rs);
-                media.setGenres(findGenresByMediaId(media.getId()));
-                list.add(media);
+                     "LEFT JOIN media_rating_stats s ON s.mediaid = m.id";
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            int count = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    sink.accept(rs.getInt("id"), rs.getString("mediatype"), rs.getInt("agerestriction"),
+                            mapGenres(rs.getArray("genres")), rs.getDouble("avgscore"), rs.getInt("ratingcount"));
+                    count++;
+                }
             }
+            connection.commit();
+            return count;
         }
-        return list;
     }
 
     // ========================================
     // FIND BY ID - Ein Medium anhand ID finden
     // ========================================
     public MediaEntry findById(int id) {
-        String sql = "SELECT * FROM mediaentries WHERE id = ?";
+        String sql = "SELECT m.*, " + GENRES_COLUMN + " FROM mediaentries m WHERE m.id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, id);
 
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                MediaEntry media = mapResultSetToMedia(rs);
-                media.setGenres(findGenresByMediaId(media.getId()));
-                return media;
+                return mapResultSetToMedia(rs);
             }
 
         } catch (SQLException e) {
@@ -234,55 +596,180 @@ public class MediaRepository {
     }
 
     // ========================================
-    // UPDATE - Medium aktualisieren
+    // FIND BY IDS - mehrere Medien in einem Round-Trip (Reihenfolge wie ids)
+    // ========================================
+    // Nicht (mehr) vorhandene IDs fehlen im Ergebnis.
+    public List<MediaEntry> findByIds(int[] ids) throws SQLException {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT m.*, " + GENRES_COLUMN + " FROM mediaentries m WHERE m.id = ANY(?::int[])";
+        Map<Integer, MediaEntry> byId = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Integer[] boxed = new Integer[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                boxed[i] = ids[i];
+            }
+            stmt.setArray(1, connection.createArrayOf("integer", boxed));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                MediaEntry media = mapResultSetToMedia(rs);
+                byId.put(media.getId(), media);
+            }
+        }
+        List<MediaEntry> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            MediaEntry media = byId.get(id);
+            if (media != null) {
+                list.add(media);
+            }
+        }
+        return list;
+    }
+
+    // ========================================
+    // RATING-STATISTIK - aus media_rating_stats (ohne Ratings: alles 0)
+    // ========================================
+    public MediaRatingStats findRatingStats(int mediaId) throws SQLException {
+        String sql = "SELECT * FROM media_rating_stats WHERE mediaid = ?";
+        MediaRatingStats stats = new MediaRatingStats();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, mediaId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                int count = rs.getInt("ratingcount");
+                stats.setRatingCount(count);
+                stats.setAverageScore(count == 0 ? 0.0 : rs.getInt("starsum") / (double) count);
+                for (int stars = 1; stars <= 5; stars++) {
+                    stats.getStarCounts().put(stars, rs.getInt("stars" + stars));
+                }
+            }
+        }
+        return stats;
+    }
+
+    // ========================================
+    // UPDATE - Medium aktualisieren (nur Ersteller)
     // ========================================
-    public MediaEntry update(MediaEntry media) {
-        String sql = "UPDATE mediaentries SET title=?, description=?, mediatype=?, releaseyear=?, genre=?, agerestriction=? WHERE id=?";
+    // Eine Anweisung statt findById + Update: target sperrt die Zeile, changed greift nur beim Ersteller.
+    // null-Felder in changes bleiben unveraendert. Genres (falls angegeben) werden abgeglichen:
+    // fehlende geloescht, neue angehaengt (DELETE + INSERT derselben Genres in einer Anweisung wuerde
+    // mit UNIQUE (mediaid, genre) kollidieren).
+    public OwnedWrite<MediaEntry> update(int id, MediaEntry changes, int userId) throws SQLException {
+        String sql = "WITH target AS (SELECT id, creatorid FROM mediaentries WHERE id = ? FOR UPDATE), " +
+                     "changed AS (UPDATE mediaentries m SET title = COALESCE(?, m.title), " +
+                     "description = COALESCE(?, m.description), mediatype = COALESCE(?, m.mediatype), " +
+                     "releaseyear = COALESCE(?, m.releaseyear), agerestriction = COALESCE(?, m.agerestriction) " +
+                     "FROM target t WHERE m.id = t.id AND t.creatorid = ? RETURNING m.*), " +
+                     "removedgenres AS (DELETE FROM media_genres g USING changed c WHERE g.mediaid = c.id " +
+                     "AND ?::varchar[] IS NOT NULL AND g.genre <> ALL (?::varchar[])), " +
+                     "addedgenres AS (INSERT INTO media_genres (mediaid, genre) " +
+                     "SELECT c.id, n.genre FROM changed c, unnest(?::varchar[]) WITH ORDINALITY AS n(genre, pos) " +
+                     "ORDER BY n.pos ON CONFLICT (mediaid, genre) DO NOTHING) " +
+                     "SELECT t.creatorid AS ownerid, c.*, " +
+                     "COALESCE(?::varchar[], ARRAY(SELECT g.genre FROM media_genres g WHERE g.mediaid = c.id ORDER BY g.id)) " +
+                     "AS genres FROM target t LEFT JOIN changed c ON TRUE";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, media.getTitle());
-            stmt.setString(2, media.getDescription());
-            stmt.setString(3, media.getMediaType());
-            stmt.setInt(4, media.getReleaseYear());
-            stmt.setString(5, null);
-            stmt.setInt(6, media.getAgeRestriction());
-            stmt.setInt(7, media.getId());
-
-            stmt.executeUpdate();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            setNullable(stmt, 2, changes.getTitle(), Types.VARCHAR);
+            setNullable(stmt, 3, changes.getDescription(), Types.VARCHAR);
+            setNullable(stmt, 4, changes.getMediaType(), Types.VARCHAR);
+            // 0 = nicht angegeben (wie bisher im Service)
+            setNullable(stmt, 5, changes.getReleaseYear() == 0 ? null : changes.getReleaseYear(), Types.INTEGER);
+            setNullable(stmt, 6, changes.getAgeRestriction() == 0 ? null : changes.getAgeRestriction(), Types.INTEGER);
+            stmt.setInt(7, userId);
+            Array genres = changes.getGenres() == null || changes.getGenres().isEmpty() ? null
+                    : connection.createArrayOf("varchar", changes.getGenres().toArray());
+            for (int i = 8; i <= 11; i++) {
+                if (genres == null) {
+                    stmt.setNull(i, Types.ARRAY);
+                } else {
+                    stmt.setArray(i, genres);
+                }
+            }
 
-            deleteGenresByMediaId(media.getId());
-            saveGenres(media);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return OwnedWrite.notFound();
+            }
+            if (rs.getObject("id") == null) {
+                return OwnedWrite.forbidden();
+            }
+            return OwnedWrite.done(mapResultSetToMedia(rs));
+        }
+    }
 
-        } catch (SQLException e) {
-            System.out.println("Fehler beim Update: " + e.getMessage());
-            return null;
+    private static void setNullable(PreparedStatement stmt, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, sqlType);
+        } else {
+            stmt.setObject(index, value, sqlType);
         }
-
-        return media;
     }
 
     // ========================================
-    // DELETE - Medium löschen
+    // DELETE - Medium löschen (inkl. Ratings, nur Ersteller)
     // ========================================
-    public boolean delete(int id) {
-        String sql = "DELETE FROM mediaentries WHERE id = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+    // Ratings werden explizit geloescht, um sie (ID + Bewerter) fuer Leaderboard und Like-Zaehler zurueckzugeben.
+    // user_stats der Bewerter und der User mit dem Medium als Favorit werden in einer CTE angepasst
+    // (ein User kann beides sein; zwei CTEs duerften dieselbe Zeile nicht zweimal aendern).
+    // Rueckgabe: die mitgeloeschten Ratings (nur ID, Medium und Bewerter gesetzt).
+    public OwnedWrite<List<Rating>> deleteWithRatings(int id, int userId) throws SQLException {
+        String sql = "WITH target AS (SELECT id, creatorid FROM mediaentries WHERE id = ? FOR UPDATE), " +
+                     "allowed AS (SELECT id FROM target WHERE creatorid = ?), " +
+                     "removedratings AS (DELETE FROM ratings r USING allowed a WHERE r.mediaid = a.id " +
+                     "RETURNING r.id, r.userid, r.stars, r.likecount), " +
+                     "userstats AS (" + UserRepository.userStatsDelta(
+                             "SELECT userid, -SUM(rated), -SUM(stars), -SUM(likes), -SUM(favorite) FROM (" +
+                             "SELECT userid, 1 AS rated, stars, likecount AS likes, 0 AS favorite FROM removedratings " +
+                             "UNION ALL SELECT f.userid, 0, 0, 0, 1 FROM favorites f JOIN allowed a ON f.mediaid = a.id" +
+                             ") d GROUP BY userid") + "), " +
+                     "removed AS (DELETE FROM mediaentries m USING allowed a WHERE m.id = a.id RETURNING m.id) " +
+                     "SELECT t.creatorid AS ownerid, (SELECT COUNT(*) FROM removed) AS removed, " +
+                     "ARRAY(SELECT id FROM removedratings ORDER BY id) AS ratingids, " +
+                     "ARRAY(SELECT userid FROM removedratings ORDER BY id) AS raters FROM target t";
 
-        } catch (SQLException e) {
-            System.out.println("Fehler beim Löschen: " + e.getMessage());
-            return false;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            stmt.setInt(2, userId);
+
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return OwnedWrite.notFound();
+            }
+            if (rs.getInt("removed") == 0) {
+                return OwnedWrite.forbidden();
+            }
+            // Geloeschte Ratings (nur ID und Bewerter) fuer Leaderboard und Like-Zaehler.
+            List<Rating> removed = new ArrayList<>();
+            Array ratingIds = rs.getArray("ratingids");
+            Array raters = rs.getArray("raters");
+            if (ratingIds != null && raters != null) {
+                Object[] ids = (Object[]) ratingIds.getArray();
+                Object[] users = (Object[]) raters.getArray();
+                for (int i = 0; i < ids.length; i++) {
+                    Rating rating = new Rating();
+                    rating.setId(((Number) ids[i]).intValue());
+                    rating.setMediaId(id);
+                    rating.setUserId(((Number) users[i]).intValue());
+                    removed.add(rating);
+                }
+            }
+            return OwnedWrite.done(removed);
         }
     }
 
     // ========================================
     // HILFSMETHODE - ResultSet zu MediaEntry umwandeln
     // ========================================
-    private MediaEntry mapResultSetToMedia(ResultSet rs) throws SQLException {
+    // (auch von FavoriteRepository genutzt; erwartet die Spalte aus GENRES_COLUMN)
+    static MediaEntry mapResultSetToMedia(ResultSet rs) throws SQLException {
         MediaEntry media = new MediaEntry();
         media.setId(rs.getInt("id"));
         media.setTitle(rs.getString("title"));
@@ -291,11 +778,24 @@ public class MediaRepository {
         media.setReleaseYear(rs.getInt("releaseyear"));
         media.setAgeRestriction(rs.getInt("agerestriction"));
         media.setCreatorId(rs.getInt("creatorid"));
+        media.setGenres(mapGenres(rs.getArray("genres")));
         return media;
     }
 
+    // SQL-Array (varchar[]) in eine Genre-Liste umwandeln.
+    private static List<String> mapGenres(Array array) throws SQLException {
+        List<String> genres = new ArrayList<>();
+        if (array == null) {
+            return genres;
+        }
+        for (Object genre : (Object[]) array.getArray()) {
+            genres.add((String) genre);
+        }
+        return genres;
+    }
+
     // Genres fuer ein Medium speichern.
-    private void saveGenres(MediaEntry media) throws SQLException {
+    private void saveGenres(Connection connection, MediaEntry media) throws SQLException {
         if (media.getGenres() == null) {
             return;
         }
@@ -313,27 +813,4 @@ public class MediaRepository {
             stmt.executeBatch();
         }
     }
-
-    // Genres fuer ein Medium loeschen (z. B. vor Update).
-    private void deleteGenresByMediaId(int mediaId) throws SQLException {
-        String sql = "DELETE FROM media_genres WHERE mediaid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, mediaId);
-            stmt.executeUpdate();
-        }
-    }
-
-    // Genres fuer ein Medium laden.
-    private List<String> findGenresByMediaId(int mediaId) throws SQLException {
-        String sql = "SELECT genre FROM media_genres WHERE mediaid = ?";
-        List<String> genres = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, mediaId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                genres.add(rs.getString("genre"));
-            }
-        }
-        return genres;
-    }
 }
@@ -0,0 +1,197 @@
+package org.example.persistence;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Versionierte Schema-Migrationen: Skripte V<n>__<name>.sql werden beim Start in Versionsreihenfolge
+// genau einmal ausgefuehrt. Version + Checksumme stehen in schema_migrations; ein nachtraeglich
+// geaendertes Skript bricht den Start ab (statt still ein anderes Schema zu haben).
+public class MigrationRunner {
+    public static final String DEFAULT_LOCATION = "db/migration";
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    // Feste Nummer fuer pg_advisory_lock: startet ein zweiter Server gleichzeitig, wartet er hier.
+    private static final long LOCK_KEY = 7_242_001L;
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(256) NOT NULL, " +
+            "checksum VARCHAR(64) NOT NULL, " +
+            "executionmillis BIGINT NOT NULL, " +
+            "appliedat TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String APPLIED_SQL = "SELECT version, checksum FROM schema_migrations";
+    private static final String INSERT_SQL =
+            "INSERT INTO schema_migrations (version, description, checksum, executionmillis) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final List<Migration> migrations;
+
+    public MigrationRunner(DataSource dataSource, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).version() == this.migrations.get(i - 1).version()) {
+                throw new IllegalArgumentException("Migration V" + this.migrations.get(i).version() + " ist doppelt vorhanden");
+            }
+        }
+    }
+
+    // Runner mit den Skripten aus src/main/resources/db/migration.
+    public static MigrationRunner fromClasspath(DataSource dataSource) throws IOException {
+        return new MigrationRunner(dataSource, loadFromClasspath(DEFAULT_LOCATION));
+    }
+
+    // Skripte aus einem Classpath-Verzeichnis laden (funktioniert aus target/classes und aus dem JAR).
+    public static List<Migration> loadFromClasspath(String location) throws IOException {
+        URL url = MigrationRunner.class.getClassLoader().getResource(location);
+        if (url == null) {
+            throw new IOException("Migrationsverzeichnis nicht gefunden: " + location);
+        }
+        try {
+            URI uri = url.toURI();
+            if (uri.getScheme().equals("jar")) {
+                try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                    return load(jar.getPath(location));
+                }
+            }
+            return load(Path.of(uri));
+        } catch (URISyntaxException e) {
+            throw new IOException("Ungueltiger Pfad: " + url, e);
+        }
+    }
+
+    private static List<Migration> load(Path directory) throws IOException {
+        List<Migration> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(".sql")) {
+                    continue;
+                }
+                Matcher matcher = FILE_NAME.matcher(name);
+                if (!matcher.matches()) {
+                    throw new IOException("Ungueltiger Migrationsname (erwartet V<n>__<name>.sql): " + name);
+                }
+                result.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2),
+                        Files.readString(file, StandardCharsets.UTF_8)));
+            }
+        }
+        return result;
+    }
+
+    // Ausstehende Migrationen anwenden (jede in eigener Transaktion). Rueckgabe: Anzahl neu angewendeter.
+    public int migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(CREATE_TABLE_SQL);
+            }
+            advisoryLock(connection, "pg_advisory_lock");
+            try {
+                Map<Integer, String> applied = loadApplied(connection);
+                for (Migration migration : migrations) {
+                    String checksum = applied.get(migration.version());
+                    if (checksum != null && !checksum.equals(migration.checksum())) {
+                        throw new SQLException("Migration V" + migration.version() + " wurde nach dem Anwenden geaendert"
+                                + " (Checksumme passt nicht). Aenderungen gehoeren in eine neue Migration.");
+                    }
+                }
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    if (!applied.containsKey(migration.version())) {
+                        apply(connection, migration);
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute(migration.sql());
+            }
+            long millis = System.currentTimeMillis() - start;
+            try (PreparedStatement stmt = connection.prepareStatement(INSERT_SQL)) {
+                stmt.setInt(1, migration.version());
+                stmt.setString(2, migration.description());
+                stmt.setString(3, migration.checksum());
+                stmt.setLong(4, millis);
+                stmt.executeUpdate();
+            }
+            connection.commit();
+            System.out.println("Migration V" + migration.version() + " (" + migration.description() + ") angewendet in "
+                    + millis + " ms");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration V" + migration.version() + " (" + migration.description()
+                    + ") fehlgeschlagen: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private Map<Integer, String> loadApplied(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(APPLIED_SQL)) {
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT " + function + "(?)")) {
+            stmt.setLong(1, LOCK_KEY);
+            stmt.executeQuery();
+        }
+    }
+
+    // Ein Skript: Version, Beschreibung (aus dem Dateinamen) und Inhalt.
+    public record Migration(int version, String description, String sql) {
+
+        // SHA-256 ueber den Inhalt; Zeilenenden normalisiert (CRLF-Checkout aendert die Checksumme nicht).
+        public String checksum() {
+            try {
+                byte[] normalized = sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8);
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(normalized));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.persistence;
+
+// Ergebnis eines Schreibzugriffs, der die Besitzer-Pruefung in derselben SQL-Anweisung macht
+// (kein findById vorher -> ein Round-Trip, kein Check-then-Act).
+public record OwnedWrite<T>(Status status, T value) {
+
+    public enum Status {
+        DONE,
+        NOT_FOUND,
+        FORBIDDEN
+    }
+
+    public static <T> OwnedWrite<T> done(T value) {
+        return new OwnedWrite<>(Status.DONE, value);
+    }
+
+    public static <T> OwnedWrite<T> notFound() {
+        return new OwnedWrite<>(Status.NOT_FOUND, null);
+    }
+
+    public static <T> OwnedWrite<T> forbidden() {
+        return new OwnedWrite<>(Status.FORBIDDEN, null);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset-Cursor: Sortierung + Sortierwert + ID der letzten Zeile einer Seite.
+// Fuer den Client undurchsichtig (Base64), damit das Format spaeter geaendert werden kann.
+public final class PageCursor {
+    private final String sort;
+    private final String key;
+    private final int id;
+
+    public PageCursor(String sort, String key, int id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    // Format vor Base64: sort|id|key (key zuletzt, darf selbst '|' enthalten).
+    public String encode() {
+        String raw = sort + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+        String[] parts = raw.split("\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+        try {
+            return new PageCursor(parts[0], parts[2], Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
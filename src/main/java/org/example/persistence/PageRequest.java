@@ -0,0 +1,72 @@
+package org.example.persistence;
+
+import java.util.Map;
+
+// Seitenabfrage fuer Listen-Endpunkte: Groesse (mit hartem Limit) + optionaler Cursor.
+public final class PageRequest {
+    // Hartes Limit pro Seite, gilt auch ohne limit-Parameter.
+    public static final int MAX_SIZE = Integer.getInteger("mrp.page.maxSize", 100);
+    // Seitengroesse, wenn nur ein Cursor angegeben ist.
+    public static final int DEFAULT_SIZE = Math.min(Integer.getInteger("mrp.page.defaultSize", 20), MAX_SIZE);
+
+    private final int limit;
+    private final PageCursor after;
+    // true = Client hat limit/cursor angegeben (Antwort mit items + nextCursor).
+    private final boolean paged;
+
+    public PageRequest(int limit, PageCursor after, boolean paged) {
+        this.limit = limit;
+        this.after = after;
+        this.paged = paged;
+    }
+
+    // Erste Seite mit maximaler Groesse (ohne Pagination-Parameter).
+    public static PageRequest firstPage() {
+        return new PageRequest(MAX_SIZE, null, false);
+    }
+
+    // limit/cursor aus den Query-Parametern lesen; der Cursor muss zur Sortierung passen.
+    public static PageRequest fromQuery(Map<String, String> params, String sort) {
+        String limitParam = params.get("limit");
+        String cursorParam = params.get("cursor");
+        boolean hasLimit = limitParam != null && !limitParam.isBlank();
+        boolean hasCursor = cursorParam != null && !cursorParam.isBlank();
+        if (!hasLimit && !hasCursor) {
+            return firstPage();
+        }
+
+        int limit = DEFAULT_SIZE;
+        if (hasLimit) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ungueltiges limit");
+            }
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit muss mindestens 1 sein");
+            }
+            limit = Math.min(limit, MAX_SIZE);
+        }
+
+        PageCursor after = null;
+        if (hasCursor) {
+            after = PageCursor.decode(cursorParam);
+            if (!after.getSort().equals(sort)) {
+                throw new IllegalArgumentException("Cursor passt nicht zur Sortierung");
+            }
+        }
+        return new PageRequest(limit, after, true);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public PageCursor getAfter() {
+        return after;
+    }
+
+    public boolean isPaged() {
+        return paged;
+    }
+}
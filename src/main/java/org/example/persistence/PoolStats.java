@@ -0,0 +1,116 @@
+package org.example.persistence;
+
+// Momentaufnahme der Pool-Statistiken (Ausgabe ueber /api/metrics).
+public class PoolStats {
+    private int minSize;
+    private int maxSize;
+    private int total;
+    private int active;
+    private int idle;
+    private int waiters;
+    private long acquireCount;
+    private long acquireTimeouts;
+    private double averageAcquireMillis;
+    private double maxAcquireMillis;
+    private long validationFailures;
+    private long leaksDetected;
+
+    public PoolStats() {
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    public double getAverageAcquireMillis() {
+        return averageAcquireMillis;
+    }
+
+    public double getMaxAcquireMillis() {
+        return maxAcquireMillis;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public void setWaiters(int waiters) {
+        this.waiters = waiters;
+    }
+
+    public void setAcquireCount(long acquireCount) {
+        this.acquireCount = acquireCount;
+    }
+
+    public void setAcquireTimeouts(long acquireTimeouts) {
+        this.acquireTimeouts = acquireTimeouts;
+    }
+
+    public void setAverageAcquireMillis(double averageAcquireMillis) {
+        this.averageAcquireMillis = averageAcquireMillis;
+    }
+
+    public void setMaxAcquireMillis(double maxAcquireMillis) {
+        this.maxAcquireMillis = maxAcquireMillis;
+    }
+
+    public void setValidationFailures(long validationFailures) {
+        this.validationFailures = validationFailures;
+    }
+
+    public void setLeaksDetected(long leaksDetected) {
+        this.leaksDetected = leaksDetected;
+    }
+}
@@ -3,45 +3,176 @@ package org.example.persistence;
 import org.example.domain.Rating;
 import org.example.domain.LeaderboardEntry;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
 
 // Repository für Ratings und Rating-Likes.
 public class RatingRepository {
-    private final Connection connection;
+    // Namen der Sortierungen im Seiten-Cursor.
+    public static final String USER_RATINGS_SORT = "created";
+    public static final String LEADERBOARD_SORT = "count";
+    public static final String TOP_COMMENTS_SORT = "likes";
+
+    // Spalten des Exports (Reihenfolge = CSV-Spalten); mit Medium zusaetzlich EXPORT_MEDIA_COLUMNS.
+    public static final List<String> EXPORT_COLUMNS =
+            List.of("id", "mediaId", "userId", "stars", "comment", "commentConfirmed", "createdAt", "updatedAt");
+    public static final List<String> EXPORT_MEDIA_COLUMNS =
+            List.of("mediaTitle", "mediaType", "releaseYear", "ageRestriction");
+
+    private static final String FIND_BY_USER_SQL = "SELECT * FROM ratings WHERE userid = ? ORDER BY createdat DESC";
+    // Leaderboard aus user_stats (eine Zeile pro User, Index idx_user_stats_leaderboard) statt GROUP BY ueber ratings.
+    private static final String LEADERBOARD_ORDER = " ORDER BY s.ratingcount DESC, s.userid";
+    private static final String LEADERBOARD_SQL = "SELECT s.userid AS id, u.username, s.ratingcount " +
+                                                  "FROM user_stats s JOIN users u ON u.id = s.userid" +
+                                                  LEADERBOARD_ORDER;
+    // Folgeseite: Rest des Gleichstands (gleiche Anzahl, groessere ID) und kleinere Anzahlen als zwei
+    // Bereichs-Scans auf dem Index; so kostet Seite N so viel wie Seite 1 (die OR-Bedingung wuerde von vorn filtern).
+    private static final String LEADERBOARD_AFTER_SQL =
+            "SELECT s.userid AS id, u.username, s.ratingcount FROM (" +
+            "(SELECT userid, ratingcount FROM user_stats s WHERE s.ratingcount = ? AND s.userid > ?" +
+            LEADERBOARD_ORDER + " LIMIT ?) " +
+            "UNION ALL " +
+            "(SELECT userid, ratingcount FROM user_stats s WHERE s.ratingcount < ?" +
+            LEADERBOARD_ORDER + " LIMIT ?)" +
+            ") s JOIN users u ON u.id = s.userid" + LEADERBOARD_ORDER + " LIMIT ?";
+
+    // Statistik pro Medium um ein Delta anpassen (Zeile wird beim ersten Rating angelegt).
+    private static final String STATS_INSERT =
+            "INSERT INTO media_rating_stats (mediaid, ratingcount, starsum, stars1, stars2, stars3, stars4, stars5) ";
+    private static final String STATS_ON_CONFLICT =
+            "ON CONFLICT (mediaid) DO UPDATE SET " +
+            "ratingcount = media_rating_stats.ratingcount + EXCLUDED.ratingcount, " +
+            "starsum = media_rating_stats.starsum + EXCLUDED.starsum, " +
+            "stars1 = media_rating_stats.stars1 + EXCLUDED.stars1, " +
+            "stars2 = media_rating_stats.stars2 + EXCLUDED.stars2, " +
+            "stars3 = media_rating_stats.stars3 + EXCLUDED.stars3, " +
+            "stars4 = media_rating_stats.stars4 + EXCLUDED.stars4, " +
+            "stars5 = media_rating_stats.stars5 + EXCLUDED.stars5";
+
+    // Besitzer-gepruefte Schreibzugriffe: target sperrt die Zeile, changed greift nur beim Besitzer.
+    // Ergebnis: keine Zeile = nicht gefunden, ownerid ohne id = fremdes Rating, sonst die geaenderte Zeile.
+    private static final String UPDATE_OWNED_SQL =
+            "WITH target AS (SELECT id, userid, stars FROM ratings WHERE id = ? FOR UPDATE), " +
+            "changed AS (UPDATE ratings r SET stars = ?, comment = ?, commentconfirmed = FALSE, " +
+            "updatedat = CURRENT_TIMESTAMP FROM target t " +
+            "WHERE r.id = t.id AND t.userid = ? RETURNING r.*, t.stars AS oldstars), " +
+            "stats AS (" + statsDeltaFrom("changed", "oldstars", "stars") + "), " +
+            "userstats AS (" + userStatsDeltaFrom("changed", "oldstars", "stars", "0") + ") " +
+            "SELECT t.userid AS ownerid, c.* FROM target t LEFT JOIN changed c ON TRUE";
+    private static final String DELETE_OWNED_SQL =
+            "WITH target AS (SELECT id, userid FROM ratings WHERE id = ? FOR UPDATE), " +
+            "removed AS (DELETE FROM ratings r USING target t WHERE r.id = t.id AND t.userid = ? RETURNING r.*), " +
+            "stats AS (" + statsDeltaFrom("removed", "stars", "0") + "), " +
+            "userstats AS (" + userStatsDeltaFrom("removed", "stars", "0", "likecount") + ") " +
+            "SELECT t.userid AS ownerid, d.* FROM target t LEFT JOIN removed d ON TRUE";
+    private static final String CONFIRM_OWNED_SQL =
+            "WITH target AS (SELECT id, userid FROM ratings WHERE id = ? FOR UPDATE), " +
+            "changed AS (UPDATE ratings r SET commentconfirmed = TRUE, updatedat = CURRENT_TIMESTAMP FROM target t " +
+            "WHERE r.id = t.id AND t.userid = ? RETURNING r.*) " +
+            "SELECT t.userid AS ownerid, c.* FROM target t LEFT JOIN changed c ON TRUE";
+
+    // Anlegen in einer Anweisung: ON CONFLICT statt findByMediaAndUser + INSERT (keine Race bei Doppel-Submits).
+    // Keine Zeile im Ergebnis = es gibt schon ein Rating dieses Users fuer das Medium.
+    private static final String INSERT_SQL =
+            "WITH changed AS (INSERT INTO ratings (mediaid, userid, stars, comment) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (mediaid, userid) DO NOTHING RETURNING *, 0 AS oldstars), " +
+            "stats AS (" + statsDeltaFrom("changed", "oldstars", "stars") + "), " +
+            "userstats AS (" + userStatsDeltaFrom("changed", "oldstars", "stars", "0") + ") " +
+            "SELECT * FROM changed";
+    // Upsert: bestehendes Rating (gesperrt) ueberschreiben, sonst anlegen. Keine Zeile im Ergebnis =
+    // ein paralleler Insert kam zwischen Snapshot und INSERT -> Anweisung wiederholen.
+    private static final String UPSERT_SQL =
+            "WITH old AS (SELECT id, stars FROM ratings WHERE mediaid = ? AND userid = ? FOR UPDATE), " +
+            "updated AS (UPDATE ratings r SET stars = ?, comment = ?, commentconfirmed = FALSE, " +
+            "updatedat = CURRENT_TIMESTAMP FROM old o " +
+            "WHERE r.id = o.id RETURNING r.*, o.stars AS oldstars), " +
+            "inserted AS (INSERT INTO ratings (mediaid, userid, stars, comment) SELECT ?, ?, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM old) " +
+            "ON CONFLICT (mediaid, userid) DO NOTHING RETURNING *, 0 AS oldstars), " +
+            "changed AS (SELECT * FROM updated UNION ALL SELECT * FROM inserted), " +
+            "stats AS (" + statsDeltaFrom("changed", "oldstars", "stars") + "), " +
+            "userstats AS (" + userStatsDeltaFrom("changed", "oldstars", "stars", "0") + ") " +
+            "SELECT * FROM changed";
+    private static final int UPSERT_ATTEMPTS = 3;
 
-    public RatingRepository(Connection connection) {
-        this.connection = connection;
+    // Komplett neu aus der ratings-Tabelle aufbauen (Backfill / Reparatur); jedes Medium bekommt eine Zeile.
+    private static final String STATS_REBUILD_SQL =
+            "INSERT INTO media_rating_stats (mediaid, ratingcount, starsum, stars1, stars2, stars3, stars4, stars5) " +
+            "SELECT m.id, COUNT(r.id), COALESCE(SUM(r.stars), 0), " +
+            "COUNT(*) FILTER (WHERE r.stars = 1), COUNT(*) FILTER (WHERE r.stars = 2), " +
+            "COUNT(*) FILTER (WHERE r.stars = 3), COUNT(*) FILTER (WHERE r.stars = 4), " +
+            "COUNT(*) FILTER (WHERE r.stars = 5) " +
+            "FROM mediaentries m LEFT JOIN ratings r ON r.mediaid = m.id GROUP BY m.id " +
+            // Waehrend des Neuaufbaus angelegte Medien haben ihre (leere) Zeile schon.
+            "ON CONFLICT (mediaid) DO NOTHING";
+
+    private final DataSource dataSource;
+
+    public RatingRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Rating anlegen (ein Rating pro User/Medium); overwrite = bestehendes Rating ueberschreiben (Upsert).
+    public RatingWrite insert(Rating rating, boolean overwrite) throws SQLException {
+        if (!overwrite) {
+            RatingWrite result = executeInsert(INSERT_SQL, rating, false);
+            return result != null ? result : new RatingWrite(RatingWrite.Status.CONFLICT, null);
+        }
+        for (int attempt = 0; attempt < UPSERT_ATTEMPTS; attempt++) {
+            RatingWrite result = executeInsert(UPSERT_SQL, rating, true);
+            if (result != null) {
+                return result;
+            }
+        }
+        throw new SQLException("Upsert nach " + UPSERT_ATTEMPTS + " Versuchen nicht moeglich");
     }
 
-    // Neues Rating speichern.
-    public Rating save(Rating rating) throws SQLException {
-        String sql = "INSERT INTO ratings (mediaid, userid, stars, comment) VALUES (?, ?, ?, ?) RETURNING id, createdat, commentconfirmed";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, rating.getMediaId());
-            stmt.setInt(2, rating.getUserId());
-            stmt.setInt(3, rating.getStars());
-            stmt.setString(4, rating.getComment());
+    // Fuehrt INSERT_SQL/UPSERT_SQL aus; null = keine Zeile geschrieben.
+    private RatingWrite executeInsert(String sql, Rating rating, boolean upsert) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int index = 1;
+            // UPSERT_SQL: zuerst (mediaid, userid) fuer old und (stars, comment) fuer updated
+            if (upsert) {
+                stmt.setInt(index++, rating.getMediaId());
+                stmt.setInt(index++, rating.getUserId());
+                stmt.setInt(index++, rating.getStars());
+                stmt.setString(index++, rating.getComment());
+            }
+            stmt.setInt(index++, rating.getMediaId());
+            stmt.setInt(index++, rating.getUserId());
+            stmt.setInt(index++, rating.getStars());
+            stmt.setString(index, rating.getComment());
 
             ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                rating.setId(rs.getInt("id"));
-                rating.setCreatedAt(rs.getTimestamp("createdat").toLocalDateTime());
-                rating.setCommentConfirmed(rs.getBoolean("commentconfirmed"));
+            if (!rs.next()) {
+                return null;
             }
-            return rating;
+            // oldstars = 0 -> neu angelegt, sonst die ueberschriebenen Sterne
+            RatingWrite.Status status = rs.getInt("oldstars") == 0
+                    ? RatingWrite.Status.CREATED : RatingWrite.Status.UPDATED;
+            return new RatingWrite(status, mapRating(rs));
         }
     }
 
     // Rating nach ID holen.
     public Rating findById(int ratingId) throws SQLException {
         String sql = "SELECT * FROM ratings WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, ratingId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -54,7 +185,8 @@ public class RatingRepository {
     // Rating nach Media und User holen (1 Rating pro User/Medium).
     public Rating findByMediaAndUser(int mediaId, int userId) throws SQLException {
         String sql = "SELECT * FROM ratings WHERE mediaid = ? AND userid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, mediaId);
             stmt.setInt(2, userId);
             ResultSet rs = stmt.executeQuery();
@@ -65,65 +197,197 @@ public class RatingRepository {
         }
     }
 
-    // Rating aktualisieren (Sterne + Kommentar).
-    public Rating update(Rating rating) throws SQLException {
-        String sql = "UPDATE ratings SET stars = ?, comment = ?, commentconfirmed = ? WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, rating.getStars());
-            stmt.setString(2, rating.getComment());
-            stmt.setBoolean(3, rating.isCommentConfirmed());
-            stmt.setInt(4, rating.getId());
-            stmt.executeUpdate();
-            return rating;
-        }
+    // Sterne + Kommentar aendern (nur Besitzer, Kommentar muss neu bestaetigt werden).
+    // Eine Anweisung: Zeilensperre, Update und Statistik-Delta (alte/neue Sterne) zusammen.
+    public OwnedWrite<Rating> update(int ratingId, int userId, int stars, String comment) throws SQLException {
+        return writeOwned(UPDATE_OWNED_SQL, ratingId, stmt -> {
+            stmt.setInt(2, stars);
+            stmt.setString(3, comment);
+            stmt.setInt(4, userId);
+        });
     }
 
-    // Kommentar bestätigen.
-    public void confirmComment(int ratingId) throws SQLException {
-        String sql = "UPDATE ratings SET commentconfirmed = TRUE WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+    // Kommentar bestätigen (nur Besitzer).
+    public OwnedWrite<Rating> confirmComment(int ratingId, int userId) throws SQLException {
+        return writeOwned(CONFIRM_OWNED_SQL, ratingId, stmt -> stmt.setInt(2, userId));
+    }
+
+    // Rating löschen (nur Besitzer); Statistik des Mediums in derselben Anweisung anpassen.
+    // Rueckgabe enthaelt das geloeschte Rating.
+    public OwnedWrite<Rating> delete(int ratingId, int userId) throws SQLException {
+        return writeOwned(DELETE_OWNED_SQL, ratingId, stmt -> stmt.setInt(2, userId));
+    }
+
+    // Gemeinsame Auswertung der *_OWNED_SQL-Anweisungen (Parameter 1 = Rating-ID).
+    private OwnedWrite<Rating> writeOwned(String sql, int ratingId, ParameterBinder binder) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, ratingId);
-            stmt.executeUpdate();
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return OwnedWrite.notFound();
+            }
+            if (rs.getObject("id") == null) {
+                return OwnedWrite.forbidden();
+            }
+            return OwnedWrite.done(mapRating(rs));
         }
     }
 
-    // Rating löschen.
-    public boolean delete(int ratingId) throws SQLException {
-        String sql = "DELETE FROM ratings WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, ratingId);
-            return stmt.executeUpdate() > 0;
+    // Restliche Parameter einer vorbereiteten Anweisung setzen.
+    @FunctionalInterface
+    interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    // INSERT ... SELECT fuer das Statistik-Delta aus einer CTE; removed/added = Spalte mit Sternen, "0" = keins.
+    private static String statsDeltaFrom(String cte, String removed, String added) {
+        StringBuilder sql = new StringBuilder(STATS_INSERT);
+        sql.append("SELECT mediaid, (").append(added).append(" > 0)::int - (").append(removed).append(" > 0)::int, ")
+                .append(added).append(" - ").append(removed);
+        for (int stars = 1; stars <= 5; stars++) {
+            sql.append(", (").append(added).append(" = ").append(stars).append(")::int - (")
+                    .append(removed).append(" = ").append(stars).append(")::int");
+        }
+        sql.append(" FROM ").append(cte).append(" WHERE ").append(added).append(" <> ").append(removed).append(" ");
+        return sql.append(STATS_ON_CONFLICT).toString();
+    }
+
+    // Dasselbe Delta fuer user_stats (Anzahl, Sternsumme); lostLikes = Spalte mit wegfallenden Likes, "0" = keine.
+    private static String userStatsDeltaFrom(String cte, String removed, String added, String lostLikes) {
+        return UserRepository.userStatsDelta("SELECT userid, (" + added + " > 0)::int - (" + removed + " > 0)::int, " +
+                added + " - " + removed + ", -" + lostLikes + ", 0 FROM " + cte +
+                " WHERE " + added + " <> " + removed);
+    }
+
+    // Statistik aller Medien neu aufbauen. Schreibzugriffe auf ratings warten so lange (SHARE-Lock),
+    // damit kein Rating zwischen Loeschen und Neuaufbau verloren geht. Rueckgabe: Anzahl Medien.
+    public int rebuildMediaStats() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            stmt.execute("LOCK TABLE ratings IN SHARE MODE");
+            stmt.executeUpdate("DELETE FROM media_rating_stats");
+            int rows = stmt.executeUpdate(STATS_REBUILD_SQL);
+            connection.commit();
+            return rows;
         }
     }
 
-    // Rating-Like speichern.
+    // Rating-Like speichern; likecount am Rating und likesreceived des Bewerters in derselben Anweisung erhoehen.
     public void addLike(int ratingId, int userId) throws SQLException {
-        String sql = "INSERT INTO rating_likes (ratingid, userid) VALUES (?, ?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "WITH liked AS (INSERT INTO rating_likes (ratingid, userid) VALUES (?, ?) RETURNING ratingid), " +
+                     "counted AS (UPDATE ratings r SET likecount = r.likecount + 1 FROM liked l " +
+                     "WHERE r.id = l.ratingid RETURNING r.userid) " +
+                     UserRepository.userStatsDelta("SELECT userid, 0, 0, 1, 0 FROM counted");
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, ratingId);
             stmt.setInt(2, userId);
             stmt.executeUpdate();
         }
     }
 
-    // Rating-Likes zählen.
-    public int countLikes(int ratingId) throws SQLException {
-        String sql = "SELECT COUNT(*) AS cnt FROM rating_likes WHERE ratingid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+    // Viele Likes in einer Anweisung speichern (Write-Behind, siehe LikeBuffer).
+    // Bereits vorhandene Likes und Likes auf geloeschte Ratings werden uebersprungen.
+    // likecount der betroffenen Ratings (und likesreceived der Bewerter) wird in derselben Anweisung erhoeht.
+    // Rueckgabe: Rating-ID jedes tatsaechlich neu gespeicherten Likes.
+    public int[] addLikes(int[] ratingIds, int[] userIds) throws SQLException {
+        String sql = "WITH liked AS (INSERT INTO rating_likes (ratingid, userid) " +
+                     "SELECT l.ratingid, l.userid FROM unnest(?::int[], ?::int[]) AS l(ratingid, userid) " +
+                     "JOIN ratings r ON r.id = l.ratingid " +
+                     "ON CONFLICT (ratingid, userid) DO NOTHING RETURNING ratingid), " +
+                     "counted AS (UPDATE ratings r SET likecount = r.likecount + c.added " +
+                     "FROM (SELECT ratingid, COUNT(*) AS added FROM liked GROUP BY ratingid) c " +
+                     "WHERE r.id = c.ratingid RETURNING r.userid, c.added), " +
+                     "received AS (" + UserRepository.userStatsDelta(
+                             "SELECT userid, 0, 0, SUM(added), 0 FROM counted GROUP BY userid") + ") " +
+                     "SELECT ratingid FROM liked";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("integer", box(ratingIds)));
+            stmt.setArray(2, connection.createArrayOf("integer", box(userIds)));
+            ResultSet rs = stmt.executeQuery();
+            int[] inserted = new int[ratingIds.length];
+            int count = 0;
+            while (rs.next()) {
+                inserted[count++] = rs.getInt("ratingid");
+            }
+            return Arrays.copyOf(inserted, count);
+        }
+    }
+
+    private static Integer[] box(int[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    // Like-Anzahl aller Ratings, auch ohne Likes (Startwerte und bekannte Ratings fuer LikeBuffer).
+    public Map<Integer, Integer> countAllLikes() throws SQLException {
+        String sql = "SELECT id AS ratingid, likecount AS cnt FROM ratings";
+        Map<Integer, Integer> counts = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    counts.put(rs.getInt("ratingid"), rs.getInt("cnt"));
+                }
+            }
+            connection.commit();
+        }
+        return counts;
+    }
+
+    // Rating-Likes zählen (gepflegte Spalte statt COUNT ueber rating_likes); null = Rating nicht gefunden.
+    public Integer countLikes(int ratingId) throws SQLException {
+        String sql = "SELECT likecount AS cnt FROM ratings WHERE id = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, ratingId);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt("cnt");
             }
-            return 0;
+            return null;
+        }
+    }
+
+    // Ein Rating als (User, Medium, Sterne) ohne Rating-Objekt pro Zeile (fuer Modelle ueber alle Ratings).
+    public interface StarsSink {
+        void accept(int userId, int mediaId, int stars);
+    }
+
+    // Alle Ratings per Cursor lesen (nur die drei Spalten). Rueckgabe: Anzahl Ratings.
+    public int streamStars(StarsSink sink) throws SQLException {
+        String sql = "SELECT userid, mediaid, stars FROM ratings";
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            int count = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    sink.accept(rs.getInt("userid"), rs.getInt("mediaid"), rs.getInt("stars"));
+                    count++;
+                }
+            }
+            connection.commit();
+            return count;
         }
     }
 
     // Ratings fuer einen User (History).
     public List<Rating> findByUser(int userId) throws SQLException {
-        String sql = "SELECT * FROM ratings WHERE userid = ? ORDER BY createdat DESC";
         List<Rating> list = new ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(FIND_BY_USER_SQL)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
@@ -133,53 +397,229 @@ public class RatingRepository {
         return list;
     }
 
-    // Anzahl Ratings eines Users.
-    public int countByUser(int userId) throws SQLException {
-        String sql = "SELECT COUNT(*) AS cnt FROM ratings WHERE userid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("cnt");
+    // Eine Seite der Ratings eines Users streamen (neueste zuerst, Keyset auf createdat + id).
+    // Rueckgabe: Cursor fuer die naechste Seite oder null.
+    public String streamByUserPage(int userId, PageRequest page, RowSink<? super Rating> sink)
+            throws SQLException, IOException {
+        PageCursor after = page.getAfter();
+        // Index (userid, createdat DESC, id DESC) -> jede Seite ist ein kurzer Index-Scan.
+        String sql = "SELECT * FROM ratings WHERE userid = ? " +
+                     (after != null ? "AND (createdat, id) < (?, ?) " : "") +
+                     "ORDER BY createdat DESC, id DESC LIMIT ?";
+
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            String nextCursor = null;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                int index = 1;
+                stmt.setInt(index++, userId);
+                if (after != null) {
+                    stmt.setTimestamp(index++, parseTimestamp(after.getKey()));
+                    stmt.setInt(index++, after.getId());
+                }
+                stmt.setInt(index, page.getLimit() + 1);
+
+                ResultSet rs = stmt.executeQuery();
+                int count = 0;
+                Rating last = null;
+                Timestamp lastCreatedAt = null;
+                while (rs.next()) {
+                    if (count == page.getLimit()) {
+                        nextCursor = new PageCursor(USER_RATINGS_SORT, lastCreatedAt.toString(), last.getId()).encode();
+                        break;
+                    }
+                    last = mapRating(rs);
+                    lastCreatedAt = rs.getTimestamp("createdat");
+                    sink.accept(last);
+                    count++;
+                }
             }
-            return 0;
+            connection.commit();
+            return nextCursor;
         }
     }
 
-    // Durchschnittliche Sterne eines Users.
-    public double averageByUser(int userId) throws SQLException {
-        String sql = "SELECT AVG(stars) AS avgscore FROM ratings WHERE userid = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble("avgscore");
+    // Alle Ratings (optional ab einem Aenderungszeitpunkt) ueber einen serverseitigen Cursor streamen.
+    // Sortiert nach (updatedat, id): das updatedAt der letzten Zeile ist das naechste updatedSince.
+    // Pro Zeile ein Werte-Array in der Reihenfolge von EXPORT_COLUMNS (+ EXPORT_MEDIA_COLUMNS).
+    // Kommentare nur, wenn bestaetigt (wie ueberall sonst; unbestaetigt = null).
+    // updatedat ist der Start der schreibenden Transaktion: eine Zeile kann nach einem Export mit einem aelteren
+    // updatedat sichtbar werden. Aufrufer ziehen deshalb ein Ueberlappungsfenster vom Wasserzeichen ab
+    // (siehe RatingService.EXPORT_OVERLAP_SECONDS).
+    public int streamExport(Timestamp updatedSince, boolean withMedia, RowSink<Object[]> sink)
+            throws SQLException, IOException {
+        String sql = "SELECT r.id, r.mediaid, r.userid, r.stars, " +
+                     "CASE WHEN r.commentconfirmed THEN r.comment END AS comment, " +
+                     "r.commentconfirmed, r.createdat, r.updatedat" +
+                     (withMedia ? ", m.title, m.mediatype, m.releaseyear, m.agerestriction " +
+                                  "FROM ratings r JOIN mediaentries m ON m.id = r.mediaid "
+                                : " FROM ratings r ") +
+                     (updatedSince != null ? "WHERE r.updatedat >= ? " : "") +
+                     "ORDER BY r.updatedat, r.id";
+
+        try (Connection connection = dataSource.getConnection()) {
+            // Cursor-Betrieb braucht in PostgreSQL eine offene Transaktion.
+            connection.setAutoCommit(false);
+            int count = 0;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                if (updatedSince != null) {
+                    stmt.setTimestamp(1, updatedSince);
+                }
+                ResultSet rs = stmt.executeQuery();
+                int columns = EXPORT_COLUMNS.size() + (withMedia ? EXPORT_MEDIA_COLUMNS.size() : 0);
+                while (rs.next()) {
+                    Object[] row = new Object[columns];
+                    row[0] = rs.getInt("id");
+                    row[1] = rs.getInt("mediaid");
+                    row[2] = rs.getInt("userid");
+                    row[3] = rs.getInt("stars");
+                    row[4] = rs.getString("comment");
+                    row[5] = rs.getBoolean("commentconfirmed");
+                    row[6] = toLocalDateTime(rs.getTimestamp("createdat"));
+                    row[7] = toLocalDateTime(rs.getTimestamp("updatedat"));
+                    if (withMedia) {
+                        row[8] = rs.getString("title");
+                        row[9] = rs.getString("mediatype");
+                        row[10] = rs.getObject("releaseyear", Integer.class);
+                        row[11] = rs.getObject("agerestriction", Integer.class);
+                    }
+                    sink.accept(row);
+                    count++;
+                }
             }
-            return 0.0;
+            connection.commit();
+            return count;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    private static Timestamp parseTimestamp(String key) {
+        try {
+            return Timestamp.valueOf(key);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
         }
     }
 
     // Leaderboard: User nach Anzahl Ratings.
     public java.util.List<LeaderboardEntry> getLeaderboard() throws SQLException {
-        String sql = "SELECT u.id, u.username, COUNT(r.id) AS ratingcount " +
-                     "FROM users u " +
-                     "LEFT JOIN ratings r ON r.userid = u.id " +
-                     "GROUP BY u.id, u.username " +
-                     "ORDER BY ratingcount DESC";
         java.util.List<LeaderboardEntry> list = new java.util.ArrayList<>();
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(LEADERBOARD_SQL)) {
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                list.add(new LeaderboardEntry(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getInt("ratingcount")
-                ));
+                list.add(mapLeaderboardEntry(rs));
             }
         }
         return list;
     }
 
+    // Eine Seite des Leaderboards streamen (Anzahl absteigend, bei Gleichstand nach User-ID).
+    // Rueckgabe: Cursor fuer die naechste Seite oder null.
+    public String streamLeaderboardPage(PageRequest page, RowSink<? super LeaderboardEntry> sink)
+            throws SQLException, IOException {
+        PageCursor after = page.getAfter();
+        String sql = after != null ? LEADERBOARD_AFTER_SQL : LEADERBOARD_SQL + " LIMIT ?";
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            String nextCursor = null;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                int index = 1;
+                if (after != null) {
+                    long count = parseCount(after.getKey());
+                    stmt.setLong(index++, count);
+                    stmt.setInt(index++, after.getId());
+                    stmt.setInt(index++, page.getLimit() + 1);
+                    stmt.setLong(index++, count);
+                    stmt.setInt(index++, page.getLimit() + 1);
+                }
+                stmt.setInt(index, page.getLimit() + 1);
+
+                ResultSet rs = stmt.executeQuery();
+                int count = 0;
+                LeaderboardEntry last = null;
+                while (rs.next()) {
+                    if (count == page.getLimit()) {
+                        nextCursor = new PageCursor(LEADERBOARD_SORT, String.valueOf(last.getRatingCount()),
+                                last.getUserId()).encode();
+                        break;
+                    }
+                    last = mapLeaderboardEntry(rs);
+                    sink.accept(last);
+                    count++;
+                }
+            }
+            connection.commit();
+            return nextCursor;
+        }
+    }
+
+    // Eine Seite der bestaetigten Kommentare eines Mediums streamen, meiste Likes zuerst
+    // (Keyset auf likecount + id). Rueckgabe: Cursor fuer die naechste Seite oder null.
+    public String streamTopComments(int mediaId, PageRequest page, RowSink<? super Rating> sink)
+            throws SQLException, IOException {
+        PageCursor after = page.getAfter();
+        // Partieller Index (mediaid, likecount DESC, id DESC) -> kurzer Index-Scan, kein Zaehlen zur Lesezeit.
+        String sql = "SELECT * FROM ratings WHERE mediaid = ? AND commentconfirmed AND comment IS NOT NULL " +
+                     (after != null ? "AND (likecount, id) < (?, ?) " : "") +
+                     "ORDER BY likecount DESC, id DESC LIMIT ?";
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            String nextCursor = null;
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setFetchSize(DatabaseConnection.STREAM_FETCH_SIZE);
+                int index = 1;
+                stmt.setInt(index++, mediaId);
+                if (after != null) {
+                    stmt.setInt(index++, (int) parseCount(after.getKey()));
+                    stmt.setInt(index++, after.getId());
+                }
+                stmt.setInt(index, page.getLimit() + 1);
+
+                ResultSet rs = stmt.executeQuery();
+                int count = 0;
+                Rating last = null;
+                while (rs.next()) {
+                    if (count == page.getLimit()) {
+                        nextCursor = new PageCursor(TOP_COMMENTS_SORT, String.valueOf(last.getLikeCount()),
+                                last.getId()).encode();
+                        break;
+                    }
+                    last = mapRating(rs);
+                    sink.accept(last);
+                    count++;
+                }
+            }
+            connection.commit();
+            return nextCursor;
+        }
+    }
+
+    private static long parseCount(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungueltiger Cursor");
+        }
+    }
+
+    private LeaderboardEntry mapLeaderboardEntry(ResultSet rs) throws SQLException {
+        return new LeaderboardEntry(
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getInt("ratingcount")
+        );
+    }
+
     private Rating mapRating(ResultSet rs) throws SQLException {
         Rating rating = new Rating();
         rating.setId(rs.getInt("id"));
@@ -192,6 +632,8 @@ public class RatingRepository {
         if (ts != null) {
             rating.setCreatedAt(ts.toLocalDateTime());
         }
+        rating.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updatedat")));
+        rating.setLikeCount(rs.getInt("likecount"));
         return rating;
     }
 }
@@ -0,0 +1,13 @@
+package org.example.persistence;
+
+import org.example.domain.Rating;
+
+// Ergebnis von RatingRepository.insert: neu angelegt, bestehendes ueberschrieben (Upsert) oder Konflikt.
+public record RatingWrite(Status status, Rating rating) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        CONFLICT
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.persistence;
+
+import java.io.IOException;
+
+// Empfaenger fuer gestreamte Zeilen: Repository ruft accept() pro Zeile auf, waehrend der Cursor offen ist.
+// Nichts wird zwischengespeichert; IOException (z. B. Client weg) bricht die Abfrage ab.
+@FunctionalInterface
+public interface RowSink<T> {
+    void accept(T row) throws IOException;
+}
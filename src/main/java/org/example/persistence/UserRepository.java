@@ -1,28 +1,79 @@
 package org.example.persistence;
 
 import org.example.domain.User;
+import org.example.domain.UserProfileResponse;
+import org.example.domain.UserStats;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.sql.DataSource;
+
 public class UserRepository {
-
-    // Die Verbindung zur Datenbank
-    private final Connection connection;
-
-    // Constructor: Bekommt die Datenbankverbindung
-    public UserRepository(Connection connection) {
-        this.connection = connection;
+
+    // Statistik pro User um ein Delta anpassen (Zeile legt die Registrierung an; fehlt sie, beim ersten Delta).
+    // Genutzt von Rating-, Like- und Favoriten-Schreibzugriffen als CTE in derselben Anweisung.
+    private static final String USER_STATS_INSERT =
+            "INSERT INTO user_stats (userid, ratingcount, starsum, likesreceived, favoritescount) ";
+    private static final String USER_STATS_ON_CONFLICT =
+            " ON CONFLICT (userid) DO UPDATE SET " +
+            "ratingcount = user_stats.ratingcount + EXCLUDED.ratingcount, " +
+            "starsum = user_stats.starsum + EXCLUDED.starsum, " +
+            "likesreceived = user_stats.likesreceived + EXCLUDED.likesreceived, " +
+            "favoritescount = user_stats.favoritescount + EXCLUDED.favoritescount";
+
+    // Profil in einem Lookup: users per Primaerschluessel + user_stats per Primaerschluessel.
+    private static final String PROFILE_SQL =
+            "SELECT u.id, u.username, u.email, u.favoritegenre, " +
+            "COALESCE(s.ratingcount, 0) AS ratingcount, COALESCE(s.starsum, 0) AS starsum, " +
+            "COALESCE(s.likesreceived, 0) AS likesreceived, COALESCE(s.favoritescount, 0) AS favoritescount " +
+            "FROM users u LEFT JOIN user_stats s ON s.userid = u.id WHERE u.id = ?";
+
+    // Neu berechnete Werte aus ratings, rating_likes und favorites (Backfill, Pruefung, Reparatur).
+    private static final String STATS_TRUTH_SQL =
+            "SELECT u.id AS userid, COALESCE(r.cnt, 0) AS ratingcount, COALESCE(r.starsum, 0) AS starsum, " +
+            "COALESCE(l.cnt, 0) AS likesreceived, COALESCE(f.cnt, 0) AS favoritescount " +
+            "FROM users u " +
+            "LEFT JOIN (SELECT userid, COUNT(*) AS cnt, SUM(stars) AS starsum FROM ratings GROUP BY userid) r " +
+            "ON r.userid = u.id " +
+            "LEFT JOIN (SELECT r.userid, COUNT(*) AS cnt FROM rating_likes l JOIN ratings r ON r.id = l.ratingid " +
+            "GROUP BY r.userid) l ON l.userid = u.id " +
+            "LEFT JOIN (SELECT userid, COUNT(*) AS cnt FROM favorites GROUP BY userid) f ON f.userid = u.id";
+    private static final String STATS_MISMATCH_SQL =
+            "WITH truth AS (" + STATS_TRUTH_SQL + ") " +
+            "SELECT t.*, COALESCE(s.ratingcount, 0) AS storedratingcount, COALESCE(s.starsum, 0) AS storedstarsum, " +
+            "COALESCE(s.likesreceived, 0) AS storedlikesreceived, " +
+            "COALESCE(s.favoritescount, 0) AS storedfavoritescount " +
+            "FROM truth t LEFT JOIN user_stats s ON s.userid = t.userid " +
+            "WHERE (COALESCE(s.ratingcount, 0), COALESCE(s.starsum, 0), COALESCE(s.likesreceived, 0), " +
+            "COALESCE(s.favoritescount, 0)) <> (t.ratingcount, t.starsum, t.likesreceived, t.favoritescount) " +
+            "ORDER BY t.userid LIMIT ?";
+    // Eine Zeile pro User, auch ohne Aktivitaet (das Leaderboard liest nur user_stats).
+    private static final String STATS_REBUILD_SQL =
+            "INSERT INTO user_stats (userid, ratingcount, starsum, likesreceived, favoritescount) " +
+            STATS_TRUTH_SQL;
+
+    // Connection-Pool: pro Aufruf wird eine Verbindung ausgeliehen
+    private final DataSource dataSource;
+
+    // Constructor: Bekommt den Connection-Pool
+    public UserRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
 
     // SAVE - Neuen User speichern (für Registration)
 
     public User save(User user) {
-        // SQL Befehl: Füge neuen User ein
+        // SQL Befehl: Füge neuen User ein (und seine leere Statistik-Zeile fürs Leaderboard)
         // RETURNING id = gib die generierte ID zurück
-        String sql = "INSERT INTO users (username, password) VALUES (?, ?) RETURNING id";
+        String sql = "WITH u AS (INSERT INTO users (username, password) VALUES (?, ?) RETURNING id), " +
+                     "s AS (INSERT INTO user_stats (userid) SELECT id FROM u) " +
+                     "SELECT id FROM u";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             // ? durch echte Werte ersetzen
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
@@ -49,7 +100,8 @@ public class UserRepository {
     public User findByUsername(String username) {
         String sql = "SELECT * FROM users WHERE username = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, username);
 
             ResultSet rs = stmt.executeQuery();
@@ -80,7 +132,8 @@ public class UserRepository {
     public void updateToken(User user) {
         String sql = "UPDATE users SET token = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, user.getToken());
             stmt.setInt(2, user.getId());
 
@@ -97,7 +150,8 @@ public class UserRepository {
     public User findByToken(String token) {
         String sql = "SELECT * FROM users WHERE token = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, token);
 
             ResultSet rs = stmt.executeQuery();
@@ -124,7 +178,8 @@ public class UserRepository {
     public User findById(int userId) {
         String sql = "SELECT * FROM users WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
 
             ResultSet rs = stmt.executeQuery();
@@ -147,11 +202,109 @@ public class UserRepository {
         return null;
     }
 
+    // Profil inkl. gepflegter Statistik (ein Round-Trip, kein Zaehlen). null = User nicht gefunden.
+    public UserProfileResponse findProfile(int userId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(PROFILE_SQL)) {
+            stmt.setInt(1, userId);
+
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            UserStats stats = mapStats(rs, "id", "");
+            UserProfileResponse profile = new UserProfileResponse();
+            profile.setId(rs.getInt("id"));
+            profile.setUsername(rs.getString("username"));
+            profile.setEmail(rs.getString("email"));
+            profile.setFavoriteGenre(rs.getString("favoritegenre"));
+            profile.setTotalRatings(stats.getRatingCount());
+            profile.setAverageScore(stats.getAverageScore());
+            profile.setLikesReceived(stats.getLikesReceived());
+            profile.setFavoritesCount(stats.getFavoritesCount());
+            return profile;
+        }
+    }
+
+    // Abweichung zwischen user_stats und neu berechneten Werten.
+    public record StatsMismatch(UserStats stored, UserStats actual) {
+    }
+
+    // user_stats gegen neu berechnete Werte pruefen (hoechstens limit Abweichungen, nach User-ID).
+    // REPEATABLE READ: ein Snapshot fuer Tabelle und Quellen, laufende Schreibzugriffe erzeugen keine Fehlalarme.
+    public List<StatsMismatch> findStatsMismatches(int limit) throws SQLException {
+        List<StatsMismatch> mismatches = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement tx = connection.createStatement();
+             PreparedStatement stmt = connection.prepareStatement(STATS_MISMATCH_SQL)) {
+            // Nur fuer diese Transaktion; der Pool rollt sie bei der Rueckgabe zurueck.
+            connection.setAutoCommit(false);
+            tx.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+            stmt.setInt(1, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                mismatches.add(new StatsMismatch(mapStats(rs, "userid", "stored"), mapStats(rs, "userid", "")));
+            }
+        }
+        return mismatches;
+    }
+
+    // user_stats komplett neu aufbauen. Schreibzugriffe auf die Quellen warten so lange (SHARE-Lock).
+    // Rueckgabe: Anzahl User mit Statistik.
+    public int rebuildStats() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            stmt.execute("LOCK TABLE ratings, rating_likes, favorites IN SHARE MODE");
+            stmt.executeUpdate("DELETE FROM user_stats");
+            int rows = stmt.executeUpdate(STATS_REBUILD_SQL);
+            connection.commit();
+            return rows;
+        }
+    }
+
+    // INSERT ... ON CONFLICT fuer ein Statistik-Delta; select liefert (userid, ratingcount, starsum,
+    // likesreceived, favoritescount) als Differenzen.
+    static String userStatsDelta(String select) {
+        return USER_STATS_INSERT + select + USER_STATS_ON_CONFLICT;
+    }
+
+    // prefix "" = neu berechnete bzw. Profil-Werte, "stored" = Werte aus user_stats (Pruefung).
+    private static UserStats mapStats(ResultSet rs, String idColumn, String prefix) throws SQLException {
+        return new UserStats(rs.getInt(idColumn),
+                rs.getInt(prefix + "ratingcount"), rs.getInt(prefix + "starsum"),
+                rs.getInt(prefix + "likesreceived"), rs.getInt(prefix + "favoritescount"));
+    }
+
+    // Sperr-Zeitpunkt fuer signierte Tokens (vorher ausgestellte sind ungueltig; 0 = keine Sperre).
+    public long findTokensNotBefore(int userId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "SELECT tokensnotbefore FROM users WHERE id = ?")) {
+            stmt.setInt(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong("tokensnotbefore") : 0;
+            }
+        }
+    }
+
+    // Sperr-Zeitpunkt setzen; GREATEST, damit eine spaetere Sperre nie zurueckgedreht wird.
+    public void updateTokensNotBefore(int userId, long notBefore) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "UPDATE users SET tokensnotbefore = GREATEST(tokensnotbefore, ?) WHERE id = ?")) {
+            stmt.setLong(1, notBefore);
+            stmt.setInt(2, userId);
+            stmt.executeUpdate();
+        }
+    }
+
     // Profilfelder aktualisieren.
     public void updateProfile(int userId, String email, String favoriteGenre) {
         String sql = "UPDATE users SET email = ?, favoritegenre = ? WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, email);
             stmt.setString(2, favoriteGenre);
             stmt.setInt(3, userId);
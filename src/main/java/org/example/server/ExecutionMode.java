@@ -0,0 +1,23 @@
+package org.example.server;
+
+// Wie der HttpServer eingehende Requests abarbeitet.
+public enum ExecutionMode {
+    // Ein virtueller Thread pro Request (Standard).
+    VIRTUAL,
+    // Fester Pool aus Plattform-Threads mit begrenzter Queue.
+    POOL,
+    // Altes Verhalten: alles laeuft auf dem Dispatcher-Thread des HttpServer.
+    LEGACY;
+
+    // Wert aus Konfiguration lesen (z. B. "virtual"), sonst Standard.
+    public static ExecutionMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return VIRTUAL;
+        }
+        try {
+            return ExecutionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unbekannter Execution-Mode: " + value);
+        }
+    }
+}
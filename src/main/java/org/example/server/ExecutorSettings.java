@@ -0,0 +1,116 @@
+package org.example.server;
+
+import org.example.http.ConcurrencyLimitFilter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Einstellungen fuer die Request-Abarbeitung (Modus + Limits pro Modus).
+// Konfiguration ueber System-Properties, z. B. -Dmrp.executor=pool -Dmrp.executor.maxConcurrent=32
+public class ExecutorSettings {
+    private final ExecutionMode mode;
+    // Maximal gleichzeitig laufende Requests.
+    private final int maxConcurrent;
+    // Maximal wartende Requests, danach wird abgelehnt bzw. gebremst.
+    private final int maxQueued;
+    // Wie lange ein wartender Request auf einen freien Platz wartet (nur VIRTUAL).
+    private final long maxWaitMillis;
+
+    public ExecutorSettings(ExecutionMode mode, int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        if (maxConcurrent < 1 || maxQueued < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Ungueltige Executor-Limits");
+        }
+        this.mode = mode;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    // Standardwerte je Modus, ueberschreibbar per System-Property.
+    public static ExecutorSettings fromSystemProperties() {
+        ExecutionMode mode = ExecutionMode.parse(System.getProperty("mrp.executor"));
+
+        int defaultConcurrent;
+        int defaultQueued;
+        switch (mode) {
+            case VIRTUAL:
+                // Virtuelle Threads sind billig; das Limit schuetzt vor allem die DB.
+                defaultConcurrent = 256;
+                defaultQueued = 1024;
+                break;
+            case POOL:
+                defaultConcurrent = Runtime.getRuntime().availableProcessors() * 4;
+                defaultQueued = 256;
+                break;
+            default:
+                // LEGACY: ein Thread, keine eigene Queue.
+                defaultConcurrent = 1;
+                defaultQueued = 0;
+        }
+
+        return new ExecutorSettings(
+                mode,
+                Integer.getInteger("mrp.executor.maxConcurrent", defaultConcurrent),
+                Integer.getInteger("mrp.executor.maxQueued", defaultQueued),
+                Long.getLong("mrp.executor.maxWaitMillis", 2000L)
+        );
+    }
+
+    // Executor fuer HttpServer.setExecutor(...). null = Dispatcher-Thread (LEGACY).
+    public ExecutorService createExecutor() {
+        switch (mode) {
+            case VIRTUAL:
+                return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mrp-vt-", 0).factory());
+            case POOL:
+                // Volle Queue -> Dispatcher fuehrt selbst aus und nimmt solange nichts Neues an (Backpressure).
+                return new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(Math.max(1, maxQueued)), namedThreads("mrp-worker-"),
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+            default:
+                return null;
+        }
+    }
+
+    // Filter fuer das Concurrency-Limit. Nur VIRTUAL braucht ihn, POOL ist durch Pool + Queue begrenzt.
+    public ConcurrencyLimitFilter createLimitFilter() {
+        if (mode != ExecutionMode.VIRTUAL) {
+            return null;
+        }
+        return new ConcurrencyLimitFilter(maxConcurrent, maxQueued, maxWaitMillis);
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return mode + " (maxConcurrent=" + maxConcurrent + ", maxQueued=" + maxQueued + ")";
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.server;
+
+import org.example.persistence.ConnectionPool;
+import org.example.persistence.DatabaseConnection;
+import org.example.persistence.RatingRepository;
+import org.example.persistence.UserRepository;
+
+import java.util.List;
+
+// Einmalige Wartungsbefehle ueber die Kommandozeile (statt Server-Start), z. B.
+// mvn exec:java -Dexec.mainClass="org.example.Application" -Dexec.args="rebuild-rating-stats"
+public class MaintenanceCommand {
+
+    public static final String REBUILD_RATING_STATS = "rebuild-rating-stats";
+    public static final String VERIFY_USER_STATS = "verify-user-stats";
+    public static final String REBUILD_USER_STATS = "rebuild-user-stats";
+
+    // So viele Abweichungen meldet verify-user-stats hoechstens.
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+
+    // Befehl ausfuehren; Rueckgabe = Exit-Code (verify-user-stats: 1 = Abweichungen gefunden).
+    public static int run(String[] args) {
+        String command = args[0];
+        List<String> commands = List.of(REBUILD_RATING_STATS, VERIFY_USER_STATS, REBUILD_USER_STATS);
+        if (!commands.contains(command)) {
+            System.out.println("Unbekannter Befehl: " + command);
+            System.out.println("Verfuegbar: " + String.join(", ", commands));
+            return 2;
+        }
+
+        try (ConnectionPool pool = DatabaseConnection.createPool()) {
+            long start = System.currentTimeMillis();
+            switch (command) {
+                case REBUILD_RATING_STATS: {
+                    int media = new RatingRepository(pool).rebuildMediaStats();
+                    System.out.println("Rating-Statistik neu aufgebaut: " + media + " Medien in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                    return 0;
+                }
+                case VERIFY_USER_STATS: {
+                    List<UserRepository.StatsMismatch> mismatches =
+                            new UserRepository(pool).findStatsMismatches(MAX_REPORTED_MISMATCHES);
+                    for (UserRepository.StatsMismatch mismatch : mismatches) {
+                        System.out.println("User " + mismatch.actual().getUserId() + ": gespeichert ["
+                                + mismatch.stored() + "], neu berechnet [" + mismatch.actual() + "]");
+                    }
+                    System.out.println("User-Statistik geprueft in " + (System.currentTimeMillis() - start) + " ms: "
+                            + (mismatches.isEmpty() ? "keine Abweichungen"
+                               : mismatches.size() + (mismatches.size() == MAX_REPORTED_MISMATCHES ? "+" : "")
+                                 + " Abweichungen (Reparatur: " + REBUILD_USER_STATS + ")"));
+                    return mismatches.isEmpty() ? 0 : 1;
+                }
+                case REBUILD_USER_STATS: {
+                    int users = new UserRepository(pool).rebuildStats();
+                    System.out.println("User-Statistik neu aufgebaut: " + users + " User in "
+                            + (System.currentTimeMillis() - start) + " ms");
+                    return 0;
+                }
+                default:
+                    return 2;
+            }
+        } catch (Exception e) {
+            System.out.println("Fehler bei " + command + ": " + e.getMessage());
+            return 1;
+        }
+    }
+}
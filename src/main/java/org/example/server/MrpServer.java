@@ -1,31 +1,60 @@
 package org.example.server;
 
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.example.handler.AuthHandler;
+import org.example.handler.ExportHandler;
 import org.example.handler.FavoritesHandler;
 import org.example.handler.LeaderboardHandler;
 import org.example.handler.MediaHandler;
-import org.example.handler.MediaRouterHandler;
+import org.example.handler.MetricsHandler;
 import org.example.handler.RatingHandler;
 import org.example.handler.TestHandler;
 import org.example.handler.UserHandler;
 import org.example.http.AuthFilter;
+import org.example.http.ConcurrencyLimitFilter;
+import org.example.http.Router;
+import org.example.persistence.CachingMediaRepository;
+import org.example.persistence.ConnectionPool;
 import org.example.persistence.DatabaseConnection;
 import org.example.persistence.FavoriteRepository;
-import org.example.persistence.MediaRepository;
+import org.example.persistence.MigrationRunner;
 import org.example.persistence.RatingRepository;
 import org.example.persistence.UserRepository;
+import org.example.service.CatalogVersion;
+import org.example.service.CollaborativeRecommender;
+import org.example.service.ContentIndex;
 import org.example.service.FavoriteService;
+import org.example.service.Leaderboard;
+import org.example.service.LikeBuffer;
 import org.example.service.MediaService;
 import org.example.service.RecommendationService;
 import org.example.service.RatingService;
+import org.example.service.SearchCache;
+import org.example.service.SimilarMediaIndex;
+import org.example.service.TokenCache;
+import org.example.service.TokenService;
 import org.example.service.UserService;
 
 public class MrpServer {
 
     private HttpServer server;
+    private ExecutorService executor;
+    private ConcurrencyLimitFilter limitFilter;
+    private ConnectionPool connectionPool;
+    private LikeBuffer likeBuffer;
+    private CollaborativeRecommender collaborativeRecommender;
+    private CollaborativeRecommender alsRecommender;
+    private SimilarMediaIndex similarIndex;
+    private ContentIndex contentIndex;
     private static final int PORT = 8080;
 
     // Server starten
@@ -33,21 +62,60 @@ public class MrpServer {
         // Server erstellen auf Port 8080
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
 
-        // Datenbankverbindung holen
-        var connection = DatabaseConnection.getConnection();
+        // Requests nicht mehr auf dem einen Dispatcher-Thread abarbeiten (Modus per -Dmrp.executor).
+        ExecutorSettings executorSettings = ExecutorSettings.fromSystemProperties();
+        executor = executorSettings.createExecutor();
+        limitFilter = executorSettings.createLimitFilter();
+        server.setExecutor(executor);
+
+        // Connection-Pool aufbauen (Repositories leihen sich pro Aufruf eine Verbindung)
+        connectionPool = DatabaseConnection.createPool();
+
+        // Schema auf den neuesten Stand bringen (versionierte Skripte, abschaltbar mit -Dmrp.db.migrate=false)
+        if (Boolean.parseBoolean(System.getProperty("mrp.db.migrate", "true"))) {
+            int applied = MigrationRunner.fromClasspath(connectionPool).migrate();
+            System.out.println("Schema-Migrationen: " + applied + " neu angewendet");
+        }
 
         // Repositories erstellen
-        UserRepository userRepository = new UserRepository(connection);
-        MediaRepository mediaRepository = new MediaRepository(connection);
+        UserRepository userRepository = new UserRepository(connectionPool);
+        // findById laeuft ueber einen Cache (Invalidierung bei save/update/delete)
+        CachingMediaRepository mediaRepository = CachingMediaRepository.fromSystemProperties(connectionPool);
 
         // Services erstellen
-        RatingRepository ratingRepository = new RatingRepository(connection);
-        UserService userService = new UserService(userRepository, ratingRepository);
-        MediaService mediaService = new MediaService(mediaRepository);
-        RatingService ratingService = new RatingService(ratingRepository);
-        FavoriteRepository favoriteRepository = new FavoriteRepository(connection);
+        RatingRepository ratingRepository = new RatingRepository(connectionPool);
+        TokenCache tokenCache = TokenCache.fromSystemProperties();
+        TokenService tokenService = createTokenService(userRepository);
+
+        // Leaderboard einmal aus der DB laden, danach inkrementell ueber die Services pflegen
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(ratingRepository.getLeaderboard());
+
+        // Such-Cache: Medien- und Rating-Aenderungen erhoehen die Katalog-Version
+        CatalogVersion catalogVersion = new CatalogVersion();
+        SearchCache searchCache = SearchCache.fromSystemProperties(catalogVersion);
+
+        // Empfehlungsmodelle im Hintergrund trainieren (type=collaborative bzw. type=als)
+        collaborativeRecommender = CollaborativeRecommender.itemItemFromSystemProperties(ratingRepository);
+        alsRecommender = CollaborativeRecommender.alsFromSystemProperties(ratingRepository);
+        // Aehnliche Medien: HNSW-Index im Speicher, Co-Rating-Signal aus dem ALS-Modell
+        similarIndex = SimilarMediaIndex.fromSystemProperties(mediaRepository, alsRecommender::getModel);
+        // Genre-Bitmasken fuer Genre-/Content-Empfehlungen (neu geladen, wenn sich die Katalog-Version aendert)
+        contentIndex = ContentIndex.fromSystemProperties(mediaRepository, catalogVersion);
+
+        UserService userService = new UserService(userRepository, tokenCache, tokenService, leaderboard);
+        // Likes gesammelt im Hintergrund schreiben (abschaltbar mit -Dmrp.likes.writeBehind=false)
+        if (Boolean.parseBoolean(System.getProperty("mrp.likes.writeBehind", "true"))) {
+            likeBuffer = LikeBuffer.fromSystemProperties(ratingRepository);
+            likeBuffer.loadCounts(ratingRepository.countAllLikes());
+        }
+        MediaService mediaService = new MediaService(mediaRepository, leaderboard, catalogVersion, searchCache,
+                similarIndex, contentIndex, likeBuffer);
+        RatingService ratingService = new RatingService(ratingRepository, leaderboard, catalogVersion, likeBuffer);
+        FavoriteRepository favoriteRepository = new FavoriteRepository(connectionPool);
         FavoriteService favoriteService = new FavoriteService(favoriteRepository);
-        RecommendationService recommendationService = new RecommendationService(mediaRepository, ratingRepository);
+        RecommendationService recommendationService = new RecommendationService(mediaRepository, ratingRepository,
+                collaborativeRecommender, alsRecommender, contentIndex);
 
         // Handler erstellen
         AuthHandler authHandler = new AuthHandler(userService);
@@ -56,45 +124,53 @@ public class MrpServer {
         FavoritesHandler favoritesHandler = new FavoritesHandler(favoriteService);
         RatingHandler ratingHandler = new RatingHandler(ratingService);
         LeaderboardHandler leaderboardHandler = new LeaderboardHandler(ratingService);
-        MediaRouterHandler mediaRouter = new MediaRouterHandler(mediaHandler, favoritesHandler, ratingHandler);
+        ExportHandler exportHandler = ExportHandler.fromSystemProperties(ratingService);
+
+        // Metriken (Pool, Server-Auslastung)
+        MetricsHandler metricsHandler = new MetricsHandler();
+        metricsHandler.register("dbPool", connectionPool::getStats);
+        metricsHandler.register("tokenCache", tokenCache::getStats);
+        metricsHandler.register("mediaCache", mediaRepository::getCacheStats);
+        metricsHandler.register("searchCache", searchCache::getStats);
+        metricsHandler.register("auth", () -> authMetrics(tokenService));
+        metricsHandler.register("leaderboard", leaderboard::getStats);
+        if (likeBuffer != null) {
+            metricsHandler.register("likes", likeBuffer::getStats);
+        }
+        metricsHandler.register("collaborative", collaborativeRecommender::getStats);
+        metricsHandler.register("als", alsRecommender::getStats);
+        metricsHandler.register("similar", similarIndex::getStats);
+        metricsHandler.register("content", contentIndex::getStats);
+        metricsHandler.register("server", () -> serverMetrics(executorSettings));
 
         // Filter für Token-Authentifizierung
         AuthFilter authFilter = new AuthFilter(userService);
 
         // Handler registrieren (OpenAPI-konform)
-        server.createContext("/test", new TestHandler());
+        createContext("/test", new TestHandler(), null);
 
-        server.createContext("/api/users/register", authHandler).getFilters().add(authFilter);
-        server.createContext("/api/users/login", authHandler).getFilters().add(authFilter);
-        server.createContext("/api/users", userHandler).getFilters().add(authFilter);
-        server.createContext("/api/media", mediaRouter).getFilters().add(authFilter);
-        server.createContext("/api/ratings", ratingHandler).getFilters().add(authFilter);
-        server.createContext("/api/leaderboard", leaderboardHandler).getFilters().add(authFilter);
+        // Alle /api-Pfade laufen ueber eine Routing-Tabelle (Templates werden einmal kompiliert).
+        Router router = new Router();
+        authHandler.registerRoutes(router);
+        userHandler.registerRoutes(router);
+        mediaHandler.registerRoutes(router);
+        favoritesHandler.registerRoutes(router);
+        ratingHandler.registerRoutes(router);
+        leaderboardHandler.registerRoutes(router);
+        exportHandler.registerRoutes(router);
+        metricsHandler.registerRoutes(router);
+        createContext("/api", router, authFilter);
 
         // Server starten
         server.start();
 
         System.out.println("Server läuft auf http://localhost:" + PORT);
+        System.out.println("Execution-Mode: " + executorSettings);
+        System.out.println("Auth-Mode: " + (tokenService != null ? "signed" : "db"));
         System.out.println("Endpoints:");
-        System.out.println("  POST   /api/users/register");
-        System.out.println("  POST   /api/users/login");
-        System.out.println("  GET    /api/users/{id}/profile");
-        System.out.println("  GET    /api/users/{id}/ratings");
-        System.out.println("  GET    /api/users/{id}/favorites");
-        System.out.println("  GET    /api/users/{id}/recommendations");
-        System.out.println("  GET    /api/media");
-        System.out.println("  POST   /api/media");
-        System.out.println("  GET    /api/media/{id}");
-        System.out.println("  PUT    /api/media/{id}");
-        System.out.println("  DELETE /api/media/{id}");
-        System.out.println("  POST   /api/media/{id}/rate");
-        System.out.println("  POST   /api/media/{id}/favorite");
-        System.out.println("  DELETE /api/media/{id}/favorite");
-        System.out.println("  PUT    /api/ratings/{id}");
-        System.out.println("  DELETE /api/ratings/{id}");
-        System.out.println("  POST   /api/ratings/{id}/like");
-        System.out.println("  POST   /api/ratings/{id}/confirm");
-        System.out.println("  GET    /api/leaderboard");
+        for (String route : router.getRoutes()) {
+            System.out.println("  " + route);
+        }
     }
 
     // Server stoppen
@@ -103,6 +179,82 @@ public class MrpServer {
             server.stop(0);
             System.out.println("Server gestoppt");
         }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (collaborativeRecommender != null) {
+            collaborativeRecommender.close();
+        }
+        if (alsRecommender != null) {
+            alsRecommender.close();
+        }
+        if (similarIndex != null) {
+            similarIndex.close();
+        }
+        if (contentIndex != null) {
+            contentIndex.close();
+        }
+        // Gepufferte Likes schreiben, solange der Pool noch offen ist
+        if (likeBuffer != null) {
+            likeBuffer.close();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    // Token-Modus aus -Dmrp.auth.mode: signed (Standard, Prüfung ohne DB) oder db (Token in users-Tabelle).
+    private TokenService createTokenService(UserRepository userRepository) {
+        String mode = System.getProperty("mrp.auth.mode", "signed");
+        if (mode.equalsIgnoreCase("signed")) {
+            // Sperren (Logout) liegen in users.tokensnotbefore und gelten damit ueber Neustarts hinweg.
+            return TokenService.fromSystemProperties(userRepository);
+        }
+        if (mode.equalsIgnoreCase("db")) {
+            return null;
+        }
+        throw new IllegalArgumentException("Unbekannter Auth-Mode: " + mode);
+    }
+
+    // Token-Modus und Größe der Sperrliste.
+    private Object authMetrics(TokenService tokenService) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", tokenService != null ? "signed" : "db");
+        if (tokenService != null) {
+            metrics.put("revokedTokens", tokenService.getRevokedCount());
+        }
+        return metrics;
+    }
+
+    // Auslastung der Request-Abarbeitung.
+    private Object serverMetrics(ExecutorSettings executorSettings) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", executorSettings.getMode());
+        metrics.put("maxConcurrent", executorSettings.getMaxConcurrent());
+        metrics.put("maxQueued", executorSettings.getMaxQueued());
+        if (limitFilter != null) {
+            metrics.put("active", limitFilter.getActive());
+            metrics.put("waiting", limitFilter.getWaiting());
+            metrics.put("rejected", limitFilter.getRejected());
+        }
+        return metrics;
+    }
+
+    // Context anlegen: zuerst Concurrency-Limit (falls aktiv), dann optional Auth.
+    private HttpContext createContext(String path, HttpHandler handler, Filter authFilter) {
+        HttpContext context = server.createContext(path, handler);
+        if (limitFilter != null) {
+            context.getFilters().add(limitFilter);
+        }
+        if (authFilter != null) {
+            context.getFilters().add(authFilter);
+        }
+        return context;
     }
 
     // Server zurückgeben (brauchen wir später)
@@ -0,0 +1,158 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+// Latent-Faktor-Modell aus AlsTrainer: pro Medium ein Vektor der Laenge rank (dicht in einem float[]).
+// Der User-Vektor wird pro Anfrage aus seinen aktuellen Ratings geloest (fold-in), damit neue Ratings
+// und neue User ohne Neutraining zaehlen; Score = Skalarprodukt mit jedem Medien-Vektor.
+public class AlsModel implements RecommendationModel {
+
+    private final int[] mediaIds;
+    // Vektor von Medium i: itemFactors[i * rank .. (i + 1) * rank).
+    private final float[] itemFactors;
+    private final int rank;
+    private final float lambda;
+    // Trainiert wird auf (Sterne - globalMean).
+    private final float globalMean;
+    private final int ratingCount;
+    private final double trainingRmse;
+
+    AlsModel(int[] mediaIds, float[] itemFactors, int rank, float lambda, float globalMean, int ratingCount,
+             double trainingRmse) {
+        this.mediaIds = mediaIds;
+        this.itemFactors = itemFactors;
+        this.rank = rank;
+        this.lambda = lambda;
+        this.globalMean = globalMean;
+        this.ratingCount = ratingCount;
+        this.trainingRmse = trainingRmse;
+    }
+
+    @Override
+    public int[] recommend(int[] ratedMedia, int[] ratedStars, int limit) {
+        int[] items = new int[ratedMedia.length];
+        float[] stars = new float[ratedMedia.length];
+        boolean[] excluded = new boolean[mediaIds.length];
+        int known = 0;
+        for (int r = 0; r < ratedMedia.length; r++) {
+            int item = Arrays.binarySearch(mediaIds, ratedMedia[r]);
+            if (item >= 0) {
+                items[known] = item;
+                stars[known] = ratedStars[r];
+                excluded[item] = true;
+                known++;
+            }
+        }
+        if (known == 0) {
+            return new int[0];
+        }
+
+        float[] user = new float[rank];
+        solveRow(itemFactors, rank, items, stars, 0, known, globalMean, lambda,
+                new double[rank * rank], new double[rank], user, 0);
+
+        TopK top = new TopK(limit);
+        for (int i = 0; i < mediaIds.length; i++) {
+            if (excluded[i]) {
+                continue;
+            }
+            float score = 0f;
+            int offset = i * rank;
+            for (int p = 0; p < rank; p++) {
+                score += user[p] * itemFactors[offset + p];
+            }
+            top.offer(mediaIds[i], score);
+        }
+        return top.drainIds();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mediaIds.length;
+    }
+
+    @Override
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    @Override
+    public float[] itemVector(int mediaId) {
+        int item = Arrays.binarySearch(mediaIds, mediaId);
+        return item >= 0 ? Arrays.copyOfRange(itemFactors, item * rank, (item + 1) * rank) : null;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    // Wurzel des mittleren quadratischen Fehlers auf den Trainingsdaten (in Sternen).
+    public double getTrainingRmse() {
+        return trainingRmse;
+    }
+
+    // Regularisierte kleinste Quadrate fuer eine Zeile (ein User bzw. ein Medium):
+    // (Y^T Y + lambda * n * I) x = Y^T (r - mean), Y = Vektoren der bewerteten Gegenseite (index[from..to)).
+    // a/b sind Arbeitsspeicher (rank * rank bzw. rank); Ergebnis nach out[outOffset ..].
+    static void solveRow(float[] other, int rank, int[] index, float[] stars, int from, int to, float mean,
+                         float lambda, double[] a, double[] b, float[] out, int outOffset) {
+        Arrays.fill(a, 0.0);
+        Arrays.fill(b, 0.0);
+        for (int e = from; e < to; e++) {
+            int offset = index[e] * rank;
+            double residual = stars[e] - mean;
+            for (int p = 0; p < rank; p++) {
+                double yp = other[offset + p];
+                b[p] += residual * yp;
+                int row = p * rank;
+                // Nur das untere Dreieck; Cholesky liest nur dieses.
+                for (int q = 0; q <= p; q++) {
+                    a[row + q] += yp * other[offset + q];
+                }
+            }
+        }
+        double ridge = lambda * Math.max(1, to - from);
+        for (int p = 0; p < rank; p++) {
+            a[p * rank + p] += ridge;
+        }
+        choleskySolve(a, b, rank);
+        for (int p = 0; p < rank; p++) {
+            out[outOffset + p] = (float) b[p];
+        }
+    }
+
+    // a (symmetrisch positiv definit, unteres Dreieck) = L L^T in place zerlegen, dann b <- a^-1 b.
+    private static void choleskySolve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int m = 0; m < j; m++) {
+                diagonal -= a[j * n + m] * a[j * n + m];
+            }
+            diagonal = Math.sqrt(diagonal);
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double sum = a[i * n + j];
+                for (int m = 0; m < j; m++) {
+                    sum -= a[i * n + m] * a[j * n + m];
+                }
+                a[i * n + j] = sum / diagonal;
+            }
+        }
+        // L y = b
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int m = 0; m < i; m++) {
+                sum -= a[i * n + m] * b[m];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+        // L^T x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int m = i + 1; m < n; m++) {
+                sum -= a[m * n + i] * b[m];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.service;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Matrix-Faktorisierung per Alternating Least Squares (gewichtete Regularisierung lambda * n pro Zeile).
+// Abwechselnd alle User-Vektoren bei festen Medien-Vektoren loesen und umgekehrt; jede Zeile ist ein
+// eigenes rank x rank-Gleichungssystem, deshalb parallel per Fork/Join ueber Bereiche von Zeilen.
+public class AlsTrainer {
+
+    // Zeilen pro Fork/Join-Blatt (darunter lohnt sich das Aufteilen nicht mehr).
+    private static final int ROWS_PER_TASK = 128;
+    private static final long SEED = 42L;
+
+    private final int rank;
+    private final float lambda;
+    private final int iterations;
+    private final int threads;
+
+    public AlsTrainer(int rank, float lambda, int iterations, int threads) {
+        if (rank < 1 || iterations < 1 || threads < 1 || lambda <= 0f) {
+            throw new IllegalArgumentException("Ungueltige ALS-Parameter: rank=" + rank + ", lambda=" + lambda
+                    + ", iterations=" + iterations + ", threads=" + threads);
+        }
+        this.rank = rank;
+        this.lambda = lambda;
+        this.iterations = iterations;
+        this.threads = threads;
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static AlsTrainer fromSystemProperties() {
+        return new AlsTrainer(
+                Integer.getInteger("mrp.recommend.als.rank", 20),
+                Float.parseFloat(System.getProperty("mrp.recommend.als.lambda", "0.05")),
+                Integer.getInteger("mrp.recommend.als.iterations", 10),
+                Integer.getInteger("mrp.recommend.als.threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AlsModel train(RatingMatrix ratings) {
+        int users = ratings.getUserCount();
+        int items = ratings.getItemCount();
+        float mean = globalMean(ratings);
+        float[] userFactors = new float[users * rank];
+        float[] itemFactors = new float[items * rank];
+        // Feste Startwerte: gleiches Ergebnis bei gleichen Daten (unabhaengig von der Thread-Anzahl).
+        Random random = new Random(SEED);
+        for (int i = 0; i < itemFactors.length; i++) {
+            itemFactors[i] = (float) (random.nextGaussian() * 0.1);
+        }
+
+        // Eigener Pool pro Training: blockiert weder den Common-Pool noch die Request-Threads.
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                pool.invoke(new RowSolver(itemFactors, ratings.userStart, ratings.userItems, ratings.userStars,
+                        mean, userFactors, 0, users));
+                pool.invoke(new RowSolver(userFactors, ratings.itemStart, ratings.itemUsers, ratings.itemStars,
+                        mean, itemFactors, 0, items));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return new AlsModel(ratings.mediaIds, itemFactors, rank, lambda, mean, ratings.getRatingCount(),
+                rmse(ratings, userFactors, itemFactors, mean));
+    }
+
+    // Loest die Zeilen [from, to) einer Seite bei fester Gegenseite (other).
+    private class RowSolver extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] other;
+        private final int[] start;
+        private final int[] index;
+        private final float[] stars;
+        private final float mean;
+        private final float[] out;
+        private final int from;
+        private final int to;
+
+        RowSolver(float[] other, int[] start, int[] index, float[] stars, float mean, float[] out, int from, int to) {
+            this.other = other;
+            this.start = start;
+            this.index = index;
+            this.stars = stars;
+            this.mean = mean;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowSolver(other, start, index, stars, mean, out, from, middle),
+                        new RowSolver(other, start, index, stars, mean, out, middle, to));
+                return;
+            }
+            // Arbeitsspeicher einmal pro Blatt, nicht pro Zeile.
+            double[] a = new double[rank * rank];
+            double[] b = new double[rank];
+            for (int row = from; row < to; row++) {
+                AlsModel.solveRow(other, rank, index, stars, start[row], start[row + 1], mean, lambda, a, b,
+                        out, row * rank);
+            }
+        }
+    }
+
+    private static float globalMean(RatingMatrix ratings) {
+        double sum = 0.0;
+        for (float stars : ratings.userStars) {
+            sum += stars;
+        }
+        return ratings.getRatingCount() > 0 ? (float) (sum / ratings.getRatingCount()) : 0f;
+    }
+
+    private double rmse(RatingMatrix ratings, float[] userFactors, float[] itemFactors, float mean) {
+        double squares = 0.0;
+        for (int u = 0; u < ratings.getUserCount(); u++) {
+            for (int e = ratings.userStart[u]; e < ratings.userStart[u + 1]; e++) {
+                int item = ratings.userItems[e];
+                double predicted = mean;
+                for (int p = 0; p < rank; p++) {
+                    predicted += userFactors[u * rank + p] * itemFactors[item * rank + p];
+                }
+                double error = ratings.userStars[e] - predicted;
+                squares += error * error;
+            }
+        }
+        return ratings.getRatingCount() > 0 ? Math.sqrt(squares / ratings.getRatingCount()) : 0.0;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Globaler Versionszaehler fuer Katalog + Ratings: jede schreibende Operation erhoeht ihn,
+// gecachte Suchergebnisse mit aelterer Version gelten danach als veraltet.
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
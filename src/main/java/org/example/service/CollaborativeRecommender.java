@@ -0,0 +1,150 @@
+package org.example.service;
+
+import org.example.domain.Rating;
+import org.example.persistence.RatingRepository;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Haelt das aktuelle Empfehlungsmodell und trainiert es periodisch im Hintergrund neu (alle Ratings per Cursor).
+// Requests lesen nur die Referenz; ein neues Modell ersetzt das alte als Ganzes.
+public class CollaborativeRecommender implements AutoCloseable {
+
+    // Berechnet ein Modell aus allen Ratings (ItemSimilarityModel, AlsTrainer).
+    public interface Trainer {
+        RecommendationModel train(RatingMatrix ratings);
+    }
+
+    private final String name;
+    private final RatingRepository ratingRepository;
+    private final Trainer trainer;
+    private final long refreshMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile RecommendationModel model;
+
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildFailures = new AtomicLong();
+    private volatile long lastBuildMillis;
+    private volatile long lastBuiltAt;
+
+    // refreshMillis <= 0: kein Hintergrund-Thread, nur refresh() (Tests).
+    // Das Training laeuft erst nach start() (nicht aus dem Konstruktor, sonst saehe es ein halb gebautes Objekt).
+    public CollaborativeRecommender(String name, RatingRepository ratingRepository, Trainer trainer,
+                                    long refreshMillis) {
+        this.name = name;
+        this.ratingRepository = ratingRepository;
+        this.trainer = trainer;
+        this.refreshMillis = refreshMillis;
+        if (refreshMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-" + name + "-trainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Erstes Training sofort, danach alle refreshMillis (ohne Hintergrund-Thread wirkungslos).
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Item-Item-Aehnlichkeiten (type=collaborative), Standardwerte ueberschreibbar per System-Property.
+    public static CollaborativeRecommender itemItemFromSystemProperties(RatingRepository ratingRepository) {
+        int neighbours = Integer.getInteger("mrp.recommend.cf.neighbours", 50);
+        int minCoRatings = Integer.getInteger("mrp.recommend.cf.minCoRatings", 2);
+        if (neighbours < 1 || minCoRatings < 1) {
+            throw new IllegalArgumentException("Ungueltiges CF-Modell: neighbours=" + neighbours
+                    + ", minCoRatings=" + minCoRatings);
+        }
+        CollaborativeRecommender recommender = new CollaborativeRecommender("cf", ratingRepository,
+                ratings -> ItemSimilarityModel.build(ratings, neighbours, minCoRatings),
+                Long.getLong("mrp.recommend.cf.refreshMillis", 600_000L));
+        recommender.start();
+        return recommender;
+    }
+
+    // Latent-Faktor-Modell per ALS (type=als), Standardwerte ueberschreibbar per System-Property.
+    public static CollaborativeRecommender alsFromSystemProperties(RatingRepository ratingRepository) {
+        AlsTrainer trainer = AlsTrainer.fromSystemProperties();
+        CollaborativeRecommender recommender = new CollaborativeRecommender("als", ratingRepository, trainer::train,
+                Long.getLong("mrp.recommend.als.refreshMillis", 3_600_000L));
+        recommender.start();
+        return recommender;
+    }
+
+    // Modell jetzt neu trainieren und austauschen.
+    public RecommendationModel refresh() throws SQLException {
+        long start = System.currentTimeMillis();
+        RatingMatrix.Collector collector = new RatingMatrix.Collector();
+        ratingRepository.streamStars(collector);
+        RecommendationModel built = trainer.train(collector.build());
+        model = built;
+        lastBuildMillis = System.currentTimeMillis() - start;
+        lastBuiltAt = System.currentTimeMillis();
+        builds.incrementAndGet();
+        return built;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (SQLException | RuntimeException e) {
+            // Altes Modell weiter benutzen, naechster Versuch nach refreshMillis.
+            buildFailures.incrementAndGet();
+            System.out.println("Fehler beim Trainieren des Empfehlungsmodells " + name + ": " + e.getMessage());
+        }
+    }
+
+    // Bis zu limit Medien-IDs fuer den User aus seinen aktuellen Ratings; null = noch kein Modell berechnet.
+    public int[] recommend(int userId, int limit) throws SQLException {
+        RecommendationModel current = model;
+        if (current == null) {
+            return null;
+        }
+        List<Rating> ratings = ratingRepository.findByUser(userId);
+        int[] media = new int[ratings.size()];
+        int[] stars = new int[ratings.size()];
+        for (int i = 0; i < ratings.size(); i++) {
+            media[i] = ratings.get(i).getMediaId();
+            stars[i] = ratings.get(i).getStars();
+        }
+        return current.recommend(media, stars, limit);
+    }
+
+    // Aktuelles Modell oder null (noch nicht trainiert).
+    public RecommendationModel getModel() {
+        return model;
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        RecommendationModel current = model;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("items", current != null ? current.getItemCount() : 0);
+        stats.put("ratings", current != null ? current.getRatingCount() : 0);
+        stats.put("builds", builds.get());
+        stats.put("buildFailures", buildFailures.get());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("lastBuiltAt", lastBuiltAt);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package org.example.service;
+
+import org.example.domain.MediaEntry;
+import org.example.domain.Rating;
+import org.example.persistence.MediaRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inhaltsmerkmale aller Medien im Speicher fuer Genre-/Content-Empfehlungen: Genre-Bitmaske (GenreDictionary),
+// MediaType, Altersfreigabe und Rating-Statistik in parallelen primitiven Arrays (ein Slot pro Medium).
+// Kandidatensuche = ein Durchlauf ueber die Arrays mit AND + Long.bitCount statt Joins ueber Genre-Strings.
+// create/update/delete wirken sofort; Durchschnitt/Anzahl Ratings kommen mit dem periodischen Neuladen
+// (nur wenn sich die Katalog-Version seitdem geaendert hat).
+public class ContentIndex implements AutoCloseable {
+
+    private static final String[] MEDIA_TYPES = {"MOVIE", "SERIES", "GAME"};
+    // Nur so viele Sterne machen die Genres eines Mediums zu Lieblingsgenres (wie im SQL).
+    private static final int LIKED_STARS = 4;
+
+    // Aenderung waehrend eines Neuladens (media == null: geloescht).
+    private record Change(int mediaId, MediaEntry media) {
+    }
+
+    private final MediaRepository mediaRepository;
+    // Optional: Neuladen nur nach Aenderungen an Katalog oder Ratings.
+    private final CatalogVersion catalogVersion;
+    private final GenreDictionary genres = new GenreDictionary();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long refreshMillis;
+    private final ScheduledExecutorService scheduler;
+    // null = noch nie geladen (Service faellt auf SQL zurueck).
+    private Slots slots;
+    // Aenderungen seit Beginn des laufenden Neuladens (null = kein Neuladen); geschuetzt durch this.
+    private List<Change> pending;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private volatile long loadedVersion = -1;
+    private volatile long lastRefreshMillis;
+
+    // refreshMillis <= 0: kein Hintergrund-Thread, nur refresh() (Tests).
+    public ContentIndex(MediaRepository mediaRepository, CatalogVersion catalogVersion, long refreshMillis) {
+        this.mediaRepository = mediaRepository;
+        this.catalogVersion = catalogVersion;
+        this.refreshMillis = refreshMillis;
+        if (refreshMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-content-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Erstes Laden sofort, danach alle refreshMillis pruefen (ohne Hintergrund-Thread wirkungslos).
+    // Nicht im Konstruktor: der Thread saehe sonst ein halb gebautes Objekt.
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::refreshIfChanged, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static ContentIndex fromSystemProperties(MediaRepository mediaRepository, CatalogVersion catalogVersion) {
+        ContentIndex index = new ContentIndex(mediaRepository, catalogVersion,
+                Long.getLong("mrp.content.refreshMillis", 60_000L));
+        index.start();
+        return index;
+    }
+
+    public GenreDictionary getGenres() {
+        return genres;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return slots != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Alle Medien neu laden und austauschen; Aenderungen waehrenddessen werden nachgezogen.
+    public void refresh() throws SQLException {
+        long start = System.currentTimeMillis();
+        long version = catalogVersion != null ? catalogVersion.current() : 0;
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        try {
+            Slots loaded = new Slots(genres.words());
+            mediaRepository.streamContentFeatures((mediaId, mediaType, ageRestriction, mediaGenres, average, count) ->
+                    loaded.put(mediaId, typeIndex(mediaType), ageRestriction, genres.mask(mediaGenres, loaded.words),
+                            (float) average, count));
+            synchronized (this) {
+                lock.writeLock().lock();
+                try {
+                    for (Change change : pending) {
+                        apply(loaded, change);
+                    }
+                    slots = loaded;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+        loadedVersion = version;
+        lastRefreshMillis = System.currentTimeMillis() - start;
+        refreshes.incrementAndGet();
+    }
+
+    // Neuladen im Hintergrund anstossen (z. B. nach einem Bulk-Import).
+    public void refreshSoon() {
+        if (scheduler != null) {
+            scheduler.execute(this::refreshQuietly);
+        }
+    }
+
+    private void refreshIfChanged() {
+        if (catalogVersion == null || loadedVersion < 0 || catalogVersion.current() != loadedVersion) {
+            refreshQuietly();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (SQLException | RuntimeException e) {
+            // Alten Stand weiter benutzen, naechster Versuch beim naechsten Intervall.
+            refreshFailures.incrementAndGet();
+            System.out.println("Fehler beim Laden des Content-Index: " + e.getMessage());
+        }
+    }
+
+    // Neues oder geaendertes Medium (Rating-Statistik bleibt bis zum naechsten Neuladen).
+    public synchronized void mediaSaved(MediaEntry media) {
+        record(new Change(media.getId(), new MediaEntry(media)));
+    }
+
+    public synchronized void mediaRemoved(int mediaId) {
+        record(new Change(mediaId, null));
+    }
+
+    private void record(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (slots != null) {
+                apply(slots, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    private void apply(Slots target, Change change) {
+        if (change.media() == null) {
+            target.remove(change.mediaId());
+            return;
+        }
+        MediaEntry media = change.media();
+        Integer slot = target.slotOf.get(media.getId());
+        float average = slot != null ? target.averages[slot] : 0f;
+        int count = slot != null ? target.counts[slot] : 0;
+        target.put(media.getId(), typeIndex(media.getMediaType()), media.getAgeRestriction(),
+                genres.mask(media.getGenres(), target.words), average, count);
+    }
+
+    // Kandidaten wie MediaRepository.streamGenreCandidates (sameContent = streamContentCandidates), aus den
+    // aktuellen Ratings des Users: nicht bewertete Medien mit mindestens einem Lieblingsgenre, optional nur
+    // mit dem Genre genre. Rueckgabe: Anzahl Kandidaten.
+    public int streamCandidates(List<Rating> userRatings, boolean sameContent, String genre,
+                                MediaRepository.CandidateSink sink) {
+        lock.readLock().lock();
+        try {
+            queries.incrementAndGet();
+            Slots s = slots;
+            if (s == null) {
+                throw new IllegalStateException("Content-Index ist noch nicht geladen");
+            }
+            int words = s.words;
+            int filterBit = -1;
+            if (genre != null && !genre.isBlank()) {
+                filterBit = genres.find(genre);
+                if (filterBit < 0 || filterBit / 64 >= words) {
+                    return 0;
+                }
+            }
+
+            // Lieblingsgenres, bewertete Medien und (MediaType, Altersfreigabe) gut bewerteter Medien.
+            long[] liked = new long[words];
+            int[] rated = new int[userRatings.size()];
+            int[] likedContent = new int[userRatings.size()];
+            int likedContentCount = 0;
+            for (int r = 0; r < rated.length; r++) {
+                Rating rating = userRatings.get(r);
+                rated[r] = rating.getMediaId();
+                Integer slot = s.slotOf.get(rating.getMediaId());
+                if (slot != null && rating.getStars() >= LIKED_STARS) {
+                    for (int w = 0; w < words; w++) {
+                        liked[w] |= s.masks[slot * words + w];
+                    }
+                    likedContent[likedContentCount++] = contentKey(s.types[slot], s.ages[slot]);
+                }
+            }
+            int likedGenres = 0;
+            for (long word : liked) {
+                likedGenres += Long.bitCount(word);
+            }
+            if (likedGenres == 0) {
+                return 0;
+            }
+            Arrays.sort(rated);
+            likedContent = Arrays.copyOf(likedContent, likedContentCount);
+            Arrays.sort(likedContent);
+            int filterWord = filterBit / 64;
+            long filterMask = filterBit >= 0 ? 1L << (filterBit % 64) : 0L;
+
+            int count = 0;
+            for (int slot = 0; slot < s.size; slot++) {
+                int mediaId = s.mediaIds[slot];
+                if (mediaId == 0) {
+                    continue;
+                }
+                int offset = slot * words;
+                int matched = 0;
+                for (int w = 0; w < words; w++) {
+                    matched += Long.bitCount(s.masks[offset + w] & liked[w]);
+                }
+                if (matched == 0
+                        || (filterBit >= 0 && (s.masks[offset + filterWord] & filterMask) == 0)
+                        || (sameContent && Arrays.binarySearch(likedContent, contentKey(s.types[slot], s.ages[slot])) < 0)
+                        || Arrays.binarySearch(rated, mediaId) >= 0) {
+                    continue;
+                }
+                sink.accept(mediaId, matched, likedGenres, s.averages[slot], s.counts[slot]);
+                count++;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static byte typeIndex(String mediaType) {
+        for (int t = 0; t < MEDIA_TYPES.length; t++) {
+            if (MEDIA_TYPES[t].equalsIgnoreCase(mediaType)) {
+                return (byte) t;
+            }
+        }
+        return -1;
+    }
+
+    private static int contentKey(byte type, int ageRestriction) {
+        return (type << 16) | (ageRestriction & 0xFFFF);
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("ready", slots != null);
+            stats.put("media", slots != null ? slots.size - slots.removed : 0);
+            stats.put("maskWords", slots != null ? slots.words : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("genres", genres.size());
+        stats.put("refreshes", refreshes.get());
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        stats.put("queries", queries.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Parallele Arrays, ein Slot pro Medium; geloeschte Slots haben mediaId 0 und bleiben bis zum Neuladen frei.
+    private static final class Slots {
+        // longs pro Genre-Maske (waechst mit dem GenreDictionary).
+        int words;
+        long[] masks;
+        int[] mediaIds = new int[64];
+        byte[] types = new byte[64];
+        int[] ages = new int[64];
+        float[] averages = new float[64];
+        int[] counts = new int[64];
+        int size;
+        int removed;
+        final Map<Integer, Integer> slotOf = new HashMap<>();
+
+        Slots(int words) {
+            this.words = words;
+            this.masks = new long[64 * words];
+        }
+
+        // Medium einfuegen oder seinen Slot ueberschreiben.
+        void put(int mediaId, byte type, int age, long[] mask, float average, int count) {
+            if (mask.length > words) {
+                widen(mask.length);
+            }
+            Integer existing = slotOf.get(mediaId);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+            } else {
+                if (size == mediaIds.length) {
+                    grow(size * 2);
+                }
+                slot = size++;
+                slotOf.put(mediaId, slot);
+            }
+            mediaIds[slot] = mediaId;
+            types[slot] = type;
+            ages[slot] = age;
+            averages[slot] = average;
+            counts[slot] = count;
+            Arrays.fill(masks, slot * words, (slot + 1) * words, 0L);
+            System.arraycopy(mask, 0, masks, slot * words, mask.length);
+        }
+
+        void remove(int mediaId) {
+            Integer slot = slotOf.remove(mediaId);
+            if (slot != null) {
+                mediaIds[slot] = 0;
+                removed++;
+            }
+        }
+
+        private void grow(int capacity) {
+            masks = Arrays.copyOf(masks, capacity * words);
+            mediaIds = Arrays.copyOf(mediaIds, capacity);
+            types = Arrays.copyOf(types, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            averages = Arrays.copyOf(averages, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        // Mehr als 64 * words Genres: Masken auf die neue Breite umkopieren.
+        private void widen(int newWords) {
+            long[] wider = new long[mediaIds.length * newWords];
+            for (int slot = 0; slot < size; slot++) {
+                System.arraycopy(masks, slot * words, wider, slot * newWords, words);
+            }
+            masks = wider;
+            words = newWords;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Genre-Name -> Bit-Nummer (in der Reihenfolge des ersten Auftretens, Gross-/Kleinschreibung egal).
+// Damit wird die Genre-Menge eines Mediums zu einer Bitmaske aus longs (64 Genres pro Wort);
+// Ueberdeckung zweier Mengen = Long.bitCount(a & b) statt String-Vergleichen.
+// Waechst nur (Bits bleiben stabil); Zugriffe sind synchronisiert.
+public class GenreDictionary {
+
+    private final Map<String, Integer> bits = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Bit des Genres; unbekannte Genres bekommen das naechste freie Bit.
+    public synchronized int bitOf(String genre) {
+        String key = normalize(genre);
+        Integer bit = bits.get(key);
+        if (bit == null) {
+            bit = names.size();
+            bits.put(key, bit);
+            names.add(genre.trim());
+        }
+        return bit;
+    }
+
+    // Bit des Genres oder -1, wenn es noch nie vorkam.
+    public synchronized int find(String genre) {
+        Integer bit = bits.get(normalize(genre));
+        return bit != null ? bit : -1;
+    }
+
+    // Name zu einem Bit (Schreibweise beim ersten Auftreten).
+    public synchronized String nameOf(int bit) {
+        return names.get(bit);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    // Anzahl longs fuer eine Maske ueber alle bisher bekannten Genres (mindestens 1).
+    public synchronized int words() {
+        return wordsFor(names.size());
+    }
+
+    // Maske der Genres in words longs (leere/null-Eintraege zaehlen nicht); neue Genres werden angelegt.
+    // Reicht words nicht (neues Genre), ist die Maske entsprechend laenger.
+    public long[] mask(List<String> genres, int words) {
+        long[] mask = new long[words];
+        if (genres == null) {
+            return mask;
+        }
+        for (String genre : genres) {
+            if (genre == null || genre.isBlank()) {
+                continue;
+            }
+            int bit = bitOf(genre);
+            if (bit / 64 >= mask.length) {
+                mask = Arrays.copyOf(mask, wordsFor(bit + 1));
+            }
+            mask[bit / 64] |= 1L << (bit % 64);
+        }
+        return mask;
+    }
+
+    static int wordsFor(int genres) {
+        return Math.max(1, (genres + 63) / 64);
+    }
+
+    private static String normalize(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,405 @@
+package org.example.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Approximative k-Naechste-Nachbarn-Suche (HNSW: Hierarchical Navigable Small World, Malkov/Yashunin).
+// Mehrere Ebenen von Nachbarschaftsgraphen; die Suche laeuft gierig von der duennsten Ebene nach unten
+// und besucht nur einen kleinen Teil der Knoten. Aehnlichkeit = Kosinus (Vektoren werden normiert).
+// Loeschen setzt nur einen Grabstein (Knoten bleibt im Graphen, erscheint aber nicht mehr im Ergebnis);
+// aufgeraeumt wird beim naechsten Neuaufbau. Suchen parallel (Read-Lock), Einfuegen exklusiv.
+public class HnswIndex {
+
+    private final int dimension;
+    // Verbindungen pro Knoten und Ebene (Ebene 0: doppelt so viele).
+    private final int m;
+    private final int efConstruction;
+    // Ebenen-Verteilung: level = floor(-ln(U) * levelFactor).
+    private final double levelFactor;
+    private final Random random;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Knoten i: vectors[i * dimension ..], ids[i], links[i][level] = {Anzahl, Nachbar1, Nachbar2, ...}.
+    private float[] vectors;
+    private int[] ids;
+    private int[][][] links;
+    private boolean[] deleted;
+    private int nodeCount;
+    private int tombstones;
+    // Externe ID -> aktueller (nicht geloeschter) Knoten.
+    private final Map<Integer, Integer> nodeOf = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        if (dimension < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Ungueltiger HNSW-Index: dimension=" + dimension + ", m=" + m
+                    + ", efConstruction=" + efConstruction);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+        this.vectors = new float[16 * dimension];
+        this.ids = new int[16];
+        this.links = new int[16][][];
+        this.deleted = new boolean[16];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    // Vektor einfuegen; eine schon vorhandene ID wird vorher geloescht (Aktualisierung).
+    public void add(int id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Vektor hat " + vector.length + " statt " + dimension + " Werte");
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int node = newNode(id, vector);
+            int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelFactor);
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[maxConnections(l) + 1];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedy(node * dimension, vectors, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                NodeHeap found = searchLayer(vectors, node * dimension, current, efConstruction, l,
+                        new BitSet(nodeCount));
+                int[] candidates = found.drainDescending();
+                int[] selected = selectNeighbours(node, candidates, m);
+                int[] own = links[node][l];
+                for (int neighbour : selected) {
+                    own[++own[0]] = neighbour;
+                    connect(neighbour, node, l);
+                }
+                current = candidates[0];
+            }
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Grabstein setzen. false = ID nicht im Index.
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gespeicherter (normierter) Vektor einer ID oder null.
+    public float[] vectorOf(int id) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeOf.get(id);
+            return node == null ? null : Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Die k aehnlichsten IDs (absteigend), ohne excludeId; ef = Breite der Suche (groesser = genauer, langsamer).
+    public int[] search(float[] query, int k, int ef, int excludeId) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return new int[0];
+            }
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedy(0, normalized, current, l);
+            }
+            NodeHeap found = searchLayer(normalized, 0, current, Math.max(ef, k + 1), 0, new BitSet(nodeCount));
+            TopK top = new TopK(k);
+            while (found.size() > 0) {
+                float similarity = found.peekKey();
+                int node = found.pop();
+                if (!deleted[node] && ids[node] != excludeId) {
+                    top.offer(ids[node], similarity);
+                }
+            }
+            return top.drainIds();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lebende Eintraege.
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeCount - tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTombstones() {
+        lock.readLock().lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(int id) {
+        Integer node = nodeOf.remove(id);
+        if (node == null) {
+            return false;
+        }
+        deleted[node] = true;
+        tombstones++;
+        return true;
+    }
+
+    private int newNode(int id, float[] vector) {
+        if (nodeCount == ids.length) {
+            int capacity = nodeCount * 2;
+            vectors = Arrays.copyOf(vectors, capacity * dimension);
+            ids = Arrays.copyOf(ids, capacity);
+            links = Arrays.copyOf(links, capacity);
+            deleted = Arrays.copyOf(deleted, capacity);
+        }
+        int node = nodeCount++;
+        System.arraycopy(normalize(vector), 0, vectors, node * dimension, dimension);
+        ids[node] = id;
+        nodeOf.put(id, node);
+        return node;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    // Kante neighbour -> node eintragen; bei zu vielen Kanten die Nachbarschaft neu auswaehlen.
+    private void connect(int neighbour, int node, int level) {
+        int[] list = links[neighbour][level];
+        int count = list[0];
+        if (count < list.length - 1) {
+            list[++list[0]] = node;
+            return;
+        }
+        int[] candidates = new int[count + 1];
+        System.arraycopy(list, 1, candidates, 0, count);
+        candidates[count] = node;
+        sortBySimilarity(neighbour, candidates);
+        int[] kept = selectNeighbours(neighbour, candidates, count);
+        list[0] = kept.length;
+        System.arraycopy(kept, 0, list, 1, kept.length);
+    }
+
+    // Heuristik aus dem HNSW-Paper: Kandidat nur nehmen, wenn er base naeher ist als jedem schon gewaehlten
+    // Nachbarn (verteilt die Kanten in verschiedene Richtungen); Rest mit den verworfenen Naechsten auffuellen.
+    // candidates muss absteigend nach Aehnlichkeit zu base sortiert sein.
+    private int[] selectNeighbours(int base, int[] candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.length)];
+        int[] pruned = new int[candidates.length];
+        int count = 0;
+        int prunedCount = 0;
+        for (int candidate : candidates) {
+            if (count == selected.length) {
+                break;
+            }
+            float toBase = dot(vectors, candidate * dimension, vectors, base * dimension);
+            boolean diverse = true;
+            for (int s = 0; s < count && diverse; s++) {
+                diverse = dot(vectors, candidate * dimension, vectors, selected[s] * dimension) <= toBase;
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+            } else {
+                pruned[prunedCount++] = candidate;
+            }
+        }
+        for (int p = 0; p < prunedCount && count < selected.length; p++) {
+            selected[count++] = pruned[p];
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private void sortBySimilarity(int base, int[] nodes) {
+        NodeHeap heap = new NodeHeap(nodes.length);
+        for (int node : nodes) {
+            heap.push(node, dot(vectors, node * dimension, vectors, base * dimension));
+        }
+        System.arraycopy(heap.drainDescending(), 0, nodes, 0, nodes.length);
+    }
+
+    // Gierig zum aehnlichsten Knoten einer Ebene laufen (obere Ebenen, Suchbreite 1).
+    private int greedy(int queryOffset, float[] query, int start, int level) {
+        int current = start;
+        float best = dot(query, queryOffset, vectors, current * dimension);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] list = links[current][level];
+            for (int n = 1; n <= list[0]; n++) {
+                float similarity = dot(query, queryOffset, vectors, list[n] * dimension);
+                if (similarity > best) {
+                    best = similarity;
+                    current = list[n];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-First-Suche auf einer Ebene; Ergebnis = die ef aehnlichsten besuchten Knoten (Min-Heap).
+    private NodeHeap searchLayer(float[] query, int queryOffset, int start, int ef, int level, BitSet visited) {
+        // Kandidaten als Max-Heap (negierte Aehnlichkeit), Ergebnis als Min-Heap begrenzt auf ef.
+        NodeHeap candidates = new NodeHeap(ef * 2);
+        NodeHeap results = new NodeHeap(ef + 1);
+        float startSimilarity = dot(query, queryOffset, vectors, start * dimension);
+        visited.set(start);
+        candidates.push(start, -startSimilarity);
+        results.push(start, startSimilarity);
+        while (candidates.size() > 0) {
+            float similarity = -candidates.peekKey();
+            int node = candidates.pop();
+            if (results.size() >= ef && similarity < results.peekKey()) {
+                break;
+            }
+            int[] list = links[node][level];
+            for (int n = 1; n <= list[0]; n++) {
+                int neighbour = list[n];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float neighbourSimilarity = dot(query, queryOffset, vectors, neighbour * dimension);
+                if (results.size() < ef || neighbourSimilarity > results.peekKey()) {
+                    candidates.push(neighbour, -neighbourSimilarity);
+                    results.push(neighbour, neighbourSimilarity);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private float dot(float[] a, int aOffset, float[] b, int bOffset) {
+        float sum = 0f;
+        for (int d = 0; d < dimension; d++) {
+            sum += a[aOffset + d] * b[bOffset + d];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double squares = 0.0;
+        for (float value : vector) {
+            squares += value * value;
+        }
+        float[] normalized = vector.clone();
+        if (squares > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(squares));
+            for (int d = 0; d < normalized.length; d++) {
+                normalized[d] *= scale;
+            }
+        }
+        return normalized;
+    }
+
+    // Min-Heap von (Knoten, Schluessel) auf primitiven Arrays (waechst bei Bedarf).
+    private static final class NodeHeap {
+        private int[] nodes;
+        private float[] keys;
+        private int size;
+
+        NodeHeap(int capacity) {
+            nodes = new int[Math.max(capacity, 4)];
+            keys = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekKey() {
+            return keys[0];
+        }
+
+        void push(int node, float key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                nodes[index] = nodes[parent];
+                keys[index] = keys[parent];
+                index = parent;
+            }
+            nodes[index] = node;
+            keys[index] = key;
+        }
+
+        // Knoten mit dem kleinsten Schluessel entfernen.
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int lastNode = nodes[size];
+            float lastKey = keys[size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= lastKey) {
+                    break;
+                }
+                nodes[index] = nodes[child];
+                keys[index] = keys[child];
+                index = child;
+            }
+            nodes[index] = lastNode;
+            keys[index] = lastKey;
+            return top;
+        }
+
+        // Alle Knoten, groesster Schluessel zuerst (leert den Heap).
+        int[] drainDescending() {
+            int[] sorted = new int[size];
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                sorted[i] = pop();
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+// Item-Item Collaborative Filtering: pro Medium die aehnlichsten Medien nach gemeinsamen Bewertern.
+// Aehnlichkeit = Kosinus der um den User-Durchschnitt bereinigten Sterne (adjusted cosine),
+// gedaempft bei wenigen gemeinsamen Bewertern; nur positive Aehnlichkeiten werden behalten.
+// Unveraenderlich, alles in primitiven Arrays (Nachbarn im CSR-Format); wird im Hintergrund neu gebaut.
+public class ItemSimilarityModel implements RecommendationModel {
+
+    // Daempfung: sim * co / (co + SHRINK), damit 2 gemeinsame Bewerter nicht wie 200 zaehlen.
+    private static final float SHRINK = 10f;
+    // Sterne darueber ziehen zu aehnlichen Medien hin, darunter davon weg.
+    private static final float NEUTRAL_STARS = 2.5f;
+
+    // Dichter Index -> Medien-ID (aufsteigend, Suche per binarySearch).
+    private final int[] mediaIds;
+    // Nachbarn von Medium i: neighbours[offsets[i] .. offsets[i + 1]) mit similarities an gleicher Stelle.
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] similarities;
+    private final int ratingCount;
+
+    private ItemSimilarityModel(int[] mediaIds, int[] offsets, int[] neighbours, float[] similarities,
+                                int ratingCount) {
+        this.mediaIds = mediaIds;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.similarities = similarities;
+        this.ratingCount = ratingCount;
+    }
+
+    @Override
+    public int[] recommend(int[] ratedMedia, int[] ratedStars, int limit) {
+        int items = mediaIds.length;
+        float[] scores = new float[items];
+        boolean[] seen = new boolean[items];
+        boolean[] excluded = new boolean[items];
+        int[] rated = new int[ratedMedia.length];
+        for (int r = 0; r < ratedMedia.length; r++) {
+            rated[r] = Arrays.binarySearch(mediaIds, ratedMedia[r]);
+            if (rated[r] >= 0) {
+                excluded[rated[r]] = true;
+            }
+        }
+        // Nur beruehrte Kandidaten durchsuchen statt aller Medien.
+        int[] touched = new int[Math.min(items, neighbours.length)];
+        int touchedCount = 0;
+        for (int r = 0; r < rated.length; r++) {
+            int item = rated[r];
+            if (item < 0) {
+                continue;
+            }
+            float weight = ratedStars[r] - NEUTRAL_STARS;
+            for (int n = offsets[item]; n < offsets[item + 1]; n++) {
+                int candidate = neighbours[n];
+                if (excluded[candidate]) {
+                    continue;
+                }
+                if (!seen[candidate]) {
+                    seen[candidate] = true;
+                    touched[touchedCount++] = candidate;
+                }
+                scores[candidate] += similarities[n] * weight;
+            }
+        }
+
+        TopK top = new TopK(limit);
+        for (int t = 0; t < touchedCount; t++) {
+            int candidate = touched[t];
+            if (scores[candidate] > 0f) {
+                top.offer(mediaIds[candidate], scores[candidate]);
+            }
+        }
+        return top.drainIds();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mediaIds.length;
+    }
+
+    @Override
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    // Modell berechnen: maxNeighbours pro Medium, nur Paare mit mindestens minCoRatings gemeinsamen Bewertern.
+    public static ItemSimilarityModel build(RatingMatrix ratings, int maxNeighbours, int minCoRatings) {
+        int items = ratings.getItemCount();
+        int users = ratings.getUserCount();
+        int[] userStart = ratings.userStart;
+        int[] userItems = ratings.userItems;
+        int[] itemStart = ratings.itemStart;
+        int[] itemUsers = ratings.itemUsers;
+
+        // Bereinigte Sterne: Sterne minus Durchschnitt des Users (in beiden CSR-Sichten).
+        float[] userMean = new float[users];
+        float[] userValues = new float[userItems.length];
+        for (int u = 0; u < users; u++) {
+            float sum = 0f;
+            for (int e = userStart[u]; e < userStart[u + 1]; e++) {
+                sum += ratings.userStars[e];
+            }
+            userMean[u] = sum / (userStart[u + 1] - userStart[u]);
+            for (int e = userStart[u]; e < userStart[u + 1]; e++) {
+                userValues[e] = ratings.userStars[e] - userMean[u];
+            }
+        }
+        float[] itemValues = new float[itemUsers.length];
+        float[] norms = new float[items];
+        for (int i = 0; i < items; i++) {
+            float squares = 0f;
+            for (int e = itemStart[i]; e < itemStart[i + 1]; e++) {
+                itemValues[e] = ratings.itemStars[e] - userMean[itemUsers[e]];
+                squares += itemValues[e] * itemValues[e];
+            }
+            norms[i] = (float) Math.sqrt(squares);
+        }
+
+        // Pro Medium: Skalarprodukte mit allen Medien gemeinsamer Bewerter aufsummieren, Top-N behalten.
+        float[] dot = new float[items];
+        int[] co = new int[items];
+        int[] touched = new int[items];
+        int[][] keptIds = new int[items][];
+        float[][] keptSims = new float[items][];
+        int total = 0;
+        for (int i = 0; i < items; i++) {
+            int touchedCount = 0;
+            for (int e = itemStart[i]; e < itemStart[i + 1]; e++) {
+                int user = itemUsers[e];
+                float value = itemValues[e];
+                for (int f = userStart[user]; f < userStart[user + 1]; f++) {
+                    int j = userItems[f];
+                    if (j == i) {
+                        continue;
+                    }
+                    if (co[j] == 0) {
+                        touched[touchedCount++] = j;
+                    }
+                    co[j]++;
+                    dot[j] += value * userValues[f];
+                }
+            }
+            TopK top = new TopK(maxNeighbours);
+            for (int t = 0; t < touchedCount; t++) {
+                int j = touched[t];
+                if (co[j] >= minCoRatings && norms[i] > 0f && norms[j] > 0f) {
+                    float sim = dot[j] / (norms[i] * norms[j]) * co[j] / (co[j] + SHRINK);
+                    if (sim > 0f) {
+                        top.offer(j, sim);
+                    }
+                }
+                dot[j] = 0f;
+                co[j] = 0;
+            }
+            keptSims[i] = new float[top.size()];
+            keptIds[i] = top.drain(keptSims[i]);
+            total += keptIds[i].length;
+        }
+
+        int[] offsets = new int[items + 1];
+        int[] neighbours = new int[total];
+        float[] similarities = new float[total];
+        for (int i = 0; i < items; i++) {
+            offsets[i + 1] = offsets[i] + keptIds[i].length;
+            System.arraycopy(keptIds[i], 0, neighbours, offsets[i], keptIds[i].length);
+            System.arraycopy(keptSims[i], 0, similarities, offsets[i], keptSims[i].length);
+        }
+        return new ItemSimilarityModel(ratings.mediaIds, offsets, neighbours, similarities,
+                ratings.getRatingCount());
+    }
+}
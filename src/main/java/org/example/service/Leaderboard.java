@@ -0,0 +1,265 @@
+package org.example.service;
+
+import org.example.domain.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Leaderboard im Speicher: Treap (zufaellig balancierter Suchbaum) mit Teilbaumgroessen,
+// sortiert nach Anzahl Ratings absteigend, bei Gleichstand nach User-ID.
+// Rang, Top-N und Nachbarn eines Users kosten O(log n) statt einer GROUP BY-Query ueber alle Ratings.
+// Beim Start aus der DB aufgebaut, danach von RatingService/UserService/MediaService inkrementell gepflegt.
+public class Leaderboard {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // User-ID -> aktueller Knoten (Schluessel im Baum = ratingCount + userId).
+    private final Map<Integer, Node> byUser = new HashMap<>();
+    private Node root;
+
+    // Alles ersetzen (Start oder Resync mit der DB).
+    public void rebuild(List<LeaderboardEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            byUser.clear();
+            for (LeaderboardEntry entry : entries) {
+                insertNode(new Node(entry.getUserId(), entry.getUsername(), entry.getRatingCount()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Neuer User (0 Ratings); vorhandene User bleiben unveraendert.
+    public void addUser(int userId, String username) {
+        lock.writeLock().lock();
+        try {
+            if (!byUser.containsKey(userId)) {
+                insertNode(new Node(userId, username, 0));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void ratingAdded(int userId) {
+        adjust(userId, 1);
+    }
+
+    public void ratingRemoved(int userId) {
+        adjust(userId, -1);
+    }
+
+    // Anzahl eines Users aendern: Knoten entfernen und mit neuem Schluessel einfuegen.
+    private void adjust(int userId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Node old = byUser.get(userId);
+            if (old == null) {
+                // Unbekannter User (z. B. direkt in der DB angelegt) -> erst nach rebuild sichtbar.
+                return;
+            }
+            root = remove(root, old.count, old.userId);
+            insertNode(new Node(userId, old.username, Math.max(0, old.count + delta)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bis zu limit Eintraege ab Position offset (0 = Platz 1), jeweils mit Rang.
+    public List<LeaderboardEntry> range(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return collect(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bis zu limit Eintraege nach dem Schluessel (ratingCount, userId) der letzten Zeile einer Seite.
+    public List<LeaderboardEntry> after(int ratingCount, int userId, int limit) {
+        lock.readLock().lock();
+        try {
+            return collect(countBefore(root, ratingCount, userId) + (contains(ratingCount, userId) ? 1 : 0), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Eintrag eines Users mit bis zu neighbours Plaetzen davor und danach; null = User unbekannt.
+    public List<LeaderboardEntry> around(int userId, int neighbours) {
+        lock.readLock().lock();
+        try {
+            Node node = byUser.get(userId);
+            if (node == null) {
+                return null;
+            }
+            int position = countBefore(root, node.count, node.userId);
+            int from = Math.max(0, position - neighbours);
+            return collect(from, position - from + neighbours + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", size());
+        return stats;
+    }
+
+    // ===== Treap (nur unter Lock aufrufen) =====
+
+    private boolean contains(int count, int userId) {
+        Node node = byUser.get(userId);
+        return node != null && node.count == count;
+    }
+
+    private List<LeaderboardEntry> collect(int offset, int limit) {
+        List<LeaderboardEntry> result = new ArrayList<>();
+        int end = Math.min(size(root), offset + limit);
+        for (int position = Math.max(0, offset); position < end; position++) {
+            Node node = select(root, position);
+            LeaderboardEntry entry = new LeaderboardEntry(node.userId, node.username, node.count);
+            // Gleiche Anzahl = gleicher Rang (1, 2, 2, 4 ...).
+            entry.setRank(countBefore(root, node.count, Integer.MIN_VALUE) + 1);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private void insertNode(Node node) {
+        byUser.put(node.userId, node);
+        Node[] parts = split(root, node.count, node.userId);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    // Reihenfolge: mehr Ratings zuerst, dann kleinere User-ID.
+    private static int compare(int countA, int userA, int countB, int userB) {
+        if (countA != countB) {
+            return countA > countB ? -1 : 1;
+        }
+        return Integer.compare(userA, userB);
+    }
+
+    // Anzahl Knoten, die vor dem Schluessel (count, userId) liegen.
+    private static int countBefore(Node node, int count, int userId) {
+        int before = 0;
+        while (node != null) {
+            if (compare(node.count, node.userId, count, userId) < 0) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return before;
+    }
+
+    // Knoten an Position k (0-basiert).
+    private static Node select(Node node, int k) {
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // Teilt in [Knoten vor dem Schluessel, Knoten ab dem Schluessel].
+    private static Node[] split(Node node, int count, int userId) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(node.count, node.userId, count, userId) < 0) {
+            Node[] parts = split(node.right, count, userId);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, count, userId);
+        node.left = parts[1];
+        node.update();
+        return new Node[]{parts[0], node};
+    }
+
+    // Verbindet zwei Baeume, wobei alle Knoten aus a vor denen aus b liegen.
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.update();
+        return b;
+    }
+
+    private static Node remove(Node node, int count, int userId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(count, userId, node.count, node.userId);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, count, userId);
+        } else {
+            node.right = remove(node.right, count, userId);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final int userId;
+        private final String username;
+        private final int count;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int userId, String username, int count) {
+            this.userId = userId;
+            this.username = username;
+            this.count = count;
+        }
+
+        private void update() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+        }
+    }
+}
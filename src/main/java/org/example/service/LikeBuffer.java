@@ -0,0 +1,266 @@
+package org.example.service;
+
+import org.example.persistence.RatingRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-Behind fuer Rating-Likes: Klicks landen in einer begrenzten Queue und werden von einem
+// Hintergrund-Thread gesammelt als ein INSERT pro Batch geschrieben (Groesse oder Zeit, je nachdem was zuerst kommt).
+// Gleiche (Rating, User)-Paare in der Queue werden nur einmal geschrieben.
+// Die Like-Anzahl pro Rating liegt im Speicher (beim Start fuer alle Ratings geladen, nach jedem Batch erhoeht);
+// die Eintraege sind zugleich die Menge der bekannten Ratings (Existenzpruefung ohne DB).
+// Schlaegt ein Batch fehl (DB weg, Pool-Timeout), wird er nach einer Pause erneut geschrieben; solange staut sich
+// die Queue, und neue Likes werden abgelehnt. Erst nach maxAttempts Versuchen wird ein Like verworfen.
+public class LikeBuffer implements AutoCloseable {
+
+    // Weckt den wartenden Flush-Thread beim Schliessen (keine gueltige Rating-/User-ID).
+    private static final long WAKE_UP = Long.MIN_VALUE;
+
+    private final RatingRepository ratingRepository;
+    private final int batchSize;
+    private final long flushMillis;
+    // So lange wartet ein Aufrufer bei voller Queue, danach wird der Like abgelehnt.
+    private final long offerTimeoutMillis;
+    // Schreibversuche pro Like, bevor er verworfen wird.
+    private final int maxAttempts;
+
+    private final BlockingQueue<Long> queue;
+    // (Rating, User)-Paare, die in der Queue oder im laufenden Batch stecken.
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    // Likes aus einem fehlgeschlagenen Batch (naechster Batch beginnt damit) und ihre bisherigen Versuche.
+    // Nur vom Flush-Thread benutzt (bzw. von close(), nachdem er beendet ist).
+    private final List<Long> retry = new ArrayList<>();
+    private final Map<Long, Integer> attempts = new HashMap<>();
+    // Rating-ID -> gespeicherte Likes; ein Eintrag pro bekanntem Rating (auch mit 0 Likes).
+    private final Map<Integer, Integer> likeCounts = new ConcurrentHashMap<>();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    // Fehlgeschlagene Batch-Versuche (werden wiederholt).
+    private final AtomicLong retries = new AtomicLong();
+    // Likes, die auch nach maxAttempts Versuchen nicht geschrieben werden konnten.
+    private final AtomicLong flushFailures = new AtomicLong();
+
+    public LikeBuffer(RatingRepository ratingRepository, int capacity, int batchSize, long flushMillis,
+                      long offerTimeoutMillis, int maxAttempts) {
+        if (capacity < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Ungueltige Like-Queue: capacity=" + capacity + ", batchSize=" + batchSize
+                    + ", maxAttempts=" + maxAttempts);
+        }
+        this.ratingRepository = ratingRepository;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flusher = new Thread(this::run, "mrp-like-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static LikeBuffer fromSystemProperties(RatingRepository ratingRepository) {
+        return new LikeBuffer(ratingRepository,
+                Integer.getInteger("mrp.likes.queueCapacity", 10000),
+                Integer.getInteger("mrp.likes.batchSize", 500),
+                Long.getLong("mrp.likes.flushMillis", 200L),
+                Long.getLong("mrp.likes.offerTimeoutMillis", 50L),
+                Integer.getInteger("mrp.likes.maxAttempts", 5));
+    }
+
+    // Like-Anzahlen aller Ratings aus der DB uebernehmen (beim Start).
+    public void loadCounts(Map<Integer, Integer> counts) {
+        likeCounts.clear();
+        likeCounts.putAll(counts);
+    }
+
+    // Like einreihen. false = Queue blieb voll (Aufrufer soll es spaeter erneut versuchen).
+    // Ein Paar, das schon in der Queue steckt, zaehlt als angenommen.
+    public boolean offer(int ratingId, int userId) throws InterruptedException {
+        if (closed) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        long key = key(ratingId, userId);
+        if (!pending.add(key)) {
+            deduplicated.incrementAndGet();
+            return true;
+        }
+        if (!queue.offer(key, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            pending.remove(key);
+            rejected.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    // Gespeicherte Likes eines Ratings (ohne DB; noch nicht geschriebene Likes fehlen hoechstens flushMillis lang).
+    public int count(int ratingId) {
+        return likeCounts.getOrDefault(ratingId, 0);
+    }
+
+    // true = Rating existiert (geladen, neu angelegt oder nachgeschlagen und seitdem nicht geloescht).
+    public boolean isKnown(int ratingId) {
+        return likeCounts.containsKey(ratingId);
+    }
+
+    // Neues oder nachgeschlagenes Rating mit seinen gespeicherten Likes aufnehmen (bekannte bleiben unveraendert).
+    public void ratingAdded(int ratingId, int likes) {
+        likeCounts.putIfAbsent(ratingId, likes);
+    }
+
+    // Rating geloescht -> Zaehler entfernen (Likes loescht die DB per ON DELETE CASCADE).
+    public void ratingRemoved(int ratingId) {
+        likeCounts.remove(ratingId);
+    }
+
+    // Hintergrund-Thread: ersten Like abwarten (oder mit den zu wiederholenden beginnen),
+    // dann bis batchSize oder flushMillis sammeln und schreiben.
+    private void run() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty() || !retry.isEmpty()) {
+            try {
+                if (retry.isEmpty()) {
+                    Long first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                } else {
+                    batch.addAll(retry);
+                    retry.clear();
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                while (batch.size() < batchSize && !closed) {
+                    Long next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // Beim Schliessen nicht mehr warten, nur noch abholen was da ist.
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            batch.removeIf(key -> key == WAKE_UP);
+            if (!batch.isEmpty()) {
+                boolean ok = flush(batch);
+                batch.clear();
+                if (!ok && !closed) {
+                    pause();
+                }
+            }
+        }
+    }
+
+    // Nach einem Fehler nicht sofort wieder auf die DB einschlagen.
+    private void pause() {
+        try {
+            Thread.sleep(flushMillis);
+        } catch (InterruptedException e) {
+            // Beim Schliessen einfach weitermachen.
+        }
+    }
+
+    // Ein Batch = ein INSERT; Duplikate in der DB und geloeschte Ratings ignoriert das Repository.
+    // false = fehlgeschlagen; die Likes stehen dann (bis maxAttempts) in retry.
+    private boolean flush(List<Long> batch) {
+        int[] ratingIds = new int[batch.size()];
+        int[] userIds = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            ratingIds[i] = (int) (batch.get(i) >>> 32);
+            userIds[i] = (int) (long) batch.get(i);
+        }
+        try {
+            for (int ratingId : ratingRepository.addLikes(ratingIds, userIds)) {
+                likeCounts.merge(ratingId, 1, Integer::sum);
+                written.incrementAndGet();
+            }
+            batches.incrementAndGet();
+        } catch (SQLException | RuntimeException e) {
+            retries.incrementAndGet();
+            int dropped = 0;
+            for (Long key : batch) {
+                int attempt = attempts.merge(key, 1, Integer::sum);
+                if (attempt < maxAttempts) {
+                    retry.add(key);
+                } else {
+                    attempts.remove(key);
+                    pending.remove(key);
+                    dropped++;
+                }
+            }
+            if (dropped > 0) {
+                flushFailures.addAndGet(dropped);
+                System.out.println(dropped + " Likes nach " + maxAttempts + " Versuchen verworfen: " + e.getMessage());
+            }
+            return false;
+        }
+        for (Long key : batch) {
+            attempts.remove(key);
+            pending.remove(key);
+        }
+        return true;
+    }
+
+    // Keine neuen Likes mehr annehmen, Queue leeren und auf den letzten Batch warten (beim Server-Stopp).
+    @Override
+    public void close() {
+        closed = true;
+        // Nicht interrupten (ein laufender Batch soll seine DB-Verbindung noch bekommen), nur das Warten beenden.
+        queue.offer(WAKE_UP);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Likes, die zwischen closed-Pruefung und Thread-Ende eingereiht wurden.
+        if (!flusher.isAlive()) {
+            List<Long> rest = new ArrayList<>();
+            while (queue.drainTo(rest, batchSize - retry.size()) > 0 || !retry.isEmpty()) {
+                rest.addAll(retry);
+                retry.clear();
+                rest.removeIf(key -> key == WAKE_UP);
+                flush(rest);
+                rest.clear();
+            }
+        }
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("rejected", rejected.get());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("retries", retries.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("countedRatings", likeCounts.size());
+        return stats;
+    }
+
+    private static long key(int ratingId, int userId) {
+        return ((long) ratingId << 32) | (userId & 0xFFFFFFFFL);
+    }
+}
@@ -1,16 +1,67 @@
 package org.example.service;
 
+import org.example.domain.MediaDetailResponse;
 import org.example.domain.MediaEntry;
+import org.example.domain.MediaImportResult;
+import org.example.domain.Rating;
 import org.example.persistence.MediaRepository;
+import org.example.persistence.OwnedWrite;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RowSink;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MediaService {
+
+    // Hoechstens so viele Fehlerzeilen im Import-Ergebnis (gezaehlt werden alle).
+    static final int MAX_IMPORT_ERRORS = 1000;
+    // Spaltenlaengen aus V1 (Title VARCHAR(256), MediaType VARCHAR(50), Genre VARCHAR(100)).
+    static final int MAX_TITLE_LENGTH = 256;
+    static final int MAX_MEDIATYPE_LENGTH = 50;
+    static final int MAX_GENRE_LENGTH = 100;
+    // Aehnliche Medien: Standard- und Hoechstanzahl pro Aufruf.
+    public static final int DEFAULT_SIMILAR_LIMIT = 10;
+    public static final int MAX_SIMILAR_LIMIT = 100;
+
+    // Eine NDJSON-Zeile in ein Medium umwandeln (JSON-Mapping liegt im Handler).
+    @FunctionalInterface
+    public interface LineParser {
+        MediaEntry parse(String line) throws IOException;
+    }
 
     private final MediaRepository mediaRepository;
+    // Optional: Leaderboard im Speicher (Ratings geloeschter Medien abziehen).
+    private final Leaderboard leaderboard;
+    // Optional: wird bei jeder Aenderung am Katalog erhoeht (macht gecachte Suchen ungueltig).
+    private final CatalogVersion catalogVersion;
+    // Optional: Cache fuer Suchergebnisse; null = jede Suche per SQL.
+    private final SearchCache searchCache;
+    // Optional: HNSW-Index fuer aehnliche Medien; null = /similar nicht verfuegbar.
+    private final SimilarMediaIndex similarIndex;
+    // Optional: Genre-Bitmasken fuer Empfehlungen im Speicher.
+    private final ContentIndex contentIndex;
+    // Optional: Like-Zaehler im Speicher (Ratings geloeschter Medien entfernen).
+    private final LikeBuffer likeBuffer;
 
     public MediaService(MediaRepository mediaRepository) {
+        this(mediaRepository, null, null, null, null, null, null);
+    }
+
+    // Alle optionalen Bausteine (null = nicht genutzt, siehe Felder).
+    public MediaService(MediaRepository mediaRepository, Leaderboard leaderboard, CatalogVersion catalogVersion,
+                        SearchCache searchCache, SimilarMediaIndex similarIndex, ContentIndex contentIndex,
+                        LikeBuffer likeBuffer) {
         this.mediaRepository = mediaRepository;
+        this.likeBuffer = likeBuffer;
+        this.leaderboard = leaderboard;
+        this.catalogVersion = catalogVersion;
+        this.searchCache = searchCache;
+        this.similarIndex = similarIndex;
+        this.contentIndex = contentIndex;
     }
 
     // ========================================
@@ -18,14 +69,40 @@ public class MediaService {
     // ========================================
     public MediaEntry create(MediaEntry media, int creatorId) throws Exception {
 
+        // 1.-3. Validierung
+        validateNew(media);
+
+        // 4. Creator setzen
+        media.setCreatorId(creatorId);
+
+        // 5. Speichern
+        MediaEntry saved = mediaRepository.save(media);
+
+        if (saved == null) {
+            throw new Exception("Fehler beim Speichern");
+        }
+        catalogChanged();
+        mediaSaved(saved);
+
+        return saved;
+    }
+
+    // Pflichtfelder pruefen und Genres/MediaType normalisieren (fuer create und den Bulk-Import).
+    private void validateNew(MediaEntry media) throws Exception {
         // 1. Validierung
         if (media.getTitle() == null || media.getTitle().isEmpty()) {
             throw new Exception("Titel ist erforderlich");
         }
+        if (media.getTitle().length() > MAX_TITLE_LENGTH) {
+            throw new Exception("Titel darf maximal " + MAX_TITLE_LENGTH + " Zeichen haben");
+        }
 
         if (media.getMediaType() == null || media.getMediaType().isEmpty()) {
             throw new Exception("MediaType ist erforderlich (MOVIE, SERIES, GAME)");
         }
+        if (media.getMediaType().length() > MAX_MEDIATYPE_LENGTH) {
+            throw new Exception("MediaType muss MOVIE, SERIES oder GAME sein");
+        }
 
         // 2. Genres pruefen (mindestens 1, keine leeren Eintraege)
         if (media.getGenres() == null || media.getGenres().isEmpty()) {
@@ -34,6 +111,9 @@ public class MediaService {
         var normalizedGenres = new java.util.ArrayList<String>();
         for (String g : media.getGenres()) {
             if (g != null && !g.isBlank()) {
+                if (g.length() > MAX_GENRE_LENGTH) {
+                    throw new Exception("Genre darf maximal " + MAX_GENRE_LENGTH + " Zeichen haben");
+                }
                 normalizedGenres.add(g);
             }
         }
@@ -48,18 +128,72 @@ public class MediaService {
             throw new Exception("MediaType muss MOVIE, SERIES oder GAME sein");
         }
         media.setMediaType(type);
+    }
 
-        // 4. Creator setzen
-        media.setCreatorId(creatorId);
+    // ========================================
+    // IMPORT - Viele Medien aus NDJSON (eine JSON-Zeile pro Medium)
+    // ========================================
+    // Jede Zeile wird wie bei create geprueft; gueltige gehen direkt in das COPY des Repositories,
+    // ungueltige landen mit Zeilennummer im Ergebnis. Der Body wird nie komplett gelesen.
+    public MediaImportResult importMedia(BufferedReader ndjson, LineParser parser, int creatorId) throws Exception {
+        long start = System.nanoTime();
+        MediaImportResult result = new MediaImportResult();
+        int[] lineNumber = {0};
 
-        // 5. Speichern
-        MediaEntry saved = mediaRepository.save(media);
+        int imported;
+        try {
+            imported = mediaRepository.bulkInsert(creatorId, sink -> {
+                String line;
+                while ((line = ndjson.readLine()) != null) {
+                    lineNumber[0]++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    MediaEntry media;
+                    try {
+                        media = parser.parse(line);
+                        if (media == null) {
+                            throw new Exception("Leere Zeile");
+                        }
+                        validateNew(media);
+                    } catch (Exception e) {
+                        rejectLine(result, lineNumber[0], e instanceof IOException ? "Ungueltiges JSON" : e.getMessage());
+                        continue;
+                    }
+                    sink.accept(media);
+                }
+            });
+        } catch (IOException e) {
+            throw new Exception("Import abgebrochen in Zeile " + lineNumber[0]);
+        } catch (SQLException e) {
+            // Uebrige DB-Fehler (z.B. Constraints) mit Meldung der DB zurueckgeben.
+            throw new Exception("Fehler beim Import: " + e.getMessage());
+        }
+        if (imported > 0) {
+            catalogChanged();
+            // COPY liefert keine IDs: Indizes im Hintergrund neu aufbauen.
+            if (similarIndex != null) {
+                similarIndex.rebuildSoon();
+            }
+            if (contentIndex != null) {
+                contentIndex.refreshSoon();
+            }
+        }
 
-        if (saved == null) {
-            throw new Exception("Fehler beim Speichern");
+        long nanos = System.nanoTime() - start;
+        result.setLines(lineNumber[0]);
+        result.setImported(imported);
+        result.setDurationMillis(nanos / 1_000_000);
+        result.setRecordsPerSecond(nanos == 0 ? 0.0 : imported / (nanos / 1_000_000_000.0));
+        return result;
+    }
+
+    // Fehler zaehlen; Details nur fuer die ersten MAX_IMPORT_ERRORS Zeilen (Antwort bleibt begrenzt).
+    private void rejectLine(MediaImportResult result, int line, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_IMPORT_ERRORS) {
+            result.getErrors().add(new MediaImportResult.LineError(line, error));
         }
-
-        return saved;
     }
 
     // ========================================
@@ -69,12 +203,54 @@ public class MediaService {
         return mediaRepository.findAll();
     }
 
+
     // ========================================
     // SEARCH - Medien filtern/sortieren
     // ========================================
     public List<MediaEntry> search(String title, String genre, String mediaType, Integer releaseYear,
                                    Integer ageRestriction, Double rating, String sortBy) {
-        return mediaRepository.search(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy);
+        if (searchCache == null) {
+            return mediaRepository.search(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy);
+        }
+        SearchCache.Key key = SearchCache.key(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy, null);
+        try {
+            return searchCache.get(key, () -> new SearchCache.Result(mediaRepository.search(title, genre, mediaType,
+                    releaseYear, ageRestriction, rating, sortBy), null)).items();
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+
+    // Eine Seite der Suche streamen (ohne Filter = alle Medien); liefert den Cursor der nächsten Seite.
+    public String streamPage(String title, String genre, String mediaType, Integer releaseYear,
+                             Integer ageRestriction, Double rating, String sortBy, PageRequest page,
+                             RowSink<? super MediaEntry> sink) throws Exception {
+        if (searchCache == null) {
+            try {
+                return mediaRepository.streamSearchPage(title, genre, mediaType, releaseYear, ageRestriction, rating,
+                        sortBy, page, sink);
+            } catch (SQLException e) {
+                throw new Exception("Fehler beim Laden der Medien");
+            }
+        }
+
+        // Mit Cache: Seite (hoechstens PageRequest.MAX_SIZE Eintraege) puffern und daraus ausliefern.
+        SearchCache.Key key = SearchCache.key(title, genre, mediaType, releaseYear, ageRestriction, rating, sortBy, page);
+        SearchCache.Result result;
+        try {
+            result = searchCache.get(key, () -> {
+                List<MediaEntry> items = new ArrayList<>();
+                String nextCursor = mediaRepository.streamSearchPage(title, genre, mediaType, releaseYear,
+                        ageRestriction, rating, sortBy, page, items::add);
+                return new SearchCache.Result(items, nextCursor);
+            });
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden der Medien");
+        }
+        for (MediaEntry media : result.items()) {
+            sink.accept(media);
+        }
+        return result.nextCursor();
     }
 
     // ========================================
@@ -91,52 +267,58 @@ public class MediaService {
     }
 
     // ========================================
+    // GET DETAIL - Medium + Rating-Statistik
+    // ========================================
+    public MediaDetailResponse getDetail(int id) throws Exception {
+        MediaEntry media = getById(id);
+
+        try {
+            return new MediaDetailResponse(media, mediaRepository.findRatingStats(id));
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden der Statistik");
+        }
+    }
+
+    // ========================================
     // UPDATE - Medium aktualisieren
     // ========================================
     public MediaEntry update(int id, MediaEntry updatedMedia, int userId) throws Exception {
 
-        // 1. Medium finden
-        MediaEntry existingMedia = mediaRepository.findById(id);
-
-        if (existingMedia == null) {
-            throw new Exception("Medium nicht gefunden");
-        }
-
-        // 2. Prüfen ob der User der Creator ist
-        if (existingMedia.getCreatorId() != userId) {
-            throw new Exception("Nur der Ersteller kann das Medium bearbeiten");
-        }
-
-        // 3. Felder aktualisieren (nur wenn neue Werte vorhanden)
-        if (updatedMedia.getTitle() != null) {
-            existingMedia.setTitle(updatedMedia.getTitle());
-        }
-        if (updatedMedia.getDescription() != null) {
-            existingMedia.setDescription(updatedMedia.getDescription());
-        }
-        if (updatedMedia.getMediaType() != null) {
-            existingMedia.setMediaType(updatedMedia.getMediaType().toUpperCase());
+        // 1. Aenderungen normalisieren (null/0/leer = Feld bleibt wie es ist)
+        MediaEntry changes = new MediaEntry();
+        changes.setTitle(updatedMedia.getTitle());
+        changes.setDescription(updatedMedia.getDescription());
+        if (updatedMedia.getMediaType() != null) {
+            changes.setMediaType(updatedMedia.getMediaType().toUpperCase());
         }
-        if (updatedMedia.getReleaseYear() != 0) {
-            existingMedia.setReleaseYear(updatedMedia.getReleaseYear());
-        }
-        if (updatedMedia.getGenres() != null && !updatedMedia.getGenres().isEmpty()) {
-            var normalizedGenres = new java.util.ArrayList<String>();
+        changes.setReleaseYear(updatedMedia.getReleaseYear());
+        changes.setAgeRestriction(updatedMedia.getAgeRestriction());
+        var normalizedGenres = new ArrayList<String>();
+        if (updatedMedia.getGenres() != null) {
             for (String g : updatedMedia.getGenres()) {
                 if (g != null && !g.isBlank()) {
                     normalizedGenres.add(g);
                 }
             }
-            if (!normalizedGenres.isEmpty()) {
-                existingMedia.setGenres(normalizedGenres);
-            }
         }
-        if (updatedMedia.getAgeRestriction() != 0) {
-            existingMedia.setAgeRestriction(updatedMedia.getAgeRestriction());
+        changes.setGenres(normalizedGenres.isEmpty() ? null : normalizedGenres);
+
+        // 2. Speichern; Existenz und Ersteller prueft das Repository in derselben Anweisung
+        OwnedWrite<MediaEntry> result;
+        try {
+            result = mediaRepository.update(id, changes, userId);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Aktualisieren");
         }
-
-        // 4. Speichern
-        return mediaRepository.update(existingMedia);
+        if (result.status() == OwnedWrite.Status.NOT_FOUND) {
+            throw new Exception("Medium nicht gefunden");
+        }
+        if (result.status() == OwnedWrite.Status.FORBIDDEN) {
+            throw new Exception("Nur der Ersteller kann das Medium bearbeiten");
+        }
+        catalogChanged();
+        mediaSaved(result.value());
+        return result.value();
     }
 
     // ========================================
@@ -144,23 +326,70 @@ public class MediaService {
     // ========================================
     public void delete(int id, int userId) throws Exception {
 
-        // 1. Medium finden
-        MediaEntry media = mediaRepository.findById(id);
-
-        if (media == null) {
+        // 1. Löschen (Ratings werden mitgelöscht); Existenz und Ersteller in derselben Anweisung pruefen
+        OwnedWrite<List<Rating>> result;
+        try {
+            result = mediaRepository.deleteWithRatings(id, userId);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Löschen");
+        }
+        if (result.status() == OwnedWrite.Status.NOT_FOUND) {
             throw new Exception("Medium nicht gefunden");
         }
-
-        // 2. Prüfen ob der User der Creator ist
-        if (media.getCreatorId() != userId) {
+        if (result.status() == OwnedWrite.Status.FORBIDDEN) {
             throw new Exception("Nur der Ersteller kann das Medium löschen");
         }
 
-        // 3. Löschen
-        boolean deleted = mediaRepository.delete(id);
-
-        if (!deleted) {
-            throw new Exception("Fehler beim Löschen");
+        // 2. Leaderboard, Like-Zaehler und Such-Cache nachziehen
+        for (Rating removed : result.value()) {
+            if (leaderboard != null) {
+                leaderboard.ratingRemoved(removed.getUserId());
+            }
+            if (likeBuffer != null) {
+                likeBuffer.ratingRemoved(removed.getId());
+            }
         }
+        catalogChanged();
+        if (similarIndex != null) {
+            similarIndex.mediaRemoved(id);
+        }
+        if (contentIndex != null) {
+            contentIndex.mediaRemoved(id);
+        }
+    }
+
+    // ========================================
+    // SIMILAR - Aehnliche Medien (k naechste Nachbarn im HNSW-Index)
+    // ========================================
+    public List<MediaEntry> findSimilar(int id, int limit) throws Exception {
+        if (limit < 1 || limit > MAX_SIMILAR_LIMIT) {
+            throw new IllegalArgumentException("limit muss zwischen 1 und " + MAX_SIMILAR_LIMIT + " liegen");
+        }
+        MediaEntry media = getById(id);
+        int[] similarIds = similarIndex != null ? similarIndex.similar(media, limit) : null;
+        if (similarIds == null) {
+            throw new IllegalStateException("Aehnliche Medien sind noch nicht verfuegbar");
+        }
+        try {
+            return mediaRepository.findByIds(similarIds);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden aehnlicher Medien");
+        }
+    }
+
+    // Indizes im Speicher nachziehen (neues oder geaendertes Medium).
+    private void mediaSaved(MediaEntry media) {
+        if (similarIndex != null) {
+            similarIndex.mediaSaved(media);
+        }
+        if (contentIndex != null) {
+            contentIndex.mediaSaved(media);
+        }
+    }
+
+    private void catalogChanged() {
+        if (catalogVersion != null) {
+            catalogVersion.bump();
+        }
     }
 }
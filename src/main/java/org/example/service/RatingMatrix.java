@@ -0,0 +1,122 @@
+package org.example.service;
+
+import org.example.persistence.RatingRepository;
+
+import java.util.Arrays;
+
+// Alle Ratings als duenn besetzte Matrix in primitiven Arrays (Trainingsdaten der Empfehlungsmodelle).
+// Dichte Indizes statt IDs; zwei CSR-Sichten: User -> (Medium, Sterne) und Medium -> (User, Sterne).
+public class RatingMatrix {
+    // Dichter Index -> ID (aufsteigend, Suche per binarySearch).
+    final int[] userIds;
+    final int[] mediaIds;
+    // Ratings von User u: userItems/userStars[userStart[u] .. userStart[u + 1]).
+    final int[] userStart;
+    final int[] userItems;
+    final float[] userStars;
+    // Ratings von Medium i: itemUsers/itemStars[itemStart[i] .. itemStart[i + 1]).
+    final int[] itemStart;
+    final int[] itemUsers;
+    final float[] itemStars;
+
+    private RatingMatrix(int[] userIds, int[] mediaIds, int[] userStart, int[] userItems, float[] userStars,
+                         int[] itemStart, int[] itemUsers, float[] itemStars) {
+        this.userIds = userIds;
+        this.mediaIds = mediaIds;
+        this.userStart = userStart;
+        this.userItems = userItems;
+        this.userStars = userStars;
+        this.itemStart = itemStart;
+        this.itemUsers = itemUsers;
+        this.itemStars = itemStars;
+    }
+
+    public int getUserCount() {
+        return userIds.length;
+    }
+
+    public int getItemCount() {
+        return mediaIds.length;
+    }
+
+    public int getRatingCount() {
+        return userItems.length;
+    }
+
+    // Sammelt Ratings (z. B. aus RatingRepository.streamStars) in wachsenden Arrays.
+    public static class Collector implements RatingRepository.StarsSink {
+        private int[] users = new int[1024];
+        private int[] media = new int[1024];
+        private byte[] stars = new byte[1024];
+        private int size;
+
+        @Override
+        public void accept(int userId, int mediaId, int rating) {
+            if (size == users.length) {
+                int capacity = size * 2;
+                users = Arrays.copyOf(users, capacity);
+                media = Arrays.copyOf(media, capacity);
+                stars = Arrays.copyOf(stars, capacity);
+            }
+            users[size] = userId;
+            media[size] = mediaId;
+            stars[size] = (byte) rating;
+            size++;
+        }
+
+        public RatingMatrix build() {
+            int[] userIds = distinct(users, size);
+            int[] mediaIds = distinct(media, size);
+            int[] userOf = new int[size];
+            int[] itemOf = new int[size];
+            for (int r = 0; r < size; r++) {
+                userOf[r] = Arrays.binarySearch(userIds, users[r]);
+                itemOf[r] = Arrays.binarySearch(mediaIds, media[r]);
+            }
+
+            int[] userStart = prefix(userOf, size, userIds.length);
+            int[] itemStart = prefix(itemOf, size, mediaIds.length);
+            int[] userItems = new int[size];
+            float[] userStars = new float[size];
+            int[] itemUsers = new int[size];
+            float[] itemStars = new float[size];
+            int[] userFill = Arrays.copyOf(userStart, userIds.length);
+            int[] itemFill = Arrays.copyOf(itemStart, mediaIds.length);
+            for (int r = 0; r < size; r++) {
+                int u = userFill[userOf[r]]++;
+                userItems[u] = itemOf[r];
+                userStars[u] = stars[r];
+                int i = itemFill[itemOf[r]]++;
+                itemUsers[i] = userOf[r];
+                itemStars[i] = stars[r];
+            }
+            return new RatingMatrix(userIds, mediaIds, userStart, userItems, userStars,
+                    itemStart, itemUsers, itemStars);
+        }
+
+        // Sortierte, eindeutige Werte der ersten count Eintraege.
+        private static int[] distinct(int[] values, int count) {
+            int[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, unique);
+        }
+
+        // Startposition jedes Schluessels im CSR-Array (Laenge keys + 1).
+        private static int[] prefix(int[] keyOf, int count, int keys) {
+            int[] start = new int[keys + 1];
+            for (int r = 0; r < count; r++) {
+                start[keyOf[r] + 1]++;
+            }
+            for (int k = 0; k < keys; k++) {
+                start[k + 1] += start[k];
+            }
+            return start;
+        }
+    }
+}
@@ -1,103 +1,157 @@
 package org.example.service;
 
+import org.example.domain.LeaderboardEntry;
 import org.example.domain.Rating;
+import org.example.persistence.OwnedWrite;
+import org.example.persistence.PageCursor;
+import org.example.persistence.PageRequest;
 import org.example.persistence.RatingRepository;
+import org.example.persistence.RatingWrite;
+import org.example.persistence.RowSink;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 
 // Business-Logik für Ratings.
 public class RatingService {
+    // Ueberlappung fuer inkrementelle Exporte: updatedat ist der Start der Transaktion, eine spaeter committete
+    // Zeile kann also aelter sein als das letzte Wasserzeichen. So weit wird updatedSince zurueckgesetzt.
+    public static final long EXPORT_OVERLAP_SECONDS = Long.getLong("mrp.export.overlapSeconds", 60L);
+
     private final RatingRepository ratingRepository;
+    // Leaderboard im Speicher; null = jede Anfrage per SQL.
+    private final Leaderboard leaderboard;
+    // Optional: Ratings aendern Score-Filter/-Sortierung der Suche -> Version erhoehen.
+    private final CatalogVersion catalogVersion;
+    // Optional: Likes gesammelt im Hintergrund schreiben; null = jeder Like sofort per SQL.
+    private final LikeBuffer likeBuffer;
+
+    // Ergebnis von likeRating.
+    public enum LikeResult {
+        // Sofort gespeichert (ohne LikeBuffer).
+        SAVED,
+        // Angenommen, wird mit dem naechsten Batch geschrieben.
+        QUEUED,
+        // Queue voll: nicht angenommen, spaeter erneut versuchen.
+        REJECTED
+    }
 
     public RatingService(RatingRepository ratingRepository) {
+        this(ratingRepository, null, null, null);
+    }
+
+    // Alle optionalen Bausteine (null = nicht genutzt, siehe Felder).
+    public RatingService(RatingRepository ratingRepository, Leaderboard leaderboard, CatalogVersion catalogVersion,
+                         LikeBuffer likeBuffer) {
         this.ratingRepository = ratingRepository;
+        this.leaderboard = leaderboard;
+        this.catalogVersion = catalogVersion;
+        this.likeBuffer = likeBuffer;
     }
 
     // Rating erstellen (ein Rating pro User/Medium).
     public Rating createRating(int mediaId, int userId, int stars, String comment) throws Exception {
-        validateStars(stars);
-
-        Rating existing = ratingRepository.findByMediaAndUser(mediaId, userId);
-        if (existing != null) {
+        RatingWrite result = rateMedia(mediaId, userId, stars, comment, false);
+        if (result.status() == RatingWrite.Status.CONFLICT) {
             throw new Exception("Es existiert bereits ein Rating für dieses Medium");
         }
+        return result.rating();
+    }
+
+    // Rating anlegen oder (upsert = true) ein bestehendes ueberschreiben; eine Anweisung, kein Lesen vorher.
+    // Ohne upsert liefert ein vorhandenes Rating CONFLICT (auch bei gleichzeitigen Doppel-Submits).
+    public RatingWrite rateMedia(int mediaId, int userId, int stars, String comment, boolean upsert) throws Exception {
+        validateStars(stars);
 
         Rating rating = new Rating();
         rating.setMediaId(mediaId);
         rating.setUserId(userId);
         rating.setStars(stars);
         rating.setComment(comment);
-        rating.setCommentConfirmed(false);
 
+        RatingWrite result;
         try {
-            return ratingRepository.save(rating);
+            result = ratingRepository.insert(rating, upsert);
         } catch (SQLException e) {
             throw new Exception("Fehler beim Speichern des Ratings");
         }
+        if (result.status() == RatingWrite.Status.CREATED) {
+            if (leaderboard != null) {
+                leaderboard.ratingAdded(userId);
+            }
+            if (likeBuffer != null) {
+                likeBuffer.ratingAdded(result.rating().getId(), 0);
+            }
+        }
+        if (result.status() != RatingWrite.Status.CONFLICT) {
+            catalogChanged();
+        }
+        return result;
     }
 
     // Rating aktualisieren (nur Owner).
     public Rating updateRating(int ratingId, int userId, int stars, String comment) throws Exception {
         validateStars(stars);
 
-        Rating existing = ratingRepository.findById(ratingId);
-        if (existing == null) {
-            throw new Exception("Rating nicht gefunden");
-        }
-        if (existing.getUserId() != userId) {
-            throw new Exception("Nur der Ersteller darf das Rating ändern");
-        }
-
-        existing.setStars(stars);
-        existing.setComment(comment);
-        existing.setCommentConfirmed(false);
-
+        // Besitzer-Pruefung und Update in einer Anweisung (kein findById vorher)
+        OwnedWrite<Rating> result;
         try {
-            return ratingRepository.update(existing);
+            result = ratingRepository.update(ratingId, userId, stars, comment);
         } catch (SQLException e) {
             throw new Exception("Fehler beim Aktualisieren des Ratings");
         }
+        Rating updated = requireOwned(result, "Nur der Ersteller darf das Rating ändern");
+        catalogChanged();
+        return updated;
     }
 
     // Rating löschen (nur Owner).
     public void deleteRating(int ratingId, int userId) throws Exception {
-        Rating existing = ratingRepository.findById(ratingId);
-        if (existing == null) {
-            throw new Exception("Rating nicht gefunden");
-        }
-        if (existing.getUserId() != userId) {
-            throw new Exception("Nur der Ersteller darf das Rating löschen");
-        }
-
+        OwnedWrite<Rating> result;
         try {
-            boolean deleted = ratingRepository.delete(ratingId);
-            if (!deleted) {
-                throw new Exception("Fehler beim Löschen");
-            }
+            result = ratingRepository.delete(ratingId, userId);
         } catch (SQLException e) {
             throw new Exception("Fehler beim Löschen");
         }
+        Rating deleted = requireOwned(result, "Nur der Ersteller darf das Rating löschen");
+        if (leaderboard != null) {
+            leaderboard.ratingRemoved(deleted.getUserId());
+        }
+        if (likeBuffer != null) {
+            likeBuffer.ratingRemoved(ratingId);
+        }
+        catalogChanged();
     }
 
     // Kommentar bestätigen (nur Owner).
     public void confirmComment(int ratingId, int userId) throws Exception {
-        Rating existing = ratingRepository.findById(ratingId);
-        if (existing == null) {
-            throw new Exception("Rating nicht gefunden");
-        }
-        if (existing.getUserId() != userId) {
-            throw new Exception("Nur der Ersteller darf den Kommentar bestätigen");
-        }
-
+        OwnedWrite<Rating> result;
         try {
-            ratingRepository.confirmComment(ratingId);
+            result = ratingRepository.confirmComment(ratingId, userId);
         } catch (SQLException e) {
             throw new Exception("Fehler beim Bestätigen");
         }
+        requireOwned(result, "Nur der Ersteller darf den Kommentar bestätigen");
     }
 
     // Like setzen (nicht doppelt, nicht eigenes Rating).
-    public void likeRating(int ratingId, int userId) throws Exception {
+    // Mit LikeBuffer: Existenz aus dem Speicher (nur unbekannte IDs per findById); ein doppelter Like
+    // wird angenommen (202) und vom Batch verworfen, statt wie ohne LikeBuffer mit 400 abgelehnt.
+    public LikeResult likeRating(int ratingId, int userId) throws Exception {
+        if (likeBuffer != null) {
+            if (!rememberRating(ratingId)) {
+                throw new Exception("Rating nicht gefunden");
+            }
+            try {
+                return likeBuffer.offer(ratingId, userId) ? LikeResult.QUEUED : LikeResult.REJECTED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return LikeResult.REJECTED;
+            }
+        }
         Rating existing = ratingRepository.findById(ratingId);
         if (existing == null) {
             throw new Exception("Rating nicht gefunden");
@@ -107,6 +161,37 @@ public class RatingService {
         } catch (SQLException e) {
             throw new Exception("Like bereits gesetzt oder Fehler");
         }
+        return LikeResult.SAVED;
+    }
+
+    // Anzahl Likes eines Ratings (mit LikeBuffer aus dem Speicher); null = Rating nicht gefunden.
+    public Integer countLikes(int ratingId) throws Exception {
+        if (likeBuffer != null) {
+            return rememberRating(ratingId) ? likeBuffer.count(ratingId) : null;
+        }
+        try {
+            return ratingRepository.countLikes(ratingId);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Zählen der Likes");
+        }
+    }
+
+    // Rating im LikeBuffer bekannt? Unbekannte IDs (z. B. auf einer anderen Instanz angelegt) einmal nachschlagen.
+    private boolean rememberRating(int ratingId) throws Exception {
+        if (likeBuffer.isKnown(ratingId)) {
+            return true;
+        }
+        Rating rating;
+        try {
+            rating = ratingRepository.findById(ratingId);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden des Ratings");
+        }
+        if (rating == null) {
+            return false;
+        }
+        likeBuffer.ratingAdded(ratingId, rating.getLikeCount());
+        return true;
     }
 
     // Ratings eines Users laden (History).
@@ -118,8 +203,38 @@ public class RatingService {
         }
     }
 
+    // Eine Seite der Ratings eines Users streamen; liefert den Cursor der nächsten Seite.
+    public String streamRatingsByUser(int userId, PageRequest page, RowSink<? super Rating> sink) throws Exception {
+        try {
+            return ratingRepository.streamByUserPage(userId, page, sink);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden der Ratings");
+        }
+    }
+
+    // Eine Seite der bestaetigten Kommentare eines Mediums streamen (meiste Likes zuerst).
+    public String streamTopComments(int mediaId, PageRequest page, RowSink<? super Rating> sink) throws Exception {
+        try {
+            return ratingRepository.streamTopComments(mediaId, page, sink);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden der Kommentare");
+        }
+    }
+
+    // Alle Ratings (optional nur ab updatedSince geaendert, optional mit Medium) streamen; liefert die Anzahl Zeilen.
+    // Mit updatedSince kommen auch die Zeilen der letzten EXPORT_OVERLAP_SECONDS davor (Duplikate per id zusammenfuehren).
+    public int exportRatings(LocalDateTime updatedSince, boolean withMedia, RowSink<Object[]> sink) throws Exception {
+        Timestamp watermark = updatedSince == null ? null
+                : Timestamp.valueOf(updatedSince.minusSeconds(EXPORT_OVERLAP_SECONDS));
+        try {
+            return ratingRepository.streamExport(watermark, withMedia, sink);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Export der Ratings");
+        }
+    }
+
     // Leaderboard laden.
-    public java.util.List<org.example.domain.LeaderboardEntry> getLeaderboard() throws Exception {
+    public List<LeaderboardEntry> getLeaderboard() throws Exception {
         try {
             return ratingRepository.getLeaderboard();
         } catch (SQLException e) {
@@ -127,10 +242,79 @@ public class RatingService {
         }
     }
 
+    // Eine Seite des Leaderboards streamen; liefert den Cursor der nächsten Seite.
+    public String streamLeaderboard(PageRequest page, RowSink<? super LeaderboardEntry> sink) throws Exception {
+        if (leaderboard != null) {
+            return streamFromMemory(page, sink);
+        }
+        try {
+            return ratingRepository.streamLeaderboardPage(page, sink);
+        } catch (SQLException e) {
+            throw new Exception("Fehler beim Laden des Leaderboards");
+        }
+    }
+
+    // Seite aus dem Leaderboard im Speicher; gleicher Cursor wie die SQL-Variante (Anzahl + User-ID).
+    private String streamFromMemory(PageRequest page, RowSink<? super LeaderboardEntry> sink) throws IOException {
+        PageCursor after = page.getAfter();
+        List<LeaderboardEntry> entries;
+        if (after == null) {
+            entries = leaderboard.range(0, page.getLimit() + 1);
+        } else {
+            int count;
+            try {
+                count = Integer.parseInt(after.getKey());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Ungueltiger Cursor");
+            }
+            entries = leaderboard.after(count, after.getId(), page.getLimit() + 1);
+        }
+
+        int rows = Math.min(entries.size(), page.getLimit());
+        for (int i = 0; i < rows; i++) {
+            sink.accept(entries.get(i));
+        }
+        if (entries.size() <= page.getLimit()) {
+            return null;
+        }
+        LeaderboardEntry last = entries.get(rows - 1);
+        return new PageCursor(RatingRepository.LEADERBOARD_SORT, String.valueOf(last.getRatingCount()),
+                last.getUserId()).encode();
+    }
+
+    // Platz eines Users mit Nachbarn davor/danach.
+    public List<LeaderboardEntry> getLeaderboardAround(int userId, int neighbours) throws Exception {
+        if (leaderboard == null) {
+            throw new Exception("Leaderboard nicht verfügbar");
+        }
+        List<LeaderboardEntry> entries = leaderboard.around(userId, neighbours);
+        if (entries == null) {
+            throw new Exception("User nicht im Leaderboard");
+        }
+        return entries;
+    }
+
     // Hilfsregel: Sterne nur 1-5.
     private void validateStars(int stars) throws Exception {
         if (stars < 1 || stars > 5) {
             throw new Exception("Stars müssen zwischen 1 und 5 liegen");
         }
     }
+
+    // Ergebnis eines besitzer-geprueften Schreibzugriffs in die bisherigen Fehlermeldungen uebersetzen.
+    private Rating requireOwned(OwnedWrite<Rating> result, String forbiddenMessage) throws Exception {
+        if (result.status() == OwnedWrite.Status.NOT_FOUND) {
+            throw new Exception("Rating nicht gefunden");
+        }
+        if (result.status() == OwnedWrite.Status.FORBIDDEN) {
+            throw new Exception(forbiddenMessage);
+        }
+        return result.value();
+    }
+
+    private void catalogChanged() {
+        if (catalogVersion != null) {
+            catalogVersion.bump();
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package org.example.service;
+
+// Trainiertes Empfehlungsmodell (unveraenderlich; CollaborativeRecommender tauscht es als Ganzes aus).
+public interface RecommendationModel {
+
+    // Bis zu limit Medien-IDs fuer einen User, absteigend nach Score; bereits bewertete Medien fehlen.
+    // ratedMedia/ratedStars = die aktuellen Ratings des Users (Medien, die das Modell nicht kennt, zaehlen nicht).
+    int[] recommend(int[] ratedMedia, int[] ratedStars, int limit);
+
+    int getItemCount();
+
+    int getRatingCount();
+
+    // Latenter Vektor eines Mediums (Co-Rating-Signal fuer aehnliche Medien); null = Modell hat keinen.
+    default float[] itemVector(int mediaId) {
+        return null;
+    }
+}
@@ -2,35 +2,156 @@ package org.example.service;
 
 import org.example.domain.MediaEntry;
 import org.example.persistence.MediaRepository;
+import org.example.persistence.PageRequest;
 import org.example.persistence.RatingRepository;
 
+import java.util.Arrays;
 import java.util.List;
 
 // Business-Logik für Empfehlungen.
 public class RecommendationService {
+    // Empfehlungen pro Seite ohne limit-Parameter; hoechstens PageRequest.MAX_SIZE.
+    public static final int DEFAULT_LIMIT = 20;
+    // Hoechster offset: der Heap fuer die Auswahl bleibt so unabhaengig von der Kandidatenzahl begrenzt.
+    public static final int MAX_OFFSET = 1000;
+
+    // Gewichte des Scores (Genre-Ueberdeckung, Durchschnitt, Beliebtheit); Summe 1.
+    static final float GENRE_WEIGHT = 0.6f;
+    static final float AVERAGE_WEIGHT = 0.25f;
+    static final float POPULARITY_WEIGHT = 0.15f;
+    // Bei so vielen Ratings zaehlt die Beliebtheit halb (saettigt statt mit der Anzahl zu wachsen).
+    static final int POPULARITY_HALF = 10;
+
     private final MediaRepository mediaRepository;
     private final RatingRepository ratingRepository;
+    // Item-Item-Modell (null = type=collaborative faellt auf Genre-Empfehlungen zurueck).
+    private final CollaborativeRecommender collaborative;
+    // ALS-Modell (null = type=als faellt auf Genre-Empfehlungen zurueck).
+    private final CollaborativeRecommender als;
+    // Genre-Bitmasken im Speicher fuer genre/content (null oder noch nicht geladen = Kandidaten per SQL).
+    private final ContentIndex contentIndex;
 
     public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository) {
+        this(mediaRepository, ratingRepository, null, null, null);
+    }
+
+    // Alle optionalen Bausteine (null = nicht genutzt, siehe Felder).
+    public RecommendationService(MediaRepository mediaRepository, RatingRepository ratingRepository,
+                                 CollaborativeRecommender collaborative, CollaborativeRecommender als,
+                                 ContentIndex contentIndex) {
         this.mediaRepository = mediaRepository;
         this.ratingRepository = ratingRepository;
+        this.collaborative = collaborative;
+        this.als = als;
+        this.contentIndex = contentIndex;
     }
 
-    // Empfehlungen basierend auf Genres (hoch bewertete Medien).
+    // Empfehlungen basierend auf Genres (erste Seite).
     public List<MediaEntry> recommendByGenre(int userId) throws Exception {
+        return recommendByGenre(userId, 0, DEFAULT_LIMIT);
+    }
+
+    public List<MediaEntry> recommendByGenre(int userId, int offset, int limit) throws Exception {
+        return recommendByGenre(userId, null, offset, limit);
+    }
+
+    // Nicht bewertete Medien mit Lieblingsgenres des Users (optional nur mit Genre genre), beste zuerst
+    // (Score siehe score()).
+    public List<MediaEntry> recommendByGenre(int userId, String genre, int offset, int limit) throws Exception {
+        return recommendByFeatures(userId, genre, false, offset, limit, "Fehler bei Genre-Empfehlungen");
+    }
+
+    // Empfehlungen basierend auf Content-Ähnlichkeit (erste Seite).
+    public List<MediaEntry> recommendByContent(int userId) throws Exception {
+        return recommendByContent(userId, 0, DEFAULT_LIMIT);
+    }
+
+    public List<MediaEntry> recommendByContent(int userId, int offset, int limit) throws Exception {
+        return recommendByContent(userId, null, offset, limit);
+    }
+
+    // Wie Genre-Empfehlungen, aber nur MediaType/Altersfreigabe-Kombinationen gut bewerteter Medien.
+    public List<MediaEntry> recommendByContent(int userId, String genre, int offset, int limit) throws Exception {
+        return recommendByFeatures(userId, genre, true, offset, limit, "Fehler bei Content-Empfehlungen");
+    }
+
+    // Kandidaten aus dem Content-Index (Bitmasken) oder per SQL bewerten und die besten offset + limit behalten.
+    private List<MediaEntry> recommendByFeatures(int userId, String genre, boolean sameContent, int offset, int limit,
+                                                 String error) throws Exception {
+        checkPage(offset, limit);
         try {
-            return mediaRepository.recommendByGenre(userId);
+            TopK top = new TopK(offset + limit);
+            MediaRepository.CandidateSink sink = (mediaId, matched, liked, average, ratings) ->
+                    top.offer(mediaId, score(matched, liked, average, ratings));
+            if (contentIndex != null && contentIndex.isReady()) {
+                contentIndex.streamCandidates(ratingRepository.findByUser(userId), sameContent, genre, sink);
+            } else if (sameContent) {
+                mediaRepository.streamContentCandidates(userId, genre, sink);
+            } else {
+                mediaRepository.streamGenreCandidates(userId, genre, sink);
+            }
+            return loadPage(top.drainIds(), offset);
         } catch (Exception e) {
-            throw new Exception("Fehler bei Genre-Empfehlungen");
+            throw new Exception(error);
         }
     }
 
-    // Empfehlungen basierend auf Content-Ähnlichkeit.
-    public List<MediaEntry> recommendByContent(int userId) throws Exception {
+    // Empfehlungen aus Item-Item-Aehnlichkeiten (User mit aehnlichem Geschmack), beste zuerst.
+    public List<MediaEntry> recommendCollaborative(int userId) throws Exception {
+        return recommendCollaborative(userId, 0, DEFAULT_LIMIT);
+    }
+
+    public List<MediaEntry> recommendCollaborative(int userId, int offset, int limit) throws Exception {
+        return recommendFromModel(collaborative, userId, offset, limit, "Fehler bei Collaborative-Empfehlungen");
+    }
+
+    // Empfehlungen aus dem ALS-Modell (latente Faktoren), beste zuerst.
+    public List<MediaEntry> recommendAls(int userId) throws Exception {
+        return recommendAls(userId, 0, DEFAULT_LIMIT);
+    }
+
+    public List<MediaEntry> recommendAls(int userId, int offset, int limit) throws Exception {
+        return recommendFromModel(als, userId, offset, limit, "Fehler bei ALS-Empfehlungen");
+    }
+
+    // Solange noch kein Modell trainiert ist oder es fuer den User nichts weiss: Genre-Empfehlungen.
+    private List<MediaEntry> recommendFromModel(CollaborativeRecommender recommender, int userId, int offset,
+                                                int limit, String error) throws Exception {
+        checkPage(offset, limit);
         try {
-            return mediaRepository.recommendByContent(userId);
+            int[] mediaIds = recommender != null ? recommender.recommend(userId, offset + limit) : null;
+            if (mediaIds != null && mediaIds.length > 0) {
+                return loadPage(mediaIds, offset);
+            }
         } catch (Exception e) {
-            throw new Exception("Fehler bei Content-Empfehlungen");
+            throw new Exception(error);
+        }
+        return recommendByGenre(userId, offset, limit);
+    }
+
+    // Score in [0, 1]: Anteil der Lieblingsgenres, die das Medium abdeckt, Durchschnitt (in Sternen / 5)
+    // und Beliebtheit (Anzahl Ratings, saettigend).
+    static float score(int matchedGenres, int likedGenres, double averageScore, int ratingCount) {
+        float genre = likedGenres > 0 ? (float) matchedGenres / likedGenres : 0f;
+        float average = (float) (averageScore / 5.0);
+        float popularity = ratingCount / (ratingCount + (float) POPULARITY_HALF);
+        return GENRE_WEIGHT * genre + AVERAGE_WEIGHT * average + POPULARITY_WEIGHT * popularity;
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (limit < 1 || limit > PageRequest.MAX_SIZE) {
+            throw new IllegalArgumentException("limit muss zwischen 1 und " + PageRequest.MAX_SIZE + " liegen");
+        }
+        if (offset < 0 || offset > MAX_OFFSET) {
+            throw new IllegalArgumentException("offset muss zwischen 0 und " + MAX_OFFSET + " liegen");
+        }
+    }
+
+    // Nur die Medien der Seite laden (ein Round-Trip, Reihenfolge wie rankedIds).
+    private List<MediaEntry> loadPage(int[] rankedIds, int offset) throws Exception {
+        if (offset >= rankedIds.length) {
+            return List.of();
         }
+        return mediaRepository.findByIds(Arrays.copyOfRange(rankedIds, offset, rankedIds.length));
     }
 }
@@ -0,0 +1,167 @@
+package org.example.service;
+
+import org.example.cache.BoundedCache;
+import org.example.domain.MediaEntry;
+import org.example.persistence.MediaRepository;
+import org.example.persistence.PageRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache fuer Suchergebnisse (GET /api/media), Schluessel = normalisierte Suchparameter.
+// Jeder Eintrag merkt sich die CatalogVersion beim Laden; nach einem Schreibzugriff wird neu geladen
+// oder (stale-while-revalidate) noch einmal der alte Stand ausgeliefert und im Hintergrund aktualisiert.
+public class SearchCache {
+
+    // Laedt ein Suchergebnis aus der DB.
+    @FunctionalInterface
+    public interface Loader {
+        Result load() throws Exception;
+    }
+
+    // Gecachtes Ergebnis: eine Seite (oder die ganze Liste) + Cursor der naechsten Seite.
+    public record Result(List<MediaEntry> items, String nextCursor) {
+    }
+
+    // Normalisierte Suchparameter (Gross/Kleinschreibung und leere Filter spielen keine Rolle).
+    public record Key(String title, String genre, String mediaType, Integer releaseYear, Integer ageRestriction,
+                      Double rating, String sort, int limit, String after) {
+    }
+
+    private final BoundedCache<Key, Entry> cache;
+    private final CatalogVersion version;
+    private final boolean staleWhileRevalidate;
+    // Groessere Ergebnisse (ungeblaetterte Listen) werden nicht gehalten -> Speicher bleibt begrenzt.
+    private final int maxItemsPerEntry;
+    private final Executor refreshExecutor;
+    // Keys, fuer die gerade eine Hintergrund-Aktualisierung laeuft (hoechstens eine pro Key).
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong staleReloads = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong oversized = new AtomicLong();
+
+    public SearchCache(CatalogVersion version, int maxEntries, long ttlMillis, boolean staleWhileRevalidate,
+                       int maxItemsPerEntry) {
+        this(version, new BoundedCache<>("search", maxEntries, ttlMillis), staleWhileRevalidate, maxItemsPerEntry,
+                runnable -> Thread.ofVirtual().name("mrp-search-refresh").start(runnable));
+    }
+
+    public SearchCache(CatalogVersion version, BoundedCache<Key, Entry> cache, boolean staleWhileRevalidate,
+                       int maxItemsPerEntry, Executor refreshExecutor) {
+        this.version = version;
+        this.cache = cache;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxItemsPerEntry = maxItemsPerEntry;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static SearchCache fromSystemProperties(CatalogVersion version) {
+        return new SearchCache(version,
+                Integer.getInteger("mrp.searchCache.maxEntries", 1000),
+                Long.getLong("mrp.searchCache.ttlMillis", 30 * 1000L),
+                Boolean.parseBoolean(System.getProperty("mrp.searchCache.staleWhileRevalidate", "false")),
+                PageRequest.MAX_SIZE);
+    }
+
+    // Schluessel fuer eine Seite; page == null -> ganze Liste (MediaService.search).
+    public static Key key(String title, String genre, String mediaType, Integer releaseYear, Integer ageRestriction,
+                          Double rating, String sortBy, PageRequest page) {
+        return new Key(lower(title), lower(genre), lower(mediaType), releaseYear, ageRestriction, rating,
+                MediaRepository.sortKey(sortBy),
+                page == null ? -1 : page.getLimit(),
+                page == null || page.getAfter() == null ? null : page.getAfter().encode());
+    }
+
+    // Gleiche Normalisierung wie in der SQL-Suche (LOWER(...), leere Filter werden ignoriert).
+    private static String lower(String value) {
+        return value == null || value.isBlank() ? null : value.toLowerCase();
+    }
+
+    public Result get(Key key, Loader loader) throws Exception {
+        Entry entry = load(key, loader);
+        if (entry.version != version.current()) {
+            if (staleWhileRevalidate) {
+                staleServed.incrementAndGet();
+                refresh(key, loader);
+                return entry.result;
+            }
+            staleReloads.incrementAndGet();
+            cache.invalidate(key);
+            entry = load(key, loader);
+        }
+        if (entry.result.items().size() > maxItemsPerEntry) {
+            oversized.incrementAndGet();
+            cache.invalidate(key);
+        }
+        return entry.result;
+    }
+
+    // Gleichzeitige Misses fuer dieselbe Suche laden nur einmal (BoundedCache.getOrLoad).
+    private Entry load(Key key, Loader loader) throws Exception {
+        try {
+            return cache.getOrLoad(key, k -> {
+                // Version vor der Abfrage merken: Schreibzugriffe waehrenddessen machen den Eintrag veraltet.
+                long loadedVersion = version.current();
+                try {
+                    return new Entry(loader.load(), loadedVersion);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new LoadException(e);
+                }
+            });
+        } catch (LoadException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private void refresh(Key key, Loader loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                long loadedVersion = version.current();
+                cache.put(key, new Entry(loader.load(), loadedVersion));
+            } catch (Exception e) {
+                refreshFailures.incrementAndGet();
+                System.out.println("Fehler beim Aktualisieren des Such-Caches: " + e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", cache.getStats());
+        stats.put("catalogVersion", version.current());
+        stats.put("staleReloads", staleReloads.get());
+        stats.put("staleServed", staleServed.get());
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("oversized", oversized.get());
+        return stats;
+    }
+
+    // Cache-Wert: Ergebnis + CatalogVersion beim Laden.
+    public record Entry(Result result, long version) {
+    }
+
+    // Transportiert geprueften Fehler des Loaders durch getOrLoad.
+    private static final class LoadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private LoadException(Exception cause) {
+            super(cause);
+        }
+    }
+}
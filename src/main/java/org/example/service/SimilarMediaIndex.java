@@ -0,0 +1,308 @@
+package org.example.service;
+
+import org.example.domain.MediaEntry;
+import org.example.persistence.MediaRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Aehnliche Medien (GET /api/media/{id}/similar) ueber einen HNSW-Index im Speicher.
+// Vektor pro Medium: Genres (gehasht), MediaType, Altersfreigabe und - sobald trainiert - die ALS-Faktoren
+// des Mediums als Co-Rating-Signal. create/update/delete aendern den Index sofort; ein Neuaufbau aus der DB
+// raeumt Grabsteine weg und uebernimmt ein neu trainiertes Modell.
+public class SimilarMediaIndex implements AutoCloseable {
+
+    // Genres werden auf so viele Dimensionen gehasht (Kollisionen machen zwei Genres nur etwas aehnlicher).
+    static final int GENRE_DIMENSIONS = 32;
+    static final String[] MEDIA_TYPES = {"MOVIE", "SERIES", "GAME"};
+    // Altersgruppen: unter 6, 6-11, 12-15, 16-17, ab 18.
+    static final int[] AGE_LIMITS = {6, 12, 16, 18};
+    static final int CONTENT_DIMENSIONS = GENRE_DIMENSIONS + MEDIA_TYPES.length + AGE_LIMITS.length + 1;
+
+    // Gewicht der (einzeln normierten) Bloecke im Gesamtvektor.
+    private static final float GENRE_WEIGHT = 1.0f;
+    private static final float TYPE_WEIGHT = 0.5f;
+    private static final float AGE_WEIGHT = 0.3f;
+    private static final float CO_RATING_WEIGHT = 1.0f;
+
+    // So oft pruefen, ob ein Neuaufbau faellig ist (neues Modell, zu viele Grabsteine, rebuildMillis um).
+    private static final long CHECK_MILLIS = 60_000L;
+    private static final long SEED = 42L;
+
+    // Ein fertiger Index mit dem Modell, aus dem seine Co-Rating-Werte stammen.
+    private record State(HnswIndex index, RecommendationModel coRatings, int coRatingDimensions) {
+    }
+
+    // Aenderung waehrend eines Neuaufbaus (media == null: geloescht).
+    private record Change(int mediaId, MediaEntry media) {
+    }
+
+    private final MediaRepository mediaRepository;
+    // Optional: liefert das aktuelle ALS-Modell (null = nur Inhaltsmerkmale).
+    private final Supplier<RecommendationModel> coRatings;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final long rebuildMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile State state;
+    // Aenderungen seit Beginn des laufenden Neuaufbaus (null = kein Neuaufbau); geschuetzt durch this.
+    private List<Change> pending;
+
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildFailures = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private volatile long lastBuildMillis;
+    private volatile long lastBuiltAt;
+
+    // rebuildMillis <= 0: kein Hintergrund-Thread, nur rebuild() (Tests).
+    public SimilarMediaIndex(MediaRepository mediaRepository, Supplier<RecommendationModel> coRatings, int m,
+                             int efConstruction, int efSearch, long rebuildMillis) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("Ungueltiger Similar-Index: m=" + m + ", efConstruction="
+                    + efConstruction + ", efSearch=" + efSearch);
+        }
+        this.mediaRepository = mediaRepository;
+        this.coRatings = coRatings;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.rebuildMillis = rebuildMillis;
+        if (rebuildMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mrp-similar-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    // Ersten Aufbau sofort starten, danach regelmaessig pruefen (ohne Hintergrund-Thread wirkungslos).
+    // Nicht im Konstruktor: der Thread saehe sonst ein halb gebautes Objekt.
+    public void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::rebuildIfDue, 0, Math.min(CHECK_MILLIS, rebuildMillis),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static SimilarMediaIndex fromSystemProperties(MediaRepository mediaRepository,
+                                                         Supplier<RecommendationModel> coRatings) {
+        SimilarMediaIndex index = new SimilarMediaIndex(mediaRepository, coRatings,
+                Integer.getInteger("mrp.similar.m", 16),
+                Integer.getInteger("mrp.similar.efConstruction", 100),
+                Integer.getInteger("mrp.similar.efSearch", 64),
+                Long.getLong("mrp.similar.rebuildMillis", 3_600_000L));
+        index.start();
+        return index;
+    }
+
+    // Index aus allen Medien neu aufbauen und austauschen; Aenderungen waehrenddessen werden nachgezogen.
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        try {
+            RecommendationModel model = coRatings != null ? coRatings.get() : null;
+            List<MediaEntry> all = mediaRepository.findAll();
+            State current = state;
+            if (all.isEmpty() && current != null && current.index().size() > 0) {
+                // findAll meldet DB-Fehler nur als leere Liste: alten Index behalten.
+                throw new IllegalStateException("Keine Medien geladen");
+            }
+            int coRatingDimensions = coRatingDimensions(all, model);
+            HnswIndex index = new HnswIndex(CONTENT_DIMENSIONS + coRatingDimensions, m, efConstruction, SEED);
+            State built = new State(index, model, coRatingDimensions);
+            for (MediaEntry media : all) {
+                index.add(media.getId(), vector(media, model, coRatingDimensions));
+            }
+            synchronized (this) {
+                for (Change change : pending) {
+                    apply(built, change);
+                }
+                state = built;
+            }
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+        lastBuildMillis = System.currentTimeMillis() - start;
+        lastBuiltAt = System.currentTimeMillis();
+        builds.incrementAndGet();
+    }
+
+    // Neuaufbau im Hintergrund anstossen (z. B. nach einem Bulk-Import).
+    public void rebuildSoon() {
+        if (scheduler != null) {
+            scheduler.execute(this::rebuildQuietly);
+        }
+    }
+
+    private void rebuildIfDue() {
+        State current = state;
+        boolean due = current == null
+                || (coRatings != null && coRatings.get() != current.coRatings())
+                || current.index().getTombstones() > current.index().size() / 4
+                || System.currentTimeMillis() - lastBuiltAt >= rebuildMillis;
+        if (due) {
+            rebuildQuietly();
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Alten Index weiter benutzen, naechster Versuch beim naechsten Check.
+            buildFailures.incrementAndGet();
+            System.out.println("Fehler beim Aufbau des Similar-Index: " + e.getMessage());
+        }
+    }
+
+    // Neues oder geaendertes Medium (ersetzt den alten Vektor).
+    public synchronized void mediaSaved(MediaEntry media) {
+        record(new Change(media.getId(), new MediaEntry(media)));
+    }
+
+    public synchronized void mediaRemoved(int mediaId) {
+        record(new Change(mediaId, null));
+    }
+
+    private void record(Change change) {
+        State current = state;
+        if (current != null) {
+            apply(current, change);
+        }
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    private static void apply(State target, Change change) {
+        if (change.media() == null) {
+            target.index().remove(change.mediaId());
+        } else {
+            target.index().add(change.mediaId(),
+                    vector(change.media(), target.coRatings(), target.coRatingDimensions()));
+        }
+    }
+
+    // Bis zu limit aehnliche Medien-IDs (aehnlichste zuerst, ohne das Medium selbst); null = Index noch nicht gebaut.
+    public int[] similar(MediaEntry media, int limit) {
+        State current = state;
+        if (current == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        float[] query = current.index().vectorOf(media.getId());
+        if (query == null) {
+            query = vector(media, current.coRatings(), current.coRatingDimensions());
+        }
+        int[] ids = current.index().search(query, limit, Math.max(efSearch, limit), media.getId());
+        searchNanos.addAndGet(System.nanoTime() - start);
+        searches.incrementAndGet();
+        return ids;
+    }
+
+    // Laenge der Modell-Vektoren (0 = Modell fehlt oder kennt keines der Medien).
+    private static int coRatingDimensions(List<MediaEntry> all, RecommendationModel model) {
+        if (model == null) {
+            return 0;
+        }
+        for (MediaEntry media : all) {
+            float[] factors = model.itemVector(media.getId());
+            if (factors != null) {
+                return factors.length;
+            }
+        }
+        return 0;
+    }
+
+    // Merkmalsvektor eines Mediums; jeder Block wird fuer sich normiert und dann gewichtet.
+    static float[] vector(MediaEntry media, RecommendationModel model, int coRatingDimensions) {
+        float[] vector = new float[CONTENT_DIMENSIONS + coRatingDimensions];
+        if (media.getGenres() != null) {
+            for (String genre : media.getGenres()) {
+                if (genre != null && !genre.isBlank()) {
+                    vector[Math.floorMod(genre.trim().toLowerCase(Locale.ROOT).hashCode(), GENRE_DIMENSIONS)] = 1f;
+                }
+            }
+        }
+        scaleBlock(vector, 0, GENRE_DIMENSIONS, GENRE_WEIGHT);
+
+        int offset = GENRE_DIMENSIONS;
+        for (int t = 0; t < MEDIA_TYPES.length; t++) {
+            if (MEDIA_TYPES[t].equalsIgnoreCase(media.getMediaType())) {
+                vector[offset + t] = TYPE_WEIGHT;
+            }
+        }
+        offset += MEDIA_TYPES.length;
+        int ageGroup = 0;
+        while (ageGroup < AGE_LIMITS.length && media.getAgeRestriction() >= AGE_LIMITS[ageGroup]) {
+            ageGroup++;
+        }
+        vector[offset + ageGroup] = AGE_WEIGHT;
+        offset += AGE_LIMITS.length + 1;
+
+        float[] factors = model != null && coRatingDimensions > 0 ? model.itemVector(media.getId()) : null;
+        if (factors != null && factors.length == coRatingDimensions) {
+            System.arraycopy(factors, 0, vector, offset, coRatingDimensions);
+            scaleBlock(vector, offset, coRatingDimensions, CO_RATING_WEIGHT);
+        }
+        return vector;
+    }
+
+    // Block [from, from + length) auf Laenge weight bringen (leere Bloecke bleiben 0).
+    private static void scaleBlock(float[] vector, int from, int length, float weight) {
+        double squares = 0.0;
+        for (int d = from; d < from + length; d++) {
+            squares += vector[d] * vector[d];
+        }
+        if (squares > 0.0) {
+            float scale = (float) (weight / Math.sqrt(squares));
+            for (int d = from; d < from + length; d++) {
+                vector[d] *= scale;
+            }
+        }
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        State current = state;
+        long searchCount = searches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("media", current != null ? current.index().size() : 0);
+        stats.put("tombstones", current != null ? current.index().getTombstones() : 0);
+        stats.put("dimensions", current != null ? current.index().getDimension() : 0);
+        stats.put("coRatings", current != null && current.coRatingDimensions() > 0);
+        stats.put("builds", builds.get());
+        stats.put("buildFailures", buildFailures.get());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("lastBuiltAt", lastBuiltAt);
+        stats.put("searches", searchCount);
+        stats.put("avgSearchMicros", searchCount == 0 ? 0.0 : searchNanos.get() / 1000.0 / searchCount);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
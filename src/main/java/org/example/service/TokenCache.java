@@ -0,0 +1,63 @@
+package org.example.service;
+
+import org.example.cache.BoundedCache;
+import org.example.domain.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cache Token -> User fuer den AuthFilter, damit nicht jeder Request die users-Tabelle abfragt.
+// Unbekannte Tokens landen kurz in einem Negativ-Cache (schuetzt vor wiederholten Fehlversuchen).
+public class TokenCache {
+    private final BoundedCache<String, User> users;
+    private final BoundedCache<String, Boolean> unknownTokens;
+
+    public TokenCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.users = new BoundedCache<>("tokens", maxSize, ttlMillis);
+        this.unknownTokens = new BoundedCache<>("unknownTokens", maxSize, negativeTtlMillis);
+    }
+
+    // Standardwerte, ueberschreibbar per System-Property.
+    public static TokenCache fromSystemProperties() {
+        return new TokenCache(
+                Integer.getInteger("mrp.tokenCache.maxSize", 10000),
+                Long.getLong("mrp.tokenCache.ttlMillis", 5 * 60 * 1000L),
+                Long.getLong("mrp.tokenCache.negativeTtlMillis", 5000L)
+        );
+    }
+
+    public User get(String token) {
+        return users.get(token);
+    }
+
+    // true, wenn der Token vor kurzem schon unbekannt war.
+    public boolean isKnownUnknown(String token) {
+        return unknownTokens.get(token) != null;
+    }
+
+    public void put(String token, User user) {
+        unknownTokens.invalidate(token);
+        users.put(token, user);
+    }
+
+    public void putUnknown(String token) {
+        unknownTokens.put(token, Boolean.TRUE);
+    }
+
+    public void invalidate(String token) {
+        users.invalidate(token);
+    }
+
+    // Alle Eintraege eines Users entfernen (z. B. nach Profil-Update).
+    public void invalidateUser(int userId) {
+        users.invalidateIf((token, user) -> user.getId() == userId);
+    }
+
+    // Statistiken fuer /api/metrics.
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tokens", users.getStats());
+        stats.put("unknownTokens", unknownTokens.getStats());
+        return stats;
+    }
+}
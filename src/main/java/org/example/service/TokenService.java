@@ -0,0 +1,215 @@
+package org.example.service;
+
+import org.example.persistence.UserRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// Signierte Bearer-Tokens: "mrp.<payload>.<signatur>", Payload = userId:issuedAt:expiresAt:tokenId.
+// Die Signatur wird ohne Datenbank geprueft. Sperren (Logout, erzwungenes Ablaufen) sind ein Zeitpunkt pro User
+// (users.tokensnotbefore): aeltere Tokens des Users sind ungueltig. Der Wert wird pro User fuer cacheMillis
+// im Speicher gehalten, Sperren ueberleben so Neustarts und gelten nach spaetestens cacheMillis auf allen Instanzen.
+public class TokenService {
+    private static final String PREFIX = "mrp.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    // Mac ist nicht thread-safe -> eine Instanz pro Thread.
+    private final ThreadLocal<Mac> macs;
+    // Speicher der Sperren (null = nur im Speicher, fuer Tests und Benchmarks).
+    private final UserRepository users;
+    // So lange gilt ein geladener Sperr-Zeitpunkt, bevor er neu gelesen wird.
+    private final long cacheMillis;
+
+    // Tokens eines Users, die vor notBefore ausgestellt wurden, sind ungueltig (loadedAt = wann gelesen).
+    private final Map<Integer, NotBefore> notBefore = new ConcurrentHashMap<>();
+    private volatile long lastPurge;
+
+    public TokenService(byte[] secret, long ttlMillis) {
+        this(secret, ttlMillis, System::currentTimeMillis);
+    }
+
+    public TokenService(byte[] secret, long ttlMillis, LongSupplier clock) {
+        this(secret, ttlMillis, clock, null, 0);
+    }
+
+    public TokenService(byte[] secret, long ttlMillis, LongSupplier clock, UserRepository users, long cacheMillis) {
+        if (secret == null || secret.length < 32) {
+            throw new IllegalArgumentException("Token-Secret muss mindestens 32 Bytes haben");
+        }
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.users = users;
+        this.cacheMillis = cacheMillis;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.lastPurge = clock.getAsLong();
+    }
+
+    // Secret aus -Dmrp.auth.secret bzw. MRP_TOKEN_SECRET, sonst zufaellig (Tokens gelten dann nur bis zum Neustart).
+    // Sperren werden in der users-Tabelle gespeichert; ohne Repository gibt es keinen signed-Modus.
+    public static TokenService fromSystemProperties(UserRepository users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Signierte Tokens brauchen einen Speicher fuer Sperren");
+        }
+        String secret = System.getProperty("mrp.auth.secret", System.getenv("MRP_TOKEN_SECRET"));
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            System.out.println("Kein Token-Secret gesetzt, verwende zufaelliges Secret (Tokens gelten bis zum Neustart)");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        return new TokenService(bytes, Long.getLong("mrp.auth.tokenTtlMillis", 24 * 60 * 60 * 1000L),
+                System::currentTimeMillis, users, Long.getLong("mrp.auth.revocationCacheMillis", 5000L));
+    }
+
+    // Neuen Token fuer einen User ausstellen.
+    public String issue(int userId) {
+        long issuedAt = clock.getAsLong();
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+        String payload = userId + ":" + issuedAt + ":" + (issuedAt + ttlMillis) + ":" + ENCODER.encodeToString(id);
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return PREFIX + encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    // Token pruefen; null bei falscher Signatur, abgelaufen oder gesperrt.
+    public TokenClaims verify(String token) {
+        if (token == null || !token.startsWith(PREFIX)) {
+            return null;
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return null;
+        }
+        String encodedPayload = token.substring(PREFIX.length(), dot);
+
+        TokenClaims claims;
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                return null;
+            }
+            String[] parts = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 4) {
+                return null;
+            }
+            claims = new TokenClaims(Integer.parseInt(parts[0]), Long.parseLong(parts[1]),
+                    Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            // Kaputtes Base64 oder keine Zahl.
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        if (claims.expiresAt() <= now) {
+            return null;
+        }
+        if (claims.issuedAt() < notBeforeFor(claims.userId(), now)) {
+            return null;
+        }
+        if (now - lastPurge >= Math.max(cacheMillis, 1000)) {
+            purgeExpired(now);
+        }
+        return claims;
+    }
+
+    // Logout: diesen Token und alle aelteren Tokens des Users sperren (spaeter ausgestellte bleiben gueltig).
+    public void revoke(String token) {
+        TokenClaims claims = verify(token);
+        if (claims == null) {
+            return;
+        }
+        // +1: der Token selbst zaehlt auch als "vorher".
+        revokeBefore(claims.userId(), claims.issuedAt() + 1);
+    }
+
+    // Alle bisher ausgestellten Tokens eines Users sperren (erzwungenes Ablaufen).
+    public void revokeAllForUser(int userId) {
+        // +1: Tokens aus derselben Millisekunde zaehlen auch als "vorher".
+        revokeBefore(userId, clock.getAsLong() + 1);
+    }
+
+    // Anzahl der Users mit Sperr-Zeitpunkt im Speicher.
+    public int getRevokedCount() {
+        return notBefore.size();
+    }
+
+    // Sperre speichern (nie zurueckdrehen) und sofort lokal wirksam machen.
+    private void revokeBefore(int userId, long since) {
+        long now = clock.getAsLong();
+        if (users != null) {
+            try {
+                users.updateTokensNotBefore(userId, since);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Token-Sperre konnte nicht gespeichert werden", e);
+            }
+        }
+        notBefore.merge(userId, new NotBefore(since, now),
+                (old, fresh) -> old.since() >= fresh.since() ? new NotBefore(old.since(), now) : fresh);
+        purgeExpired(now);
+    }
+
+    // Sperr-Zeitpunkt eines Users (0 = keine Sperre); nach cacheMillis neu aus der DB.
+    private long notBeforeFor(int userId, long now) {
+        NotBefore cached = notBefore.get(userId);
+        if (users == null || (cached != null && now - cached.loadedAt() < cacheMillis)) {
+            return cached == null ? 0 : cached.since();
+        }
+        try {
+            long since = users.findTokensNotBefore(userId);
+            notBefore.put(userId, new NotBefore(since, now));
+            return since;
+        } catch (SQLException e) {
+            // DB nicht erreichbar: letzten bekannten Wert nehmen, ohne Wert lieber ablehnen.
+            System.out.println("Fehler beim Laden der Token-Sperre: " + e.getMessage());
+            return cached == null ? Long.MAX_VALUE : cached.since();
+        }
+    }
+
+    // Eintraege entfernen, die nichts mehr sperren (alle betroffenen Tokens abgelaufen)
+    // oder die ohnehin neu gelesen werden muessen.
+    private void purgeExpired(long now) {
+        lastPurge = now;
+        notBefore.values().removeIf(entry -> entry.since() + ttlMillis <= now
+                || (users != null && now - entry.loadedAt() >= cacheMillis));
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC nicht verfuegbar", e);
+        }
+    }
+
+    // Sperr-Zeitpunkt eines Users und wann er gelesen wurde.
+    private record NotBefore(long since, long loadedAt) {
+    }
+
+    // Inhalt eines gueltigen Tokens.
+    public record TokenClaims(int userId, long issuedAt, long expiresAt, String tokenId) {
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.service;
+
+// Die k besten (ID, Score)-Paare als Min-Heap auf primitiven Arrays (kein Boxing, O(n log k)).
+// Hoeherer Score zuerst, bei Gleichstand die kleinere ID.
+public class TopK {
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Ungueltiges k: " + k);
+        }
+        this.ids = new int[k];
+        this.scores = new float[k];
+    }
+
+    // Kandidat anbieten; verdraengt das schlechteste Paar, wenn der Heap voll ist.
+    public void offer(int id, float score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && better(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // IDs absteigend nach Score (leert den Heap).
+    public int[] drainIds() {
+        return drain(null);
+    }
+
+    // Wie drainIds; sortedScores (Laenge >= size(), oder null) bekommt die Scores in gleicher Reihenfolge.
+    public int[] drain(float[] sortedScores) {
+        int[] sorted = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = ids[0];
+            if (sortedScores != null) {
+                sortedScores[i] = scores[0];
+            }
+            ids[0] = ids[size - 1];
+            scores[0] = scores[size - 1];
+            size--;
+            siftDown(0);
+        }
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!better(ids[parent], scores[parent], ids[index], scores[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(ids[worst], scores[worst], ids[left], scores[left])) {
+                worst = left;
+            }
+            if (right < size && better(ids[worst], scores[worst], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    private static boolean better(int id, float score, int otherId, float otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+}
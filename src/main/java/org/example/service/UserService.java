@@ -3,24 +3,30 @@ package org.example.service;
 import org.example.domain.User;
 import org.example.domain.UserProfileResponse;
 import org.example.domain.UserProfileUpdate;
-import org.example.persistence.RatingRepository;
 import org.example.persistence.UserRepository;
 
 public class UserService {
 
     private final UserRepository userRepository;
-    private final RatingRepository ratingRepository;
+    // Optional: Token -> User Cache (null = jede Anfrage geht an die DB).
+    private final TokenCache tokenCache;
+    // Optional: signierte Tokens (null = Token wird in der users-Tabelle gespeichert).
+    private final TokenService tokenService;
+    // Optional: Leaderboard im Speicher (neue User erscheinen mit 0 Ratings).
+    private final Leaderboard leaderboard;
 
     // Constructor: Bekommt das Repository
     public UserService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-        this.ratingRepository = null;
+        this(userRepository, null, null, null);
     }
 
-    // Constructor mit RatingRepository für Profil-Statistiken.
-    public UserService(UserRepository userRepository, RatingRepository ratingRepository) {
+    // Constructor mit allen optionalen Bausteinen (null = nicht genutzt, siehe Felder).
+    public UserService(UserRepository userRepository, TokenCache tokenCache, TokenService tokenService,
+                       Leaderboard leaderboard) {
         this.userRepository = userRepository;
-        this.ratingRepository = ratingRepository;
+        this.tokenCache = tokenCache;
+        this.tokenService = tokenService;
+        this.leaderboard = leaderboard;
     }
 
     // ========================================
@@ -50,6 +56,9 @@ public class UserService {
             throw new Exception("Fehler beim Speichern");
         }
 
+        if (leaderboard != null) {
+            leaderboard.addUser(savedUser.getId(), savedUser.getUsername());
+        }
         return savedUser;
     }
 
@@ -79,51 +88,108 @@ public class UserService {
             throw new Exception("Falsches Passwort");
         }
 
-        // 4. Token generieren
+        // 4. Token generieren (signiert: kein DB-Schreibzugriff nötig)
+        if (tokenService != null) {
+            return tokenService.issue(user.getId());
+        }
+        String oldToken = user.getToken();
         String token = username + "-mrpToken";
         user.setToken(token);
 
         // 5. Token in Datenbank speichern
         userRepository.updateToken(user);
 
+        // 6. Cache aktualisieren (alter Token ungültig, neuer sofort bekannt)
+        if (tokenCache != null) {
+            if (oldToken != null) {
+                tokenCache.invalidate(oldToken);
+            }
+            tokenCache.put(token, user);
+        }
+
         return token;
+    }
+
+    // ========================================
+    // LOGOUT - Token ungültig machen
+    // ========================================
+    public void logout(User user) {
+        String token = user.getToken();
+        if (tokenService != null) {
+            tokenService.revoke(token);
+            return;
+        }
+        user.setToken(null);
+        userRepository.updateToken(user);
+
+        if (tokenCache != null && token != null) {
+            tokenCache.invalidate(token);
+        }
     }
 
+    // Alle Tokens eines Users ungültig machen (auf allen Geräten abmelden).
+    public void logoutEverywhere(int userId) {
+        if (tokenService != null) {
+            tokenService.revokeAllForUser(userId);
+            return;
+        }
+        User user = User.builder().id(userId).build();
+        userRepository.updateToken(user);
+
+        if (tokenCache != null) {
+            tokenCache.invalidateUser(userId);
+        }
+    }
+
     // ========================================
     // FIND BY TOKEN - User anhand Token finden
     // ========================================
     public User findByToken(String token) {
-        return userRepository.findByToken(token);
-    }
-
-    // Profil-Daten laden (inkl. Statistiken).
-    public UserProfileResponse getProfile(int userId) throws Exception {
-        User user = userRepository.findById(userId);
-        if (user == null) {
-            throw new Exception("User nicht gefunden");
+        if (tokenService != null) {
+            // Signierter Token: Prüfung komplett im Speicher, Handler brauchen nur die User-ID.
+            TokenService.TokenClaims claims = tokenService.verify(token);
+            if (claims == null) {
+                return null;
+            }
+            return User.builder().id(claims.userId()).token(token).build();
+        }
+        if (tokenCache == null) {
+            return userRepository.findByToken(token);
         }
 
-        UserProfileResponse response = new UserProfileResponse();
-        response.setId(user.getId());
-        response.setUsername(user.getUsername());
-        response.setEmail(user.getEmail());
-        response.setFavoriteGenre(user.getFavoriteGenre());
+        User cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        if (tokenCache.isKnownUnknown(token)) {
+            return null;
+        }
 
-        if (ratingRepository != null) {
-            try {
-                response.setTotalRatings(ratingRepository.countByUser(userId));
-                response.setAverageScore(ratingRepository.averageByUser(userId));
-            } catch (Exception e) {
-                response.setTotalRatings(0);
-                response.setAverageScore(0.0);
-            }
+        User user = userRepository.findByToken(token);
+        if (user == null) {
+            tokenCache.putUnknown(token);
+        } else {
+            tokenCache.put(token, user);
         }
+        return user;
+    }
 
-        return response;
+    // Profil-Daten laden (inkl. Statistiken aus user_stats, ein Lookup statt Zaehlen pro Aufruf).
+    public UserProfileResponse getProfile(int userId) throws Exception {
+        UserProfileResponse profile = userRepository.findProfile(userId);
+        if (profile == null) {
+            throw new Exception("User nicht gefunden");
+        }
+        return profile;
     }
 
     // Profil updaten (nur erlaubte Felder).
     public void updateProfile(int userId, UserProfileUpdate update) throws Exception {
         userRepository.updateProfile(userId, update.getEmail(), update.getFavoriteGenre());
+
+        // Gecachte User-Objekte enthalten noch die alten Profildaten.
+        if (tokenCache != null) {
+            tokenCache.invalidateUser(userId);
+        }
     }
 }
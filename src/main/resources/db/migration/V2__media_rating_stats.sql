@@ -0,0 +1,23 @@
+-- Rating-Statistik pro Medium (von RatingRepository in derselben Transaktion wie das Rating gepflegt)
+CREATE TABLE IF NOT EXISTS Media_Rating_Stats(
+    MediaId INT PRIMARY KEY,
+    RatingCount INT NOT NULL DEFAULT 0,
+    StarSum INT NOT NULL DEFAULT 0,
+    Stars1 INT NOT NULL DEFAULT 0,
+    Stars2 INT NOT NULL DEFAULT 0,
+    Stars3 INT NOT NULL DEFAULT 0,
+    Stars4 INT NOT NULL DEFAULT 0,
+    Stars5 INT NOT NULL DEFAULT 0,
+    AvgScore NUMERIC GENERATED ALWAYS AS (CASE WHEN RatingCount > 0 THEN StarSum::NUMERIC / RatingCount END) STORED,
+    FOREIGN KEY (MediaId) REFERENCES MediaEntries(ID) ON DELETE CASCADE
+);
+
+-- Backfill fuer bestehende Datenbanken (gleiche Aggregation wie rebuild-rating-stats)
+INSERT INTO Media_Rating_Stats (MediaId, RatingCount, StarSum, Stars1, Stars2, Stars3, Stars4, Stars5)
+SELECT MediaId, COUNT(*), SUM(Stars),
+       COUNT(*) FILTER (WHERE Stars = 1), COUNT(*) FILTER (WHERE Stars = 2),
+       COUNT(*) FILTER (WHERE Stars = 3), COUNT(*) FILTER (WHERE Stars = 4),
+       COUNT(*) FILTER (WHERE Stars = 5)
+FROM Ratings
+GROUP BY MediaId
+ON CONFLICT (MediaId) DO NOTHING;
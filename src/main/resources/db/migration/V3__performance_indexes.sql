@@ -0,0 +1,27 @@
+-- Sekundaer-Indizes fuer die haeufigen Repository-Queries
+-- (UNIQUE-Constraints decken nur Lookups ueber die erste Spalte ab, z. B. ratings.mediaid).
+
+-- Token-Login im db-Auth-Modus: SELECT * FROM users WHERE token = ?
+CREATE INDEX IF NOT EXISTS idx_users_token ON Users (Token);
+
+-- Rating-Historie, Profil-Statistik, Empfehlungen: WHERE userid = ? ORDER BY createdat DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_ratings_user_created ON Ratings (UserId, CreatedAt DESC, ID DESC);
+
+-- Favoritenliste: JOIN favorites f ... WHERE f.userid = ?
+CREATE INDEX IF NOT EXISTS idx_favorites_user ON Favorites (UserId, MediaId);
+
+-- Genre-Empfehlungen: WHERE mg.genre IN (...)
+CREATE INDEX IF NOT EXISTS idx_media_genres_genre ON Media_Genres (Genre, MediaId);
+-- Genre-Filter der Suche: WHERE LOWER(mg.genre) = ?
+CREATE INDEX IF NOT EXISTS idx_media_genres_genre_lower ON Media_Genres (LOWER(Genre), MediaId);
+
+-- Titelsuche: LOWER(m.title) LIKE '%...%' (Teilstring -> Trigramm-Index statt B-Baum)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_mediaentries_title_trgm ON MediaEntries USING GIN (LOWER(Title) gin_trgm_ops);
+
+-- Keyset-Pagination der Medienliste (Sortierwert + ID, siehe PageCursor)
+CREATE INDEX IF NOT EXISTS idx_mediaentries_title_id ON MediaEntries (Title, ID);
+CREATE INDEX IF NOT EXISTS idx_mediaentries_year_id ON MediaEntries ((COALESCE(ReleaseYear, 2147483647)), ID);
+
+-- Rating-Filter: WHERE r.avgscore >= ?
+CREATE INDEX IF NOT EXISTS idx_media_rating_stats_avg ON Media_Rating_Stats (AvgScore);
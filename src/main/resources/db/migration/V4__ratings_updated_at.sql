@@ -0,0 +1,8 @@
+-- Aenderungszeitpunkt pro Rating (Wasserzeichen fuer inkrementelle Exporte, GET /api/export/ratings?updatedSince=...)
+ALTER TABLE Ratings ADD COLUMN IF NOT EXISTS UpdatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+-- Bestehende Ratings gelten als zuletzt beim Anlegen geaendert
+UPDATE Ratings SET UpdatedAt = CreatedAt;
+
+-- Export: WHERE updatedat >= ? ORDER BY updatedat, id (Keyset, serverseitiger Cursor)
+CREATE INDEX IF NOT EXISTS idx_ratings_updated ON Ratings (UpdatedAt, ID);
@@ -0,0 +1,11 @@
+-- Like-Anzahl direkt am Rating (von RatingRepository.addLike/addLikes in derselben Anweisung gepflegt)
+ALTER TABLE Ratings ADD COLUMN IF NOT EXISTS LikeCount INT NOT NULL DEFAULT 0;
+
+-- Backfill fuer bestehende Datenbanken
+UPDATE Ratings r SET LikeCount = l.cnt
+FROM (SELECT RatingId, COUNT(*) AS cnt FROM Rating_Likes GROUP BY RatingId) l
+WHERE r.ID = l.RatingId;
+
+-- Top-Kommentare pro Medium: WHERE mediaid = ? AND <bestaetigter Kommentar> ORDER BY likecount DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_ratings_media_likes ON Ratings (MediaId, LikeCount DESC, ID DESC)
+    WHERE CommentConfirmed AND Comment IS NOT NULL;
@@ -0,0 +1,21 @@
+-- Statistik pro User (von Rating-, Like- und Favoriten-Schreibzugriffen in derselben Anweisung gepflegt)
+-- Keine Zeile = alles 0 (Zeile wird beim ersten Delta angelegt).
+CREATE TABLE IF NOT EXISTS User_Stats(
+    UserId INT PRIMARY KEY,
+    RatingCount INT NOT NULL DEFAULT 0,
+    StarSum INT NOT NULL DEFAULT 0,
+    LikesReceived INT NOT NULL DEFAULT 0,
+    FavoritesCount INT NOT NULL DEFAULT 0,
+    FOREIGN KEY (UserId) REFERENCES Users(ID) ON DELETE CASCADE
+);
+
+-- Backfill fuer bestehende Datenbanken (gleiche Aggregation wie rebuild-user-stats)
+INSERT INTO User_Stats (UserId, RatingCount, StarSum, LikesReceived, FavoritesCount)
+SELECT u.ID, COALESCE(r.cnt, 0), COALESCE(r.starsum, 0), COALESCE(l.cnt, 0), COALESCE(f.cnt, 0)
+FROM Users u
+LEFT JOIN (SELECT UserId, COUNT(*) AS cnt, SUM(Stars) AS starsum FROM Ratings GROUP BY UserId) r ON r.UserId = u.ID
+LEFT JOIN (SELECT r.UserId, COUNT(*) AS cnt FROM Rating_Likes l JOIN Ratings r ON r.ID = l.RatingId
+           GROUP BY r.UserId) l ON l.UserId = u.ID
+LEFT JOIN (SELECT UserId, COUNT(*) AS cnt FROM Favorites GROUP BY UserId) f ON f.UserId = u.ID
+WHERE r.cnt IS NOT NULL OR l.cnt IS NOT NULL OR f.cnt IS NOT NULL
+ON CONFLICT (UserId) DO NOTHING;
@@ -0,0 +1,9 @@
+-- Leaderboard-Fallback (ohne Leaderboard im Speicher) per Keyset ueber user_stats statt GROUP BY ueber alle Ratings:
+-- jede Seite ist ein Bereichs-Scan auf diesem Index (Anzahl absteigend, bei Gleichstand nach User-ID).
+CREATE INDEX IF NOT EXISTS idx_user_stats_leaderboard ON User_Stats (RatingCount DESC, UserId);
+
+-- Auch User ohne Ratings stehen im Leaderboard: ab jetzt hat jeder User eine Zeile
+-- (Registrierung und rebuild-user-stats legen sie an).
+INSERT INTO User_Stats (UserId)
+SELECT ID FROM Users
+ON CONFLICT (UserId) DO NOTHING;
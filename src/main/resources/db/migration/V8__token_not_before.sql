@@ -0,0 +1,4 @@
+-- Sperren fuer signierte Tokens (Logout, erzwungenes Ablaufen): Tokens eines Users, die vor diesem
+-- Zeitpunkt (Epoch-Millisekunden) ausgestellt wurden, sind ungueltig. In der DB statt im Speicher,
+-- damit Sperren Neustarts ueberleben und fuer alle Instanzen gelten. 0 = keine Sperre.
+ALTER TABLE Users ADD COLUMN IF NOT EXISTS TokensNotBefore BIGINT NOT NULL DEFAULT 0;
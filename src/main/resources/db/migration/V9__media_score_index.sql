@@ -0,0 +1,9 @@
+-- Score-Sortierung der Medienliste per Keyset ueber media_rating_stats (wie das Leaderboard in V7):
+-- jede Seite ist ein Bereichs-Scan auf diesem Index (Score absteigend, ohne Ratings = -1, bei Gleichstand nach ID).
+CREATE INDEX IF NOT EXISTS idx_media_rating_stats_score ON Media_Rating_Stats ((COALESCE(AvgScore, -1)) DESC, MediaId);
+
+-- Auch Medien ohne Ratings brauchen eine Zeile (innerer Join in der Suche):
+-- ab jetzt legen Anlage, Import und rebuild-rating-stats sie an.
+INSERT INTO Media_Rating_Stats (MediaId)
+SELECT ID FROM MediaEntries
+ON CONFLICT (MediaId) DO NOTHING;
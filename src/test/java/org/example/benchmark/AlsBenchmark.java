@@ -0,0 +1,104 @@
+package org.example.benchmark;
+
+import org.example.service.AlsModel;
+import org.example.service.AlsTrainer;
+import org.example.service.RatingMatrix;
+
+import java.util.Random;
+
+// Benchmark: ALS-Trainingszeit nach Datenmenge und Thread-Anzahl (synthetische Ratings mit latenter Struktur),
+// dazu die Dauer einer Empfehlung (Fold-in + Score ueber alle Medien + Top-20).
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren (optional: maximale Rating-Anzahl als Argument).
+public class AlsBenchmark {
+
+    private static final int RANK = 20;
+    private static final int ITERATIONS = 10;
+    private static final float LAMBDA = 0.05f;
+    // Verhaeltnis wie in der Plattform: viele User, weniger Medien.
+    private static final int RATINGS_PER_USER = 25;
+    private static final int MEDIA_PER_1000_USERS = 200;
+
+    public static void main(String[] args) {
+        int maxRatings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // Warmup (JIT)
+        new AlsTrainer(RANK, LAMBDA, 2, cores).train(generate(50_000));
+
+        System.out.printf("%10s %8s %8s %8s %12s %10s%n", "Ratings", "User", "Medien", "Threads", "Training", "RMSE");
+        for (int ratings = 100_000; ratings <= maxRatings; ratings *= 4) {
+            RatingMatrix matrix = generate(ratings);
+            // 1, 2, 4, ... und zuletzt alle Kerne.
+            for (int threads = 1; threads <= cores;
+                 threads = threads == cores ? cores + 1 : Math.min(threads * 2, cores)) {
+                long start = System.nanoTime();
+                AlsModel model = new AlsTrainer(RANK, LAMBDA, ITERATIONS, threads).train(matrix);
+                double millis = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%10d %8d %8d %8d %9.0f ms %10.3f%n", matrix.getRatingCount(),
+                        matrix.getUserCount(), matrix.getItemCount(), threads, millis, model.getTrainingRmse());
+            }
+        }
+
+        RatingMatrix matrix = generate(maxRatings);
+        AlsModel model = new AlsTrainer(RANK, LAMBDA, ITERATIONS, cores).train(matrix);
+        Random random = new Random(3);
+        int[] rated = new int[RATINGS_PER_USER];
+        int[] stars = new int[RATINGS_PER_USER];
+        long check = 0;
+        int runs = 20_000;
+        long start = 0;
+        for (int i = 0; i < runs * 2; i++) {
+            // Erste Haelfte = Warmup.
+            if (i == runs) {
+                start = System.nanoTime();
+            }
+            for (int r = 0; r < rated.length; r++) {
+                rated[r] = 1 + random.nextInt(matrix.getItemCount());
+                stars[r] = 1 + random.nextInt(5);
+            }
+            check += model.recommend(rated, stars, 20).length;
+        }
+        System.out.printf("Empfehlung (%d Medien)  %8.1f µs/Request%n", matrix.getItemCount(),
+                (System.nanoTime() - start) / 1e3 / runs);
+        System.out.println("(Pruefsumme " + check + ")");
+    }
+
+    // Sterne aus verborgenen Vektoren (Rang 5) plus Rauschen, auf 1-5 gerundet.
+    private static RatingMatrix generate(int ratings) {
+        Random random = new Random(ratings);
+        int users = Math.max(1, ratings / RATINGS_PER_USER);
+        int media = Math.max(50, users * MEDIA_PER_1000_USERS / 1000);
+        int hidden = 5;
+        float[] userTaste = new float[users * hidden];
+        float[] mediaTaste = new float[media * hidden];
+        for (int i = 0; i < userTaste.length; i++) {
+            userTaste[i] = (float) random.nextGaussian();
+        }
+        for (int i = 0; i < mediaTaste.length; i++) {
+            mediaTaste[i] = (float) random.nextGaussian();
+        }
+        RatingMatrix.Collector collector = new RatingMatrix.Collector();
+        for (int u = 0; u < users; u++) {
+            // Zufaellige, verschiedene Medien pro User (Schrittweite teilerfremd zur Medien-Anzahl).
+            int first = random.nextInt(media);
+            int step = 1 + random.nextInt(media - 1);
+            while (gcd(step, media) != 1) {
+                step++;
+            }
+            for (int r = 0; r < RATINGS_PER_USER && r < media; r++) {
+                int m = (first + r * step) % media;
+                double affinity = 0.0;
+                for (int p = 0; p < hidden; p++) {
+                    affinity += userTaste[u * hidden + p] * mediaTaste[m * hidden + p];
+                }
+                int value = (int) Math.round(3 + affinity / 2 + random.nextGaussian() * 0.5);
+                collector.accept(u + 1, m + 1, Math.max(1, Math.min(5, value)));
+            }
+        }
+        return collector.build();
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.benchmark;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import org.example.domain.User;
+import org.example.http.AuthFilter;
+import org.example.persistence.UserRepository;
+import org.example.service.TokenCache;
+import org.example.service.TokenService;
+import org.example.service.UserService;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+// Benchmark: Kosten des AuthFilters pro Request fuer DB-Tokens (mit/ohne Cache) und signierte Tokens.
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+// -Dbench.dbLatencyMicros simuliert die Dauer eines DB-Round-Trips (Standard 300).
+public class AuthFilterBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        long dbLatencyNanos = Long.getLong("bench.dbLatencyMicros", 300) * 1000;
+        FakeUserRepository repo = new FakeUserRepository(dbLatencyNanos);
+        for (int i = 1; i <= USERS; i++) {
+            repo.save(User.builder().id(i).username("user" + i).password("pw").build());
+        }
+
+        UserService db = new UserService(repo);
+        UserService cached = new UserService(repo, new TokenCache(10_000, 300_000, 5_000), null, null);
+        UserService signed = new UserService(repo, null, TokenService.fromSystemProperties(repo), null);
+
+        System.out.printf("Simulierte DB-Latenz: %d us%n", dbLatencyNanos / 1000);
+        run("db", db, repo);
+        run("db+cache", cached, repo);
+        run("signed", signed, repo);
+    }
+
+    private static void run(String name, UserService service, FakeUserRepository repo) throws Exception {
+        String[] tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = service.login("user" + (i + 1), "pw");
+        }
+        AuthFilter filter = new AuthFilter(service);
+        Filter.Chain chain = new Filter.Chain(List.of(), exchange -> ((StubExchange) exchange).status = 200);
+
+        // DB-Modus ist pro Aufruf langsam -> weniger Iterationen, damit der Lauf kurz bleibt.
+        int divisor = name.equals("db") ? 20 : 1;
+        int iterations = ITERATIONS / divisor;
+        measure(filter, chain, tokens, WARMUP / divisor);
+        repo.lookups = 0;
+        long nanos = measure(filter, chain, tokens, iterations);
+
+        System.out.printf("%-9s %10.2f us/Request, DB-Lookups pro Request: %.3f%n", name,
+                nanos / 1000.0 / iterations, repo.lookups / (double) iterations);
+    }
+
+    private static long measure(AuthFilter filter, Filter.Chain chain, String[] tokens, int iterations)
+            throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            StubExchange exchange = new StubExchange(tokens[i % tokens.length]);
+            filter.doFilter(exchange, chain);
+            if (exchange.status != 200) {
+                throw new IllegalStateException("Token abgelehnt: " + exchange.status);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // User-Repository im Speicher; findByToken/findTokensNotBefore warten so lange wie ein DB-Round-Trip.
+    static class FakeUserRepository extends UserRepository {
+        private final Map<Integer, User> byId = new HashMap<>();
+        private final Map<String, User> byToken = new HashMap<>();
+        private final long latencyNanos;
+        int lookups;
+
+        FakeUserRepository(long latencyNanos) {
+            super((DataSource) null);
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public User save(User user) {
+            byId.put(user.getId(), user);
+            return user;
+        }
+
+        @Override
+        public User findByUsername(String username) {
+            return byId.values().stream().filter(u -> username.equals(u.getUsername())).findFirst().orElse(null);
+        }
+
+        @Override
+        public void updateToken(User user) {
+            byToken.put(user.getToken(), byId.get(user.getId()));
+        }
+
+        @Override
+        public User findByToken(String token) {
+            lookups++;
+            LockSupport.parkNanos(latencyNanos);
+            return byToken.get(token);
+        }
+
+        // Sperr-Zeitpunkt fuer signierte Tokens (nur alle mrp.auth.revocationCacheMillis pro User gelesen).
+        @Override
+        public long findTokensNotBefore(int userId) {
+            lookups++;
+            LockSupport.parkNanos(latencyNanos);
+            return 0;
+        }
+    }
+
+    // Minimaler HttpExchange: nur Header, Pfad und Status.
+    static class StubExchange extends HttpExchange {
+        private final Headers requestHeaders = new Headers();
+        private final Headers responseHeaders = new Headers();
+        private final Map<String, Object> attributes = new HashMap<>();
+        int status;
+
+        StubExchange(String token) {
+            requestHeaders.add("Authorization", "Bearer " + token);
+        }
+
+        @Override
+        public Headers getRequestHeaders() {
+            return requestHeaders;
+        }
+
+        @Override
+        public Headers getResponseHeaders() {
+            return responseHeaders;
+        }
+
+        @Override
+        public URI getRequestURI() {
+            return URI.create("/api/users/1/profile");
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "GET";
+        }
+
+        @Override
+        public HttpContext getHttpContext() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getRequestBody() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) {
+            status = rCode;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return status;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public String getProtocol() {
+            return "HTTP/1.1";
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void setStreams(InputStream i, OutputStream o) {
+        }
+
+        @Override
+        public HttpPrincipal getPrincipal() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.http.ConcurrencyLimitFilter;
+import org.example.http.HttpUtil;
+import org.example.server.ExecutionMode;
+import org.example.server.ExecutorSettings;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Benchmark: Durchsatz der Execution-Modi nach Anzahl paralleler Clients (lokaler HttpServer, ohne Datenbank;
+// jeder Request blockiert WORK_MILLIS wie eine Query). LEGACY bleibt beim seriellen Limit, VIRTUAL/POOL skalieren.
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+public class ExecutorBenchmark {
+
+    // Simulierte Query-Dauer pro Request.
+    private static final int WORK_MILLIS = 20;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int[] CLIENTS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        ExecutorSettings[] settings = {
+                new ExecutorSettings(ExecutionMode.LEGACY, 1, 0, 0),
+                new ExecutorSettings(ExecutionMode.VIRTUAL, 256, 1024, 2000),
+                new ExecutorSettings(ExecutionMode.POOL, 32, 256, 2000)
+        };
+        // Warmup (JIT, HttpClient-Verbindungen).
+        measureThroughput(settings[1], 4);
+
+        System.out.printf("Seriell moeglich: %.0f req/s%n", 1000.0 / WORK_MILLIS);
+        System.out.printf("%-8s", "Clients");
+        for (ExecutorSettings setting : settings) {
+            System.out.printf("%12s", setting.getMode());
+        }
+        System.out.println();
+        for (int clients : CLIENTS) {
+            System.out.printf("%-8d", clients);
+            for (ExecutorSettings setting : settings) {
+                System.out.printf("%8.0f r/s", measureThroughput(setting, clients));
+            }
+            System.out.println();
+        }
+    }
+
+    // Requests pro Sekunde bei n parallelen Clients.
+    private static double measureThroughput(ExecutorSettings settings, int clients) throws Exception {
+        ExecutorService executor = settings.createExecutor();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        var context = server.createContext("/work", exchange -> {
+            try {
+                Thread.sleep(WORK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            HttpUtil.sendText(exchange, 200, "ok");
+        });
+        ConcurrencyLimitFilter filter = settings.createLimitFilter();
+        if (filter != null) {
+            context.getFilters().add(filter);
+        }
+        server.start();
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/work")).build();
+        ExecutorService callers = Executors.newFixedThreadPool(clients);
+        try {
+            long start = System.nanoTime();
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                results.add(callers.submit(() -> {
+                    int ok = 0;
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                            ok++;
+                        }
+                    }
+                    return ok;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(120, TimeUnit.SECONDS);
+            }
+            return total / ((System.nanoTime() - start) / 1_000_000_000.0);
+        } finally {
+            callers.shutdownNow();
+            server.stop(0);
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.benchmark;
+
+import org.example.domain.Rating;
+import org.example.persistence.ConnectionPool;
+import org.example.persistence.DatabaseConnection;
+import org.example.persistence.MediaRepository;
+import org.example.persistence.RatingRepository;
+import org.example.service.ContentIndex;
+import org.example.service.TopK;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Benchmark: Content-Kandidaten per Genre-Bitmaske (ContentIndex) gegenueber der Content-Query.
+// Standard: synthetischer Katalog; die Query wird als String-Join in Java nachgestellt (Lieblingsgenres als Set,
+// eine Zeile pro Medium und Genre, GROUP BY per HashMap - ohne Netzwerk/Parsing, also zugunsten von SQL).
+// Mit -Dmrp.benchmark.db=true: echte Query (MediaRepository.streamContentCandidates) gegen ContentIndex aus
+// derselben DB (inkl. Laden der Ratings des Users), User-IDs 1..n (n optional als Argument, Standard 50).
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+public class GenreMaskBenchmark {
+
+    private static final int MEDIA = 100_000;
+    private static final int GENRES = 60;
+    private static final int RATINGS_PER_USER = 25;
+    private static final int USERS = 500;
+    private static final int TOP = 20;
+    private static final String[] TYPES = {"MOVIE", "SERIES", "GAME"};
+    private static final int[] AGES = {0, 6, 12, 16, 18};
+
+    public static void main(String[] args) throws Exception {
+        if (Boolean.getBoolean("mrp.benchmark.db")) {
+            againstDatabase(args.length > 0 ? Integer.parseInt(args[0]) : 50);
+            return;
+        }
+
+        Random random = new Random(1);
+        String[] types = new String[MEDIA];
+        int[] ages = new int[MEDIA];
+        List<List<String>> genres = new ArrayList<>();
+        for (int m = 0; m < MEDIA; m++) {
+            types[m] = TYPES[random.nextInt(TYPES.length)];
+            ages[m] = AGES[random.nextInt(AGES.length)];
+            List<String> mediaGenres = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            while (mediaGenres.size() < count) {
+                // Schiefe Verteilung: wenige sehr haeufige Genres.
+                String genre = "Genre-" + (int) (GENRES * Math.pow(random.nextDouble(), 2));
+                if (!mediaGenres.contains(genre)) {
+                    mediaGenres.add(genre);
+                }
+            }
+            genres.add(mediaGenres);
+        }
+
+        MediaRepository catalog = new MediaRepository((DataSource) null) {
+            @Override
+            public int streamContentFeatures(FeatureSink sink) {
+                for (int m = 0; m < MEDIA; m++) {
+                    sink.accept(m + 1, types[m], ages[m], genres.get(m), 1 + (m % 40) / 10.0, m % 50);
+                }
+                return MEDIA;
+            }
+        };
+        long start = System.nanoTime();
+        ContentIndex index = new ContentIndex(catalog, null, 0);
+        index.refresh();
+        System.out.printf("Index: %d Medien, %d Genres, Aufbau %.0f ms%n", MEDIA, index.getGenres().size(),
+                (System.nanoTime() - start) / 1e6);
+
+        List<List<Rating>> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            List<Rating> ratings = new ArrayList<>();
+            for (int r = 0; r < RATINGS_PER_USER; r++) {
+                Rating rating = new Rating();
+                rating.setMediaId(1 + random.nextInt(MEDIA));
+                rating.setStars(1 + random.nextInt(5));
+                ratings.add(rating);
+            }
+            users.add(ratings);
+        }
+
+        long check = 0;
+        for (int round = 0; round < 2; round++) {
+            // Erste Runde = Warmup (JIT).
+            start = System.nanoTime();
+            for (List<Rating> ratings : users) {
+                TopK top = new TopK(TOP);
+                index.streamCandidates(ratings, true, null, (mediaId, matched, liked, average, count) ->
+                        top.offer(mediaId, (float) matched / liked + (float) average / 5));
+                check += top.drainIds()[0];
+            }
+            double maskMicros = (System.nanoTime() - start) / 1e3 / USERS;
+
+            start = System.nanoTime();
+            for (List<Rating> ratings : users) {
+                check -= stringJoin(ratings, types, ages, genres)[0];
+            }
+            double joinMicros = (System.nanoTime() - start) / 1e3 / USERS;
+            if (round == 1) {
+                System.out.printf("Bitmaske (AND + bitCount)   %10.1f µs/Request%n", maskMicros);
+                System.out.printf("String-Join (wie SQL)       %10.1f µs/Request  (Faktor %.1f)%n", joinMicros,
+                        joinMicros / maskMicros);
+            }
+        }
+        // Beide Varianten liefern dasselbe bestes Medium: Pruefsumme 0.
+        System.out.println("(Pruefsumme " + check + ")");
+    }
+
+    // Arbeit der Content-Query ohne DB: liked-Genres als Set, Join ueber media_genres-Zeilen, GROUP BY per HashMap.
+    private static int[] stringJoin(List<Rating> ratings, String[] types, int[] ages, List<List<String>> genres) {
+        Set<String> liked = new HashSet<>();
+        Set<String> likedContent = new HashSet<>();
+        Set<Integer> rated = new HashSet<>();
+        for (Rating rating : ratings) {
+            rated.add(rating.getMediaId());
+            if (rating.getStars() >= 4) {
+                int m = rating.getMediaId() - 1;
+                liked.addAll(genres.get(m));
+                likedContent.add(types[m] + "/" + ages[m]);
+            }
+        }
+        Map<Integer, int[]> matched = new HashMap<>();
+        for (int m = 0; m < types.length; m++) {
+            for (String genre : genres.get(m)) {
+                if (liked.contains(genre)) {
+                    matched.computeIfAbsent(m + 1, id -> new int[1])[0]++;
+                }
+            }
+        }
+        TopK top = new TopK(TOP);
+        for (Map.Entry<Integer, int[]> entry : matched.entrySet()) {
+            int m = entry.getKey() - 1;
+            if (!rated.contains(entry.getKey()) && likedContent.contains(types[m] + "/" + ages[m])) {
+                top.offer(entry.getKey(), (float) entry.getValue()[0] / liked.size() + (float) (1 + (m % 40) / 10.0) / 5);
+            }
+        }
+        return top.drainIds();
+    }
+
+    // Echte Content-Query gegen den Index aus derselben Datenbank.
+    private static void againstDatabase(int users) throws Exception {
+        try (ConnectionPool pool = DatabaseConnection.createPool()) {
+            MediaRepository mediaRepository = new MediaRepository(pool);
+            RatingRepository ratingRepository = new RatingRepository(pool);
+            ContentIndex index = new ContentIndex(mediaRepository, null, 0);
+            long start = System.nanoTime();
+            index.refresh();
+            System.out.printf("Index aus der DB: %s, Aufbau %.0f ms%n", index.getStats(),
+                    (System.nanoTime() - start) / 1e6);
+
+            long[] candidates = new long[2];
+            double[] micros = new double[2];
+            for (int round = 0; round < 2; round++) {
+                Arrays.fill(candidates, 0);
+                start = System.nanoTime();
+                for (int userId = 1; userId <= users; userId++) {
+                    candidates[0] += mediaRepository.streamContentCandidates(userId, null,
+                            (mediaId, matched, liked, average, count) -> { });
+                }
+                micros[0] = (System.nanoTime() - start) / 1e3 / users;
+                start = System.nanoTime();
+                for (int userId = 1; userId <= users; userId++) {
+                    candidates[1] += index.streamCandidates(ratingRepository.findByUser(userId), true, null,
+                            (mediaId, matched, liked, average, count) -> { });
+                }
+                micros[1] = (System.nanoTime() - start) / 1e3 / users;
+            }
+            System.out.printf("Content-Query (SQL)             %10.1f µs/User, %d Kandidaten%n", micros[0],
+                    candidates[0]);
+            System.out.printf("Bitmaske (inkl. Ratings laden)  %10.1f µs/User, %d Kandidaten%n", micros[1],
+                    candidates[1]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.benchmark;
+
+import org.example.service.HnswIndex;
+import org.example.service.TopK;
+
+import java.util.Random;
+
+// Benchmark: HNSW-Index fuer aehnliche Medien - Aufbauzeit, dann recall@10 gegen Latenz fuer verschiedene efSearch,
+// verglichen mit der exakten Suche ueber alle Vektoren (synthetische Vektoren in Clustern, Dimension wie
+// Inhaltsmerkmale + ALS-Faktoren).
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren (optional: Anzahl Medien als Argument).
+public class HnswBenchmark {
+
+    private static final int DIMENSION = 61;
+    private static final int CLUSTERS = 200;
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int K = 10;
+    private static final int QUERIES = 1_000;
+    private static final int[] EF_SEARCH = {10, 20, 40, 64, 100, 200};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        float[][] vectors = generate(count, new Random(1));
+
+        long start = System.nanoTime();
+        HnswIndex index = new HnswIndex(DIMENSION, M, EF_CONSTRUCTION, 7);
+        for (int i = 0; i < count; i++) {
+            index.add(i, vectors[i]);
+        }
+        System.out.printf("Aufbau: %d Medien, Dimension %d, M=%d, efConstruction=%d: %.0f ms%n", count, DIMENSION,
+                M, EF_CONSTRUCTION, (System.nanoTime() - start) / 1e6);
+
+        // Anfragen = vorhandene Medien (wie /similar); exakte Nachbarn als Referenz, dabei Brute-Force-Zeit messen.
+        Random random = new Random(2);
+        int[] queries = new int[QUERIES];
+        int[][] exact = new int[QUERIES][];
+        start = System.nanoTime();
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = random.nextInt(count);
+            exact[q] = bruteForce(vectors, queries[q]);
+        }
+        double bruteForceMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+
+        System.out.printf("%10s %12s %12s%n", "efSearch", "recall@" + K, "µs/Anfrage");
+        long check = 0;
+        for (int ef : EF_SEARCH) {
+            // Warmup (JIT)
+            for (int q = 0; q < QUERIES; q++) {
+                check += index.search(vectors[queries[q]], K, ef, queries[q]).length;
+            }
+            int hits = 0;
+            start = System.nanoTime();
+            int[][] found = new int[QUERIES][];
+            for (int q = 0; q < QUERIES; q++) {
+                found[q] = index.search(vectors[queries[q]], K, ef, queries[q]);
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / QUERIES;
+            for (int q = 0; q < QUERIES; q++) {
+                hits += overlap(found[q], exact[q]);
+            }
+            System.out.printf("%10d %12.3f %12.1f%n", ef, hits / (double) (QUERIES * K), micros);
+        }
+        System.out.printf("%10s %12.3f %12.1f%n", "exakt", 1.0, bruteForceMicros);
+        System.out.println("(Pruefsumme " + check + ")");
+    }
+
+    private static int[] bruteForce(float[][] vectors, int queryId) {
+        float[] query = vectors[queryId];
+        TopK top = new TopK(K);
+        for (int i = 0; i < vectors.length; i++) {
+            if (i == queryId) {
+                continue;
+            }
+            float dot = 0f;
+            for (int d = 0; d < DIMENSION; d++) {
+                dot += vectors[i][d] * query[d];
+            }
+            top.offer(i, dot);
+        }
+        return top.drainIds();
+    }
+
+    private static int overlap(int[] found, int[] exact) {
+        int hits = 0;
+        for (int f : found) {
+            for (int e : exact) {
+                if (f == e) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Normierte Vektoren um zufaellige Zentren (Medien aehnlicher Genres liegen beieinander).
+    private static float[][] generate(int count, Random random) {
+        float[][] centers = new float[CLUSTERS][DIMENSION];
+        for (float[] center : centers) {
+            for (int d = 0; d < DIMENSION; d++) {
+                center[d] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][DIMENSION];
+        for (int i = 0; i < count; i++) {
+            float[] center = centers[random.nextInt(CLUSTERS)];
+            double squares = 0.0;
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = center[d] + (float) (random.nextGaussian() * 0.5);
+                squares += vectors[i][d] * vectors[i][d];
+            }
+            float scale = (float) (1.0 / Math.sqrt(squares));
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] *= scale;
+            }
+        }
+        return vectors;
+    }
+}
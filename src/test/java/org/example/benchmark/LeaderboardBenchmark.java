@@ -0,0 +1,97 @@
+package org.example.benchmark;
+
+import org.example.domain.LeaderboardEntry;
+import org.example.service.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Benchmark: Leaderboard im Speicher gegenueber der Arbeit der SQL-Variante pro Request
+// (alle Ratings nach User gruppieren, zaehlen und sortieren - ohne Netzwerk/Parsing, also zugunsten von SQL).
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+public class LeaderboardBenchmark {
+
+    private static final int USERS = 50_000;
+    private static final int RATINGS = 1_000_000;
+    private static final int TOP_N = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int[] ratingUsers = new int[RATINGS];
+        int[] counts = new int[USERS + 1];
+        for (int i = 0; i < RATINGS; i++) {
+            // Schiefe Verteilung: wenige sehr aktive User.
+            int user = 1 + (int) (USERS * Math.pow(random.nextDouble(), 3));
+            ratingUsers[i] = user;
+            counts[user]++;
+        }
+
+        Leaderboard leaderboard = new Leaderboard();
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (int id = 1; id <= USERS; id++) {
+            entries.add(new LeaderboardEntry(id, "user" + id, counts[id]));
+        }
+        long start = System.nanoTime();
+        leaderboard.rebuild(entries);
+        System.out.printf("rebuild (%d User)       %10.1f ms%n", USERS, (System.nanoTime() - start) / 1e6);
+
+        long check = 0;
+        // Warmup
+        for (int i = 0; i < 20; i++) {
+            check += sqlEquivalentTop(ratingUsers).size();
+        }
+        for (int i = 0; i < 200_000; i++) {
+            check += leaderboard.range(0, TOP_N).size();
+            check += leaderboard.around(1 + i % USERS, 2).size();
+            leaderboard.ratingAdded(1 + i % USERS);
+        }
+
+        int sqlRuns = 20;
+        start = System.nanoTime();
+        for (int i = 0; i < sqlRuns; i++) {
+            check += sqlEquivalentTop(ratingUsers).size();
+        }
+        double sqlMicros = (System.nanoTime() - start) / 1e3 / sqlRuns;
+
+        int runs = 500_000;
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            check += leaderboard.range(0, TOP_N).size();
+        }
+        double topMicros = (System.nanoTime() - start) / 1e3 / runs;
+
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            check += leaderboard.around(1 + (int) ((i * 7919L) % USERS), 2).size();
+        }
+        double aroundMicros = (System.nanoTime() - start) / 1e3 / runs;
+
+        start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            leaderboard.ratingAdded(1 + (int) ((i * 7919L) % USERS));
+        }
+        double updateMicros = (System.nanoTime() - start) / 1e3 / runs;
+
+        System.out.printf("GROUP BY + Sortierung    %10.1f µs/Request%n", sqlMicros);
+        System.out.printf("Speicher: Top %d         %10.3f µs/Request%n", TOP_N, topMicros);
+        System.out.printf("Speicher: Platz +-2      %10.3f µs/Request%n", aroundMicros);
+        System.out.printf("Speicher: Rating-Event   %10.3f µs/Event%n", updateMicros);
+        System.out.println("(Pruefsumme " + check + ")");
+    }
+
+    // Was die Datenbank fuer GET /api/leaderboard pro Request tun muss.
+    private static List<Map.Entry<Integer, Integer>> sqlEquivalentTop(int[] ratingUsers) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int user : ratingUsers) {
+            counts.merge(user, 1, Integer::sum);
+        }
+        List<Map.Entry<Integer, Integer>> sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Integer.compare(a.getKey(), b.getKey())
+                : Integer.compare(b.getValue(), a.getValue()));
+        return sorted.subList(0, TOP_N);
+    }
+}
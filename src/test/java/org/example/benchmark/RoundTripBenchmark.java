@@ -0,0 +1,120 @@
+package org.example.benchmark;
+
+import org.example.persistence.FakeJdbc;
+import org.example.persistence.MediaRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Benchmark: N+1 Queries gegenueber einer Query pro Liste (FakeJdbc mit simulierter Latenz pro Statement).
+// "Genres pro Zeile" ist die fruehere Variante von findAll (eine Genre-Query pro Medium), "findById je ID"
+// das Laden einer ID-Liste ohne findByIds. Gezaehlt werden Round-Trips und Gesamtzeit pro Aufruf.
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+// -Dbench.dbLatencyMicros simuliert die Dauer eines DB-Round-Trips (Standard 300).
+public class RoundTripBenchmark {
+
+    private static final int[] SIZES = {10, 100, 1000};
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        long latencyNanos = Long.getLong("bench.dbLatencyMicros", 300) * 1000;
+        System.out.printf("Simulierte DB-Latenz: %d us%n", latencyNanos / 1000);
+        // Warmup ohne Latenz (JIT, Proxies).
+        for (int i = 0; i < 20; i++) {
+            run(100, 0);
+        }
+
+        System.out.printf("%-7s %-22s %12s %12s%n", "Medien", "Variante", "Round-Trips", "Zeit");
+        for (int size : SIZES) {
+            run(size, latencyNanos);
+        }
+    }
+
+    private static void run(int size, long latencyNanos) throws Exception {
+        FakeJdbc jdbc = new FakeJdbc(sql -> respond(sql, size), latencyNanos);
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+
+        report(size, "Genres pro Zeile (N+1)", jdbc, latencyNanos, () -> findAllWithGenreQueries(jdbc.dataSource()));
+        report(size, "findAll (1)", jdbc, latencyNanos, () -> repo.findAll().size());
+        report(size, "findById je ID (N)", jdbc, latencyNanos, () -> {
+            int found = 0;
+            for (int id : ids) {
+                found += repo.findById(id) != null ? 1 : 0;
+            }
+            return found;
+        });
+        report(size, "findByIds (1)", jdbc, latencyNanos, () -> repo.findByIds(ids).size());
+    }
+
+    private static void report(int size, String name, FakeJdbc jdbc, long latencyNanos, Loader loader)
+            throws Exception {
+        int before = jdbc.roundTrips();
+        long start = System.nanoTime();
+        int loaded = 0;
+        for (int i = 0; i < RUNS; i++) {
+            loaded += loader.load();
+        }
+        long nanos = (System.nanoTime() - start) / RUNS;
+        if (loaded != size * RUNS) {
+            throw new IllegalStateException(name + ": " + loaded / RUNS + " statt " + size + " Medien");
+        }
+        if (latencyNanos > 0) {
+            System.out.printf("%-7d %-22s %12d %9.1f ms%n", size, name, (jdbc.roundTrips() - before) / RUNS,
+                    nanos / 1e6);
+        }
+    }
+
+    // Fruehere findAll-Variante: Medien ohne Genres laden, dann eine Query pro Medium.
+    private static int findAllWithGenreQueries(DataSource dataSource) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement stmt = connection.createStatement()) {
+                ResultSet rs = stmt.executeQuery("SELECT * FROM mediaentries");
+                while (rs.next()) {
+                    ids.add(rs.getInt("id"));
+                }
+            }
+            for (int id : ids) {
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "SELECT genre FROM media_genres WHERE mediaid = ?")) {
+                    stmt.setInt(1, id);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        rs.getString("genre");
+                    }
+                }
+            }
+        }
+        return ids.size();
+    }
+
+    // Genre-Query: zwei Genres; Einzel-Lookup: ein Medium; sonst der ganze Katalog.
+    private static List<Map<String, Object>> respond(String sql, int size) {
+        if (sql.contains("FROM media_genres WHERE mediaid")) {
+            return List.of(FakeJdbc.row("genre", "ACTION"), FakeJdbc.row("genre", "DRAMA"));
+        }
+        int rows = sql.contains("WHERE m.id = ?") ? 1 : size;
+        List<Map<String, Object>> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(FakeJdbc.row("id", i, "title", "Titel " + i, "mediatype", "MOVIE", "releaseyear", 2000,
+                    "agerestriction", 12, "creatorid", 1, "genres", new Object[]{"ACTION", "DRAMA"}));
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        int load() throws Exception;
+    }
+}
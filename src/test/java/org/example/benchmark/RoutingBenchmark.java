@@ -0,0 +1,132 @@
+package org.example.benchmark;
+
+import org.example.handler.AuthHandler;
+import org.example.handler.FavoritesHandler;
+import org.example.handler.LeaderboardHandler;
+import org.example.handler.MediaHandler;
+import org.example.handler.MetricsHandler;
+import org.example.handler.RatingHandler;
+import org.example.handler.UserHandler;
+import org.example.http.Router;
+
+// Benchmark: Dispatch-Kosten der Routing-Tabelle gegenueber dem frueheren Regex-Routing
+// (String.matches + split wie im alten MediaRouterHandler/RatingHandler/UserHandler).
+// Start: mvn test-compile, dann Klasse mit Test-Classpath ausfuehren.
+public class RoutingBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 5_000_000;
+
+    // Typischer Mix aus Requests (Methode, Pfad).
+    private static final String[][] REQUESTS = {
+            {"GET", "/api/media"},
+            {"GET", "/api/media/17"},
+            {"PUT", "/api/media/17"},
+            {"POST", "/api/media/17/rate"},
+            {"POST", "/api/media/17/favorite"},
+            {"PUT", "/api/ratings/5"},
+            {"POST", "/api/ratings/5/like"},
+            {"POST", "/api/ratings/5/confirm"},
+            {"GET", "/api/users/3/profile"},
+            {"GET", "/api/users/3/recommendations"},
+            {"GET", "/api/leaderboard"},
+            {"GET", "/api/media/abc"},
+    };
+
+    public static void main(String[] args) {
+        // Echte Handler-Registrierung; Services werden beim Matchen nicht benutzt.
+        Router router = new Router();
+        new AuthHandler(null).registerRoutes(router);
+        new UserHandler(null, null, null, null).registerRoutes(router);
+        new MediaHandler(null).registerRoutes(router);
+        new FavoritesHandler(null).registerRoutes(router);
+        new RatingHandler(null).registerRoutes(router);
+        new LeaderboardHandler(null).registerRoutes(router);
+        new MetricsHandler().registerRoutes(router);
+
+        long check = 0;
+        check += runRegex(WARMUP);
+        check += runRouter(router, WARMUP);
+
+        long start = System.nanoTime();
+        check += runRegex(ITERATIONS);
+        long regexNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        check += runRouter(router, ITERATIONS);
+        long routerNanos = System.nanoTime() - start;
+
+        System.out.printf("regex   %8.1f ns/Request%n", regexNanos / (double) ITERATIONS);
+        System.out.printf("router  %8.1f ns/Request%n", routerNanos / (double) ITERATIONS);
+        System.out.println("(Pruefsumme " + check + ")");
+    }
+
+    private static long runRouter(Router router, int iterations) {
+        long sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            Router.Match match = router.match(request[0], request[1]);
+            sum += match.getStatus() + match.getParams().size();
+        }
+        return sum;
+    }
+
+    private static long runRegex(int iterations) {
+        long sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            sum += legacyDispatch(request[1]);
+        }
+        return sum;
+    }
+
+    // Nachbau des alten Routings: Context-Praefix, dann matches()-Kette und split() fuer die ID.
+    private static int legacyDispatch(String path) {
+        if (path.startsWith("/api/media")) {
+            if (path.equals("/api/media")) {
+                return 200;
+            }
+            if (path.matches("^/api/media/\\d+$")) {
+                return idFromEnd(path, 1);
+            }
+            if (path.matches("^/api/media/\\d+/favorite$")) {
+                return idFromEnd(path, 2);
+            }
+            if (path.matches("^/api/media/\\d+/rate$")) {
+                // RatingHandler hat den Pfad noch einmal geprueft.
+                if (path.matches("^/api/media/\\d+/rate$")) {
+                    return idFromEnd(path, 2);
+                }
+            }
+            return 404;
+        }
+        if (path.startsWith("/api/ratings")) {
+            if (path.matches("^/api/media/\\d+/rate$")) {
+                return idFromEnd(path, 2);
+            }
+            if (path.matches("^/api/ratings/\\d+$")) {
+                return idFromEnd(path, 1);
+            }
+            if (path.matches("^/api/ratings/\\d+/like$")) {
+                return idFromEnd(path, 2);
+            }
+            if (path.matches("^/api/ratings/\\d+/confirm$")) {
+                return idFromEnd(path, 2);
+            }
+            return 404;
+        }
+        if (path.startsWith("/api/users")) {
+            int userId = idFromEnd(path, 2);
+            if (path.endsWith("/profile") || path.endsWith("/recommendations")) {
+                return userId;
+            }
+            return 404;
+        }
+        return path.equals("/api/leaderboard") ? 200 : 404;
+    }
+
+    private static int idFromEnd(String path, int indexFromEnd) {
+        String[] parts = path.split("/");
+        return Integer.parseInt(parts[parts.length - indexFromEnd]);
+    }
+}
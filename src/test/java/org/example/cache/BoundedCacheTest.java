@@ -0,0 +1,140 @@
+package org.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für BoundedCache (LRU + TTL).
+public class BoundedCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        // Test: Bei vollem Cache fliegt der am laengsten unbenutzte Eintrag raus.
+        BoundedCache<String, Integer> cache = new BoundedCache<>("test", 2, 60000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        // Test: Nach Ablauf der TTL zaehlt ein Zugriff als Miss.
+        AtomicLong now = new AtomicLong(1000);
+        BoundedCache<String, Integer> cache = new BoundedCache<>("test", 10, 100, now::get);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        now.addAndGet(100);
+        assertNull(cache.get("a"));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getExpirations());
+        assertEquals(0.5, stats.getHitRatio());
+    }
+
+    @Test
+    void invalidateIfRemovesMatchingEntries() {
+        // Test: Bedingtes Entfernen (z. B. alle Eintraege eines Users).
+        BoundedCache<String, Integer> cache = new BoundedCache<>("test", 10, 60000);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 1);
+        cache.invalidateIf((key, value) -> value == 1);
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.get("b"));
+    }
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        // Test: 16 gleichzeitige Misses fuer denselben Key -> genau ein Ladevorgang.
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(callers.submit(() -> cache.getOrLoad(1, key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "media-" + key;
+                })));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Warten, bis alle anderen Aufrufer am laufenden Ladevorgang haengen.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getStats().getCoalescedLoads() < 15 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("media-1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.getLoads());
+        assertEquals(15, stats.getCoalescedLoads());
+        assertEquals("media-1", cache.getOrLoad(1, key -> "neu"));
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    void invalidateDuringLoadDoesNotCacheStaleValue() {
+        // Test: Update waehrend des Ladens -> geladener (alter) Wert landet nicht im Cache.
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60000);
+        String loaded = cache.getOrLoad(1, key -> {
+            cache.invalidate(key);
+            return "alt";
+        });
+
+        assertEquals("alt", loaded);
+        assertEquals(0, cache.size());
+        assertEquals("neu", cache.getOrLoad(1, key -> "neu"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void failedAndNullLoadsAreNotCached() {
+        // Test: Fehler wird weitergegeben und gezaehlt; null (nicht gefunden) wird nicht gecacht.
+        BoundedCache<Integer, String> cache = new BoundedCache<>("test", 10, 60000);
+        assertThrows(IllegalStateException.class, () -> cache.getOrLoad(1, key -> {
+            throw new IllegalStateException("DB weg");
+        }));
+        assertNull(cache.getOrLoad(2, key -> null));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(0, cache.size());
+        assertEquals(2, stats.getLoads());
+        assertEquals(1, stats.getLoadFailures());
+        assertEquals("ok", cache.getOrLoad(1, key -> "ok"));
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.persistence.PageRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests für das Streamen von JSON-Arrays (lokaler HttpServer).
+public class HttpUtilTest {
+
+    private HttpServer server;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void streamsRowsAsChunkedJsonArray() throws Exception {
+        // Test: Elemente kommen als gültiges JSON-Array mit Chunked Transfer.
+        start(exchange -> HttpUtil.streamJsonArray(exchange, 500, sink -> {
+            for (int i = 1; i <= 3; i++) {
+                sink.accept(Map.of("id", i));
+            }
+        }));
+
+        HttpResponse<String> response = client.send(request(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"id\":1},{\"id\":2},{\"id\":3}]", response.body());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(""));
+        assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(""));
+    }
+
+    @Test
+    void emptyResultIsEmptyArray() throws Exception {
+        // Test: Keine Zeilen -> "[]".
+        start(exchange -> HttpUtil.streamJsonArray(exchange, 500, sink -> {
+        }));
+
+        HttpResponse<String> response = client.send(request(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("[]", response.body());
+    }
+
+    @Test
+    void pagedResponseHasItemsAndNextCursor() throws Exception {
+        // Test: Mit limit/cursor -> Umschlag {"items": [...], "nextCursor": ...}; ohne -> reines Array,
+        // eine abgeschnittene Liste meldet den Cursor im Header.
+        start(exchange -> {
+            boolean paged = exchange.getRequestURI().getQuery() != null;
+            PageRequest page = paged ? new PageRequest(2, null, true) : PageRequest.firstPage();
+            HttpUtil.streamJsonPage(exchange, 400, page, sink -> {
+                sink.accept(Map.of("id", 1));
+                sink.accept(Map.of("id", 2));
+                return "abc";
+            });
+        });
+
+        HttpResponse<String> paged = client.send(HttpRequest.newBuilder(URI.create(request().uri() + "?limit=2")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals("{\"items\":[{\"id\":1},{\"id\":2}],\"nextCursor\":\"abc\"}", paged.body());
+
+        HttpResponse<String> plain = client.send(request(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("[{\"id\":1},{\"id\":2}]", plain.body());
+        assertEquals("abc", plain.headers().firstValue(HttpUtil.NEXT_CURSOR_HEADER).orElse(""));
+        assertTrue(paged.headers().firstValue(HttpUtil.NEXT_CURSOR_HEADER).isEmpty());
+    }
+
+    @Test
+    void completeUnpagedListHasNoCursorHeader() throws Exception {
+        // Test: Vollstaendige Liste ohne limit/cursor -> kein X-Next-Cursor; Fehler -> Fehlerantwort.
+        start(exchange -> HttpUtil.streamJsonPage(exchange, 400, PageRequest.firstPage(), sink -> {
+            sink.accept(Map.of("id", 1));
+            if (exchange.getRequestURI().getQuery() != null) {
+                throw new Exception("Fehler beim Laden");
+            }
+            return null;
+        }));
+
+        HttpResponse<String> complete = client.send(request(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("[{\"id\":1}]", complete.body());
+        assertTrue(complete.headers().firstValue(HttpUtil.NEXT_CURSOR_HEADER).isEmpty());
+
+        HttpResponse<String> failed = client.send(HttpRequest.newBuilder(URI.create(request().uri() + "?fail")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, failed.statusCode());
+    }
+
+    @Test
+    void errorBeforeFirstRowSendsErrorStatus() throws Exception {
+        // Test: Fehler vor dem ersten Element -> normale Fehlerantwort.
+        start(exchange -> HttpUtil.streamJsonArray(exchange, 400, sink -> {
+            throw new Exception("Fehler beim Laden");
+        }));
+
+        HttpResponse<String> response = client.send(request(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Fehler beim Laden\"}", response.body());
+    }
+
+    @Test
+    void errorAfterFirstRowAbortsConnection() throws Exception {
+        // Test: Fehler mitten im Stream -> Verbindung bricht ab statt halbem JSON mit 200.
+        start(exchange -> HttpUtil.streamJsonArray(exchange, 400, sink -> {
+            for (int i = 0; i < 5000; i++) {
+                sink.accept(Map.of("id", i));
+            }
+            throw new Exception("DB weg");
+        }));
+
+        assertThrows(IOException.class, () -> client.send(request(), HttpResponse.BodyHandlers.ofString()));
+    }
+
+    @Test
+    void firstBytesArriveBeforeResultIsComplete() throws Exception {
+        // Test: Der Client liest schon, während der Server noch Zeilen erzeugt (nichts wird gesammelt).
+        CountDownLatch clientReading = new CountDownLatch(1);
+        start(exchange -> HttpUtil.streamJsonArray(exchange, 500, sink -> {
+            for (int i = 0; i < 20000; i++) {
+                sink.accept(Map.of("id", i, "title", "Titel " + i));
+            }
+            // Weiter erst, wenn der Client bereits Daten bekommen hat.
+            if (!clientReading.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Client hat nichts empfangen");
+            }
+            sink.accept(Map.of("id", -1));
+        }));
+
+        HttpResponse<InputStream> response = client.send(request(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            assertEquals('[', body.read());
+            clientReading.countDown();
+            String rest = new String(body.readAllBytes());
+            assertTrue(rest.endsWith("{\"id\":-1}]"));
+        }
+    }
+
+    @Test
+    void exportStreamsNdjsonAndCsv() throws Exception {
+        // Test: Gleiche Zeilen als NDJSON (ein Objekt pro Zeile) oder CSV mit Kopfzeile und Quoting.
+        List<String> columns = List.of("id", "comment", "createdAt");
+        Object[] row = {1, "gut, \"sehr\"", LocalDateTime.of(2024, 5, 1, 9, 30)};
+        start(exchange -> {
+            ExportFormat format = ExportFormat.parse(exchange.getRequestURI().getQuery());
+            HttpUtil.streamTable(exchange, 500, format, columns, sink -> {
+                sink.accept(row);
+                sink.accept(new Object[]{2, null, null});
+            });
+        });
+
+        HttpResponse<String> ndjson = client.send(request(), HttpResponse.BodyHandlers.ofString());
+        assertEquals("{\"id\":1,\"comment\":\"gut, \\\"sehr\\\"\",\"createdAt\":\"2024-05-01T09:30:00\"}\n"
+                + "{\"id\":2,\"comment\":null,\"createdAt\":null}\n", ndjson.body());
+        assertEquals("application/x-ndjson", ndjson.headers().firstValue("Content-Type").orElse(""));
+        assertEquals("chunked", ndjson.headers().firstValue("Transfer-Encoding").orElse(""));
+
+        HttpResponse<String> csv = client.send(HttpRequest.newBuilder(URI.create(request().uri() + "?csv")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals("id,comment,createdAt\r\n1,\"gut, \"\"sehr\"\"\",2024-05-01T09:30\r\n2,,\r\n", csv.body());
+    }
+
+    private void start(com.sun.net.httpserver.HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", handler);
+        server.start();
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/stream")).build();
+    }
+}
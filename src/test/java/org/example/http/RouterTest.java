@@ -0,0 +1,92 @@
+package org.example.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für den Router (ohne HttpServer, nur match()).
+public class RouterTest {
+
+    private static final Router.Route NOOP = (exchange, params) -> {
+    };
+
+    @Test
+    void bindsTypedPathVariables() {
+        // Test: {id:int} wird als int gebunden, {name} als Text.
+        Router router = new Router()
+                .post("/api/media/{mediaId:int}/rate", NOOP)
+                .get("/api/tags/{name}", NOOP);
+
+        Router.Match rate = router.match("POST", "/api/media/42/rate");
+        assertEquals(200, rate.getStatus());
+        assertSame(NOOP, rate.getRoute());
+        assertEquals(42, rate.getParams().getInt("mediaId"));
+
+        Router.Match tag = router.match("GET", "/api/tags/drama");
+        assertEquals("drama", tag.getParams().get("name"));
+        assertThrows(IllegalArgumentException.class, () -> tag.getParams().getInt("name"));
+    }
+
+    @Test
+    void unknownPathIs404() {
+        // Test: Nicht-numerische ID, Überlauf, Slash am Ende und fremde Pfade -> 404.
+        Router router = new Router().get("/api/media", NOOP).get("/api/media/{id:int}", NOOP);
+
+        assertEquals(404, router.match("GET", "/api/media/abc").getStatus());
+        assertEquals(404, router.match("GET", "/api/media/99999999999").getStatus());
+        assertEquals(404, router.match("GET", "/api/media/").getStatus());
+        assertEquals(404, router.match("GET", "/api").getStatus());
+        assertEquals(404, router.match("GET", "/api/media/1/rate").getStatus());
+        assertEquals(200, router.match("GET", "/api/media/2147483647").getStatus());
+    }
+
+    @Test
+    void wrongMethodIs405WithAllowedMethods() {
+        // Test: Pfad bekannt, Methode nicht -> 405 mit erlaubten Methoden.
+        Router router = new Router()
+                .put("/api/ratings/{id:int}", NOOP)
+                .delete("/api/ratings/{id:int}", NOOP);
+
+        Router.Match match = router.match("GET", "/api/ratings/5");
+        assertEquals(405, match.getStatus());
+        assertEquals(List.of("PUT", "DELETE"), match.getAllowedMethods());
+    }
+
+    @Test
+    void literalSegmentWinsOverVariable() {
+        // Test: Festes Segment hat Vorrang, sonst greift die Variable.
+        Router.Route literal = (exchange, params) -> {
+        };
+        Router router = new Router()
+                .get("/api/users/{name}/profile", NOOP)
+                .get("/api/users/me/profile", literal);
+
+        assertSame(literal, router.match("GET", "/api/users/me/profile").getRoute());
+        assertSame(NOOP, router.match("GET", "/api/users/anna/profile").getRoute());
+    }
+
+    @Test
+    void backtracksWhenLiteralBranchHasNoRoute() {
+        // Test: Passt der feste Zweig nicht bis zum Ende, wird die Variable probiert.
+        Router router = new Router()
+                .get("/api/media/top/list", NOOP)
+                .get("/api/media/{id}", NOOP);
+
+        Router.Match match = router.match("GET", "/api/media/top");
+        assertEquals(200, match.getStatus());
+        assertEquals("top", match.getParams().get("id"));
+    }
+
+    @Test
+    void rejectsInvalidTemplates() {
+        // Test: Doppelte Route, unbekannter Typ und doppelte Variable werden beim Start erkannt.
+        Router router = new Router().get("/api/media/{id:int}", NOOP);
+
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/media/{other:int}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/x/{id:uuid}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/api/{id}/{id}", NOOP));
+        assertThrows(IllegalArgumentException.class, () -> router.get("api/media", NOOP));
+    }
+}
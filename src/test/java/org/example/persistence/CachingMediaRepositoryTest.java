@@ -0,0 +1,80 @@
+package org.example.persistence;
+
+import org.example.domain.MediaEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für CachingMediaRepository (Read-Through-Cache fuer findById).
+public class CachingMediaRepositoryTest {
+
+    private static final String FIND_BY_ID = "WHERE m.id = ?";
+
+    @Test
+    void secondFindByIdNeedsNoQuery() {
+        // Test: Wiederholtes Lesen desselben Mediums -> nur 1 Round-Trip.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(media(1, "Inception")));
+        CachingMediaRepository repo = new CachingMediaRepository(jdbc.dataSource(), 10, 60000);
+
+        assertEquals("Inception", repo.findById(1).getTitle());
+        assertEquals("Inception", repo.findById(1).getTitle());
+
+        assertEquals(1, jdbc.count(FIND_BY_ID));
+        assertEquals(0.5, repo.getCacheStats().getHitRatio());
+        assertEquals(1, repo.getCacheStats().getLoads());
+    }
+
+    @Test
+    void returnedEntriesAreCopies() {
+        // Test: Aenderungen am Ergebnis (wie in MediaService.update) veraendern den Cache nicht.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(media(1, "Inception")));
+        CachingMediaRepository repo = new CachingMediaRepository(jdbc.dataSource(), 10, 60000);
+
+        MediaEntry first = repo.findById(1);
+        first.setTitle("geaendert");
+        first.getGenres().add("DRAMA");
+
+        MediaEntry second = repo.findById(1);
+        assertEquals("Inception", second.getTitle());
+        assertEquals(List.of("SCIFI"), second.getGenres());
+    }
+
+    @Test
+    void writesInvalidateEntry() throws Exception {
+        // Test: update und delete entfernen den Eintrag -> naechstes findById liest neu.
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.startsWith("WITH target")
+                ? List.of(FakeJdbc.row("ownerid", 1, "id", 1, "removed", 1))
+                : sql.contains(FIND_BY_ID) ? List.of(media(1, "Inception")) : List.of());
+        CachingMediaRepository repo = new CachingMediaRepository(jdbc.dataSource(), 10, 60000);
+
+        MediaEntry changes = new MediaEntry();
+        changes.setTitle("Inception (Director's Cut)");
+        repo.findById(1);
+        assertEquals(OwnedWrite.Status.DONE, repo.update(1, changes, 1).status());
+        repo.findById(1);
+        assertEquals(2, jdbc.count(FIND_BY_ID));
+
+        assertEquals(OwnedWrite.Status.DONE, repo.deleteWithRatings(1, 1).status());
+        repo.findById(1);
+        assertEquals(3, jdbc.count(FIND_BY_ID));
+    }
+
+    @Test
+    void missingMediaIsNotCached() {
+        // Test: Nicht gefundenes Medium -> null, kein Cache-Eintrag (z. B. gleich danach angelegt).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of());
+        CachingMediaRepository repo = new CachingMediaRepository(jdbc.dataSource(), 10, 60000);
+
+        assertNull(repo.findById(42));
+        assertNull(repo.findById(42));
+        assertEquals(2, jdbc.count(FIND_BY_ID));
+    }
+
+    private static Map<String, Object> media(int id, String title) {
+        return FakeJdbc.row("id", id, "title", title, "mediatype", "MOVIE", "releaseyear", 2010,
+                "genres", new Object[]{"SCIFI"});
+    }
+}
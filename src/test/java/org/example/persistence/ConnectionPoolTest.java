@@ -0,0 +1,123 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für ConnectionPool (mit Fake-Verbindungen, ohne echte Datenbank).
+public class ConnectionPoolTest {
+
+    @Test
+    void reusesReturnedConnection() throws Exception {
+        // Test: Nach close() wird dieselbe physische Verbindung wiederverwendet.
+        FakeFactory factory = new FakeFactory();
+        try (ConnectionPool pool = new ConnectionPool(factory, 1, 2, 100, 60000, 60000)) {
+            try (Connection c = pool.getConnection()) {
+                assertFalse(c.isClosed());
+            }
+            try (Connection c = pool.getConnection()) {
+                assertFalse(c.isClosed());
+            }
+            assertEquals(1, factory.created.get());
+            assertEquals(2, pool.getStats().getAcquireCount());
+            assertEquals(1, pool.getStats().getIdle());
+        }
+    }
+
+    @Test
+    void timesOutWhenExhausted() throws Exception {
+        // Test: Mehr als maxSize gleichzeitig -> SQLException nach Timeout.
+        try (ConnectionPool pool = new ConnectionPool(new FakeFactory(), 0, 1, 50, 60000, 60000)) {
+            Connection first = pool.getConnection();
+            assertEquals(1, pool.getStats().getActive());
+
+            SQLException ex = assertThrows(SQLException.class, pool::getConnection);
+            assertEquals("Keine freie DB-Verbindung nach 50 ms", ex.getMessage());
+            assertEquals(1, pool.getStats().getAcquireTimeouts());
+
+            first.close();
+            try (Connection second = pool.getConnection()) {
+                assertNotNull(second);
+            }
+        }
+    }
+
+    @Test
+    void replacesInvalidConnection() throws Exception {
+        // Test: Ungueltige Verbindung (z. B. nach DB-Neustart) wird verworfen und ersetzt.
+        FakeFactory factory = new FakeFactory();
+        try (ConnectionPool pool = new ConnectionPool(factory, 1, 2, 100, 60000, 0)) {
+            factory.valid.set(false);
+            Connection c = pool.getConnection();
+            factory.valid.set(true);
+            c.close();
+
+            assertEquals(2, factory.created.get());
+            assertEquals(1, pool.getStats().getValidationFailures());
+            assertEquals(1, pool.getStats().getTotal());
+        }
+    }
+
+    @Test
+    void closedLeaseRejectsCalls() throws Exception {
+        // Test: Zurueckgegebene Verbindung darf nicht weiter benutzt werden.
+        try (ConnectionPool pool = new ConnectionPool(new FakeFactory(), 0, 1, 100, 60000, 60000)) {
+            Connection c = pool.getConnection();
+            c.close();
+            assertTrue(c.isClosed());
+            assertThrows(SQLException.class, () -> c.prepareStatement("SELECT 1"));
+        }
+    }
+
+    @Test
+    void detectsLeak() throws Exception {
+        // Test: Nicht zurueckgegebene Verbindung wird nach Schwellwert gemeldet.
+        try (ConnectionPool pool = new ConnectionPool(new FakeFactory(), 0, 1, 100, 100, 60000)) {
+            Connection leaked = pool.getConnection();
+            long deadline = System.currentTimeMillis() + 3000;
+            while (pool.getStats().getLeaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, pool.getStats().getLeaksDetected());
+            leaked.close();
+        }
+    }
+
+    // Erzeugt Fake-Verbindungen per Proxy (nur die vom Pool benutzten Methoden).
+    static class FakeFactory implements ConnectionPool.ConnectionFactory {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+
+        @Override
+        public Connection create() {
+            created.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isValid":
+                                return valid.get();
+                            case "isClosed":
+                                return closed.get();
+                            case "close":
+                                closed.set(true);
+                                return null;
+                            case "getAutoCommit":
+                                return true;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.persistence;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Minimale JDBC-Attrappe fuer Repository-Tests: zaehlt Round-Trips und liefert vorgegebene Zeilen.
+// Oeffentlich fuer Benchmarks (dort mit simulierter Latenz pro Statement).
+public class FakeJdbc {
+    // SQL -> Ergebniszeilen (Spaltennamen klein geschrieben).
+    private final Function<String, List<Map<String, Object>>> responder;
+    // Simulierte Dauer eines Round-Trips (0 = keine).
+    private final long latencyNanos;
+    // Alle ausgefuehrten Statements (ein Eintrag = ein Round-Trip).
+    final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    // Pro Query: gesetzte Fetch-Size (Cursor-Betrieb pruefen).
+    final List<Integer> fetchSizes = Collections.synchronizedList(new ArrayList<>());
+    // Pro Query/Update: ob autoCommit aktiv war (Transaktionen pruefen).
+    final List<Boolean> autoCommits = Collections.synchronizedList(new ArrayList<>());
+    // Pro Query/Update: gesetzte Parameter in Reihenfolge des Index.
+    final List<List<Object>> parameters = Collections.synchronizedList(new ArrayList<>());
+
+    FakeJdbc(Function<String, List<Map<String, Object>>> responder) {
+        this(responder, 0);
+    }
+
+    public FakeJdbc(Function<String, List<Map<String, Object>>> responder, long latencyNanos) {
+        this.responder = responder;
+        this.latencyNanos = latencyNanos;
+    }
+
+    // Anzahl aller Round-Trips bisher.
+    public int roundTrips() {
+        return executed.size();
+    }
+
+    // Anzahl Round-Trips, deren SQL den Text enthaelt.
+    long count(String sqlPart) {
+        synchronized (executed) {
+            return executed.stream().filter(sql -> sql.contains(sqlPart)).count();
+        }
+    }
+
+    public DataSource dataSource() {
+        return proxy(DataSource.class, (method, args) -> {
+            if (method.equals("getConnection")) {
+                return connection();
+            }
+            return null;
+        });
+    }
+
+    private Connection connection() {
+        boolean[] autoCommit = {true};
+        return proxy(Connection.class, (method, args) -> {
+            switch (method) {
+                case "prepareStatement":
+                    return statement((String) args[0], autoCommit);
+                case "createStatement":
+                    return statement(null, autoCommit);
+                case "getAutoCommit":
+                    return autoCommit[0];
+                case "setAutoCommit":
+                    autoCommit[0] = (Boolean) args[0];
+                    return null;
+                case "isClosed":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private PreparedStatement statement(String preparedSql, boolean[] autoCommit) {
+        int[] batchSize = {0};
+        int[] fetchSize = {0};
+        Map<Integer, Object> bound = new TreeMap<>();
+        return proxy(PreparedStatement.class, (method, args) -> {
+            if (method.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bound.put((Integer) args[0], method.equals("setNull") ? null : args[1]);
+                return null;
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            switch (method) {
+                case "setFetchSize":
+                    fetchSize[0] = (Integer) args[0];
+                    return null;
+                case "executeQuery":
+                    roundTrip(sql);
+                    fetchSizes.add(fetchSize[0]);
+                    autoCommits.add(autoCommit[0]);
+                    parameters.add(new ArrayList<>(bound.values()));
+                    return resultSet(responder.apply(sql));
+                case "executeUpdate":
+                    roundTrip(sql);
+                    autoCommits.add(autoCommit[0]);
+                    parameters.add(new ArrayList<>(bound.values()));
+                    return responder.apply(sql).size();
+                case "execute":
+                    roundTrip(sql);
+                    return false;
+                case "executeBatch":
+                    roundTrip(sql);
+                    return new int[batchSize[0]];
+                case "addBatch":
+                    batchSize[0]++;
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    // Statement merken und die simulierte Latenz abwarten.
+    private void roundTrip(String sql) {
+        executed.add(sql);
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    private ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] index = {-1};
+        Object[] last = {null};
+        return proxy(ResultSet.class, (method, args) -> {
+            if (method.equals("next")) {
+                index[0]++;
+                return index[0] < rows.size();
+            }
+            if (method.equals("wasNull")) {
+                return last[0] == null;
+            }
+            if (method.equals("close")) {
+                return null;
+            }
+            Object value = rows.get(index[0]).get(((String) args[0]).toLowerCase());
+            last[0] = value;
+            switch (method) {
+                case "getInt":
+                    return value == null ? 0 : ((Number) value).intValue();
+                case "getLong":
+                    return value == null ? 0L : ((Number) value).longValue();
+                case "getDouble":
+                    return value == null ? 0.0 : ((Number) value).doubleValue();
+                case "getBigDecimal":
+                    return value == null ? null : new BigDecimal(value.toString());
+                case "getBoolean":
+                    return value != null && (Boolean) value;
+                case "getString":
+                    return value == null ? null : value.toString();
+                case "getTimestamp":
+                    return (Timestamp) value;
+                case "getArray":
+                    return value == null ? null : array((Object[]) value);
+                default:
+                    return value;
+            }
+        });
+    }
+
+    private Array array(Object[] values) {
+        return proxy(Array.class, (method, args) -> method.equals("getArray") ? values : null);
+    }
+
+    // Zeile bauen: row("id", 1, "title", "x", ...).
+    public static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    private interface Handler {
+        Object handle(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                        return null;
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    Object result = handler.handle(method.getName(), args);
+                    if (result == null && method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+                        return defaultValue(method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        return 0;
+    }
+}
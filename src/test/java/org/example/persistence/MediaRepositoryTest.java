@@ -0,0 +1,280 @@
+package org.example.persistence;
+
+import org.example.domain.MediaEntry;
+import org.example.domain.MediaRatingStats;
+import org.example.domain.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Round-Trip-Tests für MediaRepository (Genres werden in der Hauptquery mitgeladen).
+public class MediaRepositoryTest {
+
+    private static final int CATALOG_SIZE = 5000;
+
+    @Test
+    void bulkInsertStreamsRowsThroughCopyAndMergesOnce() throws Exception {
+        // Test: Import = Staging-Tabelle + COPY + eine Merge-Anweisung in einer Transaktion (statt INSERT + Genre-Batch pro Medium).
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.startsWith("WITH staged") ? List.of(FakeJdbc.row("media", 2)) : List.of());
+        ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        List<String> copySql = new ArrayList<>();
+        MediaRepository repo = new MediaRepository(jdbc.dataSource()) {
+            @Override
+            protected OutputStream openCopy(Connection connection, String sql) {
+                copySql.add(sql);
+                return copied;
+            }
+        };
+        MediaEntry quoted = importable("Say \"Hi\", Bob");
+        quoted.setGenres(List.of("A\"B", "C\\D"));
+        MediaEntry plain = importable("Plain");
+        plain.setDescription(null);
+
+        int imported = repo.bulkInsert(7, sink -> {
+            sink.accept(quoted);
+            sink.accept(plain);
+        });
+
+        assertEquals(2, imported);
+        assertEquals(2, jdbc.executed.size());
+        assertTrue(jdbc.executed.get(0).startsWith("CREATE TEMP TABLE media_import"));
+        assertTrue(jdbc.executed.get(1).contains("INSERT INTO media_genres"));
+        assertTrue(jdbc.executed.get(1).contains("INSERT INTO media_rating_stats (mediaid) SELECT id FROM media"));
+        assertEquals(List.of(7), jdbc.parameters.get(0));
+        assertEquals(List.of(false), jdbc.autoCommits);
+        assertTrue(copySql.get(0).startsWith("COPY media_import"));
+        assertEquals("1,\"Say \"\"Hi\"\", Bob\",\"desc\",\"MOVIE\",2000,12,\"{\"\"A\\\"\"B\"\",\"\"C\\\\D\"\"}\"\n"
+                        + "2,\"Plain\",,\"MOVIE\",2000,12,\"{\"\"ACTION\"\"}\"\n",
+                copied.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void findAllNeedsOneRoundTripForWholeCatalog() {
+        // Test: 5000 Medien -> 1 Query statt 5001 (vorher eine Genre-Query pro Zeile).
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(CATALOG_SIZE));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        List<MediaEntry> all = repo.findAll();
+
+        assertEquals(CATALOG_SIZE, all.size());
+        assertEquals(1, jdbc.executed.size());
+        assertEquals(List.of("ACTION", "GENRE-7"), all.get(7).getGenres());
+    }
+
+    @Test
+    void searchAndRecommendationsNeedOneRoundTrip() throws Exception {
+        // Test: Suche laedt Genres ohne Extra-Queries; Empfehlungs-Kandidaten kommen per Cursor ohne Genres
+        // und ohne MediaEntry pro Zeile (Sortierung/Auswahl im Service).
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(100));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+        List<Integer> candidates = new ArrayList<>();
+
+        assertEquals(100, repo.search("t", "ACTION", "MOVIE", null, null, 3.0, "score").size());
+        assertEquals(100, repo.streamGenreCandidates(1, null, (id, matched, liked, average, ratings) -> candidates.add(id)));
+        assertEquals(100, repo.streamContentCandidates(1, "Action", (id, matched, liked, average, ratings) -> { }));
+        assertEquals(3, jdbc.executed.size());
+        assertEquals(0, jdbc.count("FROM media_genres WHERE mediaid = ?"));
+        assertEquals(1, jdbc.count("ARRAY(SELECT g.genre"));
+        assertEquals(List.of(0, 1, 2), candidates.subList(0, 3));
+        assertEquals(List.of(DatabaseConnection.STREAM_FETCH_SIZE, DatabaseConnection.STREAM_FETCH_SIZE),
+                jdbc.fetchSizes.subList(1, 3));
+        assertTrue(jdbc.executed.get(2).contains("(m.mediatype, m.agerestriction) IN"));
+        assertFalse(jdbc.executed.get(1).contains("LOWER(gf.genre) = ?"));
+        assertTrue(jdbc.executed.get(2).contains("LOWER(gf.genre) = ?"));
+        assertEquals(List.of(1, 1, 1, "action"), jdbc.parameters.get(2));
+    }
+
+    @Test
+    void searchReadsScoreFromStatsTable() throws Exception {
+        // Test: Kein AVG ueber alle Ratings mehr; Statistik-Tabelle nur bei Rating-Filter oder Score-Sortierung.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of());
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        repo.search("t", null, null, null, null, null, "title");
+        repo.search(null, null, null, null, null, 3.0, null);
+        repo.streamSearchPage(null, null, null, null, null, null, "score", PageRequest.firstPage(), media -> { });
+
+        assertEquals(0, jdbc.count("FROM ratings"));
+        assertFalse(jdbc.executed.get(0).contains("media_rating_stats"));
+        assertTrue(jdbc.executed.get(1).contains("LEFT JOIN media_rating_stats r ON r.mediaid = m.id"));
+        assertTrue(jdbc.executed.get(2).contains(" JOIN media_rating_stats r ON r.mediaid = m.id"));
+        assertFalse(jdbc.executed.get(2).contains("LEFT JOIN"));
+    }
+
+    @Test
+    void ratingStatsMapHistogram() throws Exception {
+        // Test: Statistik-Zeile -> Anzahl, Durchschnitt und Sterne-Verteilung; ohne Zeile alles 0.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("ratingcount", 3, "starsum", 11,
+                "stars1", 0, "stars2", 0, "stars3", 1, "stars4", 0, "stars5", 2)));
+        MediaRatingStats stats = new MediaRepository(jdbc.dataSource()).findRatingStats(1);
+
+        assertEquals(3, stats.getRatingCount());
+        assertEquals(11 / 3.0, stats.getAverageScore(), 1e-9);
+        assertEquals(Map.of(1, 0, 2, 0, 3, 1, 4, 0, 5, 2), stats.getStarCounts());
+
+        MediaRatingStats empty = new MediaRepository(new FakeJdbc(sql -> List.of()).dataSource()).findRatingStats(1);
+        assertEquals(0, empty.getRatingCount());
+        assertEquals(0, empty.getStarCounts().get(5));
+    }
+
+    @Test
+    void ownedUpdateAndDeleteNeedOneRoundTrip() throws Exception {
+        // Test: Update/Loeschen inkl. Ersteller-Pruefung und Genres = 1 Anweisung; nicht angegebene Felder -> NULL.
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.contains("AS raters")
+                ? List.of(FakeJdbc.row("ownerid", 1, "removed", 1, "ratingids", new Object[]{20, 21},
+                        "raters", new Object[]{3, 4}))
+                : List.of(FakeJdbc.row("ownerid", 1, "id", 9, "title", "Neu", "genres", new Object[]{"DRAMA"})));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        MediaEntry changes = new MediaEntry();
+        changes.setTitle("Neu");
+        OwnedWrite<MediaEntry> updated = repo.update(9, changes, 1);
+        assertEquals(OwnedWrite.Status.DONE, updated.status());
+        assertEquals("Neu", updated.value().getTitle());
+        assertEquals(List.of("DRAMA"), updated.value().getGenres());
+        assertEquals(Arrays.asList(9, "Neu", null, null, null, null, 1, null, null, null, null),
+                jdbc.parameters.get(0));
+
+        OwnedWrite<List<Rating>> deleted = repo.deleteWithRatings(9, 1);
+        assertEquals(List.of(20, 21), deleted.value().stream().map(Rating::getId).toList());
+        assertEquals(List.of(3, 4), deleted.value().stream().map(Rating::getUserId).toList());
+        assertEquals(2, jdbc.executed.size());
+        assertEquals(List.of(true, true), jdbc.autoCommits);
+    }
+
+    @Test
+    void ownedWritesDistinguishMissingAndForeign() throws Exception {
+        // Test: Keine Zeile -> NOT_FOUND; fremdes Medium -> FORBIDDEN (nichts geaendert/geloescht).
+        MediaRepository missing = new MediaRepository(new FakeJdbc(sql -> List.of()).dataSource());
+        assertEquals(OwnedWrite.Status.NOT_FOUND, missing.update(9, new MediaEntry(), 1).status());
+        assertEquals(OwnedWrite.Status.NOT_FOUND, missing.deleteWithRatings(9, 1).status());
+
+        MediaRepository foreign = new MediaRepository(new FakeJdbc(
+                sql -> List.of(FakeJdbc.row("ownerid", 2, "removed", 0L))).dataSource());
+        assertEquals(OwnedWrite.Status.FORBIDDEN, foreign.update(9, new MediaEntry(), 1).status());
+        assertEquals(OwnedWrite.Status.FORBIDDEN, foreign.deleteWithRatings(9, 1).status());
+    }
+
+    @Test
+    void favoritesIncludeGenres() throws Exception {
+        // Test: Favoritenliste enthaelt jetzt auch die Genres.
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(3));
+        FavoriteRepository repo = new FavoriteRepository(jdbc.dataSource());
+
+        List<MediaEntry> favorites = repo.findFavoritesByUser(1);
+        assertEquals(3, favorites.size());
+        assertEquals(List.of("ACTION", "GENRE-2"), favorites.get(2).getGenres());
+        assertEquals(1, jdbc.executed.size());
+    }
+
+    @Test
+    void streamPageUsesCursorAndStopsAtLimit() throws Exception {
+        // Test: Seite setzt Fetch-Size, arbeitet ohne autoCommit (PostgreSQL-Cursor) und liefert hoechstens limit Zeilen.
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(CATALOG_SIZE));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        int[] count = {0};
+        String next = repo.streamSearchPage("t", null, null, null, null, null, "title",
+                new PageRequest(50, null, true), media -> count[0]++);
+
+        assertEquals(50, count[0]);
+        assertNotNull(next);
+        assertTrue(jdbc.executed.get(0).contains("ORDER BY m.title ASC, m.id ASC LIMIT ?"));
+        assertEquals(51, jdbc.parameters.get(0).get(jdbc.parameters.get(0).size() - 1));
+        assertEquals(List.of(DatabaseConnection.STREAM_FETCH_SIZE), jdbc.fetchSizes);
+        assertEquals(List.of(false), jdbc.autoCommits);
+    }
+
+    @Test
+    void nextPageStartsAfterCursorWithoutOffset() throws Exception {
+        // Test: Cursor der ersten Seite -> Keyset-Bedingung (title, id) > (?, ?) statt OFFSET.
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(3));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        String next = repo.streamSearchPage(null, null, null, null, null, null, "title",
+                new PageRequest(2, null, true), media -> { });
+        PageCursor cursor = PageCursor.decode(next);
+        assertEquals("title", cursor.getSort());
+        assertEquals("Titel 1", cursor.getKey());
+        assertEquals(1, cursor.getId());
+
+        List<MediaEntry> received = new ArrayList<>();
+        String last = repo.streamSearchPage(null, null, null, null, null, null, "title",
+                new PageRequest(5, cursor, true), received::add);
+
+        assertNull(last);
+        assertEquals(3, received.size());
+        String sql = jdbc.executed.get(1);
+        assertTrue(sql.contains("AND (m.title, m.id) > (?, ?)"));
+        assertFalse(sql.contains("OFFSET"));
+        assertEquals(List.of("Titel 1", 1, 6), jdbc.parameters.get(1));
+    }
+
+    @Test
+    void scoreCursorKeepsDescendingOrder() throws Exception {
+        // Test: Score absteigend -> zwei Index-Bereiche (gleicher Score mit groesserer ID, dann kleinerer Score),
+        // Filter in beiden Teilen.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of());
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        PageCursor after = new PageCursor("score", "4.5", 12);
+        repo.streamSearchPage(null, null, "GAME", null, null, null, "score", new PageRequest(10, after, true),
+                media -> { });
+
+        String sql = jdbc.executed.get(0);
+        assertTrue(sql.contains("AND COALESCE(r.avgscore, -1) = ? AND r.mediaid > ? "
+                + "ORDER BY COALESCE(r.avgscore, -1) DESC, r.mediaid ASC LIMIT ?) UNION ALL ("));
+        assertTrue(sql.contains("AND COALESCE(r.avgscore, -1) < ? ORDER BY COALESCE(r.avgscore, -1) DESC"));
+        assertTrue(sql.endsWith(") m ORDER BY m.sortkey DESC, m.id ASC LIMIT ?"));
+        assertFalse(sql.contains(" OR "));
+        java.math.BigDecimal key = new java.math.BigDecimal("4.5");
+        assertEquals(List.of("game", key, 12, 11, "game", key, 11, 11), jdbc.parameters.get(0));
+    }
+
+    @Test
+    void streamStopsWhenSinkFails() {
+        // Test: IOException im Sink (Client weg) bricht das Lesen ab.
+        FakeJdbc jdbc = new FakeJdbc(sql -> catalog(CATALOG_SIZE));
+        MediaRepository repo = new MediaRepository(jdbc.dataSource());
+
+        int[] count = {0};
+        assertThrows(java.io.IOException.class, () -> repo.streamSearchPage(null, null, null, null, null, null, null,
+                PageRequest.firstPage(), media -> {
+            if (++count[0] == 10) {
+                throw new java.io.IOException("Client getrennt");
+            }
+        }));
+        assertEquals(10, count[0]);
+    }
+
+    // Fake-Katalog: jede Zeile hat bereits das aggregierte Genre-Array.
+    private static MediaEntry importable(String title) {
+        MediaEntry media = new MediaEntry();
+        media.setTitle(title);
+        media.setDescription("desc");
+        media.setMediaType("MOVIE");
+        media.setReleaseYear(2000);
+        media.setAgeRestriction(12);
+        media.setGenres(List.of("ACTION"));
+        return media;
+    }
+
+    private static List<Map<String, Object>> catalog(int size) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rows.add(FakeJdbc.row("id", i, "title", "Titel " + i, "mediatype", "MOVIE", "releaseyear", 2000,
+                    "agerestriction", 12, "creatorid", 1, "genres", new Object[]{"ACTION", "GENRE-" + i},
+                    "sortkey", "Titel " + i));
+        }
+        return rows;
+    }
+}
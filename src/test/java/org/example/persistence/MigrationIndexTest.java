@@ -0,0 +1,137 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// EXPLAIN-Tests gegen eine echte PostgreSQL-Datenbank: jede Query aus den Repositories muss ihren Index nutzen.
+// Laeuft nur mit -Dmrp.test.db.url=jdbc:postgresql://... (Datenbank wird migriert, Daten bleiben unveraendert).
+@EnabledIfSystemProperty(named = "mrp.test.db.url", matches = ".+")
+public class MigrationIndexTest {
+
+    private static ConnectionPool pool;
+
+    @BeforeAll
+    static void migrate() throws Exception {
+        String url = System.getProperty("mrp.test.db.url");
+        pool = new ConnectionPool(() -> DriverManager.getConnection(url), 0, 2, 5000, 60000, 60000);
+        MigrationRunner.fromClasspath(pool).migrate();
+    }
+
+    @AfterAll
+    static void close() {
+        pool.close();
+    }
+
+    @Test
+    void tokenLookupUsesIndex() throws Exception {
+        // Test: UserRepository.findByToken
+        assertUsesIndex("SELECT * FROM users WHERE token = 'abc'", "idx_users_token");
+    }
+
+    @Test
+    void ratingHistoryUsesIndex() throws Exception {
+        // Test: RatingRepository.streamByUserPage (erste und Folgeseite)
+        assertUsesIndex("SELECT * FROM ratings WHERE userid = 1 ORDER BY createdat DESC, id DESC LIMIT 21",
+                "idx_ratings_user_created");
+        assertUsesIndex("SELECT * FROM ratings WHERE userid = 1 AND (createdat, id) < ('2024-01-01', 5) "
+                + "ORDER BY createdat DESC, id DESC LIMIT 21", "idx_ratings_user_created");
+    }
+
+    @Test
+    void profileUsesPrimaryKeys() throws Exception {
+        // Test: UserRepository.findProfile (users und user_stats per Primaerschluessel, kein Zaehlen)
+        assertUsesIndex("SELECT u.id, s.ratingcount FROM users u LEFT JOIN user_stats s ON s.userid = u.id "
+                + "WHERE u.id = 1", "user_stats_pkey");
+    }
+
+    @Test
+    void favoritesUseIndex() throws Exception {
+        // Test: FavoriteRepository.findFavoritesByUser
+        assertUsesIndex("SELECT m.* FROM mediaentries m JOIN favorites f ON f.mediaid = m.id WHERE f.userid = 1",
+                "idx_favorites_user");
+    }
+
+    @Test
+    void genreFiltersUseIndex() throws Exception {
+        // Test: Genre-Filter der Suche (LOWER) und Genre-Empfehlungen (IN)
+        assertUsesIndex("SELECT mg.mediaid FROM media_genres mg WHERE LOWER(mg.genre) = 'action'",
+                "idx_media_genres_genre_lower");
+        assertUsesIndex("SELECT mg.mediaid FROM media_genres mg WHERE mg.genre IN ('ACTION', 'DRAMA')",
+                "idx_media_genres_genre");
+    }
+
+    @Test
+    void titleSearchUsesTrigramIndex() throws Exception {
+        // Test: LOWER(m.title) LIKE '%...%' kann keinen B-Baum nutzen, aber den Trigramm-Index
+        assertUsesIndex("SELECT m.* FROM mediaentries m WHERE LOWER(m.title) LIKE '%matrix%'",
+                "idx_mediaentries_title_trgm");
+    }
+
+    @Test
+    void keysetPagesUseIndex() throws Exception {
+        // Test: MediaRepository.streamSearchPage (Titel, Jahr) und Rating-Filter
+        assertUsesIndex("SELECT m.* FROM mediaentries m WHERE (m.title, m.id) > ('M', 10) "
+                + "ORDER BY m.title ASC, m.id ASC LIMIT 21", "idx_mediaentries_title_id");
+        assertUsesIndex("SELECT m.* FROM mediaentries m ORDER BY COALESCE(m.releaseyear, 2147483647) ASC, m.id ASC LIMIT 21",
+                "idx_mediaentries_year_id");
+        assertUsesIndex("SELECT mediaid FROM media_rating_stats r WHERE r.avgscore >= 4",
+                "idx_media_rating_stats_avg");
+    }
+
+    @Test
+    void topCommentsUseIndex() throws Exception {
+        // Test: RatingRepository.streamTopComments
+        assertUsesIndex("SELECT * FROM ratings WHERE mediaid = 1 AND commentconfirmed AND comment IS NOT NULL "
+                + "ORDER BY likecount DESC, id DESC LIMIT 21", "idx_ratings_media_likes");
+    }
+
+    @Test
+    void leaderboardPagesUseIndex() throws Exception {
+        // Test: RatingRepository.streamLeaderboardPage (erste Seite und Bereich der Folgeseite)
+        assertUsesIndex("SELECT userid FROM user_stats ORDER BY ratingcount DESC, userid LIMIT 21",
+                "idx_user_stats_leaderboard");
+        assertUsesIndex("SELECT userid FROM user_stats WHERE ratingcount < 5 ORDER BY ratingcount DESC, userid LIMIT 21",
+                "idx_user_stats_leaderboard");
+    }
+
+    @Test
+    void scorePagesUseIndex() throws Exception {
+        // Test: MediaRepository.streamSearchPage mit sortBy=score (erste Seite und Bereich der Folgeseite)
+        assertUsesIndex("SELECT mediaid FROM media_rating_stats r ORDER BY COALESCE(r.avgscore, -1) DESC, r.mediaid "
+                + "LIMIT 21", "idx_media_rating_stats_score");
+        assertUsesIndex("SELECT mediaid FROM media_rating_stats r WHERE COALESCE(r.avgscore, -1) < 4.5 "
+                + "ORDER BY COALESCE(r.avgscore, -1) DESC, r.mediaid LIMIT 21", "idx_media_rating_stats_score");
+    }
+
+    @Test
+    void incrementalExportUsesIndex() throws Exception {
+        // Test: RatingRepository.streamExport mit Wasserzeichen
+        assertUsesIndex("SELECT r.* FROM ratings r WHERE r.updatedat >= '2024-01-01' ORDER BY r.updatedat, r.id",
+                "idx_ratings_updated");
+    }
+
+    // Plan bei abgeschalteten Seq-Scans pruefen (leere Testtabellen wuerden sonst immer sequentiell gelesen).
+    private void assertUsesIndex(String sql, String index) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (Connection connection = pool.getConnection();
+             Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            stmt.execute("SET LOCAL enable_seqscan = off");
+            ResultSet rs = stmt.executeQuery("EXPLAIN " + sql);
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            connection.rollback();
+        }
+        assertTrue(plan.toString().contains(index), "Index " + index + " nicht im Plan:\n" + plan);
+    }
+}
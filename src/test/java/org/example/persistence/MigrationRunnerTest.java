@@ -0,0 +1,79 @@
+package org.example.persistence;
+
+import org.example.persistence.MigrationRunner.Migration;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für MigrationRunner (mit FakeJdbc, ohne echte Datenbank).
+public class MigrationRunnerTest {
+
+    private static final Migration V1 = new Migration(1, "baseline", "CREATE TABLE a (id INT);");
+    private static final Migration V2 = new Migration(2, "index", "CREATE INDEX idx_a ON a (id);");
+
+    @Test
+    void appliesOnlyPendingMigrationsInOrder() throws Exception {
+        // Test: V1 ist schon angewendet -> nur V2 laeuft, danach Eintrag mit Checksumme.
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.startsWith("SELECT version")
+                ? List.of(FakeJdbc.row("version", 1, "checksum", V1.checksum()))
+                : List.of());
+        MigrationRunner runner = new MigrationRunner(jdbc.dataSource(), List.of(V2, V1));
+
+        assertEquals(1, runner.migrate());
+
+        assertEquals(1, jdbc.count("CREATE TABLE IF NOT EXISTS schema_migrations"));
+        assertEquals(0, jdbc.count(V1.sql()));
+        assertEquals(1, jdbc.count(V2.sql()));
+        String insert = jdbc.executed.stream().filter(sql -> sql.startsWith("INSERT INTO schema_migrations"))
+                .findFirst().orElseThrow();
+        assertTrue(jdbc.executed.indexOf(V2.sql()) < jdbc.executed.indexOf(insert));
+        assertTrue(jdbc.parameters.stream().anyMatch(params -> params.size() == 4
+                && params.subList(0, 3).equals(List.of(2, "index", V2.checksum()))));
+        assertTrue(jdbc.executed.get(jdbc.executed.size() - 1).startsWith("SELECT pg_advisory_unlock"));
+    }
+
+    @Test
+    void changedScriptAbortsStartup() {
+        // Test: Checksumme eines angewendeten Skripts passt nicht -> Fehler, nichts wird ausgefuehrt, Lock wird freigegeben.
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.startsWith("SELECT version")
+                ? List.of(FakeJdbc.row("version", 1, "checksum", "veraltet"))
+                : List.of());
+        MigrationRunner runner = new MigrationRunner(jdbc.dataSource(), List.of(V1, V2));
+
+        SQLException ex = assertThrows(SQLException.class, runner::migrate);
+        assertTrue(ex.getMessage().startsWith("Migration V1 wurde nach dem Anwenden geaendert"));
+        assertEquals(0, jdbc.count(V2.sql()));
+        assertEquals(1, jdbc.count("pg_advisory_unlock"));
+    }
+
+    @Test
+    void checksumIgnoresLineEndings() {
+        // Test: Gleiches Skript mit CRLF (Windows-Checkout) hat dieselbe Checksumme.
+        Migration lf = new Migration(1, "a", "SELECT 1;\nSELECT 2;\n");
+        Migration crlf = new Migration(1, "a", "SELECT 1;\r\nSELECT 2;\r\n");
+        assertEquals(lf.checksum(), crlf.checksum());
+        assertNotEquals(lf.checksum(), new Migration(1, "a", "SELECT 3;\n").checksum());
+    }
+
+    @Test
+    void duplicateVersionIsRejected() {
+        // Test: Zwei Skripte mit gleicher Version sind ein Fehler.
+        assertThrows(IllegalArgumentException.class,
+                () -> new MigrationRunner(null, List.of(V1, new Migration(1, "nochmal", "SELECT 1;"))));
+    }
+
+    @Test
+    void shippedMigrationsAreOrdered() throws Exception {
+        // Test: Die mitgelieferten Skripte werden vom Classpath geladen (V1 Tabellen, V2 Statistik, V3 Indizes, V4 updatedat, V5 likecount, V6 user_stats, V7 Leaderboard-Index).
+        List<Migration> migrations = MigrationRunner.loadFromClasspath(MigrationRunner.DEFAULT_LOCATION);
+        List<Integer> versions = migrations.stream().map(Migration::version).sorted().toList();
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9), versions);
+        Migration indexes = migrations.stream().filter(m -> m.version() == 3).findFirst().orElseThrow();
+        assertEquals("performance_indexes", indexes.description());
+        assertTrue(indexes.sql().contains("idx_users_token"));
+    }
+}
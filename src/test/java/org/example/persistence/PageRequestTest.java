@@ -0,0 +1,43 @@
+package org.example.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für PageRequest/PageCursor (Parameter-Pruefung und Cursor-Format).
+public class PageRequestTest {
+
+    @Test
+    void withoutParametersFirstPageIsCapped() {
+        // Test: Ohne limit/cursor -> erste Seite mit hartem Limit, Antwort bleibt ein Array.
+        PageRequest page = PageRequest.fromQuery(Map.of(), "id");
+        assertEquals(PageRequest.MAX_SIZE, page.getLimit());
+        assertNull(page.getAfter());
+        assertFalse(page.isPaged());
+    }
+
+    @Test
+    void limitIsClampedAndValidated() {
+        // Test: Zu grosses limit wird begrenzt, 0/Text ergibt einen Fehler.
+        assertEquals(PageRequest.MAX_SIZE, PageRequest.fromQuery(Map.of("limit", "100000"), "id").getLimit());
+        assertEquals(5, PageRequest.fromQuery(Map.of("limit", "5"), "id").getLimit());
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.fromQuery(Map.of("limit", "0"), "id"));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.fromQuery(Map.of("limit", "viele"), "id"));
+    }
+
+    @Test
+    void cursorRoundTripAndSortCheck() {
+        // Test: Cursor ueberlebt Encode/Decode (auch mit '|' im Titel) und muss zur Sortierung passen.
+        String token = new PageCursor("title", "A|B", 42).encode();
+        PageRequest page = PageRequest.fromQuery(Map.of("cursor", token), "title");
+
+        assertEquals(PageRequest.DEFAULT_SIZE, page.getLimit());
+        assertEquals("A|B", page.getAfter().getKey());
+        assertEquals(42, page.getAfter().getId());
+        assertTrue(page.isPaged());
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.fromQuery(Map.of("cursor", token), "year"));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.fromQuery(Map.of("cursor", "%%%"), "title"));
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.persistence;
+
+import org.example.domain.LeaderboardEntry;
+import org.example.domain.Rating;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Streaming-Tests für RatingRepository (mit FakeJdbc, ohne echte Datenbank).
+public class RatingRepositoryTest {
+
+    @Test
+    void insertNeedsOneRoundTripAndReportsConflict() throws Exception {
+        // Test: Anlegen inkl. Statistik = 1 Anweisung (vorher findByMediaAndUser + INSERT + Statistik);
+        // keine Zeile zurueck -> CONFLICT statt Fehler.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("id", 5, "mediaid", 10, "userid", 7, "stars", 4,
+                "oldstars", 0, "createdat", Timestamp.valueOf("2024-05-01 09:30:00"))));
+        RatingWrite created = new RatingRepository(jdbc.dataSource()).insert(rating(10, 7, 4), false);
+
+        assertEquals(RatingWrite.Status.CREATED, created.status());
+        assertEquals(5, created.rating().getId());
+        assertEquals(1, jdbc.executed.size());
+        assertTrue(jdbc.executed.get(0).contains("ON CONFLICT (mediaid, userid) DO NOTHING"));
+        assertTrue(jdbc.executed.get(0).contains("INSERT INTO media_rating_stats"));
+        assertEquals(Arrays.asList(10, 7, 4, null), jdbc.parameters.get(0));
+
+        FakeJdbc duplicate = new FakeJdbc(sql -> List.of());
+        assertEquals(RatingWrite.Status.CONFLICT,
+                new RatingRepository(duplicate.dataSource()).insert(rating(10, 7, 4), false).status());
+        assertEquals(1, duplicate.executed.size());
+    }
+
+    @Test
+    void upsertOverwritesOrRetriesAfterLostRace() throws Exception {
+        // Test: Upsert mit vorhandenem Rating (alte Sterne 2) -> UPDATED; ohne Ergebniszeile wird wiederholt.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("id", 5, "mediaid", 10, "userid", 7, "stars", 4,
+                "oldstars", 2)));
+        RatingWrite updated = new RatingRepository(jdbc.dataSource()).insert(rating(10, 7, 4), true);
+
+        assertEquals(RatingWrite.Status.UPDATED, updated.status());
+        assertEquals(Arrays.asList(10, 7, 4, null, 10, 7, 4, null), jdbc.parameters.get(0));
+
+        FakeJdbc racing = new FakeJdbc(sql -> List.of());
+        assertThrows(SQLException.class,
+                () -> new RatingRepository(racing.dataSource()).insert(rating(10, 7, 4), true));
+        assertEquals(3, racing.executed.size());
+    }
+
+    @Test
+    void ownedWritesNeedOneRoundTrip() throws Exception {
+        // Test: Update/Loeschen/Bestaetigen inkl. Besitzer-Pruefung und Statistik = 1 Anweisung (vorher 2-4).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("ownerid", 7, "id", 5, "mediaid", 10,
+                "userid", 7, "stars", 5, "commentconfirmed", false)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        OwnedWrite<Rating> updated = repo.update(5, 7, 5, "besser");
+        assertEquals(OwnedWrite.Status.DONE, updated.status());
+        assertEquals(5, updated.value().getStars());
+        assertEquals(List.of(5, 5, "besser", 7), jdbc.parameters.get(0));
+        assertEquals(OwnedWrite.Status.DONE, repo.delete(5, 7).status());
+        assertEquals(OwnedWrite.Status.DONE, repo.confirmComment(5, 7).status());
+
+        assertEquals(3, jdbc.executed.size());
+        // Statistik-Delta laeuft in derselben Anweisung (alte -> neue Sterne, beim Loeschen -> 0).
+        assertTrue(jdbc.executed.get(0).contains("INSERT INTO media_rating_stats"));
+        assertTrue(jdbc.executed.get(0).contains("(stars = 5)::int - (oldstars = 5)::int"));
+        assertTrue(jdbc.executed.get(1).contains("(0 = 3)::int - (stars = 3)::int"));
+        assertFalse(jdbc.executed.get(2).contains("media_rating_stats"));
+    }
+
+    @Test
+    void ownedWritesDistinguishMissingAndForeign() throws Exception {
+        // Test: Keine Zeile -> NOT_FOUND, Besitzer ohne geaenderte Zeile -> FORBIDDEN.
+        RatingRepository missing = new RatingRepository(new FakeJdbc(sql -> List.of()).dataSource());
+        assertEquals(OwnedWrite.Status.NOT_FOUND, missing.update(5, 7, 4, null).status());
+        assertEquals(OwnedWrite.Status.NOT_FOUND, missing.delete(5, 7).status());
+
+        RatingRepository foreign = new RatingRepository(
+                new FakeJdbc(sql -> List.of(FakeJdbc.row("ownerid", 8))).dataSource());
+        assertEquals(OwnedWrite.Status.FORBIDDEN, foreign.update(5, 7, 4, null).status());
+        assertEquals(OwnedWrite.Status.FORBIDDEN, foreign.delete(5, 7).status());
+        assertEquals(OwnedWrite.Status.FORBIDDEN, foreign.confirmComment(5, 7).status());
+    }
+
+    @Test
+    void rebuildLocksRatingsAndRecomputes() throws Exception {
+        // Test: Neuaufbau sperrt Schreibzugriffe, leert die Tabelle und aggregiert einmal ueber alle Ratings.
+        FakeJdbc jdbc = new FakeJdbc(sql -> sql.startsWith("INSERT")
+                ? List.of(FakeJdbc.row(), FakeJdbc.row())
+                : List.of());
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        assertEquals(2, repo.rebuildMediaStats());
+        assertEquals("LOCK TABLE ratings IN SHARE MODE", jdbc.executed.get(0));
+        assertEquals("DELETE FROM media_rating_stats", jdbc.executed.get(1));
+        assertTrue(jdbc.executed.get(2).contains("FROM mediaentries m LEFT JOIN ratings r ON r.mediaid = m.id GROUP BY m.id"));
+    }
+
+    @Test
+    void streamByUserUsesCursor() throws Exception {
+        // Test: Ratings eines Users kommen zeilenweise über einen Cursor.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(
+                FakeJdbc.row("id", 1, "mediaid", 10, "userid", 7, "stars", 4, "comment", "gut",
+                        "createdat", Timestamp.valueOf("2024-05-02 10:00:00")),
+                FakeJdbc.row("id", 2, "mediaid", 11, "userid", 7, "stars", 2,
+                        "createdat", Timestamp.valueOf("2024-05-01 09:30:00"))));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        List<Rating> received = new ArrayList<>();
+        String next = repo.streamByUserPage(7, PageRequest.firstPage(), received::add);
+
+        assertNull(next);
+        assertEquals(2, received.size());
+        assertEquals("gut", received.get(0).getComment());
+        assertEquals(List.of(DatabaseConnection.STREAM_FETCH_SIZE), jdbc.fetchSizes);
+        assertEquals(List.of(false), jdbc.autoCommits);
+    }
+
+    @Test
+    void ratingHistoryCursorUsesCreatedAtAndId() throws Exception {
+        // Test: Volle Seite -> Cursor aus Zeitstempel + ID; Folgeseite filtert per (createdat, id) < (?, ?).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(
+                FakeJdbc.row("id", 9, "mediaid", 10, "userid", 7, "stars", 4,
+                        "createdat", Timestamp.valueOf("2024-05-02 10:00:00")),
+                FakeJdbc.row("id", 8, "mediaid", 11, "userid", 7, "stars", 2,
+                        "createdat", Timestamp.valueOf("2024-05-01 09:30:00"))));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        String next = repo.streamByUserPage(7, new PageRequest(1, null, true), rating -> { });
+        PageCursor cursor = PageCursor.decode(next);
+        assertEquals(RatingRepository.USER_RATINGS_SORT, cursor.getSort());
+        assertEquals(9, cursor.getId());
+
+        repo.streamByUserPage(7, new PageRequest(1, cursor, true), rating -> { });
+        assertTrue(jdbc.executed.get(1).contains("AND (createdat, id) < (?, ?)"));
+        assertEquals(List.of(7, Timestamp.valueOf("2024-05-02 10:00:00"), 9, 2), jdbc.parameters.get(1));
+    }
+
+    @Test
+    void streamLeaderboardMapsEntries() throws Exception {
+        // Test: Leaderboard-Zeilen werden einzeln gemappt und weitergegeben.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(
+                FakeJdbc.row("id", 3, "username", "anna", "ratingcount", 12),
+                FakeJdbc.row("id", 1, "username", "ben", "ratingcount", 5)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        List<LeaderboardEntry> received = new ArrayList<>();
+        repo.streamLeaderboardPage(PageRequest.firstPage(), received::add);
+
+        assertEquals(2, received.size());
+        assertEquals("anna", received.get(0).getUsername());
+        assertEquals(12, received.get(0).getRatingCount());
+        assertEquals(List.of(DatabaseConnection.STREAM_FETCH_SIZE), jdbc.fetchSizes);
+        assertEquals(List.of(false), jdbc.autoCommits);
+        assertTrue(jdbc.executed.get(0).contains("FROM user_stats s JOIN users u ON u.id = s.userid"));
+        assertFalse(jdbc.executed.get(0).contains("GROUP BY"));
+    }
+
+    @Test
+    void leaderboardNextPageUsesTwoIndexRanges() throws Exception {
+        // Test: Folgeseite = Rest des Gleichstands + kleinere Anzahlen, je mit LIMIT (kein Aggregat, kein OR-Filter).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("id", 8, "username", "cem", "ratingcount", 5)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+        PageCursor cursor = new PageCursor(RatingRepository.LEADERBOARD_SORT, "5", 1);
+
+        repo.streamLeaderboardPage(new PageRequest(2, cursor, true), entry -> { });
+
+        String sql = jdbc.executed.get(0);
+        assertTrue(sql.contains("WHERE s.ratingcount = ? AND s.userid > ?"));
+        assertTrue(sql.contains("UNION ALL"));
+        assertTrue(sql.contains("WHERE s.ratingcount < ?"));
+        assertFalse(sql.contains("GROUP BY"));
+        assertEquals(List.of(5L, 1, 3, 5L, 3, 3), jdbc.parameters.get(0));
+    }
+
+    @Test
+    void exportStreamsThroughCursorOrderedByWatermark() throws Exception {
+        // Test: Export ueber serverseitigen Cursor (Fetch-Size, offene Transaktion), sortiert nach (updatedat, id);
+        // Kommentar nur wenn bestaetigt, NULL bei Erscheinungsjahr/Altersfreigabe bleibt null.
+        Timestamp updated = Timestamp.valueOf("2024-05-02 10:00:00");
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("id", 5, "mediaid", 10, "userid", 7, "stars", 4,
+                "comment", "gut", "commentconfirmed", true, "createdat", Timestamp.valueOf("2024-05-01 09:30:00"),
+                "updatedat", updated, "title", "Alien", "mediatype", "MOVIE", "releaseyear", 1979,
+                "agerestriction", null)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        List<Object[]> rows = new ArrayList<>();
+        assertEquals(1, repo.streamExport(Timestamp.valueOf("2024-05-01 00:00:00"), true, rows::add));
+        assertEquals(1, repo.streamExport(null, false, row -> { }));
+
+        assertTrue(jdbc.executed.get(0).contains("JOIN mediaentries m ON m.id = r.mediaid"));
+        assertTrue(jdbc.executed.get(0).contains("CASE WHEN r.commentconfirmed THEN r.comment END AS comment"));
+        assertTrue(jdbc.executed.get(0).contains("WHERE r.updatedat >= ? ORDER BY r.updatedat, r.id"));
+        assertFalse(jdbc.executed.get(1).contains("WHERE"));
+        assertEquals(List.of(Timestamp.valueOf("2024-05-01 00:00:00")), jdbc.parameters.get(0));
+        assertEquals(List.of(DatabaseConnection.STREAM_FETCH_SIZE, DatabaseConnection.STREAM_FETCH_SIZE), jdbc.fetchSizes);
+        assertEquals(List.of(false, false), jdbc.autoCommits);
+        assertEquals(RatingRepository.EXPORT_COLUMNS.size() + RatingRepository.EXPORT_MEDIA_COLUMNS.size(),
+                rows.get(0).length);
+        assertEquals(updated.toLocalDateTime(), rows.get(0)[7]);
+        assertEquals("Alien", rows.get(0)[8]);
+        assertEquals(1979, rows.get(0)[10]);
+        assertNull(rows.get(0)[11]);
+    }
+
+    @Test
+    void addLikesWritesWholeBatchInOneStatement() throws Exception {
+        // Test: 3 Likes = 1 INSERT (statt findById + INSERT pro Like); nur neu gespeicherte kommen zurueck.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("ratingid", 4), FakeJdbc.row("ratingid", 4)));
+        int[] inserted = new RatingRepository(jdbc.dataSource()).addLikes(new int[]{4, 4, 9}, new int[]{1, 2, 1});
+
+        assertArrayEquals(new int[]{4, 4}, inserted);
+        assertEquals(1, jdbc.executed.size());
+        assertTrue(jdbc.executed.get(0).contains("ON CONFLICT (ratingid, userid) DO NOTHING"));
+        assertTrue(jdbc.executed.get(0).contains("SET likecount = r.likecount + c.added"));
+    }
+
+    @Test
+    void likeCountIsMaintainedNotCounted() throws Exception {
+        // Test: addLike erhoeht likecount in derselben Anweisung; countLikes liest die Spalte statt COUNT(*).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("cnt", 3)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        repo.addLike(4, 1);
+        assertEquals(3, repo.countLikes(4));
+
+        assertEquals(2, jdbc.executed.size());
+        assertTrue(jdbc.executed.get(0).contains("UPDATE ratings r SET likecount = r.likecount + 1"));
+        assertEquals(0, jdbc.count("COUNT(*)"));
+    }
+
+    @Test
+    void topCommentsPageByLikeCount() throws Exception {
+        // Test: Top-Kommentare sortiert nach (likecount, id), Cursor fuehrt an der letzten Zeile weiter.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(
+                FakeJdbc.row("id", 8, "mediaid", 10, "comment", "super", "commentconfirmed", true, "likecount", 9),
+                FakeJdbc.row("id", 3, "mediaid", 10, "comment", "gut", "commentconfirmed", true, "likecount", 4),
+                FakeJdbc.row("id", 5, "mediaid", 10, "comment", "ok", "commentconfirmed", true, "likecount", 4)));
+        RatingRepository repo = new RatingRepository(jdbc.dataSource());
+
+        List<Rating> received = new ArrayList<>();
+        String next = repo.streamTopComments(10, new PageRequest(2, null, true), received::add);
+        assertEquals(List.of(9, 4), received.stream().map(Rating::getLikeCount).toList());
+
+        repo.streamTopComments(10, new PageRequest(2, PageCursor.decode(next), true), rating -> { });
+        assertTrue(jdbc.executed.get(0).contains("ORDER BY likecount DESC, id DESC LIMIT ?"));
+        assertEquals(List.of(10, 3), jdbc.parameters.get(0));
+        assertEquals(List.of(10, 4, 3, 3), jdbc.parameters.get(1));
+    }
+
+    static Rating rating(int mediaId, int userId, int stars) {
+        Rating rating = new Rating();
+        rating.setMediaId(mediaId);
+        rating.setUserId(userId);
+        rating.setStars(stars);
+        return rating;
+    }
+}
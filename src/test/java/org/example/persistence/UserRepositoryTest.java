@@ -0,0 +1,68 @@
+package org.example.persistence;
+
+import org.example.domain.UserProfileResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests für UserRepository-Statistik (mit FakeJdbc, ohne echte Datenbank).
+public class UserRepositoryTest {
+
+    @Test
+    void profileIsOneLookupWithMaintainedStats() throws Exception {
+        // Test: Profil = 1 Anweisung (vorher findById + countByUser + averageByUser), kein COUNT/AVG zur Lesezeit.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("id", 7, "username", "u7", "ratingcount", 4,
+                "starsum", 14, "likesreceived", 9, "favoritescount", 2)));
+        UserProfileResponse profile = new UserRepository(jdbc.dataSource()).findProfile(7);
+
+        assertEquals("u7", profile.getUsername());
+        assertEquals(4, profile.getTotalRatings());
+        assertEquals(3.5, profile.getAverageScore());
+        assertEquals(9, profile.getLikesReceived());
+        assertEquals(2, profile.getFavoritesCount());
+        assertEquals(1, jdbc.executed.size());
+        assertEquals(0, jdbc.count("COUNT("));
+        assertEquals(0, jdbc.count("AVG("));
+
+        assertNull(new UserRepository(new FakeJdbc(sql -> List.of()).dataSource()).findProfile(8));
+    }
+
+    @Test
+    void verifyReportsStoredAgainstRecomputed() throws Exception {
+        // Test: Pruefjob liefert gespeicherte und neu berechnete Werte in einem Snapshot (REPEATABLE READ).
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of(FakeJdbc.row("userid", 3,
+                "ratingcount", 2, "starsum", 7, "likesreceived", 1, "favoritescount", 0,
+                "storedratingcount", 3, "storedstarsum", 9, "storedlikesreceived", 1, "storedfavoritescount", 0)));
+        List<UserRepository.StatsMismatch> mismatches =
+                new UserRepository(jdbc.dataSource()).findStatsMismatches(100);
+
+        assertEquals(1, mismatches.size());
+        assertEquals(3, mismatches.get(0).stored().getUserId());
+        assertEquals(3, mismatches.get(0).stored().getRatingCount());
+        assertEquals(2, mismatches.get(0).actual().getRatingCount());
+        assertEquals(7, mismatches.get(0).actual().getStarSum());
+        assertEquals(1, jdbc.count("REPEATABLE READ"));
+        assertEquals(List.of(false), jdbc.autoCommits);
+        assertEquals(List.of(100), jdbc.parameters.get(0));
+    }
+
+    @Test
+    void writesMaintainUserStatsInSameStatement() throws Exception {
+        // Test: Rating, Like und Favorit aendern user_stats ohne zusaetzlichen Round-Trip.
+        FakeJdbc jdbc = new FakeJdbc(sql -> List.of());
+        RatingRepository ratings = new RatingRepository(jdbc.dataSource());
+        FavoriteRepository favorites = new FavoriteRepository(jdbc.dataSource());
+
+        ratings.insert(RatingRepositoryTest.rating(10, 7, 4), false);
+        ratings.addLike(5, 2);
+        ratings.addLikes(new int[]{5}, new int[]{3});
+        favorites.addFavorite(7, 10);
+        favorites.removeFavorite(7, 10);
+
+        assertEquals(5, jdbc.executed.size());
+        assertEquals(5, jdbc.count("INSERT INTO user_stats"));
+        assertTrue(jdbc.executed.get(4).contains("SELECT userid, 0, 0, 0, -1 FROM removed"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.http.ConcurrencyLimitFilter;
+import org.example.http.HttpUtil;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Tests fuer die Execution-Modi (lokaler HttpServer, ohne Datenbank).
+// Durchsatzvergleich der Modi: benchmark/ExecutorBenchmark.
+public class ExecutorSettingsTest {
+
+    @Test
+    void parseModeIgnoresCase() {
+        // Test: Modus wird unabhaengig von Gross/Kleinschreibung erkannt.
+        assertEquals(ExecutionMode.POOL, ExecutionMode.parse("pool"));
+        assertEquals(ExecutionMode.VIRTUAL, ExecutionMode.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> ExecutionMode.parse("turbo"));
+    }
+
+    @Test
+    void legacyHasNoExecutorAndNoFilter() {
+        // Test: LEGACY laesst den HttpServer beim Dispatcher-Thread.
+        ExecutorSettings settings = new ExecutorSettings(ExecutionMode.LEGACY, 1, 0, 0);
+        assertNull(settings.createExecutor());
+        assertNull(settings.createLimitFilter());
+    }
+
+    @Test
+    void limitFilterRejectsWhenQueueFull() throws Exception {
+        // Test: 1 Platz, 0 Warteplaetze -> zweiter gleichzeitiger Request bekommt 503.
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorSettings settings = new ExecutorSettings(ExecutionMode.VIRTUAL, 1, 0, 0);
+        ExecutorService executor = settings.createExecutor();
+        HttpServer server = startServer(settings, executor, () -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        });
+        HttpClient client = newClient();
+        try {
+            var first = client.sendAsync(request(server), HttpResponse.BodyHandlers.ofString());
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            HttpResponse<String> second = client.send(request(server), HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, second.statusCode());
+
+            release.countDown();
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).statusCode());
+        } finally {
+            release.countDown();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    // Minimaler Server mit denselben Executor-/Filter-Einstellungen wie MrpServer.
+    private HttpServer startServer(ExecutorSettings settings, ExecutorService executor, Work work) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        var context = server.createContext("/work", exchange -> {
+            try {
+                work.run();
+            } catch (Exception e) {
+                Thread.currentThread().interrupt();
+            }
+            HttpUtil.sendText(exchange, 200, "ok");
+        });
+        ConcurrencyLimitFilter filter = settings.createLimitFilter();
+        if (filter != null) {
+            context.getFilters().add(filter);
+        }
+        server.start();
+        return server;
+    }
+
+    private HttpClient newClient() {
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    private HttpRequest request(HttpServer server) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/work")).build();
+    }
+
+    // Arbeit im Handler (darf blockieren).
+    private interface Work {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für AlsTrainer/AlsModel (synthetische Ratings, ohne Datenbank).
+public class AlsTrainerTest {
+
+    @Test
+    void learnsTasteGroupsAndRecommendsWithinGroup() {
+        // Test: Zwei Geschmacksgruppen (Medien 1-10 vs. 11-20); ein neuer User mit guten Ratings fuer 1-3
+        // bekommt per Fold-in Medien aus seiner Gruppe, ohne dass er im Training vorkam.
+        AlsModel model = new AlsTrainer(4, 0.05f, 10, 2).train(tasteGroups());
+
+        assertEquals(20, model.getItemCount());
+        assertTrue(model.getTrainingRmse() < 0.8, "RMSE " + model.getTrainingRmse());
+        int[] recommended = model.recommend(new int[]{1, 2, 3, 15}, new int[]{5, 5, 4, 1}, 5);
+        assertEquals(5, recommended.length);
+        for (int mediaId : recommended) {
+            assertTrue(mediaId >= 4 && mediaId <= 10, "Medium " + mediaId);
+        }
+        assertEquals(0, model.recommend(new int[]{99}, new int[]{5}, 5).length);
+    }
+
+    @Test
+    void resultDoesNotDependOnThreadCount() {
+        // Test: Zeilen sind unabhaengig, Startwerte fest -> 1 und 4 Threads liefern dasselbe Modell.
+        RatingMatrix ratings = tasteGroups();
+        AlsModel single = new AlsTrainer(4, 0.05f, 5, 1).train(ratings);
+        AlsModel parallel = new AlsTrainer(4, 0.05f, 5, 4).train(ratings);
+
+        assertEquals(single.getTrainingRmse(), parallel.getTrainingRmse());
+        assertArrayEquals(single.recommend(new int[]{12}, new int[]{5}, 10),
+                parallel.recommend(new int[]{12}, new int[]{5}, 10));
+    }
+
+    // 300 User: Gruppe A mag Medien 1-10 und nicht 11-20, Gruppe B umgekehrt; jeder bewertet ~8 Medien.
+    private static RatingMatrix tasteGroups() {
+        Random random = new Random(7);
+        RatingMatrix.Collector ratings = new RatingMatrix.Collector();
+        for (int user = 1; user <= 300; user++) {
+            boolean groupA = user % 2 == 0;
+            for (int media = 1; media <= 20; media++) {
+                if (random.nextInt(5) < 2) {
+                    boolean liked = (media <= 10) == groupA;
+                    ratings.accept(user, media, liked ? 4 + random.nextInt(2) : 1 + random.nextInt(2));
+                }
+            }
+        }
+        return ratings.build();
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.service;
+
+import org.example.domain.MediaEntry;
+import org.example.domain.Rating;
+import org.example.persistence.MediaRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für ContentIndex/GenreDictionary (ohne Datenbank).
+public class ContentIndexTest {
+
+    private static final String[] TYPES = {"MOVIE", "SERIES", "GAME"};
+
+    @Test
+    void candidatesMatchStringBasedReference() throws Exception {
+        // Test: 100 Genres (zwei longs pro Maske) - Kandidaten und Ueberdeckung wie die String-Variante des SQL.
+        Random random = new Random(3);
+        FakeMediaRepository repo = new FakeMediaRepository();
+        for (int id = 1; id <= 500; id++) {
+            List<String> genres = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(4); g++) {
+                genres.add("Genre-" + random.nextInt(100));
+            }
+            repo.add(media(id, TYPES[random.nextInt(3)], 6 * random.nextInt(4), genres));
+        }
+        ContentIndex index = new ContentIndex(repo, null, 0);
+        index.refresh();
+        assertEquals(2, index.getGenres().words());
+
+        for (int user = 0; user < 20; user++) {
+            List<Rating> ratings = new ArrayList<>();
+            for (int r = 0; r < 15; r++) {
+                ratings.add(rating(1 + random.nextInt(500), 1 + random.nextInt(5)));
+            }
+            for (boolean sameContent : new boolean[]{false, true}) {
+                Map<Integer, Integer> expected = reference(repo.all, ratings, sameContent);
+                Map<Integer, Integer> actual = new TreeMap<>();
+                int count = index.streamCandidates(ratings, sameContent, null,
+                        (mediaId, matched, liked, average, ratingCount) -> actual.put(mediaId, matched));
+                assertEquals(expected, actual);
+                assertEquals(expected.size(), count);
+            }
+        }
+    }
+
+    @Test
+    void genreFilterAndChangesWithoutReload() throws Exception {
+        // Test: Genre-Filter per Bit (Gross-/Kleinschreibung egal); create/update/delete wirken sofort,
+        // Rating-Statistik bleibt bis zum naechsten Neuladen.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        repo.add(media(1, "MOVIE", 12, List.of("Action", "Sci-Fi")));
+        repo.add(media(2, "MOVIE", 12, List.of("Action")));
+        repo.add(media(3, "GAME", 0, List.of("Sci-Fi", "Puzzle")));
+        ContentIndex index = new ContentIndex(repo, null, 0);
+        assertThrows(IllegalStateException.class, () -> index.streamCandidates(List.of(), false, null, sink(null)));
+        index.refresh();
+        List<Rating> likesOne = List.of(rating(1, 5));
+
+        assertEquals(List.of(2, 3), candidates(index, likesOne, false, null));
+        assertEquals(List.of(3), candidates(index, likesOne, false, "sci-fi"));
+        assertEquals(List.of(2), candidates(index, likesOne, true, null));
+        assertEquals(List.of(), candidates(index, likesOne, false, "Horror"));
+        assertEquals(List.of(), candidates(index, List.of(rating(1, 3)), false, null));
+
+        index.mediaSaved(media(4, "MOVIE", 12, List.of("SCI-FI", "Horror")));
+        index.mediaSaved(media(2, "SERIES", 16, List.of("Drama")));
+        index.mediaRemoved(3);
+        assertEquals(List.of(4), candidates(index, likesOne, false, null));
+        assertEquals(List.of(4), candidates(index, likesOne, true, null));
+        assertEquals(5, index.getGenres().size());
+
+        List<Float> averages = new ArrayList<>();
+        index.streamCandidates(likesOne, false, null, (mediaId, matched, liked, average, count) -> {
+            assertEquals(1, matched);
+            assertEquals(2, liked);
+            averages.add((float) average);
+        });
+        assertEquals(List.of(0f), averages);
+    }
+
+    // Wie das SQL: Lieblingsgenres aus Ratings >= 4, bewertete Medien raus, optional gleiche (Typ, Alter).
+    private static Map<Integer, Integer> reference(List<MediaEntry> all, List<Rating> ratings, boolean sameContent) {
+        Set<String> liked = new HashSet<>();
+        Set<String> likedContent = new HashSet<>();
+        Set<Integer> rated = new HashSet<>();
+        for (Rating rating : ratings) {
+            rated.add(rating.getMediaId());
+            if (rating.getStars() >= 4) {
+                MediaEntry media = all.get(rating.getMediaId() - 1);
+                media.getGenres().forEach(g -> liked.add(g.toLowerCase()));
+                likedContent.add(media.getMediaType() + "/" + media.getAgeRestriction());
+            }
+        }
+        Map<Integer, Integer> candidates = new TreeMap<>();
+        for (MediaEntry media : all) {
+            Set<String> matched = new HashSet<>();
+            media.getGenres().forEach(g -> {
+                if (liked.contains(g.toLowerCase())) {
+                    matched.add(g.toLowerCase());
+                }
+            });
+            if (!matched.isEmpty() && !rated.contains(media.getId())
+                    && (!sameContent || likedContent.contains(media.getMediaType() + "/" + media.getAgeRestriction()))) {
+                candidates.put(media.getId(), matched.size());
+            }
+        }
+        return candidates;
+    }
+
+    private static List<Integer> candidates(ContentIndex index, List<Rating> ratings, boolean sameContent,
+                                            String genre) {
+        List<Integer> ids = new ArrayList<>();
+        index.streamCandidates(ratings, sameContent, genre, sink(ids));
+        return ids;
+    }
+
+    private static MediaRepository.CandidateSink sink(List<Integer> ids) {
+        return (mediaId, matched, liked, average, count) -> ids.add(mediaId);
+    }
+
+    private static MediaEntry media(int id, String type, int ageRestriction, List<String> genres) {
+        MediaEntry media = new MediaEntry();
+        media.setId(id);
+        media.setMediaType(type);
+        media.setAgeRestriction(ageRestriction);
+        media.setGenres(new ArrayList<>(genres));
+        return media;
+    }
+
+    private static Rating rating(int mediaId, int stars) {
+        Rating rating = new Rating();
+        rating.setMediaId(mediaId);
+        rating.setStars(stars);
+        return rating;
+    }
+
+    // Fake-Repository: Merkmale aller Medien aus einer Liste (Durchschnitt 4.0, 3 Ratings).
+    static class FakeMediaRepository extends MediaRepository {
+        final List<MediaEntry> all = new ArrayList<>();
+
+        FakeMediaRepository() {
+            super((DataSource) null);
+        }
+
+        void add(MediaEntry media) {
+            all.add(media);
+        }
+
+        @Override
+        public int streamContentFeatures(FeatureSink sink) {
+            for (MediaEntry media : all) {
+                sink.accept(media.getId(), media.getMediaType(), media.getAgeRestriction(), media.getGenres(), 4.0, 3);
+            }
+            return all.size();
+        }
+    }
+}
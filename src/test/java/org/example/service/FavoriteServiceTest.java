@@ -4,7 +4,7 @@ import org.example.domain.MediaEntry;
 import org.example.persistence.FavoriteRepository;
 import org.junit.jupiter.api.Test;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -84,7 +84,7 @@ public class FavoriteServiceTest {
         List<MediaEntry> favoriteMedia = new ArrayList<>();
 
         FakeFavoriteRepository() {
-            super((Connection) null);
+            super((DataSource) null);
         }
 
         @Override
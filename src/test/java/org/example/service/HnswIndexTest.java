@@ -0,0 +1,106 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für HnswIndex (Zufallsvektoren, Vergleich mit exakter Suche).
+public class HnswIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @Test
+    void findsNearlyAllExactNeighbours() {
+        // Test: 3000 Vektoren in 30 Clustern; recall@10 gegen die exakte Suche ueber alle Vektoren >= 95 %.
+        float[][] vectors = clustered(3000, 30, new Random(1));
+        HnswIndex index = new HnswIndex(DIMENSION, 12, 100, 7);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i, vectors[i]);
+        }
+        assertEquals(vectors.length, index.size());
+
+        Random random = new Random(2);
+        int hits = 0;
+        int queries = 100;
+        for (int q = 0; q < queries; q++) {
+            int id = random.nextInt(vectors.length);
+            int[] exact = exact(vectors, vectors[id], 10, id);
+            int[] found = index.search(vectors[id], 10, 64, id);
+            assertEquals(10, found.length);
+            for (int f : found) {
+                assertNotEquals(id, f);
+                if (Arrays.stream(exact).anyMatch(e -> e == f)) {
+                    hits++;
+                }
+            }
+        }
+        double recall = hits / (queries * 10.0);
+        assertTrue(recall >= 0.95, "recall " + recall);
+    }
+
+    @Test
+    void removedAndReplacedIdsAreSkipped() {
+        // Test: Grabstein -> ID kommt nicht mehr vor; erneutes add ersetzt den Vektor (alter Knoten wird Grabstein).
+        HnswIndex index = new HnswIndex(2, 4, 20, 7);
+        index.add(1, new float[]{1f, 0f});
+        index.add(2, new float[]{0.9f, 0.1f});
+        index.add(3, new float[]{0f, 1f});
+        index.add(4, new float[]{0.1f, 0.9f});
+        assertArrayEquals(new int[]{2, 4}, index.search(new float[]{1f, 0f}, 2, 10, 1));
+
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertArrayEquals(new int[]{4, 3}, index.search(new float[]{1f, 0f}, 2, 10, 1));
+
+        index.add(3, new float[]{2f, 0f});
+        assertArrayEquals(new int[]{3, 4}, index.search(new float[]{1f, 0f}, 2, 10, 1));
+        assertArrayEquals(new float[]{1f, 0f}, index.vectorOf(3));
+        assertNull(index.vectorOf(2));
+        assertEquals(3, index.size());
+        assertEquals(2, index.getTombstones());
+    }
+
+    // Exakte k naechste Nachbarn (Kosinus), Referenz fuer den Recall.
+    static int[] exact(float[][] vectors, float[] query, int k, int excludeId) {
+        TopK top = new TopK(k);
+        for (int i = 0; i < vectors.length; i++) {
+            if (i != excludeId) {
+                top.offer(i, cosine(vectors[i], query));
+            }
+        }
+        return top.drainIds();
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        double dot = 0.0;
+        double normA = 0.0;
+        double normB = 0.0;
+        for (int d = 0; d < a.length; d++) {
+            dot += a[d] * b[d];
+            normA += a[d] * a[d];
+            normB += b[d] * b[d];
+        }
+        return (float) (dot / Math.sqrt(normA * normB));
+    }
+
+    // Vektoren um zufaellige Zentren gestreut (aehnlich wie Medien eines Genres).
+    static float[][] clustered(int count, int clusters, Random random) {
+        float[][] centers = new float[clusters][DIMENSION];
+        for (float[] center : centers) {
+            for (int d = 0; d < DIMENSION; d++) {
+                center[d] = (float) random.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][DIMENSION];
+        for (int i = 0; i < count; i++) {
+            float[] center = centers[random.nextInt(clusters)];
+            for (int d = 0; d < DIMENSION; d++) {
+                vectors[i][d] = center[d] + (float) (random.nextGaussian() * 0.3);
+            }
+        }
+        return vectors;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für ItemSimilarityModel und TopK (ohne Datenbank).
+public class ItemSimilarityModelTest {
+
+    @Test
+    void recommendsMediaLikedByUsersWithSameTaste() {
+        // Test: Wer 10 mag, mag auch 11 (gleiche Bewerter); 12 und 13 wurden von ihnen schlecht bewertet.
+        ItemSimilarityModel model = sampleModel();
+
+        assertArrayEquals(new int[]{11}, model.recommend(new int[]{10}, new int[]{5}, 10));
+        assertEquals(4, model.getItemCount());
+        assertEquals(11, model.getRatingCount());
+    }
+
+    @Test
+    void ratedMediaAndWeakPairsAreExcluded() {
+        // Test: Bereits bewertete Medien fehlen; Paare mit nur einem gemeinsamen Bewerter zaehlen nicht (minCoRatings 2).
+        ItemSimilarityModel model = sampleModel();
+
+        assertArrayEquals(new int[0], model.recommend(new int[]{10, 11}, new int[]{5, 5}, 10));
+        assertArrayEquals(new int[0], model.recommend(new int[]{12}, new int[]{5}, 10));
+        // Unbekanntes Medium (nach dem letzten Neuaufbau angelegt) wird ignoriert.
+        assertArrayEquals(new int[]{11}, model.recommend(new int[]{99, 10}, new int[]{5, 5}, 10));
+    }
+
+    @Test
+    void topKKeepsBestScoresInOrder() {
+        // Test: Nur die k besten bleiben, absteigend; Gleichstand -> kleinere ID zuerst.
+        TopK top = new TopK(3);
+        float[] scores = {0.5f, 0.9f, 0.1f, 0.9f, 0.7f};
+        for (int id = 0; id < scores.length; id++) {
+            top.offer(id, scores[id]);
+        }
+        float[] sorted = new float[3];
+        assertArrayEquals(new int[]{1, 3, 4}, top.drain(sorted));
+        assertArrayEquals(new float[]{0.9f, 0.9f, 0.7f}, sorted);
+        assertEquals(0, top.size());
+    }
+
+    private static ItemSimilarityModel sampleModel() {
+        RatingMatrix.Collector ratings = new RatingMatrix.Collector();
+        ratings.accept(1, 10, 5);
+        ratings.accept(1, 11, 5);
+        ratings.accept(1, 12, 1);
+        ratings.accept(2, 10, 4);
+        ratings.accept(2, 11, 5);
+        ratings.accept(2, 12, 2);
+        ratings.accept(2, 13, 1);
+        ratings.accept(3, 10, 5);
+        ratings.accept(3, 11, 4);
+        ratings.accept(3, 13, 2);
+        ratings.accept(4, 10, 5);
+        return ItemSimilarityModel.build(ratings.build(), 10, 2);
+    }
+}
@@ -0,0 +1,215 @@
+package org.example.service;
+
+import org.example.domain.LeaderboardEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für das Leaderboard im Speicher (Reihenfolge, Raenge, Cursor, Nebenlaeufigkeit).
+public class LeaderboardTest {
+
+    // Gleiche Reihenfolge wie die SQL-Variante: Anzahl absteigend, dann User-ID.
+    private static final Comparator<LeaderboardEntry> ORDER = Comparator
+            .comparingInt(LeaderboardEntry::getRatingCount).reversed()
+            .thenComparingInt(LeaderboardEntry::getUserId);
+
+    @Test
+    void ordersByCountWithSharedRanks() {
+        // Test: Mehr Ratings zuerst, Gleichstand nach ID, gleiche Anzahl = gleicher Platz.
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(entry(1, 3), entry(2, 5), entry(3, 3), entry(4, 0)));
+
+        List<LeaderboardEntry> all = leaderboard.range(0, 10);
+        assertEquals(List.of(2, 1, 3, 4), all.stream().map(LeaderboardEntry::getUserId).toList());
+        assertEquals(List.of(1, 2, 2, 4), all.stream().map(LeaderboardEntry::getRank).toList());
+    }
+
+    @Test
+    void eventsMoveUsers() {
+        // Test: Neue Ratings/Loeschungen verschieben den User; neue User starten mit 0.
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(entry(1, 2), entry(2, 1)));
+
+        leaderboard.ratingAdded(2);
+        leaderboard.ratingAdded(2);
+        leaderboard.ratingRemoved(1);
+        leaderboard.addUser(3, "user3");
+        leaderboard.addUser(2, "doppelt");
+        leaderboard.ratingAdded(99);
+
+        List<LeaderboardEntry> all = leaderboard.range(0, 10);
+        assertEquals(List.of(2, 1, 3), all.stream().map(LeaderboardEntry::getUserId).toList());
+        assertEquals(List.of(3, 1, 0), all.stream().map(LeaderboardEntry::getRatingCount).toList());
+        assertEquals("user2", all.get(0).getUsername());
+    }
+
+    @Test
+    void cursorPagesCoverEveryUserOnce() {
+        // Test: Seiten ueber after(count, id) ergeben genau die Gesamtliste.
+        Leaderboard leaderboard = new Leaderboard();
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        Random random = new Random(7);
+        for (int id = 1; id <= 500; id++) {
+            entries.add(entry(id, random.nextInt(20)));
+        }
+        leaderboard.rebuild(entries);
+
+        List<Integer> paged = new ArrayList<>();
+        List<LeaderboardEntry> page = leaderboard.range(0, 37);
+        while (!page.isEmpty()) {
+            page.forEach(e -> paged.add(e.getUserId()));
+            LeaderboardEntry last = page.get(page.size() - 1);
+            page = leaderboard.after(last.getRatingCount(), last.getUserId(), 37);
+        }
+
+        entries.sort(ORDER);
+        assertEquals(entries.stream().map(LeaderboardEntry::getUserId).toList(), paged);
+    }
+
+    @Test
+    void aroundReturnsNeighboursClippedAtEdges() {
+        // Test: Eigener Platz mit Nachbarn; am Anfang/Ende entsprechend weniger.
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(entry(1, 9), entry(2, 8), entry(3, 7), entry(4, 6), entry(5, 5)));
+
+        assertEquals(List.of(2, 3, 4), ids(leaderboard.around(3, 1)));
+        assertEquals(List.of(1, 2, 3), ids(leaderboard.around(1, 2)));
+        assertEquals(List.of(4, 5), ids(leaderboard.around(5, 1)));
+        assertNull(leaderboard.around(42, 1));
+    }
+
+    @Test
+    void matchesNaiveModelUnderRandomEvents() {
+        // Test: 20000 zufaellige Ereignisse -> gleiche Reihenfolge wie Sortieren der Zaehler.
+        Leaderboard leaderboard = new Leaderboard();
+        int users = 300;
+        int[] counts = new int[users + 1];
+        List<LeaderboardEntry> initial = new ArrayList<>();
+        for (int id = 1; id <= users; id++) {
+            initial.add(entry(id, 0));
+        }
+        leaderboard.rebuild(initial);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int id = 1 + random.nextInt(users);
+            if (counts[id] > 0 && random.nextInt(3) == 0) {
+                counts[id]--;
+                leaderboard.ratingRemoved(id);
+            } else {
+                counts[id]++;
+                leaderboard.ratingAdded(id);
+            }
+        }
+
+        assertEquals(expectedOrder(counts), ids(leaderboard.range(0, users)));
+    }
+
+    @Test
+    void concurrentWritersAndReadersStayConsistent() throws Exception {
+        // Test: 8 Schreiber + 4 Leser gleichzeitig; Leser sehen immer sortierte Listen,
+        // am Ende stimmen alle Zaehler mit den ausgefuehrten Ereignissen ueberein.
+        Leaderboard leaderboard = new Leaderboard();
+        int users = 1000;
+        List<LeaderboardEntry> initial = new ArrayList<>();
+        for (int id = 1; id <= users; id++) {
+            initial.add(entry(id, 0));
+        }
+        leaderboard.rebuild(initial);
+
+        AtomicIntegerArray counts = new AtomicIntegerArray(users + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(12);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int seed = w;
+                writers.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 25000; i++) {
+                        // Jeder Schreiber hat eigene User (wie ein User, der nacheinander bewertet).
+                        int id = 1 + seed + 8 * random.nextInt(users / 8);
+                        if (random.nextInt(4) == 0 && counts.get(id) > 0) {
+                            counts.decrementAndGet(id);
+                            leaderboard.ratingRemoved(id);
+                        } else {
+                            counts.incrementAndGet(id);
+                            leaderboard.ratingAdded(id);
+                        }
+                    }
+                }));
+            }
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 4; r++) {
+                readers.add(pool.submit(() -> {
+                    int reads = 0;
+                    Random random = new Random();
+                    while (writing.get()) {
+                        assertSorted(leaderboard.range(0, 100));
+                        assertSorted(leaderboard.around(1 + random.nextInt(users), 5));
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            int reads = 0;
+            for (Future<Integer> reader : readers) {
+                reads += reader.get(10, TimeUnit.SECONDS);
+            }
+            assertTrue(reads > 0);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] expected = new int[users + 1];
+        for (int id = 1; id <= users; id++) {
+            expected[id] = counts.get(id);
+        }
+        List<LeaderboardEntry> all = leaderboard.range(0, users);
+        assertEquals(users, leaderboard.size());
+        assertEquals(expectedOrder(expected), ids(all));
+        for (LeaderboardEntry entry : all) {
+            assertEquals(expected[entry.getUserId()], entry.getRatingCount());
+        }
+    }
+
+    private static void assertSorted(List<LeaderboardEntry> entries) {
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(ORDER.compare(entries.get(i - 1), entries.get(i)) < 0, "Reihenfolge verletzt");
+            assertTrue(entries.get(i - 1).getRank() <= entries.get(i).getRank(), "Rang verletzt");
+        }
+    }
+
+    private static List<Integer> expectedOrder(int[] counts) {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (int id = 1; id < counts.length; id++) {
+            entries.add(entry(id, counts[id]));
+        }
+        entries.sort(ORDER);
+        return ids(entries);
+    }
+
+    private static List<Integer> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getUserId).toList();
+    }
+
+    private static LeaderboardEntry entry(int userId, int count) {
+        return new LeaderboardEntry(userId, "user" + userId, count);
+    }
+}
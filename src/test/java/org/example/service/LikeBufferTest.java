@@ -0,0 +1,241 @@
+package org.example.service;
+
+import org.example.domain.Rating;
+import org.example.persistence.RatingRepository;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für LikeBuffer (Write-Behind mit Fake-Repository, ohne Datenbank).
+public class LikeBufferTest {
+
+    @Test
+    void flushesInBatchesOfConfiguredSize() throws Exception {
+        // Test: 1000 Likes, Batch 100 -> 10 INSERTs statt 1000; Zaehler stimmen ohne DB-Abfrage.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        LikeBuffer buffer = new LikeBuffer(repo, 2000, 100, 5000, 100, 3);
+        for (int user = 1; user <= 1000; user++) {
+            assertTrue(buffer.offer(user % 4, user));
+        }
+        buffer.close();
+
+        assertEquals(1000, repo.written.size());
+        assertTrue(repo.batchSizes.stream().allMatch(size -> size <= 100));
+        assertEquals(10, repo.batchSizes.size());
+        assertEquals(250, buffer.count(0));
+        assertEquals(250, buffer.count(3));
+    }
+
+    @Test
+    void flushesAfterTimeoutWithoutFullBatch() throws Exception {
+        // Test: Wenige Likes werden nach flushMillis geschrieben, nicht erst bei vollem Batch.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        try (LikeBuffer buffer = new LikeBuffer(repo, 100, 1000, 20, 100, 3)) {
+            buffer.offer(5, 1);
+            buffer.offer(5, 2);
+            long deadline = System.currentTimeMillis() + 3000;
+            while (buffer.count(5) < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, buffer.count(5));
+            assertEquals(List.of(2), repo.batchSizes);
+        }
+    }
+
+    @Test
+    void duplicateClicksAreWrittenOnce() throws Exception {
+        // Test: 32 Threads liken dasselbe Rating als derselbe User -> 1 Zeile, Zaehler 1.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        LikeBuffer buffer = new LikeBuffer(repo, 100, 100, 5000, 100, 3);
+        buffer.loadCounts(Map.of(9, 4));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            for (int i = 0; i < 32; i++) {
+                pool.submit(() -> {
+                    start.await();
+                    return buffer.offer(9, 7);
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        buffer.close();
+
+        assertEquals(1, repo.written.size());
+        assertEquals(5, buffer.count(9));
+        assertEquals(31L, buffer.getStats().get("deduplicated"));
+    }
+
+    @Test
+    void fullQueueRejectsAfterTimeout() throws Exception {
+        // Test: DB haengt, Queue (2 Plaetze) voll -> offer gibt nach offerTimeout false zurueck statt zu blockieren.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        repo.blocked = new CountDownLatch(1);
+        LikeBuffer buffer = new LikeBuffer(repo, 2, 1, 1, 20, 3);
+        try {
+            assertTrue(buffer.offer(1, 1));
+            // Warten, bis der erste Batch im (blockierten) Repository steckt.
+            long deadline = System.currentTimeMillis() + 3000;
+            while (repo.batchSizes.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(buffer.offer(1, 2));
+            assertTrue(buffer.offer(1, 3));
+            assertFalse(buffer.offer(1, 4));
+            assertEquals(1L, buffer.getStats().get("rejected"));
+        } finally {
+            repo.blocked.countDown();
+            buffer.close();
+        }
+        // Nach dem Schliessen: alles Angenommene ist geschrieben, neue Likes werden abgelehnt.
+        assertEquals(3, repo.written.size());
+        assertFalse(buffer.offer(1, 5));
+    }
+
+    @Test
+    void failedBatchIsRetried() throws Exception {
+        // Test: Zwei fehlgeschlagene INSERTs (z. B. Pool-Timeout) -> dritter Versuch schreibt alles, nichts verloren.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        repo.failures = 2;
+        LikeBuffer buffer = new LikeBuffer(repo, 100, 100, 5, 100, 3);
+        for (int user = 1; user <= 10; user++) {
+            assertTrue(buffer.offer(4, user));
+        }
+        long deadline = System.currentTimeMillis() + 3000;
+        while (buffer.count(4) < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        buffer.close();
+
+        assertEquals(10, repo.written.size());
+        assertEquals(10, buffer.count(4));
+        assertEquals(2L, buffer.getStats().get("retries"));
+        assertEquals(0L, buffer.getStats().get("flushFailures"));
+    }
+
+    @Test
+    void likesAreDroppedAfterMaxAttempts() throws Exception {
+        // Test: DB dauerhaft weg -> nach 3 Versuchen verworfen und in flushFailures gezaehlt; bis dahin staut
+        // sich die Queue (2 Plaetze) und neue Likes werden abgelehnt.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        repo.failures = Integer.MAX_VALUE;
+        LikeBuffer buffer = new LikeBuffer(repo, 2, 1, 200, 20, 3);
+        try {
+            assertTrue(buffer.offer(1, 1));
+            long deadline = System.currentTimeMillis() + 3000;
+            while (repo.batchSizes.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(buffer.offer(1, 2));
+            assertTrue(buffer.offer(1, 3));
+            assertFalse(buffer.offer(1, 4));
+        } finally {
+            buffer.close();
+        }
+        assertEquals(0, repo.written.size());
+        assertEquals(3L, buffer.getStats().get("flushFailures"));
+        assertEquals(9L, buffer.getStats().get("retries"));
+    }
+
+    @Test
+    void serviceQueuesLikesWithoutReadingRating() throws Exception {
+        // Test: Mit LikeBuffer kein findById pro Klick auf bekannte Ratings; countLikes kommt aus dem Speicher.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        LikeBuffer buffer = new LikeBuffer(repo, 100, 100, 5000, 100, 3);
+        buffer.loadCounts(Map.of(3, 0));
+        RatingService service = new RatingService(repo, null, null, buffer);
+
+        assertEquals(RatingService.LikeResult.QUEUED, service.likeRating(3, 1));
+        buffer.close();
+
+        assertEquals(1, service.countLikes(3));
+        assertEquals(0, repo.reads);
+    }
+
+    @Test
+    void unknownRatingsAreLookedUpOnce() throws Exception {
+        // Test: Unbekannte ID -> einmal findById; fehlt das Rating: Like abgelehnt, Zaehler null (404).
+        // Auf einer anderen Instanz angelegtes Rating wird mit seinen Likes uebernommen; geloeschtes ist unbekannt.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        Rating elsewhere = new Rating();
+        elsewhere.setId(8);
+        elsewhere.setLikeCount(4);
+        repo.existing = elsewhere;
+        try (LikeBuffer buffer = new LikeBuffer(repo, 100, 100, 5000, 100, 3)) {
+            buffer.loadCounts(Map.of(3, 0));
+            RatingService service = new RatingService(repo, null, null, buffer);
+
+            Exception ex = assertThrows(Exception.class, () -> service.likeRating(99, 1));
+            assertEquals("Rating nicht gefunden", ex.getMessage());
+            assertNull(service.countLikes(99));
+
+            assertEquals(RatingService.LikeResult.QUEUED, service.likeRating(8, 1));
+            assertEquals(4, service.countLikes(8));
+            assertEquals(3, repo.reads);
+
+            buffer.ratingRemoved(3);
+            assertThrows(Exception.class, () -> service.likeRating(3, 1));
+        }
+    }
+
+    // Fake-Repository: merkt sich geschriebene Likes und Batch-Groessen (wie ON CONFLICT DO NOTHING).
+    static class FakeRatingRepository extends RatingRepository {
+        final Set<Long> written = Collections.synchronizedSet(new HashSet<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch blocked;
+        // So viele Aufrufe von addLikes schlagen noch fehl.
+        volatile int failures;
+        int reads;
+        // Einziges Rating, das findById findet (null = keins).
+        volatile Rating existing;
+
+        FakeRatingRepository() {
+            super((DataSource) null);
+        }
+
+        @Override
+        public int[] addLikes(int[] ratingIds, int[] userIds) throws SQLException {
+            batchSizes.add(ratingIds.length);
+            if (failures > 0) {
+                failures--;
+                throw new SQLException("Keine freie DB-Verbindung");
+            }
+            if (blocked != null) {
+                try {
+                    blocked.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<Integer> inserted = new ArrayList<>();
+            for (int i = 0; i < ratingIds.length; i++) {
+                if (written.add(((long) ratingIds[i] << 32) | userIds[i])) {
+                    inserted.add(ratingIds[i]);
+                }
+            }
+            return inserted.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public Rating findById(int ratingId) {
+            reads++;
+            return existing != null && existing.getId() == ratingId ? existing : null;
+        }
+    }
+}
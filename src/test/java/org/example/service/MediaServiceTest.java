@@ -1,10 +1,21 @@
 package org.example.service;
 
+import org.example.domain.MediaDetailResponse;
 import org.example.domain.MediaEntry;
+import org.example.domain.MediaImportResult;
+import org.example.domain.MediaRatingStats;
+import org.example.domain.Rating;
+import org.example.http.HttpUtil;
 import org.example.persistence.MediaRepository;
+import org.example.persistence.OwnedWrite;
+import org.example.persistence.PageRequest;
+import org.example.persistence.RowSink;
 import org.junit.jupiter.api.Test;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -125,6 +136,121 @@ public class MediaServiceTest {
         assertEquals(List.of("SCI-FI"), result.getGenres());
     }
 
+    @Test
+    void detailContainsRatingStats() throws Exception {
+        // Test: Detailansicht liefert Medium + Statistik aus dem Repository.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        MediaService service = new MediaService(repo);
+        MediaEntry saved = repo.save(baseMedia());
+
+        MediaDetailResponse detail = service.getDetail(saved.getId());
+        assertEquals("Test", detail.getTitle());
+        assertEquals(List.of("SCI-FI"), detail.getGenres());
+        assertEquals(2, detail.getRatingStats().getRatingCount());
+        assertEquals(4.5, detail.getRatingStats().getAverageScore());
+
+        Exception ex = assertThrows(Exception.class, () -> service.getDetail(99));
+        assertEquals("Medium nicht gefunden", ex.getMessage());
+    }
+
+    @Test
+    void searchIsCachedUntilCatalogChanges() throws Exception {
+        // Test: Gleiche Suche -> 1 Repository-Aufruf; nach create wird neu geladen.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        CatalogVersion version = new CatalogVersion();
+        SearchCache cache = new SearchCache(version, 10, 60000, false, 100);
+        MediaService service = new MediaService(repo, null, version, cache, null, null, null);
+
+        service.streamPage(null, "SCI-FI", null, null, null, null, "title", PageRequest.firstPage(), media -> { });
+        service.streamPage(null, "sci-fi", null, null, null, null, "title", PageRequest.firstPage(), media -> { });
+        assertEquals(1, repo.searches);
+
+        service.create(baseMedia(), 1);
+        List<MediaEntry> received = new ArrayList<>();
+        service.streamPage(null, "sci-fi", null, null, null, null, "title", PageRequest.firstPage(), received::add);
+        assertEquals(2, repo.searches);
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void importReportsErrorsPerLineAndKeepsValidRecords() throws Exception {
+        // Test: Gleiche Regeln wie create; fehlerhafte Zeilen (mit Nummer) blockieren die gueltigen nicht.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        CatalogVersion version = new CatalogVersion();
+        MediaService service = new MediaService(repo, null, version, null, null, null, null);
+        String ndjson = String.join("\n",
+                "{\"title\":\"Alien\",\"mediaType\":\"movie\",\"genres\":[\"SCI-FI\",\" \"]}",
+                "{\"title\":\"Kein Typ\",\"genres\":[\"DRAMA\"]}",
+                "",
+                "{kaputt",
+                "{\"title\":\"Zelda\",\"mediaType\":\"GAME\",\"genres\":[\"ADVENTURE\"],\"releaseYear\":1986}");
+
+        MediaImportResult result = service.importMedia(new BufferedReader(new StringReader(ndjson)),
+                line -> HttpUtil.parseJson(line, MediaEntry.class), 7);
+
+        assertEquals(5, result.getLines());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("MediaType ist erforderlich (MOVIE, SERIES, GAME)", result.getErrors().get(0).getError());
+        assertEquals(4, result.getErrors().get(1).getLine());
+        assertEquals("MOVIE", repo.findById(1).getMediaType());
+        assertEquals(List.of("SCI-FI"), repo.findById(1).getGenres());
+        assertEquals(7, repo.findById(2).getCreatorId());
+        assertEquals(1, version.current());
+    }
+
+    @Test
+    void importRejectsValuesLongerThanTheColumns() throws Exception {
+        // Test: Zu lange Titel/Genres scheitern als einzelne Zeile statt das ganze COPY abzubrechen.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        MediaService service = new MediaService(repo);
+        String title = "T".repeat(MediaService.MAX_TITLE_LENGTH + 1);
+        String genre = "G".repeat(MediaService.MAX_GENRE_LENGTH + 1);
+        String ndjson = String.join("\n",
+                "{\"title\":\"" + title + "\",\"mediaType\":\"MOVIE\",\"genres\":[\"DRAMA\"]}",
+                "{\"title\":\"Ok\",\"mediaType\":\"MOVIE\",\"genres\":[\"" + genre + "\"]}",
+                "{\"title\":\"Ok\",\"mediaType\":\"MOVIE\",\"genres\":[\"DRAMA\"]}");
+
+        MediaImportResult result = service.importMedia(new BufferedReader(new StringReader(ndjson)),
+                line -> HttpUtil.parseJson(line, MediaEntry.class), 1);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals("Titel darf maximal 256 Zeichen haben", result.getErrors().get(0).getError());
+        assertEquals(2, result.getErrors().get(1).getLine());
+        assertEquals("Genre darf maximal 100 Zeichen haben", result.getErrors().get(1).getError());
+
+        MediaEntry media = baseMedia();
+        media.setTitle(title);
+        assertThrows(Exception.class, () -> service.create(media, 1));
+    }
+
+    @Test
+    void deleteRemovesLikeCountsOfCascadedRatings() throws Exception {
+        // Test: Mitgeloeschte Ratings verschwinden aus dem LikeBuffer -> Likes darauf gelten als unbekannt.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        LikeBuffer buffer = new LikeBuffer(new LikeBufferTest.FakeRatingRepository(), 10, 10, 5000, 10, 3);
+        try {
+            buffer.loadCounts(Map.of(5, 2, 6, 0, 7, 1));
+            MediaService service = new MediaService(repo, null, null, null, null, null, buffer);
+            MediaEntry media = service.create(baseMedia(), 1);
+            Rating first = new Rating();
+            first.setId(5);
+            Rating second = new Rating();
+            second.setId(6);
+            repo.ratings.put(media.getId(), List.of(first, second));
+
+            service.delete(media.getId(), 1);
+
+            assertFalse(buffer.isKnown(5));
+            assertFalse(buffer.isKnown(6));
+            assertTrue(buffer.isKnown(7));
+        } finally {
+            buffer.close();
+        }
+    }
+
     private MediaEntry baseMedia() {
         MediaEntry media = new MediaEntry();
         media.setTitle("Test");
@@ -136,13 +262,53 @@ public class MediaServiceTest {
         return media;
     }
 
+    @Test
+    void similarMediaFollowCreateUpdateAndDelete() throws Exception {
+        // Test: Index ohne Hintergrund-Thread; nach dem ersten Aufbau aendern create/update/delete ihn sofort.
+        FakeMediaRepository repo = new FakeMediaRepository();
+        SimilarMediaIndex index = new SimilarMediaIndex(repo, null, 8, 50, 32, 0);
+        MediaService service = new MediaService(repo, null, null, null, index, null, null);
+        MediaEntry movie = service.create(similarMedia("MOVIE", 12, "SCI-FI", "ACTION"), 1);
+        assertThrows(IllegalStateException.class, () -> service.findSimilar(movie.getId(), 5));
+        index.rebuild();
+
+        MediaEntry twin = service.create(similarMedia("MOVIE", 12, "SCI-FI", "ACTION"), 1);
+        MediaEntry game = service.create(similarMedia("GAME", 0, "PUZZLE"), 1);
+        MediaEntry series = service.create(similarMedia("SERIES", 16, "SCI-FI"), 1);
+
+        List<MediaEntry> similar = service.findSimilar(movie.getId(), 5);
+        assertEquals(List.of(twin.getId(), series.getId(), game.getId()), similar.stream().map(MediaEntry::getId).toList());
+
+        // Genre aendern: das Spiel wird dem Film aehnlicher als die Serie.
+        service.update(game.getId(), similarMedia("MOVIE", 12, "SCI-FI", "ACTION"), 1);
+        assertEquals(List.of(twin.getId(), game.getId()), service.findSimilar(movie.getId(), 2).stream()
+                .map(MediaEntry::getId).sorted().toList());
+
+        service.delete(twin.getId(), 1);
+        assertFalse(service.findSimilar(movie.getId(), 5).stream().anyMatch(m -> m.getId() == twin.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.findSimilar(movie.getId(), 0));
+        assertThrows(Exception.class, () -> service.findSimilar(99, 5));
+    }
+
+    private static MediaEntry similarMedia(String type, int ageRestriction, String... genres) {
+        MediaEntry media = new MediaEntry();
+        media.setTitle(type + " " + String.join("/", genres));
+        media.setMediaType(type);
+        media.setAgeRestriction(ageRestriction);
+        media.setGenres(new ArrayList<>(List.of(genres)));
+        return media;
+    }
+
     // Fake-Repository für Media (In-Memory).
     static class FakeMediaRepository extends MediaRepository {
         private final Map<Integer, MediaEntry> byId = new HashMap<>();
         private int nextId = 1;
+        int searches;
+        // Ratings pro Medium (werden beim Loeschen mit zurueckgegeben).
+        final Map<Integer, List<Rating>> ratings = new HashMap<>();
 
         FakeMediaRepository() {
-            super((Connection) null);
+            super((DataSource) null);
         }
 
         @Override
@@ -154,20 +320,100 @@ public class MediaServiceTest {
             return media;
         }
 
+        @Override
+        public int bulkInsert(int creatorId, ImportRows rows) throws IOException {
+            int[] imported = {0};
+            rows.writeTo(media -> {
+                media.setCreatorId(creatorId);
+                save(media);
+                imported[0]++;
+            });
+            return imported[0];
+        }
+
         @Override
         public MediaEntry findById(int id) {
             return byId.get(id);
         }
 
         @Override
-        public MediaEntry update(MediaEntry media) {
-            byId.put(media.getId(), media);
-            return media;
+        public List<MediaEntry> findAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public List<MediaEntry> findByIds(int[] ids) {
+            List<MediaEntry> found = new ArrayList<>();
+            for (int id : ids) {
+                if (byId.containsKey(id)) {
+                    found.add(byId.get(id));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public OwnedWrite<MediaEntry> update(int id, MediaEntry changes, int userId) {
+            MediaEntry media = byId.get(id);
+            if (media == null) {
+                return OwnedWrite.notFound();
+            }
+            if (media.getCreatorId() != userId) {
+                return OwnedWrite.forbidden();
+            }
+            // null/0 = unveraendert (wie COALESCE im SQL)
+            if (changes.getTitle() != null) {
+                media.setTitle(changes.getTitle());
+            }
+            if (changes.getDescription() != null) {
+                media.setDescription(changes.getDescription());
+            }
+            if (changes.getMediaType() != null) {
+                media.setMediaType(changes.getMediaType());
+            }
+            if (changes.getReleaseYear() != 0) {
+                media.setReleaseYear(changes.getReleaseYear());
+            }
+            if (changes.getAgeRestriction() != 0) {
+                media.setAgeRestriction(changes.getAgeRestriction());
+            }
+            if (changes.getGenres() != null) {
+                media.setGenres(changes.getGenres());
+            }
+            return OwnedWrite.done(media);
+        }
+
+        @Override
+        public OwnedWrite<List<Rating>> deleteWithRatings(int id, int userId) {
+            MediaEntry media = byId.get(id);
+            if (media == null) {
+                return OwnedWrite.notFound();
+            }
+            if (media.getCreatorId() != userId) {
+                return OwnedWrite.forbidden();
+            }
+            byId.remove(id);
+            List<Rating> removed = ratings.remove(id);
+            return OwnedWrite.done(removed != null ? removed : new ArrayList<>());
+        }
+
+        @Override
+        public String streamSearchPage(String title, String genre, String mediaType, Integer releaseYear,
+                                       Integer ageRestriction, Double rating, String sortBy, PageRequest page,
+                                       RowSink<? super MediaEntry> sink) throws IOException {
+            searches++;
+            for (MediaEntry media : byId.values()) {
+                sink.accept(media);
+            }
+            return null;
         }
 
         @Override
-        public boolean delete(int id) {
-            return byId.remove(id) != null;
+        public MediaRatingStats findRatingStats(int mediaId) {
+            MediaRatingStats stats = new MediaRatingStats();
+            stats.setRatingCount(2);
+            stats.setAverageScore(4.5);
+            return stats;
         }
     }
 }
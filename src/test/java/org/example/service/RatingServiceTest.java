@@ -1,13 +1,28 @@
 package org.example.service;
 
+import org.example.domain.LeaderboardEntry;
 import org.example.domain.Rating;
+import org.example.persistence.PageCursor;
+import org.example.persistence.PageRequest;
+import org.example.persistence.OwnedWrite;
 import org.example.persistence.RatingRepository;
+import org.example.persistence.RatingWrite;
+import org.example.persistence.RowSink;
 import org.junit.jupiter.api.Test;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -155,18 +170,106 @@ public class RatingServiceTest {
         assertEquals("Top", rating.getComment());
     }
 
+    @Test
+    void ratingEventsUpdateLeaderboardAndPagesComeFromMemory() throws Exception {
+        // Test: Erstellen/Loeschen aendert das Leaderboard; Seiten mit Cursor ohne SQL.
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(new LeaderboardEntry(1, "anna", 0), new LeaderboardEntry(2, "ben", 0),
+                new LeaderboardEntry(3, "cem", 0)));
+        RatingService service = new RatingService(new FakeRatingRepository(), leaderboard, null, null);
+
+        service.createRating(10, 2, 5, null);
+        service.createRating(11, 2, 4, null);
+        Rating third = service.createRating(10, 3, 3, null);
+        service.deleteRating(third.getId(), 3);
+
+        List<LeaderboardEntry> firstPage = new ArrayList<>();
+        String cursor = service.streamLeaderboard(new PageRequest(2, null, true), firstPage::add);
+        assertEquals(List.of("ben", "anna"), firstPage.stream().map(LeaderboardEntry::getUsername).toList());
+        assertEquals(2, firstPage.get(0).getRatingCount());
+
+        List<LeaderboardEntry> secondPage = new ArrayList<>();
+        assertNull(service.streamLeaderboard(new PageRequest(2, PageCursor.decode(cursor), true), secondPage::add));
+        assertEquals("cem", secondPage.get(0).getUsername());
+        assertEquals(2, secondPage.get(0).getRank());
+
+        assertEquals(List.of(1, 3), service.getLeaderboardAround(3, 1).stream().map(LeaderboardEntry::getUserId).toList());
+    }
+
+    @Test
+    void concurrentDuplicateSubmitsCreateOneRating() throws Exception {
+        // Test: 32 Threads schicken gleichzeitig dasselbe Rating -> genau 1x CREATED, sonst CONFLICT (kein Fehler).
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(new LeaderboardEntry(7, "anna", 0)));
+        FakeRatingRepository repo = new FakeRatingRepository();
+        RatingService service = new RatingService(repo, leaderboard, null, null);
+
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<RatingWrite>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.rateMedia(10, 7, 4, "Doppelklick", false);
+                }));
+            }
+            start.countDown();
+
+            Map<RatingWrite.Status, Integer> counts = new HashMap<>();
+            for (Future<RatingWrite> result : results) {
+                counts.merge(result.get(5, TimeUnit.SECONDS).status(), 1, Integer::sum);
+            }
+            assertEquals(Map.of(RatingWrite.Status.CREATED, 1, RatingWrite.Status.CONFLICT, threads - 1), counts);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, leaderboard.around(7, 0).get(0).getRatingCount());
+    }
+
+    @Test
+    void upsertOverwritesExistingRating() throws Exception {
+        // Test: mode=upsert -> vorhandenes Rating wird ueberschrieben, Leaderboard zaehlt es nicht doppelt.
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.rebuild(List.of(new LeaderboardEntry(7, "anna", 0)));
+        RatingService service = new RatingService(new FakeRatingRepository(), leaderboard, null, null);
+
+        assertEquals(RatingWrite.Status.CREATED, service.rateMedia(10, 7, 2, "geht so", true).status());
+        RatingWrite second = service.rateMedia(10, 7, 5, "doch super", true);
+
+        assertEquals(RatingWrite.Status.UPDATED, second.status());
+        assertEquals(5, second.rating().getStars());
+        assertFalse(second.rating().isCommentConfirmed());
+        assertEquals(1, leaderboard.around(7, 0).get(0).getRatingCount());
+    }
+
+    @Test
+    void exportMovesWatermarkBackByOverlap() throws Exception {
+        // Test: Inkrementeller Export beginnt EXPORT_OVERLAP_SECONDS vor updatedSince, kompletter Export ohne Grenze.
+        FakeRatingRepository repo = new FakeRatingRepository();
+        RatingService service = new RatingService(repo);
+        LocalDateTime watermark = LocalDateTime.of(2024, 5, 1, 9, 30);
+
+        service.exportRatings(watermark, false, row -> { });
+        assertEquals(Timestamp.valueOf(watermark.minusSeconds(RatingService.EXPORT_OVERLAP_SECONDS)), repo.exportedSince);
+        service.exportRatings(null, false, row -> { });
+        assertNull(repo.exportedSince);
+    }
+
     // Fake-Repository für Ratings (In-Memory).
     static class FakeRatingRepository extends RatingRepository {
         private final Map<Integer, Rating> byId = new HashMap<>();
         boolean likeThrows = false;
+        Timestamp exportedSince;
         private int nextId = 1;
 
         FakeRatingRepository() {
-            super((Connection) null);
+            super((DataSource) null);
         }
 
-        @Override
-        public Rating save(Rating rating) {
+        // Testdaten anlegen (ohne Konfliktpruefung).
+        public synchronized Rating save(Rating rating) {
             if (rating.getId() == 0) {
                 rating.setId(nextId++);
             }
@@ -174,6 +277,22 @@ public class RatingServiceTest {
             return rating;
         }
 
+        // Atomar wie INSERT ... ON CONFLICT (ein Rating pro User/Medium).
+        @Override
+        public synchronized RatingWrite insert(Rating rating, boolean overwrite) {
+            Rating existing = findByMediaAndUser(rating.getMediaId(), rating.getUserId());
+            if (existing == null) {
+                return new RatingWrite(RatingWrite.Status.CREATED, save(rating));
+            }
+            if (!overwrite) {
+                return new RatingWrite(RatingWrite.Status.CONFLICT, null);
+            }
+            existing.setStars(rating.getStars());
+            existing.setComment(rating.getComment());
+            existing.setCommentConfirmed(false);
+            return new RatingWrite(RatingWrite.Status.UPDATED, existing);
+        }
+
         @Override
         public Rating findById(int ratingId) {
             return byId.get(ratingId);
@@ -188,22 +307,41 @@ public class RatingServiceTest {
         }
 
         @Override
-        public Rating update(Rating rating) {
-            byId.put(rating.getId(), rating);
-            return rating;
+        public OwnedWrite<Rating> update(int ratingId, int userId, int stars, String comment) {
+            OwnedWrite<Rating> check = checkOwner(ratingId, userId);
+            if (check != null) {
+                return check;
+            }
+            Rating rating = byId.get(ratingId);
+            rating.setStars(stars);
+            rating.setComment(comment);
+            rating.setCommentConfirmed(false);
+            return OwnedWrite.done(rating);
         }
 
         @Override
-        public boolean delete(int ratingId) {
-            return byId.remove(ratingId) != null;
+        public OwnedWrite<Rating> delete(int ratingId, int userId) {
+            OwnedWrite<Rating> check = checkOwner(ratingId, userId);
+            return check != null ? check : OwnedWrite.done(byId.remove(ratingId));
         }
 
         @Override
-        public void confirmComment(int ratingId) {
+        public OwnedWrite<Rating> confirmComment(int ratingId, int userId) {
+            OwnedWrite<Rating> check = checkOwner(ratingId, userId);
+            if (check != null) {
+                return check;
+            }
+            byId.get(ratingId).setCommentConfirmed(true);
+            return OwnedWrite.done(byId.get(ratingId));
+        }
+
+        // Wie die WHERE-Bedingung im SQL: null = Besitzer passt.
+        private OwnedWrite<Rating> checkOwner(int ratingId, int userId) {
             Rating rating = byId.get(ratingId);
-            if (rating != null) {
-                rating.setCommentConfirmed(true);
+            if (rating == null) {
+                return OwnedWrite.notFound();
             }
+            return rating.getUserId() == userId ? null : OwnedWrite.forbidden();
         }
 
         @Override
@@ -212,5 +350,11 @@ public class RatingServiceTest {
                 throw new SQLException("duplicate");
             }
         }
+
+        @Override
+        public int streamExport(Timestamp updatedSince, boolean withMedia, RowSink<Object[]> sink) {
+            exportedSince = updatedSince;
+            return 0;
+        }
     }
 }
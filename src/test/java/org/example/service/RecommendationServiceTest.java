@@ -1,11 +1,12 @@
 package org.example.service;
 
 import org.example.domain.MediaEntry;
+import org.example.domain.Rating;
 import org.example.persistence.MediaRepository;
 import org.example.persistence.RatingRepository;
 import org.junit.jupiter.api.Test;
 
-import java.sql.Connection;
+import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +20,7 @@ public class RecommendationServiceTest {
     void recommendByGenreReturnsList() throws Exception {
         // Test: Genre-Empfehlungen liefern Ergebnisse.
         FakeMediaRepository mediaRepo = new FakeMediaRepository();
-        mediaRepo.genreList.add(new MediaEntry());
+        mediaRepo.genreCandidates.add(new Candidate(7, 1, 2, 4.0, 3));
         RecommendationService service = new RecommendationService(mediaRepo, new FakeRatingRepository());
 
         List<MediaEntry> list = service.recommendByGenre(1);
@@ -30,7 +31,7 @@ public class RecommendationServiceTest {
     void recommendByContentReturnsList() throws Exception {
         // Test: Content-Empfehlungen liefern Ergebnisse.
         FakeMediaRepository mediaRepo = new FakeMediaRepository();
-        mediaRepo.contentList.add(new MediaEntry());
+        mediaRepo.contentCandidates.add(new Candidate(7, 1, 2, 4.0, 3));
         RecommendationService service = new RecommendationService(mediaRepo, new FakeRatingRepository());
 
         List<MediaEntry> list = service.recommendByContent(1);
@@ -75,38 +76,174 @@ public class RecommendationServiceTest {
         assertEquals("Fehler bei Content-Empfehlungen", ex.getMessage());
     }
 
+    @Test
+    void rankedByScoreAndPagedWithBoundedHeap() throws Exception {
+        // Test: Score aus Genre-Ueberdeckung, Durchschnitt und Beliebtheit; nur die Medien der Seite werden geladen.
+        FakeMediaRepository mediaRepo = new FakeMediaRepository();
+        mediaRepo.genreCandidates.add(new Candidate(1, 1, 3, 3.0, 2));    // wenig Ueberdeckung
+        mediaRepo.genreCandidates.add(new Candidate(2, 3, 3, 4.0, 50));   // alle Lieblingsgenres, beliebt
+        mediaRepo.genreCandidates.add(new Candidate(3, 3, 3, 4.0, 1));    // wie 2, aber kaum bewertet
+        mediaRepo.genreCandidates.add(new Candidate(4, 2, 3, 5.0, 20));
+        mediaRepo.genreCandidates.add(new Candidate(5, 1, 3, 0.0, 0));    // noch ohne Ratings
+        RecommendationService service = new RecommendationService(mediaRepo, new FakeRatingRepository());
+
+        assertEquals(List.of(2, 3, 4, 1, 5), ids(service.recommendByGenre(1, 0, 10)));
+        assertEquals(List.of(4, 1), ids(service.recommendByGenre(1, 2, 2)));
+        assertArrayEquals(new int[]{4, 1}, mediaRepo.lastIds);
+        assertEquals(List.of(), ids(service.recommendByGenre(1, 5, 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> service.recommendByGenre(1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.recommendByGenre(1, -1, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.recommendByGenre(1, RecommendationService.MAX_OFFSET + 1, 10));
+    }
+
+    @Test
+    void usesContentIndexOnceLoaded() throws Exception {
+        // Test: Geladener Content-Index ersetzt die SQL-Kandidaten (SQL wuerde hier fehlschlagen).
+        FakeMediaRepository mediaRepo = new FakeMediaRepository();
+        mediaRepo.throwOnGenre = true;
+        FakeRatingRepository ratingRepo = new FakeRatingRepository();
+        ratingRepo.byUser.add(rating(1, 5));
+        ContentIndexTest.FakeMediaRepository catalog = new ContentIndexTest.FakeMediaRepository();
+        catalog.add(genreMedia(1, "Action", "Drama"));
+        catalog.add(genreMedia(2, "Action"));
+        catalog.add(genreMedia(3, "Action", "Drama"));
+        catalog.add(genreMedia(4, "Horror"));
+        ContentIndex index = new ContentIndex(catalog, null, 0);
+        RecommendationService service = new RecommendationService(mediaRepo, ratingRepo, null, null, index);
+
+        assertThrows(Exception.class, () -> service.recommendByGenre(7));
+        index.refresh();
+        assertEquals(List.of(3, 2), ids(service.recommendByGenre(7)));
+        assertEquals(List.of(2), ids(service.recommendByGenre(7, "action", 1, 5)));
+        assertEquals(List.of(3), ids(service.recommendByContent(7, "DRAMA", 0, 5)));
+    }
+
+    private static MediaEntry genreMedia(int id, String... genres) {
+        MediaEntry media = new MediaEntry();
+        media.setId(id);
+        media.setMediaType("MOVIE");
+        media.setGenres(List.of(genres));
+        return media;
+    }
+
+    @Test
+    void scoreWeighsGenresAverageAndPopularity() {
+        // Test: Gewichte summieren sich zu 1; Beliebtheit saettigt (POPULARITY_HALF Ratings = halbe Gewichtung).
+        assertEquals(1.0f, RecommendationService.score(2, 2, 5.0, 1_000_000), 1e-4f);
+        assertEquals(0f, RecommendationService.score(0, 0, 0.0, 0));
+        assertEquals(RecommendationService.POPULARITY_WEIGHT / 2,
+                RecommendationService.score(0, 3, 0.0, RecommendationService.POPULARITY_HALF), 1e-6f);
+    }
+
+    private static List<Integer> ids(List<MediaEntry> media) {
+        return media.stream().map(MediaEntry::getId).toList();
+    }
+
+    @Test
+    void collaborativeRanksByCoRatingsAndLoadsMediaOnce() throws Exception {
+        // Test: Modell aus allen Ratings, Empfehlung aus den eigenen Ratings; Medien in einem Aufruf geladen.
+        FakeMediaRepository mediaRepo = new FakeMediaRepository();
+        FakeRatingRepository ratingRepo = new FakeRatingRepository();
+        ratingRepo.stars = new int[][]{{1, 10, 5}, {1, 11, 5}, {2, 10, 4}, {2, 11, 5}, {2, 12, 1}, {3, 12, 5}};
+        CollaborativeRecommender recommender = new CollaborativeRecommender("cf", ratingRepo,
+                ratings -> ItemSimilarityModel.build(ratings, 10, 2), 0);
+        RecommendationService service = new RecommendationService(mediaRepo, ratingRepo, recommender, null, null);
+
+        // Noch kein Modell -> Genre-Empfehlungen.
+        mediaRepo.genreCandidates.add(new Candidate(12, 1, 1, 5.0, 1));
+        assertEquals(1, service.recommendCollaborative(3).size());
+        mediaRepo.findByIdsCalls = 0;
+
+        recommender.refresh();
+        ratingRepo.byUser.add(rating(10, 5));
+        List<MediaEntry> list = service.recommendCollaborative(3);
+        assertEquals(List.of(11), list.stream().map(MediaEntry::getId).toList());
+        assertEquals(1, mediaRepo.findByIdsCalls);
+    }
+
+    private static Rating rating(int mediaId, int stars) {
+        Rating rating = new Rating();
+        rating.setMediaId(mediaId);
+        rating.setStars(stars);
+        return rating;
+    }
+
+    // Kandidat wie aus MediaRepository.streamGenreCandidates/streamContentCandidates.
+    record Candidate(int mediaId, int matchedGenres, int likedGenres, double averageScore, int ratingCount) {
+    }
+
     // Fake-Repository für Media (In-Memory).
     static class FakeMediaRepository extends MediaRepository {
-        List<MediaEntry> genreList = new ArrayList<>();
-        List<MediaEntry> contentList = new ArrayList<>();
+        List<Candidate> genreCandidates = new ArrayList<>();
+        List<Candidate> contentCandidates = new ArrayList<>();
         boolean throwOnGenre = false;
         boolean throwOnContent = false;
+        int findByIdsCalls = 0;
+        int[] lastIds;
 
         FakeMediaRepository() {
-            super((Connection) null);
+            super((DataSource) null);
         }
 
         @Override
-        public List<MediaEntry> recommendByGenre(int userId) throws SQLException {
+        public int streamGenreCandidates(int userId, String genre, CandidateSink sink) throws SQLException {
             if (throwOnGenre) {
                 throw new SQLException("fail");
             }
-            return genreList;
+            return stream(genreCandidates, sink);
         }
 
         @Override
-        public List<MediaEntry> recommendByContent(int userId) throws SQLException {
+        public int streamContentCandidates(int userId, String genre, CandidateSink sink) throws SQLException {
             if (throwOnContent) {
                 throw new SQLException("fail");
             }
-            return contentList;
+            return stream(contentCandidates, sink);
+        }
+
+        private static int stream(List<Candidate> candidates, CandidateSink sink) {
+            for (Candidate c : candidates) {
+                sink.accept(c.mediaId(), c.matchedGenres(), c.likedGenres(), c.averageScore(), c.ratingCount());
+            }
+            return candidates.size();
+        }
+
+        @Override
+        public List<MediaEntry> findByIds(int[] ids) {
+            findByIdsCalls++;
+            lastIds = ids;
+            List<MediaEntry> list = new ArrayList<>();
+            for (int id : ids) {
+                MediaEntry media = new MediaEntry();
+                media.setId(id);
+                list.add(media);
+            }
+            return list;
         }
     }
 
-    // Fake-Repository für Ratings (nicht benötigt, aber als Stub vorhanden).
+    // Fake-Repository für Ratings: alle Ratings als (User, Medium, Sterne) und die Ratings des Users.
     static class FakeRatingRepository extends RatingRepository {
+        int[][] stars = new int[0][];
+        List<Rating> byUser = new ArrayList<>();
+
         FakeRatingRepository() {
-            super((Connection) null);
+            super((DataSource) null);
+        }
+
+        @Override
+        public int streamStars(StarsSink sink) {
+            for (int[] row : stars) {
+                sink.accept(row[0], row[1], row[2]);
+            }
+            return stars.length;
+        }
+
+        @Override
+        public List<Rating> findByUser(int userId) {
+            return byUser;
         }
     }
 }
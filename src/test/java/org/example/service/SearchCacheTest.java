@@ -0,0 +1,120 @@
+package org.example.service;
+
+import org.example.cache.BoundedCache;
+import org.example.domain.MediaEntry;
+import org.example.persistence.PageRequest;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für SearchCache (Versionszaehler statt Invalidierung einzelner Suchen).
+public class SearchCacheTest {
+
+    @Test
+    void normalizedParametersShareEntry() throws Exception {
+        // Test: Gross/Kleinschreibung, leere Filter und sortBy-Varianten landen im selben Eintrag.
+        SearchCache cache = newCache(new CatalogVersion(), false, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(SearchCache.key("Matrix", "ACTION", "movie", null, null, null, "Score", PageRequest.firstPage()),
+                counting(loads, 3));
+        cache.get(SearchCache.key("matrix", "action", "MOVIE", null, null, null, "score", PageRequest.firstPage()),
+                counting(loads, 3));
+        cache.get(SearchCache.key("matrix", "action", "MOVIE", null, null, null, null, PageRequest.firstPage()),
+                counting(loads, 3));
+        cache.get(SearchCache.key(" ", "", null, null, null, null, "unbekannt", PageRequest.firstPage()),
+                counting(loads, 3));
+        cache.get(SearchCache.key(null, null, null, null, null, null, null, PageRequest.firstPage()),
+                counting(loads, 3));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void versionBumpReloads() throws Exception {
+        // Test: Nach einer Aenderung am Katalog wird die Suche synchron neu geladen.
+        CatalogVersion version = new CatalogVersion();
+        SearchCache cache = newCache(version, false, 100);
+        AtomicInteger loads = new AtomicInteger();
+        SearchCache.Key key = SearchCache.key(null, "drama", null, null, null, null, "title", PageRequest.firstPage());
+
+        assertEquals(1, cache.get(key, counting(loads, 1)).items().size());
+        version.bump();
+        assertEquals(2, cache.get(key, counting(loads, 2)).items().size());
+        assertEquals(2, cache.get(key, counting(loads, 3)).items().size());
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getStats().get("staleReloads"));
+    }
+
+    @Test
+    void staleWhileRevalidateServesOldResultOnce() throws Exception {
+        // Test: Mit stale-while-revalidate kommt einmal der alte Stand, die Aktualisierung laeuft im Hintergrund.
+        CatalogVersion version = new CatalogVersion();
+        List<Runnable> background = new ArrayList<>();
+        SearchCache cache = new SearchCache(version, new BoundedCache<>("search", 10, 60000), true, 100,
+                background::add);
+        AtomicInteger loads = new AtomicInteger();
+        SearchCache.Key key = SearchCache.key(null, null, null, 1999, null, null, null, PageRequest.firstPage());
+
+        cache.get(key, counting(loads, 1));
+        version.bump();
+        assertEquals(1, cache.get(key, counting(loads, 2)).items().size());
+        assertEquals(1, cache.get(key, counting(loads, 2)).items().size());
+        assertEquals(1, background.size());
+
+        background.get(0).run();
+        assertEquals(2, cache.get(key, counting(loads, 3)).items().size());
+        assertEquals(2, loads.get());
+        assertEquals(2L, cache.getStats().get("staleServed"));
+    }
+
+    @Test
+    void oversizedResultsAreNotKept() throws Exception {
+        // Test: Ungeblaetterte Liste ueber dem Limit wird ausgeliefert, aber nicht gecacht.
+        SearchCache cache = newCache(new CatalogVersion(), false, 5);
+        AtomicInteger loads = new AtomicInteger();
+        SearchCache.Key key = SearchCache.key(null, null, null, null, null, null, null, null);
+
+        assertEquals(10, cache.get(key, counting(loads, 10)).items().size());
+        assertEquals(10, cache.get(key, counting(loads, 10)).items().size());
+        assertEquals(2, loads.get());
+        assertEquals(2L, cache.getStats().get("oversized"));
+    }
+
+    @Test
+    void loaderErrorIsPassedThrough() {
+        // Test: SQL-Fehler des Loaders kommt unveraendert beim Aufrufer an und wird nicht gecacht.
+        SearchCache cache = newCache(new CatalogVersion(), false, 100);
+        SearchCache.Key key = SearchCache.key(null, null, null, null, null, null, null, PageRequest.firstPage());
+
+        assertThrows(SQLException.class, () -> cache.get(key, () -> {
+            throw new SQLException("DB weg");
+        }));
+        assertDoesNotThrow(() -> cache.get(key, counting(new AtomicInteger(), 1)));
+    }
+
+    private SearchCache newCache(CatalogVersion version, boolean staleWhileRevalidate, int maxItems) {
+        return new SearchCache(version, new BoundedCache<>("search", 10, 60000), staleWhileRevalidate, maxItems,
+                Runnable::run);
+    }
+
+    // Loader, der n Medien liefert und mitzaehlt.
+    private SearchCache.Loader counting(AtomicInteger loads, int items) {
+        return () -> {
+            loads.incrementAndGet();
+            List<MediaEntry> result = new ArrayList<>();
+            for (int i = 1; i <= items; i++) {
+                MediaEntry media = new MediaEntry();
+                media.setId(i);
+                result.add(media);
+            }
+            return new SearchCache.Result(result, null);
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Unit-Tests für TokenService (signierte Tokens, Sperrliste).
+public class TokenServiceTest {
+
+    private static final byte[] SECRET = "01234567890123456789012345678901".getBytes();
+
+    @Test
+    void issuedTokenVerifies() {
+        // Test: Frisch ausgestellter Token enthält User-ID und Ablaufzeit.
+        AtomicLong now = new AtomicLong(1000);
+        TokenService service = new TokenService(SECRET, 5000, now::get);
+
+        TokenService.TokenClaims claims = service.verify(service.issue(42));
+
+        assertNotNull(claims);
+        assertEquals(42, claims.userId());
+        assertEquals(1000, claims.issuedAt());
+        assertEquals(6000, claims.expiresAt());
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        // Test: Geänderte Payload oder fremdes Secret -> ungültig.
+        TokenService service = new TokenService(SECRET, 5000);
+        String token = service.issue(42);
+        String otherUser = service.issue(7);
+        String forged = token.substring(0, token.indexOf('.', 4)) + otherUser.substring(otherUser.indexOf('.', 4));
+
+        assertNull(service.verify(forged));
+        assertNull(new TokenService(new byte[32], 5000).verify(token));
+        assertNull(service.verify("u1-mrpToken"));
+        assertNull(service.verify("mrp.%%%.###"));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        // Test: Nach Ablauf ist der Token ungültig.
+        AtomicLong now = new AtomicLong(1000);
+        TokenService service = new TokenService(SECRET, 5000, now::get);
+        String token = service.issue(1);
+
+        now.set(5999);
+        assertNotNull(service.verify(token));
+        now.set(6000);
+        assertNull(service.verify(token));
+    }
+
+    @Test
+    void revokedTokenIsRejectedAndPurgedAfterExpiry() {
+        // Test: Gesperrter Token ist ungültig, später ausgestellte bleiben gültig; der Eintrag verschwindet nach Ablauf.
+        AtomicLong now = new AtomicLong(1000);
+        TokenService service = new TokenService(SECRET, 5000, now::get);
+        String revoked = service.issue(1);
+        now.set(1001);
+        String other = service.issue(1);
+
+        service.revoke(revoked);
+        assertNull(service.verify(revoked));
+        assertNotNull(service.verify(other));
+        assertEquals(1, service.getRevokedCount());
+
+        now.set(7000);
+        service.revoke(service.issue(2));
+        assertEquals(1, service.getRevokedCount());
+    }
+
+    @Test
+    void revokeAllForUserOnlyAffectsOlderTokens() {
+        // Test: Erzwungenes Ablaufen trifft alte Tokens des Users, nicht neue oder andere User.
+        AtomicLong now = new AtomicLong(1000);
+        TokenService service = new TokenService(SECRET, 5000, now::get);
+        String old = service.issue(1);
+        String otherUser = service.issue(2);
+
+        service.revokeAllForUser(1);
+        now.set(1001);
+        String fresh = service.issue(1);
+
+        assertNull(service.verify(old));
+        assertNotNull(service.verify(otherUser));
+        assertNotNull(service.verify(fresh));
+    }
+
+    @Test
+    void revocationIsPersistedAndSharedAcrossInstances() {
+        // Test: Sperre liegt im Repository -> gilt nach Neustart sofort und auf anderen Instanzen nach cacheMillis.
+        AtomicLong now = new AtomicLong(1000);
+        UserServiceTest.FakeUserRepository repo = new UserServiceTest.FakeUserRepository();
+        TokenService first = new TokenService(SECRET, 60000, now::get, repo, 500);
+        TokenService second = new TokenService(SECRET, 60000, now::get, repo, 500);
+        String token = first.issue(1);
+        assertNotNull(second.verify(token));
+        assertNotNull(second.verify(token));
+        assertEquals(1, repo.notBeforeLoads);
+
+        first.revoke(token);
+        assertNull(first.verify(token));
+        assertNotNull(second.verify(token));
+        now.set(1500);
+        assertNull(second.verify(token));
+
+        TokenService restarted = new TokenService(SECRET, 60000, now::get, repo, 500);
+        assertNull(restarted.verify(token));
+        now.set(1501);
+        assertNotNull(restarted.verify(restarted.issue(1)));
+    }
+
+    @Test
+    void shortSecretIsRejected() {
+        // Test: Zu kurzes Secret wird nicht akzeptiert.
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(new byte[8], 5000));
+    }
+}
@@ -3,14 +3,14 @@ package org.example.service;
 import org.example.domain.User;
 import org.example.domain.UserProfileResponse;
 import org.example.domain.UserProfileUpdate;
-import org.example.persistence.RatingRepository;
+import org.example.domain.UserStats;
 import org.example.persistence.UserRepository;
 import org.junit.jupiter.api.Test;
 
-import java.sql.Connection;
-import java.sql.SQLException;
+import javax.sql.DataSource;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -101,24 +101,31 @@ public class UserServiceTest {
 
     @Test
     void getProfileReturnsStats() throws Exception {
-        // Test: Profil liefert Statistiken aus RatingRepository.
+        // Test: Profil liefert die gepflegte Statistik aus user_stats (Durchschnitt = Sternsumme / Anzahl).
         FakeUserRepository userRepo = new FakeUserRepository();
         User user = new User();
         user.setId(7);
         user.setUsername("u7");
         userRepo.save(user);
+        userRepo.stats.put(7, new UserStats(7, 2, 9, 5, 1));
 
-        FakeRatingRepository ratingRepo = new FakeRatingRepository();
-        ratingRepo.countByUserValue = 3;
-        ratingRepo.avgByUserValue = 4.5;
-
-        UserService service = new UserService(userRepo, ratingRepo);
+        UserService service = new UserService(userRepo);
         UserProfileResponse profile = service.getProfile(7);
 
         assertEquals(7, profile.getId());
         assertEquals("u7", profile.getUsername());
-        assertEquals(3, profile.getTotalRatings());
+        assertEquals(2, profile.getTotalRatings());
         assertEquals(4.5, profile.getAverageScore());
+        assertEquals(5, profile.getLikesReceived());
+        assertEquals(1, profile.getFavoritesCount());
+    }
+
+    @Test
+    void getProfileOfUnknownUserFails() {
+        // Test: Unbekannter User -> Exception (Handler antwortet 404).
+        UserService service = new UserService(new FakeUserRepository());
+        Exception ex = assertThrows(Exception.class, () -> service.getProfile(99));
+        assertEquals("User nicht gefunden", ex.getMessage());
     }
 
     @Test
@@ -141,13 +148,127 @@ public class UserServiceTest {
         assertEquals("SCI-FI", updated.getFavoriteGenre());
     }
 
+    @Test
+    void findByTokenUsesCache() throws Exception {
+        // Test: Zweiter Zugriff mit gleichem Token geht nicht mehr an das Repository.
+        FakeUserRepository repo = new FakeUserRepository();
+        User existing = new User();
+        existing.setUsername("u1");
+        existing.setPassword("pw");
+        repo.save(existing);
+
+        TokenCache cache = new TokenCache(100, 60000, 60000);
+        UserService service = new UserService(repo, cache, null, null);
+        String token = service.login("u1", "pw");
+
+        assertEquals("u1", service.findByToken(token).getUsername());
+        assertEquals("u1", service.findByToken(token).getUsername());
+        assertEquals(0, repo.findByTokenCalls);
+    }
+
+    @Test
+    void unknownTokenIsCachedNegative() {
+        // Test: Unbekannter Token wird nur einmal in der DB gesucht.
+        FakeUserRepository repo = new FakeUserRepository();
+        UserService service = new UserService(repo, new TokenCache(100, 60000, 60000), null, null);
+
+        assertNull(service.findByToken("nope"));
+        assertNull(service.findByToken("nope"));
+        assertEquals(1, repo.findByTokenCalls);
+    }
+
+    @Test
+    void logoutInvalidatesCachedToken() throws Exception {
+        // Test: Nach Logout ist der Token auch im Cache ungueltig.
+        FakeUserRepository repo = new FakeUserRepository();
+        User existing = new User();
+        existing.setUsername("u1");
+        existing.setPassword("pw");
+        repo.save(existing);
+
+        UserService service = new UserService(repo, new TokenCache(100, 60000, 60000), null, null);
+        String token = service.login("u1", "pw");
+        service.logout(service.findByToken(token));
+
+        assertNull(service.findByToken(token));
+    }
+
+    @Test
+    void updateProfileRefreshesCachedUser() throws Exception {
+        // Test: Nach Profil-Update liefert findByToken die neuen Daten.
+        FakeUserRepository repo = new FakeUserRepository();
+        User existing = new User();
+        existing.setUsername("u1");
+        existing.setPassword("pw");
+        repo.save(existing);
+
+        UserService service = new UserService(repo, new TokenCache(100, 60000, 60000), null, null);
+        String token = service.login("u1", "pw");
+        User cached = service.findByToken(token);
+
+        UserProfileUpdate update = new UserProfileUpdate();
+        update.setEmail("neu@example.com");
+        service.updateProfile(cached.getId(), update);
+
+        assertEquals("neu@example.com", service.findByToken(token).getEmail());
+        assertEquals(1, repo.findByTokenCalls);
+    }
+
+    @Test
+    void signedTokenNeedsNoDatabaseLookup() throws Exception {
+        // Test: Signierter Token wird ohne findByToken im Repository geprüft.
+        FakeUserRepository repo = new FakeUserRepository();
+        User existing = new User();
+        existing.setUsername("u1");
+        existing.setPassword("pw");
+        repo.save(existing);
+
+        UserService service = new UserService(repo, null, new TokenService(new byte[32], 60000), null);
+        String token = service.login("u1", "pw");
+
+        assertEquals(existing.getId(), service.findByToken(token).getId());
+        assertNull(repo.byId.get(existing.getId()).getToken());
+        assertEquals(0, repo.findByTokenCalls);
+    }
+
+    @Test
+    void signedLogoutEverywhereRevokesAllTokens() throws Exception {
+        // Test: Logout auf allen Geräten macht auch andere Tokens des Users ungültig.
+        FakeUserRepository repo = new FakeUserRepository();
+        User existing = new User();
+        existing.setUsername("u1");
+        existing.setPassword("pw");
+        repo.save(existing);
+
+        // Logout sperrt den Token und aeltere -> zweiten Login spaeter ausstellen.
+        AtomicLong now = new AtomicLong(1000);
+        UserService service = new UserService(repo, null,
+                new TokenService(new byte[32], 60000, now::get, repo, 0), null);
+        String first = service.login("u1", "pw");
+        now.incrementAndGet();
+        String second = service.login("u1", "pw");
+        service.logout(service.findByToken(first));
+
+        assertNull(service.findByToken(first));
+        assertNotNull(service.findByToken(second));
+
+        service.logoutEverywhere(existing.getId());
+        assertNull(service.findByToken(second));
+    }
+
     // Fake-Repository für User (In-Memory).
     static class FakeUserRepository extends UserRepository {
         private final Map<Integer, User> byId = new HashMap<>();
         private int nextId = 1;
+        int findByTokenCalls = 0;
+        // Sperr-Zeitpunkte fuer signierte Tokens (wie users.tokensnotbefore).
+        final Map<Integer, Long> tokensNotBefore = new HashMap<>();
+        int notBeforeLoads = 0;
+        // Gepflegte Statistik pro User (wie user_stats).
+        final Map<Integer, UserStats> stats = new HashMap<>();
 
         FakeUserRepository() {
-            super((Connection) null);
+            super((DataSource) null);
         }
 
         @Override
@@ -177,6 +298,7 @@ public class UserServiceTest {
 
         @Override
         public User findByToken(String token) {
+            findByTokenCalls++;
             return byId.values().stream()
                     .filter(u -> token.equals(u.getToken()))
                     .findFirst()
@@ -189,32 +311,40 @@ public class UserServiceTest {
         }
 
         @Override
-        public void updateProfile(int userId, String email, String favoriteGenre) {
-            User stored = byId.get(userId);
-            if (stored != null) {
-                stored.setEmail(email);
-                stored.setFavoriteGenre(favoriteGenre);
-            }
+        public long findTokensNotBefore(int userId) {
+            notBeforeLoads++;
+            return tokensNotBefore.getOrDefault(userId, 0L);
         }
-    }
-
-    // Fake-Repository für Rating-Stats (ohne DB).
-    static class FakeRatingRepository extends RatingRepository {
-        int countByUserValue = 0;
-        double avgByUserValue = 0.0;
 
-        FakeRatingRepository() {
-            super((Connection) null);
+        @Override
+        public void updateTokensNotBefore(int userId, long notBefore) {
+            tokensNotBefore.merge(userId, notBefore, Math::max);
         }
 
         @Override
-        public int countByUser(int userId) throws SQLException {
-            return countByUserValue;
+        public UserProfileResponse findProfile(int userId) {
+            User user = byId.get(userId);
+            if (user == null) {
+                return null;
+            }
+            UserStats userStats = stats.getOrDefault(userId, new UserStats());
+            UserProfileResponse profile = new UserProfileResponse();
+            profile.setId(user.getId());
+            profile.setUsername(user.getUsername());
+            profile.setTotalRatings(userStats.getRatingCount());
+            profile.setAverageScore(userStats.getAverageScore());
+            profile.setLikesReceived(userStats.getLikesReceived());
+            profile.setFavoritesCount(userStats.getFavoritesCount());
+            return profile;
         }
 
         @Override
-        public double averageByUser(int userId) throws SQLException {
-            return avgByUserValue;
+        public void updateProfile(int userId, String email, String favoriteGenre) {
+            User stored = byId.get(userId);
+            if (stored != null) {
+                stored.setEmail(email);
+                stored.setFavoriteGenre(favoriteGenre);
+            }
         }
     }
 }